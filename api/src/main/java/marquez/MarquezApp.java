@@ -26,14 +26,22 @@ import java.util.EnumSet;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import marquez.api.filter.JobRedirectFilter;
+import marquez.api.filter.RawEventReaderInterceptor;
 import marquez.api.filter.exclusions.Exclusions;
 import marquez.api.filter.exclusions.ExclusionsConfig;
+import marquez.cli.BulkLoadCommand;
 import marquez.cli.DbMigrateCommand;
+import marquez.cli.DbPartitionCommand;
 import marquez.cli.DbRetentionCommand;
 import marquez.cli.MetadataCommand;
+import marquez.cli.ReprojectCommand;
 import marquez.cli.SeedCommand;
 import marquez.common.Utils;
 import marquez.db.DbMigration;
+import marquez.db.FacetUtils;
+import marquez.db.ModelChanges;
+import marquez.db.UpsertCache;
+import marquez.jobs.DbPartitionJob;
 import marquez.jobs.DbRetentionJob;
 import marquez.jobs.MaterializeViewRefresherJob;
 import marquez.logging.DelegatingSqlLogger;
@@ -94,9 +102,12 @@ public final class MarquezApp extends Application<MarquezConfig> {
             bootstrap.getConfigurationSourceProvider(),
             new EnvironmentVariableSubstitutor(ERROR_ON_UNDEFINED)));
 
+    bootstrap.addCommand(new BulkLoadCommand());
     bootstrap.addCommand(new DbMigrateCommand());
+    bootstrap.addCommand(new DbPartitionCommand());
     bootstrap.addCommand(new DbRetentionCommand());
     bootstrap.addCommand(new MetadataCommand());
+    bootstrap.addCommand(new ReprojectCommand());
     bootstrap.addCommand(new SeedCommand());
 
     bootstrap.getObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -146,21 +157,45 @@ public final class MarquezApp extends Application<MarquezConfig> {
         MarquezContext.builder()
             .jdbi(jdbi)
             .searchConfig(config.getSearchConfig())
+            .ingestionConfig(config.getIngestion())
+            .lineageConfig(config.getLineage())
             .tags(config.getTags())
             .build();
 
     registerResources(config, env, marquezContext);
     registerServlets(env);
-    registerFilters(env, marquezContext);
+    registerFilters(env, config, marquezContext);
 
     if (config.hasDbRetentionPolicy()) {
       env.lifecycle().manage(new DbRetentionJob(jdbi, config.getDbRetention()));
     }
 
     env.lifecycle().manage(new MaterializeViewRefresherJob(jdbi));
+    env.lifecycle().manage(new DbPartitionJob(jdbi));
+
+    if (marquezContext.getIngestionQueue() != null) {
+      env.lifecycle().manage(marquezContext.getIngestionQueue());
+    }
+
+    if (marquezContext.getEventProjector() != null) {
+      env.lifecycle().manage(marquezContext.getEventProjector());
+    }
+
+    if (marquezContext.getLineageGraphIndex() != null) {
+      env.lifecycle().manage(marquezContext.getLineageGraphIndex());
+    }
+
+    if (marquezContext.getChangeFeedService() != null) {
+      env.lifecycle().manage(marquezContext.getChangeFeedService());
+    }
 
     ExclusionsConfig exclusions = config.getExclude();
     Exclusions.use(exclusions);
+
+    UpsertCache.use(config.getIngestion().getCache());
+    FacetUtils.use(config.getIngestion().getCompression());
+    FacetUtils.useDeduplication(config.getIngestion().isDeduplicateFacets());
+    ModelChanges.use(config.getIngestion().getChangeFeed().isEnabled());
   }
 
   private boolean isSentryEnabled(MarquezConfig config) {
@@ -212,10 +247,14 @@ public final class MarquezApp extends Application<MarquezConfig> {
         .addMapping(PROMETHEUS_ENDPOINT_V2);
   }
 
-  private void registerFilters(@NonNull Environment env, MarquezContext marquezContext) {
+  private void registerFilters(
+      @NonNull Environment env, MarquezConfig config, MarquezContext marquezContext) {
     env.jersey().getResourceConfig().register(new LoggingMdcFilter());
     env.jersey()
         .getResourceConfig()
         .register(new JobRedirectFilter(marquezContext.getJobService()));
+    if (config.getIngestion().isRawEvents()) {
+      env.jersey().getResourceConfig().register(new RawEventReaderInterceptor());
+    }
   }
 }
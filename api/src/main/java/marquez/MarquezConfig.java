@@ -15,8 +15,10 @@ import lombok.Setter;
 import marquez.api.filter.exclusions.ExclusionsConfig;
 import marquez.db.FlywayFactory;
 import marquez.graphql.GraphqlConfig;
+import marquez.ingestion.IngestionConfig;
 import marquez.jobs.DbRetentionConfig;
 import marquez.search.SearchConfig;
+import marquez.service.LineageConfig;
 import marquez.service.models.Tag;
 import marquez.tracing.SentryConfig;
 
@@ -49,6 +51,14 @@ public class MarquezConfig extends Configuration {
   @JsonProperty("search")
   private final SearchConfig searchConfig = new SearchConfig();
 
+  @Getter
+  @JsonProperty("ingestion")
+  private final IngestionConfig ingestion = new IngestionConfig();
+
+  @Getter
+  @JsonProperty("lineage")
+  private final LineageConfig lineage = new LineageConfig();
+
   @Getter
   @Setter
   @JsonProperty("dbRetention")
@@ -8,10 +8,12 @@ package marquez;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import jakarta.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.NonNull;
+import marquez.api.ChangeFeedResource;
 import marquez.api.ColumnLineageResource;
 import marquez.api.DatasetResource;
 import marquez.api.FullSearchResource;
@@ -35,6 +37,7 @@ import marquez.db.JobDao;
 import marquez.db.JobFacetsDao;
 import marquez.db.JobVersionDao;
 import marquez.db.LineageDao;
+import marquez.db.ModelChangeDao;
 import marquez.db.NamespaceDao;
 import marquez.db.OpenLineageDao;
 import marquez.db.RunArgsDao;
@@ -48,12 +51,19 @@ import marquez.db.StatsDao;
 import marquez.db.TagDao;
 import marquez.graphql.GraphqlSchemaBuilder;
 import marquez.graphql.MarquezGraphqlServletBuilder;
+import marquez.ingestion.EventProjector;
+import marquez.ingestion.IngestionConfig;
+import marquez.ingestion.IngestionQueue;
 import marquez.search.SearchConfig;
+import marquez.service.ChangeFeedService;
 import marquez.service.ColumnLineageService;
 import marquez.service.DatasetFieldService;
 import marquez.service.DatasetService;
 import marquez.service.DatasetVersionService;
 import marquez.service.JobService;
+import marquez.service.LineageCache;
+import marquez.service.LineageConfig;
+import marquez.service.LineageGraphIndex;
 import marquez.service.LineageService;
 import marquez.service.NamespaceService;
 import marquez.service.OpenLineageService;
@@ -98,10 +108,15 @@ public final class MarquezContext {
   @Getter private final TagService tagService;
   @Getter private final RunService runService;
   @Getter private final OpenLineageService openLineageService;
+  @Getter @Nullable private final IngestionQueue ingestionQueue;
+  @Getter @Nullable private final EventProjector eventProjector;
   @Getter private final LineageService lineageService;
+  @Getter @Nullable private final LineageGraphIndex lineageGraphIndex;
+  @Getter @Nullable private final LineageCache lineageCache;
   @Getter private final ColumnLineageService columnLineageService;
   @Getter private final SearchService searchService;
   @Getter private final StatsService statsService;
+  @Getter @Nullable private final ChangeFeedService changeFeedService;
   @Getter private final NamespaceResource namespaceResource;
   @Getter private final SourceResource sourceResource;
   @Getter private final DatasetResource datasetResource;
@@ -114,6 +129,7 @@ public final class MarquezContext {
   @Getter private final SimpleSearchResource simpleSearchResource;
   @Getter private final FullSearchResource fullSearchResource;
   @Getter private final StatsResource opsResource;
+  @Getter private final ChangeFeedResource changeFeedResource;
   @Getter private final ImmutableList<Object> resources;
   @Getter private final JdbiExceptionExceptionMapper jdbiException;
   @Getter private final JsonProcessingExceptionMapper jsonException;
@@ -123,6 +139,8 @@ public final class MarquezContext {
   private MarquezContext(
       @NonNull final Jdbi jdbi,
       @NonNull final SearchConfig searchConfig,
+      @NonNull final IngestionConfig ingestionConfig,
+      @NonNull final LineageConfig lineageConfig,
       @NonNull final ImmutableSet<Tag> tags,
       List<RunTransitionListener> runTransitionListeners) {
     if (runTransitionListeners == null) {
@@ -151,6 +169,21 @@ public final class MarquezContext {
     this.simpleSearchDao = jdbi.onDemand(SimpleSearchDao.class);
     this.fullSearchDao = jdbi.onDemand(FullSearchDao.class);
     this.statsDao = jdbi.onDemand(StatsDao.class);
+    this.lineageGraphIndex =
+        lineageConfig.getIndex().isEnabled()
+            ? new LineageGraphIndex(lineageDao, jobDao, lineageConfig.getIndex())
+            : null;
+    if (lineageGraphIndex != null) {
+      runTransitionListeners.add(lineageGraphIndex);
+    }
+    // Added after the index, which is notified first.
+    this.lineageCache =
+        lineageConfig.getCache().isEnabled()
+            ? new LineageCache(lineageConfig.getCache(), lineageGraphIndex)
+            : null;
+    if (lineageCache != null) {
+      runTransitionListeners.add(lineageCache);
+    }
     this.runTransitionListeners = runTransitionListeners;
 
     this.namespaceService = new NamespaceService(baseDao);
@@ -161,11 +194,25 @@ public final class MarquezContext {
     this.jobService = new JobService(baseDao, runService);
     this.tagService = new TagService(baseDao);
     this.tagService.init(tags);
-    this.openLineageService = new OpenLineageService(baseDao, runService);
-    this.lineageService = new LineageService(lineageDao, jobDao, runDao);
+    this.openLineageService = new OpenLineageService(baseDao, runService, ingestionConfig);
+    this.ingestionQueue =
+        ingestionConfig.getQueue().isEnabled()
+            ? new IngestionQueue(openLineageService, ingestionConfig.getQueue())
+            : null;
+    this.eventProjector =
+        ingestionConfig.getProjector().isEnabled()
+            ? new EventProjector(openLineageService, ingestionConfig.getProjector())
+            : null;
+    this.lineageService =
+        new LineageService(lineageDao, jobDao, runDao, lineageGraphIndex, lineageCache);
     this.columnLineageService = new ColumnLineageService(columnLineageDao, datasetFieldDao);
     this.searchService = new SearchService(searchConfig);
     this.statsService = new StatsService(statsDao);
+    this.changeFeedService =
+        ingestionConfig.getChangeFeed().isEnabled()
+            ? new ChangeFeedService(
+                jdbi.onDemand(ModelChangeDao.class), ingestionConfig.getChangeFeed())
+            : null;
     this.jdbiException = new JdbiExceptionExceptionMapper();
     this.jsonException = new JsonProcessingExceptionMapper();
     final ServiceFactory serviceFactory =
@@ -190,11 +237,14 @@ public final class MarquezContext {
     this.columnLineageResource = new ColumnLineageResource(serviceFactory);
     this.jobResource = new JobResource(serviceFactory, jobVersionDao, jobFacetsDao, runFacetsDao);
     this.tagResource = new TagResource(serviceFactory);
-    this.openLineageResource = new OpenLineageResource(serviceFactory, openLineageDao);
+    this.openLineageResource =
+        new OpenLineageResource(
+            serviceFactory, openLineageDao, ingestionQueue, ingestionConfig.getMaxBatchSize());
     this.searchResource = new SearchResource(searchDao);
     this.simpleSearchResource = new SimpleSearchResource(simpleSearchDao);
     this.fullSearchResource = new marquez.api.FullSearchResource(fullSearchDao);
     this.opsResource = new StatsResource(serviceFactory);
+    this.changeFeedResource = new ChangeFeedResource(changeFeedService);
     this.v2BetasearchResource = new marquez.api.v2beta.SearchResource(serviceFactory);
 
     this.resources =
@@ -212,7 +262,8 @@ public final class MarquezContext {
             simpleSearchResource,
             fullSearchResource,
             v2BetasearchResource,
-            opsResource);
+            opsResource,
+            changeFeedResource);
 
     final MarquezGraphqlServletBuilder servlet = new MarquezGraphqlServletBuilder();
     this.graphqlServlet = servlet.getServlet(new GraphqlSchemaBuilder(jdbi));
@@ -226,10 +277,14 @@ public final class MarquezContext {
 
     private Jdbi jdbi;
     private SearchConfig searchConfig;
+    private IngestionConfig ingestionConfig;
+    private LineageConfig lineageConfig;
     private ImmutableSet<Tag> tags;
     private List<RunTransitionListener> runTransitionListeners;
 
     Builder() {
+      this.ingestionConfig = new IngestionConfig();
+      this.lineageConfig = new LineageConfig();
       this.tags = ImmutableSet.of();
       this.runTransitionListeners = new ArrayList<>();
     }
@@ -244,6 +299,16 @@ public final class MarquezContext {
       return this;
     }
 
+    public Builder ingestionConfig(@NonNull IngestionConfig ingestionConfig) {
+      this.ingestionConfig = ingestionConfig;
+      return this;
+    }
+
+    public Builder lineageConfig(@NonNull LineageConfig lineageConfig) {
+      this.lineageConfig = lineageConfig;
+      return this;
+    }
+
     public Builder tags(@NonNull ImmutableSet<Tag> tags) {
       this.tags = tags;
       return this;
@@ -260,7 +325,8 @@ public final class MarquezContext {
     }
 
     public MarquezContext build() {
-      return new MarquezContext(jdbi, searchConfig, tags, runTransitionListeners);
+      return new MarquezContext(
+          jdbi, searchConfig, ingestionConfig, lineageConfig, tags, runTransitionListeners);
     }
   }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.api;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.ResponseMetered;
+import com.codahale.metrics.annotation.Timed;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.List;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import marquez.db.ModelChangeDao.ModelChangeRow;
+import marquez.service.ChangeFeedService;
+import marquez.service.ChangeFeedService.Position;
+
+@Slf4j
+@Path("/api/v1/changes")
+public class ChangeFeedResource {
+  private static final String DEFAULT_LIMIT = "100";
+  private static final long MAX_LIMIT = 1000;
+  private static final String DEFAULT_TIMEOUT_MS = "30000";
+  private static final long MAX_TIMEOUT_MS = 60000;
+
+  @Nullable private final ChangeFeedService changeFeedService;
+
+  /** Serves the change feed, or {@code 404} when the change feed is disabled. */
+  public ChangeFeedResource(@Nullable final ChangeFeedService changeFeedService) {
+    this.changeFeedService = changeFeedService;
+  }
+
+  /**
+   * Returns the changes to jobs and datasets recorded after the position {@code after}; when none
+   * are available, waits up to {@code timeoutMs} for new changes (long poll). Clients resume from
+   * the {@code next} position returned, which is the position of the last change returned.
+   */
+  @Timed
+  @ResponseMetered
+  @ExceptionMetered
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public void changes(
+      @QueryParam("after") @DefaultValue("0.0") String after,
+      @QueryParam("limit") @DefaultValue(DEFAULT_LIMIT) @Min(1) @Max(MAX_LIMIT) int limit,
+      @QueryParam("timeoutMs") @DefaultValue(DEFAULT_TIMEOUT_MS) @Min(0) @Max(MAX_TIMEOUT_MS)
+          long timeoutMs,
+      @Suspended final AsyncResponse asyncResponse) {
+    if (changeFeedService == null) {
+      throw new NotFoundException("The change feed is disabled, see 'ingestion.changeFeed'");
+    }
+    final Position position;
+    try {
+      position = Position.parse(after);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(String.format("Invalid position '%s'", after), e);
+    }
+    changeFeedService
+        .changesAfter(position, limit, Duration.ofMillis(timeoutMs))
+        .whenComplete(
+            (changes, err) -> {
+              if (err != null) {
+                log.error("Failed to read changes after {}", after, err);
+                asyncResponse.resume(err);
+              } else {
+                final Position next =
+                    changes.isEmpty() ? position : Position.of(changes.get(changes.size() - 1));
+                asyncResponse.resume(
+                    Response.ok(new Changes(changes, next.toString())).build());
+              }
+            });
+  }
+
+  @Value
+  static class Changes {
+    @NonNull List<ModelChangeRow> changes;
+    @NonNull String next;
+  }
+}
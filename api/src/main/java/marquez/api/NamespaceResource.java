@@ -30,6 +30,7 @@ import marquez.api.exceptions.NamespaceNotFoundException;
 import marquez.api.filter.exclusions.Exclusions;
 import marquez.api.filter.exclusions.ExclusionsConfig;
 import marquez.common.models.NamespaceName;
+import marquez.db.UpsertCache;
 import marquez.service.ServiceFactory;
 import marquez.service.models.Namespace;
 import marquez.service.models.NamespaceMeta;
@@ -102,6 +103,7 @@ public class NamespaceResource extends BaseResource {
     datasetService.deleteByNamespaceName(namespace.getName().getValue());
     jobService.deleteByNamespaceName(namespace.getName().getValue());
     namespaceService.delete(namespace.getName().getValue());
+    UpsertCache.invalidateNamespace(namespace.getName().getValue());
     return Response.ok(namespace).build();
   }
 
@@ -5,18 +5,26 @@
 
 package marquez.api;
 
+import static jakarta.ws.rs.core.Response.Status.ACCEPTED;
 import static jakarta.ws.rs.core.Response.Status.BAD_REQUEST;
 import static jakarta.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static jakarta.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static jakarta.ws.rs.core.Response.Status.TOO_MANY_REQUESTS;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.ResponseMetered;
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.dropwizard.jersey.jsr310.ZonedDateTimeParam;
+import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
@@ -26,22 +34,40 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.container.AsyncResponse;
 import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
 import lombok.NonNull;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import marquez.api.models.EventsCursor;
 import marquez.api.models.SortDirection;
+import marquez.common.Utils;
 import marquez.common.models.RunId;
+import marquez.db.FacetUtils;
 import marquez.db.OpenLineageDao;
+import marquez.db.OpenLineageDao.LineageEventRow;
+import marquez.ingestion.IngestionConfig;
+import marquez.ingestion.IngestionQueue;
+import marquez.service.OpenLineageService.BatchEventResult;
 import marquez.service.ServiceFactory;
 import marquez.service.models.BaseEvent;
 import marquez.service.models.DatasetEvent;
 import marquez.service.models.JobEvent;
+import marquez.service.models.LineageDirection;
 import marquez.service.models.LineageEvent;
 import marquez.service.models.NodeId;
 
@@ -49,13 +75,34 @@ import marquez.service.models.NodeId;
 @Path("/api/v1")
 public class OpenLineageResource extends BaseResource {
   private static final String DEFAULT_DEPTH = "20";
+  private static final String NDJSON = "application/x-ndjson";
+  private static final int EXPORT_FETCH_SIZE = 1000;
 
   private final OpenLineageDao openLineageDao;
+  @Nullable private final IngestionQueue ingestionQueue;
+  private final int maxBatchSize;
 
   public OpenLineageResource(
       @NonNull final ServiceFactory serviceFactory, @NonNull final OpenLineageDao openLineageDao) {
+    this(serviceFactory, openLineageDao, null);
+  }
+
+  public OpenLineageResource(
+      @NonNull final ServiceFactory serviceFactory,
+      @NonNull final OpenLineageDao openLineageDao,
+      @Nullable final IngestionQueue ingestionQueue) {
+    this(serviceFactory, openLineageDao, ingestionQueue, IngestionConfig.MAX_BATCH_SIZE);
+  }
+
+  public OpenLineageResource(
+      @NonNull final ServiceFactory serviceFactory,
+      @NonNull final OpenLineageDao openLineageDao,
+      @Nullable final IngestionQueue ingestionQueue,
+      final int maxBatchSize) {
     super(serviceFactory);
     this.openLineageDao = openLineageDao;
+    this.ingestionQueue = ingestionQueue;
+    this.maxBatchSize = maxBatchSize;
   }
 
   @Timed
@@ -67,7 +114,18 @@ public class OpenLineageResource extends BaseResource {
   @Path("/lineage")
   public void create(@Valid @NotNull BaseEvent event, @Suspended final AsyncResponse asyncResponse)
       throws JsonProcessingException, SQLException {
-    if (event instanceof LineageEvent) {
+    if (ingestionQueue != null && isSupported(event)) {
+      if (event instanceof LineageEvent && serviceFactory.getSearchService().isEnabled()) {
+        serviceFactory.getSearchService().indexEvent((LineageEvent) event);
+      }
+      final OptionalInt position = ingestionQueue.enqueue(event);
+      if (position.isPresent()) {
+        asyncResponse.resume(
+            Response.status(ACCEPTED).entity(new Enqueued(position.getAsInt())).build());
+      } else {
+        asyncResponse.resume(Response.status(TOO_MANY_REQUESTS).build());
+      }
+    } else if (event instanceof LineageEvent) {
       if (serviceFactory.getSearchService().isEnabled()) {
         serviceFactory.getSearchService().indexEvent((LineageEvent) event);
       }
@@ -90,6 +148,100 @@ public class OpenLineageResource extends BaseResource {
     }
   }
 
+  /**
+   * Receives a batch of OpenLineage events as a JSON array. Events are created in the order they
+   * appear in the array and the response contains the status of each event at the same index.
+   *
+   * <p>When the ingestion queue is enabled, events are enqueued in order, and written by the
+   * workers of the queue; the batch is accepted (202) once all events have been enqueued. Once an
+   * event has been rejected because the queue is full, the events following it are rejected as
+   * well, so that the events of a run are never written out of order; the batch is then rejected
+   * (429), and the events accepted are those with a 202 status.
+   *
+   * <p>A batch holding more than {@code ingestion.maxBatchSize} events is rejected (413) as a
+   * whole. Newline-delimited JSON ({@code application/x-ndjson}) is not accepted, as events would
+   * then bypass bean validation; clients send a JSON array instead.
+   */
+  @Timed
+  @ResponseMetered
+  @ExceptionMetered
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("/lineage/batch")
+  public void createBatch(
+      @Valid @NotNull List<BaseEvent> events, @Suspended final AsyncResponse asyncResponse) {
+    if (events.size() > maxBatchSize) {
+      throw new ClientErrorException(
+          String.format(
+              "Batch of '%d' events exceeds the maximum batch size of '%d' events",
+              events.size(), maxBatchSize),
+          REQUEST_ENTITY_TOO_LARGE);
+    }
+    if (serviceFactory.getSearchService().isEnabled()) {
+      events.stream()
+          .filter(event -> event instanceof LineageEvent)
+          .forEach(event -> serviceFactory.getSearchService().indexEvent((LineageEvent) event));
+    }
+    if (ingestionQueue != null) {
+      asyncResponse.resume(enqueueAll(events));
+      return;
+    }
+    openLineageService
+        .createAllAsync(events)
+        .whenComplete(
+            (results, err) -> {
+              if (err != null) {
+                log.error("Unexpected error while processing batch request", err);
+                asyncResponse.resume(Response.status(determineStatusCode(err)).build());
+              } else {
+                asyncResponse.resume(Response.ok(toBatchResults(events, results)).build());
+              }
+            });
+  }
+
+  private Response enqueueAll(List<BaseEvent> events) {
+    final List<BatchResult> batchResults = new ArrayList<>(events.size());
+    boolean rejected = false;
+    for (int index = 0; index < events.size(); index++) {
+      final BaseEvent event = events.get(index);
+      if (!isSupported(event)) {
+        batchResults.add(new BatchResult(index, 200, null));
+      } else if (rejected || ingestionQueue.enqueue(event).isEmpty()) {
+        rejected = true;
+        batchResults.add(
+            new BatchResult(index, TOO_MANY_REQUESTS.getStatusCode(), "Ingestion queue is full"));
+      } else {
+        batchResults.add(new BatchResult(index, ACCEPTED.getStatusCode(), null));
+      }
+    }
+    return Response.status(rejected ? TOO_MANY_REQUESTS : ACCEPTED)
+        .entity(new BatchResults(batchResults))
+        .build();
+  }
+
+  private BatchResults toBatchResults(List<BaseEvent> events, List<BatchEventResult> results) {
+    final List<BatchResult> batchResults = new ArrayList<>(results.size());
+    for (int index = 0; index < results.size(); index++) {
+      final BatchEventResult result = results.get(index);
+      if (result.isSuccess()) {
+        batchResults.add(
+            new BatchResult(index, isSupported(events.get(index)) ? 201 : 200, null));
+      } else {
+        batchResults.add(
+            new BatchResult(
+                index, determineStatusCode(result.error()), result.error().getMessage()));
+      }
+    }
+    return new BatchResults(batchResults);
+  }
+
+  private static boolean isSupported(BaseEvent event) {
+    return event instanceof LineageEvent
+        || event instanceof DatasetEvent
+        || event instanceof JobEvent;
+  }
+
   private void onComplete(Void result, Throwable err, AsyncResponse asyncResponse) {
     if (err != null) {
       log.error("Unexpected error while processing request", err);
@@ -117,9 +269,11 @@ public class OpenLineageResource extends BaseResource {
   @Path("/lineage")
   public Response getLineage(
       @QueryParam("nodeId") @NotNull NodeId nodeId,
-      @QueryParam("depth") @DefaultValue(DEFAULT_DEPTH) int depth) {
+      @QueryParam("depth") @DefaultValue(DEFAULT_DEPTH) int depth,
+      @QueryParam("direction") @DefaultValue("BOTH") LineageDirection direction,
+      @QueryParam("maxNodes") @Min(1) Integer maxNodes) {
     throwIfNotExists(nodeId);
-    return Response.ok(lineageService.lineage(nodeId, depth)).build();
+    return Response.ok(lineageService.lineage(nodeId, depth, direction, maxNodes)).build();
   }
 
   @Timed
@@ -133,16 +287,116 @@ public class OpenLineageResource extends BaseResource {
       @QueryParam("after") @DefaultValue("1970-01-01T00:00:00+00:00") ZonedDateTimeParam after,
       @QueryParam("sortDirection") @DefaultValue("desc") SortDirection sortDirection,
       @QueryParam("limit") @DefaultValue("100") @Min(value = 0) int limit,
-      @QueryParam("offset") @DefaultValue("0") @Min(value = 0) int offset) {
+      @QueryParam("offset") @DefaultValue("0") @Min(value = 0) int offset,
+      @QueryParam("cursor") @Nullable String cursor,
+      @QueryParam("includeTotalCount") @DefaultValue("true") boolean includeTotalCount) {
+    if (cursor != null && offset > 0) {
+      return Response.status(BAD_REQUEST)
+          .entity("Only one of 'cursor' and 'offset' can be provided")
+          .build();
+    }
     List<LineageEvent> events = Collections.emptyList();
-    switch (sortDirection) {
-      case DESC ->
-          events = openLineageDao.getAllLineageEventsDesc(before.get(), after.get(), limit, offset);
-      case ASC ->
-          events = openLineageDao.getAllLineageEventsAsc(before.get(), after.get(), limit, offset);
+    String nextCursor = null;
+    if (offset > 0) {
+      switch (sortDirection) {
+        case DESC ->
+            events =
+                openLineageDao.getAllLineageEventsDesc(before.get(), after.get(), limit, offset);
+        case ASC ->
+            events =
+                openLineageDao.getAllLineageEventsAsc(before.get(), after.get(), limit, offset);
+      }
+    } else {
+      // Fetch the page following the cursor; without a cursor, the first page.
+      final EventsCursor from;
+      if (cursor != null) {
+        try {
+          from = EventsCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+          return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
+        }
+      } else if (sortDirection == SortDirection.DESC) {
+        from = new EventsCursor(before.get().toInstant(), 0);
+      } else {
+        from = new EventsCursor(after.get().toInstant(), -1);
+      }
+      final List<LineageEventRow> rows =
+          switch (sortDirection) {
+            case DESC ->
+                openLineageDao.getLineageEventsDesc(
+                    before.get(), after.get(), from.getEventTime(), from.getSeq(), limit);
+            case ASC ->
+                openLineageDao.getLineageEventsAsc(
+                    before.get(), after.get(), from.getEventTime(), from.getSeq(), limit);
+          };
+      events = rows.stream().map(LineageEventRow::event).toList();
+      if (limit > 0 && rows.size() == limit) {
+        nextCursor = EventsCursor.after(rows.get(rows.size() - 1)).encode();
+      }
+    }
+    // Counting events scans the whole range; clients paging through events may skip it.
+    final Integer totalCount =
+        includeTotalCount
+            ? openLineageDao.getAllLineageTotalCount(before.get(), after.get())
+            : null;
+    return Response.ok(new Events(events, totalCount, nextCursor)).build();
+  }
+
+  /**
+   * Exports the raw events received within the provided time range as newline delimited JSON, one
+   * event per line in order of event time; events are written as rows are read, and are never held
+   * in memory all at once. Optionally, events are filtered by job namespace, and the response is
+   * compressed with gzip.
+   */
+  @Timed
+  @ResponseMetered
+  @ExceptionMetered
+  @GET
+  @Path("/events/lineage/export")
+  @Produces(NDJSON)
+  public Response exportLineageEvents(
+      @QueryParam("before") @DefaultValue("2030-01-01T00:00:00+00:00") ZonedDateTimeParam before,
+      @QueryParam("after") @DefaultValue("1970-01-01T00:00:00+00:00") ZonedDateTimeParam after,
+      @QueryParam("namespace") @Nullable String namespace,
+      @QueryParam("gzip") @DefaultValue("false") boolean gzip) {
+    final StreamingOutput export =
+        out -> {
+          try (Writer writer =
+              new BufferedWriter(
+                  new OutputStreamWriter(gzip ? new GZIPOutputStream(out) : out, UTF_8))) {
+            openLineageDao.streamLineageEvents(
+                before.get(),
+                after.get(),
+                namespace,
+                EXPORT_FETCH_SIZE,
+                event -> {
+                  try {
+                    writer.write(toExportedEvent(event));
+                    writer.write('\n');
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+          } catch (UncheckedIOException e) {
+            // Writing failed (for example, the client is gone); stop reading events.
+            throw e.getCause();
+          }
+        };
+    final Response.ResponseBuilder response = Response.ok(export, NDJSON);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.build();
+  }
+
+  /** Returns the provided raw event, with compressed facets (if any) expanded. */
+  private static String toExportedEvent(String event) throws IOException {
+    if (!event.contains(FacetUtils.COMPRESSED)) {
+      return event;
     }
-    int totalCount = openLineageDao.getAllLineageTotalCount(before.get(), after.get());
-    return Response.ok(new Events(events, totalCount)).build();
+    final JsonNode json = Utils.getMapper().readTree(event);
+    FacetUtils.decompressFacets(json);
+    return Utils.getMapper().writeValueAsString(json);
   }
 
   /**
@@ -167,12 +421,37 @@ public class OpenLineageResource extends BaseResource {
     return Response.ok(lineageService.upstream(runId, depth)).build();
   }
 
+  @Value
+  static class BatchResults {
+    @NonNull
+    @JsonProperty("results")
+    List<BatchResult> value;
+  }
+
+  @Value
+  static class BatchResult {
+    int index;
+    int status;
+    @Nullable String error;
+  }
+
+  @Value
+  static class Enqueued {
+    int position;
+  }
+
   @Value
   static class Events {
     @NonNull
     @JsonProperty("events")
     List<LineageEvent> value;
 
-    int totalCount;
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer totalCount;
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String nextCursor;
   }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.api.filter;
+
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import marquez.service.models.BaseEvent;
+
+/**
+ * Keeps the request payload of a {@link BaseEvent} so that the event can be stored verbatim as the
+ * raw event. The payload is read once into memory, then bound to the event from that same buffer;
+ * other entities are read as they are streamed.
+ */
+public class RawEventReaderInterceptor implements ReaderInterceptor {
+  @Override
+  public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+    if (!BaseEvent.class.isAssignableFrom(context.getType())) {
+      return context.proceed();
+    }
+    final byte[] rawEvent = context.getInputStream().readAllBytes();
+    context.setInputStream(new ByteArrayInputStream(rawEvent));
+    final Object entity = context.proceed();
+    if (entity instanceof BaseEvent) {
+      ((BaseEvent) entity).setRawEvent(rawEvent);
+    }
+    return entity;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.api.models;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.util.Base64;
+import lombok.NonNull;
+import lombok.Value;
+import marquez.db.OpenLineageDao.LineageEventRow;
+
+/**
+ * The position of a lineage event, from which the next page of lineage events is fetched. Cursors
+ * are opaque to clients; the encoding may change between releases.
+ */
+@Value
+public class EventsCursor {
+  private static final String SEPARATOR = ",";
+
+  @NonNull Instant eventTime;
+  long seq;
+
+  /** Returns the cursor to the page of lineage events following the provided event. */
+  public static EventsCursor after(@NonNull final LineageEventRow row) {
+    return new EventsCursor(row.eventTime(), row.seq());
+  }
+
+  /** Returns the cursor encoded as an opaque, URL safe string. */
+  public String encode() {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((eventTime + SEPARATOR + seq).getBytes(UTF_8));
+  }
+
+  /**
+   * Returns the cursor decoded from the provided string.
+   *
+   * @throws IllegalArgumentException if the string is not a cursor.
+   */
+  public static EventsCursor decode(@NonNull final String cursor) {
+    try {
+      final String[] position =
+          new String(Base64.getUrlDecoder().decode(cursor), UTF_8).split(SEPARATOR, 2);
+      return new EventsCursor(Instant.parse(position[0]), Long.parseLong(position[1]));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(String.format("Invalid cursor '%s'", cursor), e);
+    }
+  }
+}
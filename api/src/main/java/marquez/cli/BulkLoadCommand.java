@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.cli;
+
+import static marquez.db.BulkLoader.DEFAULT_EVENTS_PER_BATCH;
+
+import io.dropwizard.core.cli.ConfiguredCommand;
+import io.dropwizard.core.setup.Bootstrap;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.db.ManagedDataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.MarquezConfig;
+import marquez.common.Utils;
+import marquez.db.BulkLoader;
+import marquez.db.FacetUtils;
+import marquez.db.ModelChanges;
+import marquez.db.UpsertCache;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.jackson2.Jackson2Config;
+import org.jdbi.v3.jackson2.Jackson2Plugin;
+import org.jdbi.v3.postgres.PostgresPlugin;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+
+/**
+ * A command to backfill a history of <a href="https://openlineage.io">OpenLineage</a> events
+ * directly into the database, rather than emitting the events one by one to the HTTP API as the
+ * {@code seed} command does. Events must be defined as newline-delimited Json files, with a single
+ * event per line; see {@link BulkLoader}.
+ *
+ * <p><b>Note:</b> Run transition listeners (such as search indexing) are not notified of loaded
+ * events, and the events of a run should be close together within the files, as events are only
+ * grouped by run within a batch.
+ *
+ * <h2>Usage</h2>
+ *
+ * For example, to load all files of a directory, resuming from a previous load if interrupted:
+ *
+ * <pre>{@code
+ * java -jar marquez-api.jar bulk-load --events events/ --checkpoint load.checkpoint marquez.yml
+ * }</pre>
+ */
+@Slf4j
+public class BulkLoadCommand extends ConfiguredCommand<MarquezConfig> {
+  private static final String DB_SOURCE_NAME = "ad-hoc-bulk-load-source";
+
+  /* Args for 'bulk-load' command. */
+  private static final String CMD_ARG_EVENTS = "events";
+  private static final String CMD_ARG_CHECKPOINT = "checkpoint";
+  private static final String CMD_ARG_EVENTS_PER_BATCH = "eventsPerBatch";
+
+  /* Define 'bulk-load' command. */
+  public BulkLoadCommand() {
+    super("bulk-load", "load OpenLineage events from newline-delimited json files into database");
+  }
+
+  @Override
+  public void configure(@NonNull Subparser subparser) {
+    super.configure(subparser);
+    // Arg '--events'
+    subparser
+        .addArgument("--events")
+        .dest(CMD_ARG_EVENTS)
+        .type(String.class)
+        .nargs("+")
+        .required(true)
+        .help("the files, or directories of files, of events (ex: path/to/events.ndjson)");
+    // Arg '--checkpoint'
+    subparser
+        .addArgument("--checkpoint")
+        .dest(CMD_ARG_CHECKPOINT)
+        .type(String.class)
+        .required(false)
+        .help("the file the progress of the load is written to, and resumed from");
+    // Arg '--events-per-batch'
+    subparser
+        .addArgument("--events-per-batch")
+        .dest(CMD_ARG_EVENTS_PER_BATCH)
+        .type(Integer.class)
+        .required(false)
+        .setDefault(DEFAULT_EVENTS_PER_BATCH)
+        .help("the number of events loaded per transaction");
+  }
+
+  @Override
+  protected void run(
+      @NonNull Bootstrap<MarquezConfig> bootstrap,
+      @NonNull Namespace namespace,
+      @NonNull MarquezConfig config)
+      throws Exception {
+    final List<Path> events =
+        namespace.<String>getList(CMD_ARG_EVENTS).stream()
+            .map(Paths::get)
+            .collect(Collectors.toList());
+    final String checkpoint = namespace.getString(CMD_ARG_CHECKPOINT);
+    final int eventsPerBatch = namespace.getInt(CMD_ARG_EVENTS_PER_BATCH);
+
+    // Configure connection.
+    final DataSourceFactory sourceFactory = config.getDataSourceFactory();
+    final ManagedDataSource source =
+        sourceFactory.build(bootstrap.getMetricRegistry(), DB_SOURCE_NAME);
+
+    // Open connection.
+    final Jdbi jdbi =
+        Jdbi.create(source)
+            .installPlugin(new SqlObjectPlugin())
+            .installPlugin(new PostgresPlugin())
+            .installPlugin(new Jackson2Plugin());
+    jdbi.getConfig(Jackson2Config.class).setMapper(Utils.getMapper());
+
+    // Write facets as the server would.
+    UpsertCache.use(config.getIngestion().getCache());
+    FacetUtils.use(config.getIngestion().getCompression());
+    FacetUtils.useDeduplication(config.getIngestion().isDeduplicateFacets());
+    ModelChanges.use(config.getIngestion().getChangeFeed().isEnabled());
+
+    new BulkLoader(
+            jdbi,
+            eventsPerBatch,
+            config.getIngestion().isRawEvents(),
+            checkpoint == null ? null : Paths.get(checkpoint))
+        .load(events);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.cli;
+
+import static marquez.db.DbPartitions.DEFAULT_DAYS_AHEAD;
+
+import io.dropwizard.core.cli.ConfiguredCommand;
+import io.dropwizard.core.setup.Bootstrap;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.db.ManagedDataSource;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.MarquezConfig;
+import marquez.db.DbPartitions;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.postgres.PostgresPlugin;
+
+/**
+ * A command to partition {@code lineage_events} and the facet tables by day, on the time of the
+ * lineage event; see {@link DbPartitions}. Once partitioned, partitions are created ahead of time
+ * by Marquez, and expired partitions are dropped as a whole by the retention policy.
+ *
+ * <h2>Usage</h2>
+ *
+ * Tables are locked while partitioned; Marquez should be stopped beforehand. For example:
+ *
+ * <pre>{@code
+ * java -jar marquez-api.jar db-partition marquez.yml
+ * }</pre>
+ */
+@Slf4j
+public class DbPartitionCommand extends ConfiguredCommand<MarquezConfig> {
+  private static final String DB_SOURCE_NAME = "ad-hoc-db-partition-source";
+
+  /* Args for 'db-partition' command. */
+  private static final String CMD_ARG_DAYS_AHEAD = "daysAhead";
+
+  /* Define 'db-partition' command. */
+  public DbPartitionCommand() {
+    super("db-partition", "partition lineage events and facets by day directly in database");
+  }
+
+  @Override
+  public void configure(@NonNull Subparser subparser) {
+    super.configure(subparser);
+    // Arg '--days-ahead'
+    subparser
+        .addArgument("--days-ahead")
+        .dest(CMD_ARG_DAYS_AHEAD)
+        .type(Integer.class)
+        .required(false)
+        .setDefault(DEFAULT_DAYS_AHEAD)
+        .help("the number of days to create partitions ahead of");
+  }
+
+  @Override
+  protected void run(
+      @NonNull Bootstrap<MarquezConfig> bootstrap,
+      @NonNull Namespace namespace,
+      @NonNull MarquezConfig config)
+      throws Exception {
+    final int daysAhead = namespace.getInt(CMD_ARG_DAYS_AHEAD);
+
+    // Configure connection.
+    final DataSourceFactory sourceFactory = config.getDataSourceFactory();
+    final ManagedDataSource source =
+        sourceFactory.build(bootstrap.getMetricRegistry(), DB_SOURCE_NAME);
+
+    // Open connection.
+    final Jdbi jdbi = Jdbi.create(source);
+    jdbi.installPlugin(new PostgresPlugin()); // Add postgres support.
+
+    DbPartitions.partition(jdbi, daysAhead);
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.cli;
+
+import static marquez.db.Reprojector.DEFAULT_EVENTS_PER_CHUNK;
+import static marquez.db.Reprojector.DEFAULT_SOURCE_SCHEMA;
+import static marquez.db.Reprojector.DEFAULT_WORKERS;
+
+import io.dropwizard.core.cli.ConfiguredCommand;
+import io.dropwizard.core.setup.Bootstrap;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.db.ManagedDataSource;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.MarquezConfig;
+import marquez.common.Utils;
+import marquez.db.FacetUtils;
+import marquez.db.FlywayFactory;
+import marquez.db.ModelChanges;
+import marquez.db.Reprojector;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationState;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.jackson2.Jackson2Config;
+import org.jdbi.v3.jackson2.Jackson2Plugin;
+import org.jdbi.v3.postgres.PostgresPlugin;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+
+/**
+ * A command to rebuild the Marquez model from the raw events stored in {@code lineage_events}, in
+ * parallel; see {@link Reprojector}. The model of a target schema, migrated beforehand to the
+ * current version, is built alongside the live one; for example, to recover from a projection bug,
+ * or for a blue/green upgrade of the model.
+ *
+ * <h2>Usage</h2>
+ *
+ * For example, to build the model of schema {@code marquez_green} with 8 workers:
+ *
+ * <pre>{@code
+ * java -jar marquez-api.jar reproject --workers 8 --target-schema marquez_green marquez.yml
+ * }</pre>
+ */
+@Slf4j
+public class ReprojectCommand extends ConfiguredCommand<MarquezConfig> {
+  private static final String DB_SOURCE_NAME = "ad-hoc-reproject-source";
+
+  /* Args for 'reproject' command. */
+  private static final String CMD_ARG_WORKERS = "workers";
+  private static final String CMD_ARG_EVENTS_PER_CHUNK = "eventsPerChunk";
+  private static final String CMD_ARG_SOURCE_SCHEMA = "sourceSchema";
+  private static final String CMD_ARG_TARGET_SCHEMA = "targetSchema";
+  private static final String CMD_ARG_CHECKPOINT = "checkpoint";
+
+  /* Define 'reproject' command. */
+  public ReprojectCommand() {
+    super("reproject", "rebuild the model from raw lineage events stored in database");
+  }
+
+  @Override
+  public void configure(@NonNull Subparser subparser) {
+    super.configure(subparser);
+    // Arg '--workers'
+    subparser
+        .addArgument("--workers")
+        .dest(CMD_ARG_WORKERS)
+        .type(Integer.class)
+        .required(false)
+        .setDefault(DEFAULT_WORKERS)
+        .help("the number of workers applying events in parallel, partitioned by run");
+    // Arg '--events-per-chunk'
+    subparser
+        .addArgument("--events-per-chunk")
+        .dest(CMD_ARG_EVENTS_PER_CHUNK)
+        .type(Integer.class)
+        .required(false)
+        .setDefault(DEFAULT_EVENTS_PER_CHUNK)
+        .help("the number of events read at once, then applied by workers");
+    // Arg '--source-schema'
+    subparser
+        .addArgument("--source-schema")
+        .dest(CMD_ARG_SOURCE_SCHEMA)
+        .type(String.class)
+        .required(false)
+        .setDefault(DEFAULT_SOURCE_SCHEMA)
+        .help("the schema to read raw lineage events from");
+    // Arg '--target-schema'
+    subparser
+        .addArgument("--target-schema")
+        .dest(CMD_ARG_TARGET_SCHEMA)
+        .type(String.class)
+        .required(true)
+        .help("the schema to write the model to, migrated beforehand; not the live schema");
+    // Arg '--checkpoint'
+    subparser
+        .addArgument("--checkpoint")
+        .dest(CMD_ARG_CHECKPOINT)
+        .type(String.class)
+        .required(false)
+        .help("the file the progress of the reprojection is written to, and resumed from");
+  }
+
+  @Override
+  protected void run(
+      @NonNull Bootstrap<MarquezConfig> bootstrap,
+      @NonNull Namespace namespace,
+      @NonNull MarquezConfig config)
+      throws Exception {
+    final int workers = namespace.getInt(CMD_ARG_WORKERS);
+    final int eventsPerChunk = namespace.getInt(CMD_ARG_EVENTS_PER_CHUNK);
+    final String sourceSchema = namespace.getString(CMD_ARG_SOURCE_SCHEMA);
+    final String targetSchema = namespace.getString(CMD_ARG_TARGET_SCHEMA);
+    final String checkpoint = namespace.getString(CMD_ARG_CHECKPOINT);
+
+    // Configure connection; one connection per worker, and one to read raw events.
+    final DataSourceFactory sourceFactory = config.getDataSourceFactory();
+    sourceFactory.setMaxSize(Math.max(sourceFactory.getMaxSize(), workers + 1));
+    final ManagedDataSource source =
+        sourceFactory.build(bootstrap.getMetricRegistry(), DB_SOURCE_NAME);
+
+    // Open connection.
+    final Jdbi jdbi =
+        Jdbi.create(source)
+            .installPlugin(new SqlObjectPlugin())
+            .installPlugin(new PostgresPlugin())
+            .installPlugin(new Jackson2Plugin());
+    jdbi.getConfig(Jackson2Config.class).setMapper(Utils.getMapper());
+
+    // Write facets as the server would.
+    FacetUtils.use(config.getIngestion().getCompression());
+    FacetUtils.useDeduplication(config.getIngestion().isDeduplicateFacets());
+    ModelChanges.use(config.getIngestion().getChangeFeed().isEnabled());
+
+    errorOnUnmigratedTargetSchema(config, source, targetSchema);
+
+    new Reprojector(
+            jdbi,
+            workers,
+            eventsPerChunk,
+            sourceSchema,
+            targetSchema,
+            checkpoint == null ? null : Paths.get(checkpoint))
+        .reproject();
+  }
+
+  /** Fails fast if the target schema is not migrated to the current version of the model. */
+  private static void errorOnUnmigratedTargetSchema(
+      MarquezConfig config, DataSource source, String targetSchema) {
+    final FlywayFactory flywayFactory = config.getFlywayFactory();
+    flywayFactory.setSchema(targetSchema);
+    final MigrationInfoService info = flywayFactory.build(source).info();
+    final boolean ahead =
+        Arrays.stream(info.applied())
+            .anyMatch(migration -> migration.getState() == MigrationState.FUTURE_SUCCESS);
+    if (info.current() == null || info.pending().length > 0 || ahead) {
+      throw new FlywayException(
+          String.format(
+              "Target schema '%s' is at version '%s', not at the current version of the model; "
+                  + "migrate it with 'flyway migrate' before reprojecting",
+              targetSchema, info.current() == null ? "none" : info.current().getVersion()));
+    }
+  }
+}
@@ -57,6 +57,9 @@ public interface BaseDao extends SqlObject {
   @CreateSqlObject
   ColumnLineageDao createColumnLineageDao();
 
+  @CreateSqlObject
+  ModelChangeDao createModelChangeDao();
+
   @CreateSqlObject
   DatasetFacetsDao createDatasetFacetsDao();
 
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.common.Utils;
+import marquez.service.models.BaseEvent;
+import marquez.service.models.DatasetEvent;
+import marquez.service.models.JobEvent;
+import marquez.service.models.LineageEvent;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Loads OpenLineage events from newline-delimited JSON files directly into the database, bypassing
+ * the HTTP API; meant for backfilling a large history of events.
+ *
+ * <p>Events are loaded in batches, each within a single transaction: the raw events of a batch are
+ * copied into a staging table using {@code COPY}, then merged into {@code lineage_events} with a
+ * single statement, marked as projected so that the {@link marquez.ingestion.EventProjector} skips
+ * them. The Marquez model is then updated from the events of the batch grouped by run, the events
+ * of a run ordered by event time. Once a batch has been committed, the file and line of its last
+ * event are written to the checkpoint file (if any), so that an interrupted load resumes from the
+ * last committed batch. Raw events stored through the API while a batch is loaded are not
+ * projected until the batch is committed; larger batches load faster, but delay projection longer.
+ */
+@Slf4j
+public class BulkLoader {
+  public static final int DEFAULT_EVENTS_PER_BATCH = 1000;
+
+  private static final String CHECKPOINT_FILE = "file";
+  private static final String CHECKPOINT_LINE = "line";
+
+  private static final String CREATE_STAGING_TABLE =
+      """
+      CREATE TEMPORARY TABLE lineage_events_staging (
+        event_type    TEXT,
+        event_time    TIMESTAMPTZ,
+        run_uuid      UUID,
+        job_name      TEXT,
+        job_namespace TEXT,
+        event         JSONB,
+        producer      TEXT,
+        _event_type   TEXT
+      ) ON COMMIT DROP""";
+
+  private static final String COPY_TO_STAGING_TABLE =
+      "COPY lineage_events_staging FROM STDIN WITH (FORMAT csv)";
+
+  private static final String MERGE_STAGING_TABLE =
+      """
+      INSERT INTO lineage_events (
+        event_type,
+        event_time,
+        run_uuid,
+        job_name,
+        job_namespace,
+        event,
+        producer,
+        _event_type,
+        projected)
+      SELECT
+        event_type, event_time, run_uuid, job_name, job_namespace, event, producer, _event_type,
+        TRUE
+      FROM lineage_events_staging""";
+
+  private final Jdbi jdbi;
+  private final ObjectMapper mapper = Utils.getMapper();
+  private final int eventsPerBatch;
+  private final boolean rawEvents;
+  @Nullable private final Path checkpoint;
+
+  private final Instant startedAt = Instant.now();
+  private long eventsLoaded;
+
+  /**
+   * @param jdbi the database to load events into
+   * @param eventsPerBatch the maximum number of events loaded within a single transaction
+   * @param rawEvents whether the raw events are stored as read, rather than serialized again
+   * @param checkpoint the file the progress of the load is written to, and resumed from
+   */
+  public BulkLoader(
+      @NonNull final Jdbi jdbi,
+      final int eventsPerBatch,
+      final boolean rawEvents,
+      @Nullable final Path checkpoint) {
+    this.jdbi = jdbi;
+    this.eventsPerBatch = eventsPerBatch;
+    this.rawEvents = rawEvents;
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * Loads the events of the provided files, in order of their paths; directories are expanded to
+   * the files they contain. Each line of a file must hold a single event.
+   */
+  public void load(@NonNull List<Path> paths) throws IOException {
+    final List<Path> files = filesOf(paths);
+    final Properties resumeFrom = readCheckpoint();
+    final String resumeFile = resumeFrom.getProperty(CHECKPOINT_FILE);
+    for (final Path file : files) {
+      final String name = file.toString();
+      if (resumeFile != null && name.compareTo(resumeFile) < 0) {
+        log.info("Skipping '{}', already loaded.", file);
+        continue;
+      }
+      final long skipLines =
+          name.equals(resumeFile) ? Long.parseLong(resumeFrom.getProperty(CHECKPOINT_LINE)) : 0;
+      loadFile(file, skipLines);
+    }
+    log.info(
+        "Loaded '{}' events in {} ({} events/s).", eventsLoaded, elapsed(), eventsPerSecond());
+  }
+
+  private void loadFile(Path file, long skipLines) throws IOException {
+    log.info("Loading events from '{}', starting after line {}...", file, skipLines);
+    final List<BaseEvent> batch = new ArrayList<>(eventsPerBatch);
+    long line = 0;
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      String json;
+      while ((json = reader.readLine()) != null) {
+        line++;
+        if (line <= skipLines || json.isBlank()) {
+          continue;
+        }
+        batch.add(toEvent(json, file, line));
+        if (batch.size() == eventsPerBatch) {
+          loadBatch(file, line, batch);
+          batch.clear();
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      loadBatch(file, line, batch);
+    }
+  }
+
+  private BaseEvent toEvent(String json, Path file, long line) {
+    try {
+      final byte[] bytes = json.getBytes(UTF_8);
+      final BaseEvent event = mapper.readValue(bytes, BaseEvent.class);
+      if (rawEvents) {
+        event.setRawEvent(bytes);
+      }
+      return event;
+    } catch (IOException e) {
+      throw new IllegalArgumentException(
+          String.format("Failed to read event at line %d of '%s'", line, file), e);
+    }
+  }
+
+  /** Loads the provided events within a single transaction, then checkpoints {@code line}. */
+  private void loadBatch(Path file, long line, List<BaseEvent> events) {
+    final List<BaseEvent> byRun = groupByRun(events);
+    jdbi.useTransaction(
+        handle -> {
+          final OpenLineageDao dao = handle.attach(OpenLineageDao.class);
+          copyToStaging(handle, dao, byRun);
+          handle.execute(MERGE_STAGING_TABLE);
+          for (final BaseEvent event : byRun) {
+            updateMarquezModel(dao, event);
+          }
+        });
+    writeCheckpoint(file, line);
+    eventsLoaded += events.size();
+    log.info(
+        "Loaded '{}' events up to line {} of '{}' ({} events/s).",
+        eventsLoaded,
+        line,
+        file,
+        eventsPerSecond());
+  }
+
+  /**
+   * Returns the provided events grouped by run, in order of the first event of each run; the
+   * events of a run are ordered by event time. Dataset and job events are left in place.
+   */
+  static List<BaseEvent> groupByRun(List<BaseEvent> events) {
+    final Map<Object, List<BaseEvent>> runs = new LinkedHashMap<>();
+    for (final BaseEvent event : events) {
+      final Object key =
+          event instanceof LineageEvent ? runUuidOf((LineageEvent) event) : new Object();
+      runs.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+    }
+    return runs.values().stream()
+        .flatMap(
+            run ->
+                run.stream()
+                    .sorted(
+                        Comparator.comparing(
+                            BulkLoader::eventTimeOf,
+                            Comparator.nullsLast(Comparator.naturalOrder()))))
+        .collect(Collectors.toList());
+  }
+
+  private void copyToStaging(Handle handle, OpenLineageDao dao, List<BaseEvent> events)
+      throws SQLException {
+    handle.execute(CREATE_STAGING_TABLE);
+    final CopyIn copy =
+        handle
+            .getConnection()
+            .unwrap(PGConnection.class)
+            .getCopyAPI()
+            .copyIn(COPY_TO_STAGING_TABLE);
+    try {
+      final StringBuilder row = new StringBuilder();
+      for (final BaseEvent event : events) {
+        row.setLength(0);
+        appendRow(row, dao, event);
+        final byte[] bytes = row.toString().getBytes(UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+      }
+      copy.endCopy();
+    } finally {
+      if (copy.isActive()) {
+        copy.cancelCopy();
+      }
+    }
+  }
+
+  /** Appends the columns of the staging table for the provided event, as a row of CSV. */
+  private void appendRow(StringBuilder row, OpenLineageDao dao, BaseEvent event) {
+    final String json = dao.createJsonArray(event, mapper).getValue();
+    if (event instanceof LineageEvent) {
+      final LineageEvent lineageEvent = (LineageEvent) event;
+      appendColumns(
+          row,
+          lineageEvent.getEventType() == null ? "" : lineageEvent.getEventType(),
+          toInstant(lineageEvent.getEventTime()),
+          runUuidOf(lineageEvent),
+          lineageEvent.getJob().getName(),
+          lineageEvent.getJob().getNamespace(),
+          json,
+          lineageEvent.getProducer(),
+          OpenLineageDao.SpecEventType.RUN_EVENT);
+    } else if (event instanceof DatasetEvent) {
+      final DatasetEvent datasetEvent = (DatasetEvent) event;
+      appendColumns(
+          row,
+          null,
+          toInstant(datasetEvent.getEventTime()),
+          null,
+          null,
+          null,
+          json,
+          datasetEvent.getProducer(),
+          OpenLineageDao.SpecEventType.DATASET_EVENT);
+    } else if (event instanceof JobEvent) {
+      final JobEvent jobEvent = (JobEvent) event;
+      appendColumns(
+          row,
+          null,
+          toInstant(jobEvent.getEventTime()),
+          null,
+          jobEvent.getJob().getName(),
+          jobEvent.getJob().getNamespace(),
+          json,
+          jobEvent.getProducer(),
+          OpenLineageDao.SpecEventType.JOB_EVENT);
+    } else {
+      throw new IllegalArgumentException(
+          String.format("Unsupported event type %s", event.getClass().getName()));
+    }
+  }
+
+  /** Appends the provided values as CSV, where {@code null} values are empty and unquoted. */
+  private static void appendColumns(StringBuilder row, Object... values) {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        row.append(',');
+      }
+      if (values[i] != null) {
+        row.append('"').append(values[i].toString().replace("\"", "\"\"")).append('"');
+      }
+    }
+    row.append('\n');
+  }
+
+  private void updateMarquezModel(OpenLineageDao dao, BaseEvent event) {
+    if (event instanceof LineageEvent) {
+      dao.updateMarquezModel((LineageEvent) event, mapper);
+    } else if (event instanceof DatasetEvent) {
+      dao.updateMarquezModel((DatasetEvent) event, mapper);
+    } else if (event instanceof JobEvent) {
+      dao.updateMarquezModel((JobEvent) event, mapper);
+    }
+  }
+
+  private static List<Path> filesOf(List<Path> paths) throws IOException {
+    final List<Path> files = new ArrayList<>();
+    for (final Path path : paths) {
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> children = Files.list(path)) {
+          children.filter(Files::isRegularFile).forEach(files::add);
+        }
+      } else {
+        files.add(path);
+      }
+    }
+    return files.stream()
+        .map(file -> file.toAbsolutePath().normalize())
+        .sorted(Comparator.comparing(Path::toString))
+        .collect(Collectors.toList());
+  }
+
+  private Properties readCheckpoint() throws IOException {
+    final Properties properties = new Properties();
+    if (checkpoint != null && Files.exists(checkpoint)) {
+      try (Reader reader = Files.newBufferedReader(checkpoint, UTF_8)) {
+        properties.load(reader);
+      }
+      log.info(
+          "Resuming after line {} of '{}'.",
+          properties.getProperty(CHECKPOINT_LINE),
+          properties.getProperty(CHECKPOINT_FILE));
+    }
+    return properties;
+  }
+
+  /** Writes the checkpoint to a temporary file first, so that a checkpoint is never partial. */
+  private void writeCheckpoint(Path file, long line) {
+    if (checkpoint == null) {
+      return;
+    }
+    final Properties properties = new Properties();
+    properties.setProperty(CHECKPOINT_FILE, file.toString());
+    properties.setProperty(CHECKPOINT_LINE, Long.toString(line));
+    final Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    try {
+      try (Writer writer = Files.newBufferedWriter(tmp, UTF_8)) {
+        properties.store(writer, null);
+      }
+      Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Duration elapsed() {
+    return Duration.between(startedAt, Instant.now());
+  }
+
+  private long eventsPerSecond() {
+    return eventsLoaded * 1000 / Math.max(1, elapsed().toMillis());
+  }
+
+  @Nullable
+  private static ZonedDateTime eventTimeOf(BaseEvent event) {
+    if (event instanceof LineageEvent) {
+      return ((LineageEvent) event).getEventTime();
+    } else if (event instanceof DatasetEvent) {
+      return ((DatasetEvent) event).getEventTime();
+    } else if (event instanceof JobEvent) {
+      return ((JobEvent) event).getEventTime();
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Instant toInstant(@Nullable ZonedDateTime eventTime) {
+    return eventTime == null ? null : eventTime.withZoneSameInstant(ZoneId.of("UTC")).toInstant();
+  }
+
+  /**
+   * Try to convert the run id to a UUID. If it isn't a properly formatted UUID, generate one from
+   * the string bytes
+   */
+  private static UUID runUuidOf(LineageEvent event) {
+    try {
+      return UUID.fromString(event.getRun().getRunId());
+    } catch (Exception e) {
+      return UUID.nameUUIDFromBytes(event.getRun().getRunId().getBytes(UTF_8));
+    }
+  }
+}
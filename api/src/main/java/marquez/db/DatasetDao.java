@@ -85,7 +85,7 @@ public interface DatasetDao extends BaseDao {
               SELECT
                   df.dataset_version_uuid,
                   JSONB_AGG(df.facet ORDER BY df.lineage_event_time ASC) AS facets
-              FROM dataset_facets AS df
+              FROM dataset_facets_view AS df
               WHERE df.facet IS NOT NULL AND
                (df.type ILIKE 'dataset' OR df.type ILIKE 'unknown' OR df.type ILIKE 'input') AND
                 df.dataset_uuid = (SELECT uuid FROM datasets WHERE name = :datasetName AND namespace_name = :namespaceName)
@@ -128,7 +128,7 @@ public interface DatasetDao extends BaseDao {
                   df.created_at,
                   rank() OVER (PARTITION BY df.dataset_version_uuid, "name"
                                ORDER BY created_at DESC) AS r
-          FROM dataset_facets AS df
+          FROM dataset_facets_view AS df
           WHERE df.facet IS NOT NULL
              AND (df.type ILIKE 'dataset'
                   OR df.type ILIKE 'unknown'
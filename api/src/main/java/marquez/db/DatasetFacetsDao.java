@@ -6,16 +6,21 @@
 package marquez.db;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import jakarta.annotation.Nullable;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import lombok.NonNull;
 import marquez.common.Utils;
 import marquez.service.models.LineageEvent;
+import org.jdbi.v3.sqlobject.customizer.BindMethodsList;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
 import org.postgresql.util.PGobject;
@@ -117,6 +122,101 @@ public interface DatasetFacetsDao {
       String name,
       PGobject facet);
 
+  @SqlUpdate(
+      """
+          INSERT INTO dataset_facets (
+             created_at,
+             dataset_uuid,
+             dataset_version_uuid,
+             run_uuid,
+             lineage_event_time,
+             lineage_event_type,
+             type,
+             name,
+             facet
+          ) VALUES <values>
+      """)
+  void doInsertDatasetFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "datasetUuid",
+                "datasetVersionUuid",
+                "runUuid",
+                "lineageEventTime",
+                "lineageEventType",
+                "type",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<DatasetFacetRow> rows);
+
+  @SqlUpdate(
+      """
+      WITH facets (created_at, dataset_uuid, dataset_version_uuid, run_uuid, lineage_event_time, lineage_event_type, type, name, facet) AS (
+          VALUES <values>
+      ),
+      """
+          + FacetUtils.HASH_AND_STORE_FACET_PAYLOADS
+          + """
+      INSERT INTO dataset_facets (
+         created_at,
+         dataset_uuid,
+         dataset_version_uuid,
+         run_uuid,
+         lineage_event_time,
+         lineage_event_type,
+         type,
+         name,
+         facet_hash
+      )
+      SELECT
+         CAST(created_at AS TIMESTAMPTZ),
+         CAST(dataset_uuid AS UUID),
+         CAST(dataset_version_uuid AS UUID),
+         CAST(run_uuid AS UUID),
+         CAST(lineage_event_time AS TIMESTAMPTZ),
+         CAST(lineage_event_type AS VARCHAR),
+         CAST(type AS VARCHAR),
+         CAST(name AS VARCHAR),
+         facet_hash
+      FROM hashed
+      """)
+  void doInsertDeduplicatedDatasetFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "datasetUuid",
+                "datasetVersionUuid",
+                "runUuid",
+                "lineageEventTime",
+                "lineageEventType",
+                "type",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<DatasetFacetRow> rows);
+
+  /**
+   * Inserts all of the provided facet {@code rows} in statements of at most {@link
+   * FacetUtils#MAX_ROWS_PER_INSERT} rows each, as the number of parameters of a statement is
+   * limited.
+   *
+   * @param rows
+   */
+  default void insertDatasetFacets(@NonNull List<DatasetFacetRow> rows) {
+    for (final List<DatasetFacetRow> chunk :
+        Lists.partition(rows, FacetUtils.MAX_ROWS_PER_INSERT)) {
+      if (FacetUtils.isDeduplicationEnabled()) {
+        doInsertDeduplicatedDatasetFacets(chunk);
+      } else {
+        doInsertDatasetFacets(chunk);
+      }
+    }
+  }
+
   /**
    * @param datasetUuid
    * @param runUuid
@@ -132,23 +232,14 @@ public interface DatasetFacetsDao {
       @NonNull Instant lineageEventTime,
       @Nullable String lineageEventType,
       @NonNull LineageEvent.DatasetFacets datasetFacets) {
-    final Instant now = Instant.now();
-
-    JsonNode jsonNode = Utils.getMapper().valueToTree(datasetFacets);
-    StreamSupport.stream(
-            Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT), false)
-        .forEach(
-            fieldName ->
-                insertDatasetFacet(
-                    now,
-                    datasetUuid,
-                    datasetVersionUuid,
-                    runUuid,
-                    lineageEventTime,
-                    lineageEventType,
-                    DatasetFacet.typeFromName(fieldName),
-                    fieldName,
-                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))));
+    insertDatasetFacets(
+        datasetFacetRowsFor(
+            datasetUuid,
+            datasetVersionUuid,
+            runUuid,
+            lineageEventTime,
+            lineageEventType,
+            datasetFacets));
   }
 
   default void insertInputDatasetFacetsFor(
@@ -158,23 +249,14 @@ public interface DatasetFacetsDao {
       @NonNull Instant lineageEventTime,
       @Nullable String lineageEventType,
       @NonNull LineageEvent.InputDatasetFacets inputFacets) {
-    final Instant now = Instant.now();
-
-    JsonNode jsonNode = Utils.getMapper().valueToTree(inputFacets);
-    StreamSupport.stream(
-            Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT), false)
-        .forEach(
-            fieldName ->
-                insertDatasetFacet(
-                    now,
-                    datasetUuid,
-                    datasetVersionUuid,
-                    runUuid,
-                    lineageEventTime,
-                    lineageEventType,
-                    Type.INPUT,
-                    fieldName,
-                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))));
+    insertDatasetFacets(
+        inputDatasetFacetRowsFor(
+            datasetUuid,
+            datasetVersionUuid,
+            runUuid,
+            lineageEventTime,
+            lineageEventType,
+            inputFacets));
   }
 
   default void insertOutputDatasetFacetsFor(
@@ -184,110 +266,98 @@ public interface DatasetFacetsDao {
       @NonNull Instant lineageEventTime,
       @Nullable String lineageEventType,
       @NonNull LineageEvent.OutputDatasetFacets outputFacets) {
+    insertDatasetFacets(
+        outputDatasetFacetRowsFor(
+            datasetUuid,
+            datasetVersionUuid,
+            runUuid,
+            lineageEventTime,
+            lineageEventType,
+            outputFacets));
+  }
+
+  /** Returns the facet rows to insert for the provided {@code datasetFacets}. */
+  static List<DatasetFacetRow> datasetFacetRowsFor(
+      @NonNull UUID datasetUuid,
+      @NonNull UUID datasetVersionUuid,
+      @Nullable UUID runUuid,
+      @NonNull Instant lineageEventTime,
+      @Nullable String lineageEventType,
+      @NonNull LineageEvent.DatasetFacets datasetFacets) {
+    return facetRowsFor(
+        datasetUuid,
+        datasetVersionUuid,
+        runUuid,
+        lineageEventTime,
+        lineageEventType,
+        DatasetFacet::typeFromName,
+        datasetFacets);
+  }
+
+  /** Returns the facet rows to insert for the provided {@code inputFacets}. */
+  static List<DatasetFacetRow> inputDatasetFacetRowsFor(
+      @NonNull UUID datasetUuid,
+      @NonNull UUID datasetVersionUuid,
+      @Nullable UUID runUuid,
+      @NonNull Instant lineageEventTime,
+      @Nullable String lineageEventType,
+      @NonNull LineageEvent.InputDatasetFacets inputFacets) {
+    return facetRowsFor(
+        datasetUuid,
+        datasetVersionUuid,
+        runUuid,
+        lineageEventTime,
+        lineageEventType,
+        fieldName -> Type.INPUT,
+        inputFacets);
+  }
+
+  /** Returns the facet rows to insert for the provided {@code outputFacets}. */
+  static List<DatasetFacetRow> outputDatasetFacetRowsFor(
+      @NonNull UUID datasetUuid,
+      @NonNull UUID datasetVersionUuid,
+      @Nullable UUID runUuid,
+      @NonNull Instant lineageEventTime,
+      @Nullable String lineageEventType,
+      @NonNull LineageEvent.OutputDatasetFacets outputFacets) {
+    return facetRowsFor(
+        datasetUuid,
+        datasetVersionUuid,
+        runUuid,
+        lineageEventTime,
+        lineageEventType,
+        fieldName -> Type.OUTPUT,
+        outputFacets);
+  }
+
+  private static List<DatasetFacetRow> facetRowsFor(
+      UUID datasetUuid,
+      UUID datasetVersionUuid,
+      UUID runUuid,
+      Instant lineageEventTime,
+      String lineageEventType,
+      Function<String, Type> typeFromName,
+      Object facets) {
     final Instant now = Instant.now();
 
-    JsonNode jsonNode = Utils.getMapper().valueToTree(outputFacets);
-    StreamSupport.stream(
+    JsonNode jsonNode = Utils.getMapper().valueToTree(facets);
+    return StreamSupport.stream(
             Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT), false)
-        .forEach(
+        .map(
             fieldName ->
-                insertDatasetFacet(
+                new DatasetFacetRow(
                     now,
                     datasetUuid,
                     datasetVersionUuid,
                     runUuid,
                     lineageEventTime,
                     lineageEventType,
-                    Type.OUTPUT,
+                    typeFromName.apply(fieldName),
                     fieldName,
-                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))));
+                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))))
+        .collect(Collectors.toList());
   }
 
-  @SqlUpdate(
-      """
-      WITH io AS (
-          SELECT io_type, job_uuid
-          FROM job_versions_io_mapping
-          WHERE dataset_uuid = :datasetUuid AND is_current_job_version = TRUE
-      ),
-      job_info AS (
-          SELECT io.io_type, io.job_uuid, j.namespace_name, j.type
-          FROM io
-          JOIN jobs_view j ON j.uuid = io.job_uuid
-      ),
-      stats AS (
-          SELECT
-              count(DISTINCT CASE WHEN io_type = 'OUTPUT' THEN job_uuid END) AS inEdges,
-              count(DISTINCT CASE WHEN io_type = 'INPUT' THEN job_uuid END) AS outEdges,
-              count(DISTINCT CASE WHEN io_type = 'INPUT' THEN namespace_name END) AS consumingNamespaces,
-              count(DISTINCT CASE WHEN io_type = 'OUTPUT' THEN namespace_name END) AS producingNamespaces,
-              array_agg(DISTINCT CASE WHEN io_type = 'OUTPUT' THEN COALESCE(type, 'UNKNOWN') END) FILTER (WHERE type IS NOT NULL) AS producingJobTypes,
-              array_agg(DISTINCT CASE WHEN io_type = 'INPUT' THEN COALESCE(type, 'UNKNOWN') END) FILTER (WHERE type IS NOT NULL) AS consumingJobTypes
-          FROM job_info
-      )
-      INSERT INTO dataset_facets (
-          created_at, dataset_uuid, dataset_version_uuid, run_uuid,
-          lineage_event_time, lineage_event_type, type, name, facet
-      )
-      SELECT
-          NOW(), :datasetUuid, d.current_version_uuid, NULL,
-          NOW(), 'LINEAGE_UPDATE', 'DATASET', 'lineageStatistics',
-          json_build_object(
-              'inEdges', s.inEdges,
-              'outEdges', s.outEdges,
-              'consumingNamespaces', s.consumingNamespaces,
-              'producingNamespaces', s.producingNamespaces,
-              'producingJobTypes', COALESCE(s.producingJobTypes, ARRAY[]::varchar[]),
-              'consumingJobTypes', COALESCE(s.consumingJobTypes, ARRAY[]::varchar[]),
-              '_producer', 'https://github.com/ilum-cloud/marquez',
-              '_schema', 'https://github.com/ilum-cloud/marquez/spec/facets/lineage-statistics.json'
-          )
-      FROM datasets d, stats s
-      WHERE d.uuid = :datasetUuid AND d.current_version_uuid IS NOT NULL
-      """)
-  void updateLineageStatistics(UUID datasetUuid);
-
-  @SqlUpdate(
-      """
-      WITH io AS (
-          SELECT io_type, job_uuid
-          FROM job_versions_io_mapping
-          WHERE dataset_uuid = :datasetUuid AND is_current_job_version = TRUE
-      ),
-      job_info AS (
-          SELECT io.io_type, io.job_uuid, j.namespace_name, j.type
-          FROM io
-          JOIN jobs_view j ON j.uuid = io.job_uuid
-      ),
-      stats AS (
-          SELECT
-              count(DISTINCT CASE WHEN io_type = 'OUTPUT' THEN job_uuid END) AS inEdges,
-              count(DISTINCT CASE WHEN io_type = 'INPUT' THEN job_uuid END) AS outEdges,
-              array_agg(DISTINCT CASE WHEN io_type = 'INPUT' THEN namespace_name END) FILTER (WHERE namespace_name IS NOT NULL) AS consumingNamespaces,
-              array_agg(DISTINCT CASE WHEN io_type = 'OUTPUT' THEN namespace_name END) FILTER (WHERE namespace_name IS NOT NULL) AS producingNamespaces
-          FROM job_info
-      )
-      INSERT INTO dataset_facets (
-          created_at, dataset_uuid, dataset_version_uuid, run_uuid,
-          lineage_event_time, lineage_event_type, type, name, facet
-      )
-      SELECT
-          NOW(), :datasetUuid, :datasetVersionUuid, NULL,
-          NOW(), 'LINEAGE_UPDATE', 'DATASET', 'lineageStatistics',
-          json_build_object(
-            'lineageStatistics', json_build_object(
-              'inEdges', s.inEdges,
-              'outEdges', s.outEdges,
-              'consumingNamespaces', COALESCE(s.consumingNamespaces, ARRAY[]::varchar[]),
-              'producingNamespaces', COALESCE(s.producingNamespaces, ARRAY[]::varchar[]),
-              '_producer', 'https://github.com/ilum-cloud/marquez',
-              '_schema', 'https://github.com/ilum-cloud/marquez/spec/facets/lineage-statistics.json'
-            )
-          )
-      FROM stats s
-      """)
-  void updateLineageStatistics(UUID datasetUuid, UUID datasetVersionUuid);
-
   record DatasetFacetRow(
       Instant createdAt,
       UUID datasetUuid,
@@ -7,7 +7,9 @@ package marquez.db;
 
 import com.google.common.collect.ImmutableSet;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -24,9 +26,11 @@ import marquez.db.models.InputFieldData;
 import marquez.db.models.TagRow;
 import marquez.service.models.Dataset;
 import marquez.service.models.DatasetVersion;
+import marquez.service.models.LineageEvent.SchemaField;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.BindBeanList;
 import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
@@ -36,6 +40,8 @@ import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 @RegisterRowMapper(FieldDataMapper.class)
 @RegisterRowMapper(PairUuidInstantMapper.class)
 public interface DatasetFieldDao extends BaseDao {
+  String UNKNOWN_FIELD_TYPE = "UNKNOWN";
+
   @SqlQuery(
       """
           SELECT EXISTS (
@@ -276,11 +282,80 @@ public interface DatasetFieldDao extends BaseDao {
   DatasetFieldRow upsert(
       UUID uuid, Instant now, String name, String type, String description, UUID datasetUuid);
 
+  /**
+   * Upserts all of the provided {@code fields} of a dataset in a single statement, and returns the
+   * upserted rows. Fields with the same name and type are upserted once, with the description of
+   * the last occurrence.
+   */
+  default List<DatasetFieldRow> upsertAll(
+      UUID datasetUuid, List<SchemaField> fields, Instant now) {
+    final Map<Pair<String, String>, DatasetFieldUpsert> rows = new LinkedHashMap<>();
+    for (final SchemaField field : fields) {
+      final String type = Optional.ofNullable(field.getType()).orElse(UNKNOWN_FIELD_TYPE);
+      rows.put(
+          Pair.of(field.getName(), type),
+          new DatasetFieldUpsert(
+              UUID.randomUUID(),
+              type,
+              now,
+              now,
+              datasetUuid,
+              field.getName(),
+              field.getDescription()));
+    }
+    if (rows.isEmpty()) {
+      return List.of();
+    }
+    return upsertAll(List.copyOf(rows.values()));
+  }
+
+  @SqlQuery(
+      """
+          INSERT INTO dataset_fields (
+          uuid,
+          type,
+          created_at,
+          updated_at,
+          dataset_uuid,
+          name,
+          description
+          ) VALUES <values>
+          ON CONFLICT (dataset_uuid, name, type)
+          DO UPDATE SET
+          updated_at = EXCLUDED.updated_at,
+          description = EXCLUDED.description
+          RETURNING *
+          """)
+  List<DatasetFieldRow> upsertAll(
+      @BindBeanList(
+              propertyNames = {
+                "uuid",
+                "type",
+                "createdAt",
+                "updatedAt",
+                "datasetUuid",
+                "name",
+                "description"
+              },
+              value = "values")
+          List<DatasetFieldUpsert> rows);
+
   @SqlBatch(
       "INSERT INTO dataset_versions_field_mapping (dataset_version_uuid, dataset_field_uuid) "
           + "VALUES (:datasetVersionUuid, :datasetFieldUuid) ON CONFLICT DO NOTHING")
   void updateFieldMapping(@BindBean List<DatasetFieldMapping> datasetFieldMappings);
 
+  @Value
+  class DatasetFieldUpsert {
+    UUID uuid;
+    String type;
+    Instant createdAt;
+    Instant updatedAt;
+    UUID datasetUuid;
+    String name;
+    String description;
+  }
+
   @Value
   class DatasetFieldMapping {
     UUID datasetVersionUuid;
@@ -23,15 +23,19 @@ import org.jdbi.v3.sqlobject.statement.SqlQuery;
 
 @RegisterRowMapper(DatasetSchemaVersionRowMapper.class)
 public interface DatasetSchemaVersionDao extends BaseDao {
+  /** Returns the schema version of the dataset with the provided fields, without writing it. */
+  default Version schemaVersionFor(DatasetRow datasetRow, List<DatasetFieldRow> datasetFields) {
+    return Utils.newDatasetSchemaVersionFor(
+        datasetRow.getNamespaceName(),
+        datasetRow.getName(),
+        datasetFields.stream()
+            .map(field -> Pair.of(field.getName(), field.getType()))
+            .collect(Collectors.toSet()));
+  }
+
   default Version upsertSchemaVersion(
       DatasetRow datasetRow, List<DatasetFieldRow> datasetFields, Instant now) {
-    final Version computedVersion =
-        Utils.newDatasetSchemaVersionFor(
-            datasetRow.getNamespaceName(),
-            datasetRow.getName(),
-            datasetFields.stream()
-                .map(field -> Pair.of(field.getName(), field.getType()))
-                .collect(Collectors.toSet()));
+    final Version computedVersion = schemaVersionFor(datasetRow, datasetFields);
     upsertSchemaVersion(computedVersion.getValue(), datasetRow.getUuid(), now)
         .ifPresent(
             newRow -> {
@@ -315,6 +315,9 @@ public interface DatasetVersionDao extends BaseDao {
   @SqlQuery(SELECT + "WHERE dv.uuid = :uuid")
   Optional<DatasetVersionRow> findRowByUuid(UUID uuid);
 
+  @SqlQuery(SELECT + "WHERE dv.version = :version")
+  Optional<DatasetVersionRow> findRowByVersion(UUID version);
+
   @SqlQuery(
       """
     select
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * Range partitioning by day of {@code lineage_events} and of the facet tables, on the time of the
+ * lineage event. Tables are converted once with {@link DbPartitions#partition(Jdbi, int)}, usually
+ * with the {@code db-partition} command; partitions of the following days are then created ahead
+ * of time by {@link DbPartitions#createPartitions(Jdbi, int)}, on a fixed schedule.
+ *
+ * <p>When a table is converted, the existing table is kept as is as the partition {@code
+ * <table>_legacy}, holding all rows up to the day after its latest row; it is scanned once to
+ * validate its bounds, but not rewritten. Rows without an event time, or beyond the partitions
+ * created, are held by the partition {@code <table>_default}. Partitions of a day are named {@code
+ * <table>_p<yyyyMMdd>}, in UTC.
+ */
+@Slf4j
+public final class DbPartitions {
+  private DbPartitions() {}
+
+  /* Default number of days partitions are created ahead of. */
+  public static final int DEFAULT_DAYS_AHEAD = 7;
+
+  /* The tables partitioned, by partition key. */
+  private static final Map<String, String> PARTITIONED_TABLES =
+      ImmutableMap.of(
+          "lineage_events", "event_time",
+          "dataset_facets", "lineage_event_time",
+          "run_facets", "lineage_event_time",
+          "job_facets", "lineage_event_time");
+
+  /* The views and materialized views depending on the relation bound to ':relation'. */
+  private static final String DEPENDENT_VIEWS =
+      """
+      FROM pg_depend d
+      JOIN pg_rewrite r ON r.oid = d.objid
+      JOIN pg_class v ON v.oid = r.ev_class
+      WHERE d.classid = 'pg_rewrite'::regclass
+        AND d.refobjid = to_regclass(:relation)
+        AND v.oid <> d.refobjid""";
+
+  private static final DateTimeFormatter PARTITION_SUFFIX =
+      DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+  /**
+   * Converts the tables not partitioned yet into tables partitioned by day, each within its own
+   * transaction, then creates the partitions of the next {@code daysAhead} days. Writes to a table
+   * are blocked while it is converted, and raw events are not projected until the conversion is
+   * committed: a table cannot be converted in batches, so run the conversion when ingestion is low.
+   */
+  public static void partition(@NonNull final Jdbi jdbi, final int daysAhead) {
+    for (final Map.Entry<String, String> table : PARTITIONED_TABLES.entrySet()) {
+      jdbi.useTransaction(
+          handle -> {
+            if (isPartitioned(handle, table.getKey())) {
+              log.info("Table '{}' is already partitioned.", table.getKey());
+              return;
+            }
+            log.info("Partitioning table '{}'...", table.getKey());
+            partition(handle, table.getKey(), table.getValue());
+            log.info("Table '{}' partitioned.", table.getKey());
+          });
+    }
+    createPartitions(jdbi, daysAhead);
+  }
+
+  /**
+   * Creates the partitions of the partitioned tables up to {@code daysAhead} days from today; rows
+   * of the default partition within the range of a new partition are moved to the new partition.
+   */
+  public static void createPartitions(@NonNull final Jdbi jdbi, final int daysAhead) {
+    final Instant until =
+        Instant.now().truncatedTo(ChronoUnit.DAYS).plus(Duration.ofDays(daysAhead + 1));
+    for (final Map.Entry<String, String> table : PARTITIONED_TABLES.entrySet()) {
+      final Optional<Instant> from =
+          jdbi.withHandle(
+              handle ->
+                  isPartitioned(handle, table.getKey())
+                      ? Optional.of(
+                          upperBoundOf(handle, table.getKey())
+                              .orElse(Instant.now().truncatedTo(ChronoUnit.DAYS)))
+                      : Optional.<Instant>empty());
+      if (from.isEmpty()) {
+        continue;
+      }
+      for (Instant day = from.get(); day.isBefore(until); day = day.plus(Duration.ofDays(1))) {
+        final Instant partitionFrom = day;
+        jdbi.useTransaction(
+            handle -> createPartition(handle, table.getKey(), table.getValue(), partitionFrom));
+      }
+    }
+  }
+
+  /**
+   * Drops the partitions of {@code table} holding only rows older than {@code before}; returns the
+   * number of partitions dropped. Nothing is dropped if the table is not partitioned.
+   */
+  public static int dropPartitionsBefore(
+      @NonNull final Handle handle, @NonNull final String table, @NonNull final Instant before) {
+    final List<String> partitions =
+        handle
+            .createQuery(
+                """
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(:table)
+                  AND (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''(.*)''\\)'))[1]::timestamptz
+                      <= :before""")
+            .bind("table", table)
+            .bind("before", before)
+            .mapTo(String.class)
+            .list();
+    for (final String partition : partitions) {
+      log.info("Dropping partition '{}' of '{}'...", partition, table);
+      handle.execute(String.format("DROP TABLE %s", partition));
+    }
+    return partitions.size();
+  }
+
+  /** Returns {@code true} if {@code table} is partitioned. */
+  public static boolean isPartitioned(@NonNull final Handle handle, @NonNull final String table) {
+    return handle
+        .createQuery(
+            "SELECT EXISTS "
+                + "(SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(:table))")
+        .bind("table", table)
+        .mapTo(Boolean.class)
+        .one();
+  }
+
+  private static void partition(Handle handle, String table, String column) {
+    final String legacy = table + "_legacy";
+    // Views, indexes, foreign keys and sequences are bound to the existing table, which is
+    // renamed; each is defined again on the partitioned table replacing it.
+    final List<DependentView> views =
+        handle
+            .createQuery(
+                String.format(
+                    """
+                    SELECT DISTINCT v.oid::regclass::text AS name,
+                                    v.relkind = 'm' AS materialized,
+                                    pg_get_viewdef(v.oid) AS definition
+                    %s""",
+                    DEPENDENT_VIEWS))
+            .bind("relation", table)
+            .map(
+                (rs, ctx) ->
+                    new DependentView(
+                        rs.getString("name"),
+                        rs.getBoolean("materialized"),
+                        rs.getString("definition"),
+                        indexesOf(handle, rs.getString("name")),
+                        grantsAndCommentOf(handle, rs.getString("name"))))
+            .list();
+    // A materialized view is dropped, then created again; views depending on it would be dropped
+    // along with it, and are not created again.
+    for (final DependentView view : views) {
+      if (view.materialized()) {
+        final List<String> dependents = dependentViewsOf(handle, view.name());
+        if (!dependents.isEmpty()) {
+          throw new IllegalStateException(
+              String.format(
+                  "Unable to partition table '%s': materialized view '%s' must be created again, "
+                      + "but views %s depend on it; drop them before partitioning, then create "
+                      + "them again",
+                  table, view.name(), dependents));
+        }
+      }
+    }
+    final List<String> indexes = indexesOf(handle, table);
+    final List<String> foreignKeys =
+        handle
+            .createQuery(
+                """
+                SELECT pg_get_constraintdef(oid)
+                FROM pg_constraint
+                WHERE conrelid = to_regclass(:table) AND contype = 'f'""")
+            .bind("table", table)
+            .mapTo(String.class)
+            .list();
+    final List<String> ownedSequences =
+        handle
+            .createQuery(
+                """
+                SELECT format('ALTER SEQUENCE %I OWNED BY %I.%I', s.relname, :table, a.attname)
+                FROM pg_depend d
+                JOIN pg_class s ON s.oid = d.objid AND s.relkind = 'S'
+                JOIN pg_attribute a ON a.attrelid = d.refobjid AND a.attnum = d.refobjsubid
+                WHERE d.refobjid = to_regclass(:table) AND d.deptype = 'a'""")
+            .bind("table", table)
+            .mapTo(String.class)
+            .list();
+    // Rows written after the bound of the legacy partition is computed would fail its validation.
+    handle.execute(String.format("LOCK TABLE %s IN SHARE ROW EXCLUSIVE MODE", table));
+    final Instant upperBound =
+        handle
+            .createQuery(
+                String.format(
+                    "SELECT date_trunc('day', MAX(%s), 'UTC') + INTERVAL '1 day' FROM %s",
+                    column, table))
+            .mapTo(Instant.class)
+            .findOne()
+            .orElse(Instant.now().truncatedTo(ChronoUnit.DAYS));
+
+    handle.execute(String.format("ALTER TABLE %s RENAME TO %s", table, legacy));
+    handle.execute(
+        String.format(
+            "CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS) "
+                + "PARTITION BY RANGE (%s)",
+            table, legacy, column));
+    // Existing indexes and foreign keys of the legacy table are reused when it is attached.
+    for (final String index : indexes) {
+      handle.execute(withoutIndexName(index));
+    }
+    for (final String foreignKey : foreignKeys) {
+      handle.execute(String.format("ALTER TABLE %s ADD %s", table, foreignKey));
+    }
+    handle.execute(String.format("CREATE TABLE %s_default PARTITION OF %s DEFAULT", table, table));
+    handle.execute(
+        String.format(
+            "WITH moved AS (DELETE FROM %s WHERE %s IS NULL RETURNING *) "
+                + "INSERT INTO %s SELECT * FROM moved",
+            legacy, column, table));
+    // A validated constraint implying the bounds of the partition spares the scan of the legacy
+    // table holding an exclusive lock when attached; it is then redundant with the bounds.
+    final String bound = legacy + "_bound";
+    handle.execute(
+        String.format(
+            "ALTER TABLE %s ADD CONSTRAINT %s CHECK (%s IS NOT NULL AND %s < '%s') NOT VALID",
+            legacy, bound, column, column, upperBound));
+    handle.execute(String.format("ALTER TABLE %s VALIDATE CONSTRAINT %s", legacy, bound));
+    handle.execute(
+        String.format(
+            "ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM (MINVALUE) TO ('%s')",
+            table, legacy, upperBound));
+    handle.execute(String.format("ALTER TABLE %s DROP CONSTRAINT %s", legacy, bound));
+    ownedSequences.forEach(handle::execute);
+    for (final DependentView view : views) {
+      if (view.materialized()) {
+        handle.execute(String.format("DROP MATERIALIZED VIEW %s", view.name()));
+        handle.execute(
+            String.format("CREATE MATERIALIZED VIEW %s AS %s", view.name(), view.definition()));
+        view.indexes().forEach(handle::execute);
+        view.grantsAndComment().forEach(handle::execute);
+      } else {
+        handle.execute(
+            String.format("CREATE OR REPLACE VIEW %s AS %s", view.name(), view.definition()));
+      }
+    }
+  }
+
+  private static void createPartition(Handle handle, String table, String column, Instant from) {
+    final String partition = table + "_p" + PARTITION_SUFFIX.format(from);
+    final Instant to = from.plus(Duration.ofDays(1));
+    handle.execute(
+        String.format(
+            "CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+            partition, table));
+    handle.execute(
+        String.format(
+            "WITH moved AS (DELETE FROM %s_default WHERE %s >= '%s' AND %s < '%s' RETURNING *) "
+                + "INSERT INTO %s SELECT * FROM moved",
+            table, column, from, column, to, partition));
+    handle.execute(
+        String.format(
+            "ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+            table, partition, from, to));
+    log.info("Created partition '{}' of '{}'.", partition, table);
+  }
+
+  /** Returns the greatest upper bound of the partitions of {@code table}, if any. */
+  private static Optional<Instant> upperBoundOf(Handle handle, String table) {
+    return handle
+        .createQuery(
+            """
+            SELECT MAX((regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''(.*)''\\)'))[1]::timestamptz)
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(:table)""")
+        .bind("table", table)
+        .mapTo(Instant.class)
+        .findOne();
+  }
+
+  /** Returns the views and materialized views depending on {@code relation}. */
+  private static List<String> dependentViewsOf(Handle handle, String relation) {
+    return handle
+        .createQuery(
+            String.format("SELECT DISTINCT v.oid::regclass::text AS name %s", DEPENDENT_VIEWS))
+        .bind("relation", relation)
+        .mapTo(String.class)
+        .list();
+  }
+
+  /**
+   * Returns the statements granting the privileges on {@code relation}, other than those of its
+   * owner, and commenting on it; these are lost when a materialized view is dropped.
+   */
+  private static List<String> grantsAndCommentOf(Handle handle, String relation) {
+    return handle
+        .createQuery(
+            """
+            SELECT format('GRANT %s ON %s TO %s', a.privilege_type, c.oid::regclass,
+                          CASE WHEN a.grantee = 0 THEN 'PUBLIC'
+                               ELSE quote_ident(pg_get_userbyid(a.grantee)) END)
+            FROM pg_class c, aclexplode(c.relacl) a
+            WHERE c.oid = to_regclass(:relation) AND a.grantee <> c.relowner
+            UNION ALL
+            SELECT format('COMMENT ON MATERIALIZED VIEW %s IS %L', c.oid::regclass,
+                          obj_description(c.oid, 'pg_class'))
+            FROM pg_class c
+            WHERE c.oid = to_regclass(:relation)
+              AND obj_description(c.oid, 'pg_class') IS NOT NULL""")
+        .bind("relation", relation)
+        .mapTo(String.class)
+        .list();
+  }
+
+  private static List<String> indexesOf(Handle handle, String relation) {
+    return handle
+        .createQuery(
+            """
+            SELECT indexdef
+            FROM pg_indexes
+            WHERE schemaname = current_schema() AND tablename = :relation""")
+        .bind("relation", relation)
+        .mapTo(String.class)
+        .list();
+  }
+
+  /** Returns the provided index definition, without the name of the index. */
+  private static String withoutIndexName(String index) {
+    return index.replaceFirst("^CREATE (UNIQUE )?INDEX \\S+ ON ", "CREATE $1INDEX ON ");
+  }
+
+  private record DependentView(
+      String name,
+      boolean materialized,
+      String definition,
+      List<String> indexes,
+      List<String> grantsAndComment) {}
+}
@@ -8,7 +8,12 @@ package marquez.db;
 import static marquez.common.base.MorePreconditions.checkNotBlank;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import marquez.db.exceptions.DbRetentionException;
@@ -29,11 +34,15 @@ import org.jdbi.v3.core.statement.Script;
  *   <li>{@code retentionOnDatasets()}
  *   <li>{@code retentionOnDatasetVersions()}
  *   <li>{@code retentionOnLineageEvents()}
+ *   <li>{@code retentionOnModelChanges()}
+ *   <li>{@code retentionOnFacetPayloads()}
  * </ul>
  *
  * <p>Applying retention is not reversible, but can be applied many times. For this to perform well,
  * we delete rows in batches; this divides the deletion process into smaller chunks; the number of
- * rows to delete per batch is configurable. You may also apply retention as a dry run by invoking
+ * rows to delete per batch is configurable. Each batch is committed on its own, as raw events stored
+ * while a transaction is open are not projected until it ends (see {@link
+ * marquez.ingestion.EventProjector}). You may also apply retention as a dry run by invoking
  * {@link DbRetention#retentionOnDbOrError(Jdbi, int, int, boolean)}. By default, dry runs are
  * disable.
  *
@@ -54,7 +63,11 @@ import org.jdbi.v3.core.statement.Script;
  *       deleted if the dataset version is the {@code current} version of a given dataset version,
  *       or the input of a run.
  *   <li>Delete lineage events from {@code lineage_events} table if {@code
- *       lineage_events.event_time} older than retentionDays.
+ *       lineage_events.event_time} older than retentionDays; when the table is partitioned (see
+ *       {@link DbPartitions}), partitions older than retentionDays are dropped as a whole first.
+ *   <li>Delete facet payloads from {@code facet_payloads} table if no longer referenced by any
+ *       facet row, once not referenced again for two days; facet rows are deleted with the runs,
+ *       jobs and datasets they belong to.
  * </ul>
  */
 @Slf4j
@@ -70,6 +83,9 @@ public final class DbRetention {
   /* Disable retention dry run by default. */
   public static final boolean DEFAULT_DRY_RUN = false;
 
+  /* Pause between two batches, so that other transactions are not starved of locks. */
+  private static final long PAUSE_BETWEEN_BATCHES_MS = 100;
+
   /** Applies the retention policy to database. */
   public static void retentionOnDbOrError(
       @NonNull final Jdbi jdbi, final int numberOfRowsPerBatch, final int retentionDays)
@@ -97,8 +113,10 @@ public final class DbRetention {
     retentionOnDatasets(jdbi, numberOfRowsPerBatch, retentionDays, dryRun);
     retentionOnDatasetVersions(jdbi, numberOfRowsPerBatch, retentionDays, dryRun);
 
-    // Finally, apply retention policy to lineage events.
+    // Finally, apply retention policy to lineage events, and to the change feed.
     retentionOnLineageEvents(jdbi, numberOfRowsPerBatch, retentionDays, dryRun);
+    retentionOnModelChanges(jdbi, numberOfRowsPerBatch, retentionDays, dryRun);
+    retentionOnFacetPayloads(jdbi, numberOfRowsPerBatch, dryRun);
   }
 
   /** Apply retention policy on {@code jobs}. */
@@ -122,40 +140,10 @@ public final class DbRetention {
     final Stopwatch rowsDeleteTime = Stopwatch.createStarted();
     final int rowsDeleted =
         jdbi.withHandle(
-            handle -> {
-              handle.execute(
-                  sql(
-                      """
-                      CREATE OR REPLACE FUNCTION delete_jobs_older_than_x_days()
-                        RETURNS INT AS $$
-                      DECLARE
-                        rows_per_batch INT := ${numberOfRowsPerBatch};
-                        rows_deleted INT;
-                        rows_deleted_total INT := 0;
-                      BEGIN
-                        LOOP
-                          WITH deleted_rows AS (
-                            DELETE FROM jobs
-                              WHERE uuid IN (
-                                SELECT uuid
-                                  FROM jobs
-                                 WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                                   FOR UPDATE SKIP LOCKED
-                                 LIMIT rows_per_batch
-                              ) RETURNING uuid
-                          )
-                          SELECT COUNT(*) INTO rows_deleted FROM deleted_rows;
-                          rows_deleted_total := rows_deleted_total + rows_deleted;
-                          EXIT WHEN rows_deleted = 0;
-                          PERFORM pg_sleep(0.1);
-                        END LOOP;
-                        RETURN rows_deleted_total;
-                      END;
-                      $$ LANGUAGE plpgsql;""",
-                      numberOfRowsPerBatch,
-                      retentionDays));
-              return callWith(handle, "delete_jobs_older_than_x_days()");
-            });
+            handle ->
+                deleteInBatches(
+                    handle,
+                    sql(DELETE_FROM_JOBS_OLDER_THAN_X_DAYS, numberOfRowsPerBatch, retentionDays)));
     rowsDeleteTime.stop();
     log.info("Deleted '{}' jobs in '{}' ms!", rowsDeleted, rowsDeleteTime.elapsed().toMillis());
   }
@@ -182,48 +170,17 @@ public final class DbRetention {
     final int rowsDeleted =
         jdbi.withHandle(
             handle -> {
-              handle.execute(
-                  sql(
-                      """
-                      CREATE OR REPLACE FUNCTION delete_job_versions_older_than_x_days()
-                        RETURNS INT AS $$
-                      DECLARE
-                        rows_per_batch INT := ${numberOfRowsPerBatch};
-                        rows_deleted INT;
-                        rows_deleted_total INT := 0;
-                      BEGIN
-                        CREATE TEMPORARY TABLE used_job_versions_as_current_in_x_days AS (
-                          SELECT current_version_uuid
-                            FROM jobs
-                           WHERE updated_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                        );
-                        LOOP
-                          WITH deleted_rows AS (
-                            DELETE FROM job_versions AS jv
-                              WHERE uuid IN (
-                                SELECT uuid
-                                  FROM job_versions
-                                 WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                                   FOR UPDATE SKIP LOCKED
-                                 LIMIT rows_per_batch
-                              ) AND NOT EXISTS (
-                                SELECT 1
-                                  FROM used_job_versions_as_current_in_x_days AS ujvc
-                                 WHERE jv.uuid = ujvc.current_version_uuid
-                              ) RETURNING uuid
-                          )
-                          SELECT COUNT(*) INTO rows_deleted FROM deleted_rows;
-                          rows_deleted_total := rows_deleted_total + rows_deleted;
-                          EXIT WHEN rows_deleted = 0;
-                          PERFORM pg_sleep(0.1);
-                        END LOOP;
-                        DROP TABLE used_job_versions_as_current_in_x_days;
-                        RETURN rows_deleted_total;
-                      END;
-                      $$ LANGUAGE plpgsql;""",
-                      numberOfRowsPerBatch,
-                      retentionDays));
-              return callWith(handle, "delete_job_versions_older_than_x_days()");
+              handle.execute(sql(CREATE_TEMP_TABLES_FOR_JOB_VERSIONS, retentionDays));
+              try {
+                return deleteInBatches(
+                    handle,
+                    sql(
+                        DELETE_FROM_JOB_VERSIONS_OLDER_THAN_X_DAYS,
+                        numberOfRowsPerBatch,
+                        retentionDays));
+              } finally {
+                handle.execute(DROP_TEMP_TABLES_FOR_JOB_VERSIONS);
+              }
             });
     rowsDeleteTime.stop();
     log.info(
@@ -251,40 +208,10 @@ public final class DbRetention {
     final Stopwatch rowsDeleteTime = Stopwatch.createStarted();
     final int rowsDeleted =
         jdbi.withHandle(
-            handle -> {
-              handle.execute(
-                  sql(
-                      """
-                      CREATE OR REPLACE FUNCTION delete_runs_older_than_x_days()
-                        RETURNS INT AS $$
-                      DECLARE
-                        rows_per_batch INT := ${numberOfRowsPerBatch};
-                        rows_deleted INT;
-                        rows_deleted_total INT := 0;
-                      BEGIN
-                        LOOP
-                          WITH deleted_rows AS (
-                            DELETE FROM runs
-                              WHERE uuid IN (
-                                SELECT uuid
-                                  FROM runs
-                                 WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                                   FOR UPDATE SKIP LOCKED
-                                 LIMIT rows_per_batch
-                              ) RETURNING uuid
-                          )
-                          SELECT COUNT(*) INTO rows_deleted FROM deleted_rows;
-                          rows_deleted_total := rows_deleted_total + rows_deleted;
-                          EXIT WHEN rows_deleted = 0;
-                          PERFORM pg_sleep(0.1);
-                        END LOOP;
-                        RETURN rows_deleted_total;
-                      END;
-                      $$ LANGUAGE plpgsql;""",
-                      numberOfRowsPerBatch,
-                      retentionDays));
-              return callWith(handle, "delete_runs_older_than_x_days()");
-            });
+            handle ->
+                deleteInBatches(
+                    handle,
+                    sql(DELETE_FROM_RUNS_OLDER_THAN_X_DAYS, numberOfRowsPerBatch, retentionDays)));
     rowsDeleteTime.stop();
     log.info("Deleted '{}' runs in '{}' ms!", rowsDeleted, rowsDeleteTime.elapsed().toMillis());
   }
@@ -326,49 +253,17 @@ public final class DbRetention {
     final int rowsDeleted =
         jdbi.withHandle(
             handle -> {
-              handle.execute(
-                  sql(
-                      """
-                      CREATE OR REPLACE FUNCTION delete_datasets_older_than_x_days()
-                        RETURNS INT AS $$
-                      DECLARE
-                        rows_per_batch INT := ${numberOfRowsPerBatch};
-                        rows_deleted INT;
-                        rows_deleted_total INT := 0;
-                      BEGIN
-                        CREATE TEMPORARY TABLE used_datasets_as_io_in_x_days AS (
-                          SELECT dataset_uuid
-                            FROM job_versions_io_mapping AS jvio INNER JOIN job_versions AS jv
-                              ON jvio.job_version_uuid = jv.uuid
-                           WHERE jv.created_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                        );
-                        LOOP
-                          WITH deleted_rows AS (
-                            DELETE FROM datasets AS d
-                              WHERE d.uuid IN (
-                                SELECT uuid
-                                  FROM datasets
-                                 WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                                   FOR UPDATE SKIP LOCKED
-                                 LIMIT rows_per_batch
-                              ) AND NOT EXISTS (
-                                  SELECT 1
-                                    FROM used_datasets_as_io_in_x_days AS udaio
-                                   WHERE d.uuid = udaio.dataset_uuid
-                              ) RETURNING uuid
-                          )
-                          SELECT COUNT(*) INTO rows_deleted FROM deleted_rows;
-                          rows_deleted_total := rows_deleted_total + rows_deleted;
-                          EXIT WHEN rows_deleted = 0;
-                          PERFORM pg_sleep(0.1);
-                        END LOOP;
-                        DROP TABLE used_datasets_as_io_in_x_days;
-                        RETURN rows_deleted_total;
-                      END;
-                      $$ LANGUAGE plpgsql;""",
-                      numberOfRowsPerBatch,
-                      retentionDays));
-              return callWith(handle, "delete_datasets_older_than_x_days()");
+              handle.execute(sql(CREATE_TEMP_TABLES_FOR_DATASETS, retentionDays));
+              try {
+                return deleteInBatches(
+                    handle,
+                    sql(
+                        DELETE_FROM_DATASETS_OLDER_THAN_X_DAYS,
+                        numberOfRowsPerBatch,
+                        retentionDays));
+              } finally {
+                handle.execute(DROP_TEMP_TABLES_FOR_DATASETS);
+              }
             });
     rowsDeleteTime.stop();
     log.info("Deleted '{}' datasets in '{}' ms!", rowsDeleted, rowsDeleteTime.elapsed().toMillis());
@@ -413,59 +308,24 @@ public final class DbRetention {
     final int rowsDeleted =
         jdbi.withHandle(
             handle -> {
-              handle.execute(
-                  sql(
-                      """
-                      CREATE OR REPLACE FUNCTION delete_dataset_versions_older_than_x_days()
-                        RETURNS INT AS $$
-                      DECLARE
-                        rows_per_batch INT := ${numberOfRowsPerBatch};
-                        rows_deleted INT;
-                        rows_deleted_total INT := 0;
-                      BEGIN
-                        CREATE TEMPORARY TABLE used_dataset_versions_as_input_in_x_days AS (
-                          SELECT dataset_version_uuid
-                            FROM runs_input_mapping AS ri INNER JOIN runs AS r
-                              ON ri.run_uuid = r.uuid
-                           WHERE r.created_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                        );
-                        CREATE TEMPORARY TABLE used_dataset_versions_as_current_in_x_days AS (
-                          SELECT current_version_uuid
-                            FROM datasets
-                           WHERE updated_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                        );
-                        LOOP
-                          WITH deleted_rows AS (
-                            DELETE FROM dataset_versions AS dv
-                              WHERE dv.uuid IN (
-                                SELECT uuid
-                                  FROM dataset_versions
-                                 WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                                   FOR UPDATE SKIP LOCKED
-                                 LIMIT rows_per_batch
-                              ) AND NOT EXISTS (
-                                SELECT 1
-                                  FROM used_dataset_versions_as_input_in_x_days AS udvi
-                                 WHERE dv.uuid = udvi.dataset_version_uuid
-                              ) AND NOT EXISTS (
-                                SELECT 1
-                                  FROM used_dataset_versions_as_current_in_x_days AS udvc
-                                 WHERE dv.uuid = udvc.current_version_uuid
-                              ) RETURNING uuid
-                          )
-                          SELECT COUNT(*) INTO rows_deleted FROM deleted_rows;
-                          rows_deleted_total := rows_deleted_total + rows_deleted;
-                          EXIT WHEN rows_deleted = 0;
-                          PERFORM pg_sleep(0.1);
-                        END LOOP;
-                        DROP TABLE used_dataset_versions_as_input_in_x_days;
-                        DROP TABLE used_dataset_versions_as_current_in_x_days;
-                        RETURN rows_deleted_total;
-                      END;
-                      $$ LANGUAGE plpgsql;""",
-                      numberOfRowsPerBatch,
-                      retentionDays));
-              return callWith(handle, "delete_dataset_versions_older_than_x_days()");
+              try (final Script script =
+                  handle.createScript(
+                      sql(CREATE_TEMP_TABLES_FOR_DATASET_VERSIONS, retentionDays))) {
+                script.execute();
+              }
+              try {
+                return deleteInBatches(
+                    handle,
+                    sql(
+                        DELETE_FROM_DATASET_VERSIONS_OLDER_THAN_X_DAYS,
+                        numberOfRowsPerBatch,
+                        retentionDays));
+              } finally {
+                try (final Script script =
+                    handle.createScript(DROP_TEMP_TABLES_FOR_DATASET_VERSIONS)) {
+                  script.execute();
+                }
+              }
             });
     rowsDeleteTime.stop();
     log.info(
@@ -491,46 +351,122 @@ public final class DbRetention {
       return;
     }
     log.info("Applying retention policy of '{}' days to lineage events...", retentionDays);
+    // When partitioned, drop partitions older than X days as a whole; remaining lineage events
+    // older than X days are then deleted in batches.
+    final int partitionsDropped =
+        jdbi.inTransaction(
+            handle ->
+                DbPartitions.dropPartitionsBefore(
+                    handle,
+                    "lineage_events",
+                    Instant.now().minus(Duration.ofDays(retentionDays))));
+    if (partitionsDropped > 0) {
+      log.info("Dropped '{}' partitions of lineage events!", partitionsDropped);
+    }
+    final Stopwatch rowsDeleteTime = Stopwatch.createStarted();
+    final int rowsDeleted =
+        jdbi.withHandle(
+            handle ->
+                deleteInBatches(
+                    handle,
+                    sql(
+                        DELETE_FROM_LINEAGE_EVENTS_OLDER_THAN_X_DAYS,
+                        numberOfRowsPerBatch,
+                        retentionDays)));
+    rowsDeleteTime.stop();
+    log.info(
+        "Deleted '{}' lineage events in '{}' ms!",
+        rowsDeleted,
+        rowsDeleteTime.elapsed().toMillis());
+  }
+
+  /** Apply retention policy on {@code model_changes}. */
+  private static void retentionOnModelChanges(
+      @NonNull final Jdbi jdbi,
+      final int numberOfRowsPerBatch,
+      final int retentionDays,
+      final boolean dryRun) {
+    if (dryRun) {
+      // Get estimate of rows older than X days, then log to console.
+      final int rowsOlderThanXDaysEstimated =
+          estimateOfRowsOlderThanXDays(
+              jdbi, sql(DRY_RUN_DELETE_FROM_MODEL_CHANGES_OLDER_THAN_X_DAYS, retentionDays));
+      log.info(
+          "A retention policy of '{}' days will delete (estimated): '{}' model changes",
+          retentionDays,
+          rowsOlderThanXDaysEstimated);
+      return;
+    }
+    log.info("Applying retention policy of '{}' days to model changes...", retentionDays);
+    final Stopwatch rowsDeleteTime = Stopwatch.createStarted();
+    final int rowsDeleted =
+        jdbi.withHandle(
+            handle ->
+                deleteInBatches(
+                    handle,
+                    sql(
+                        DELETE_FROM_MODEL_CHANGES_OLDER_THAN_X_DAYS,
+                        numberOfRowsPerBatch,
+                        retentionDays)));
+    rowsDeleteTime.stop();
+    log.info(
+        "Deleted '{}' model changes in '{}' ms!",
+        rowsDeleted,
+        rowsDeleteTime.elapsed().toMillis());
+  }
+
+  /**
+   * Apply retention policy on {@code facet_payloads}: delete the payloads no longer referenced by
+   * any facet row. A payload referenced again is touched at most once a day, and locked until the
+   * facet row referencing it is committed; payloads touched within the last two days are kept.
+   */
+  private static void retentionOnFacetPayloads(
+      @NonNull final Jdbi jdbi, final int numberOfRowsPerBatch, final boolean dryRun) {
+    if (dryRun) {
+      // Get estimate of rows no longer referenced, then log to console.
+      final int rowsUnreferencedEstimated =
+          estimateOfRowsOlderThanXDays(jdbi, DRY_RUN_DELETE_FROM_UNREFERENCED_FACET_PAYLOADS);
+      log.info(
+          "A retention policy will delete (estimated): '{}' facet payloads",
+          rowsUnreferencedEstimated);
+      return;
+    }
+    log.info("Applying retention policy to unreferenced facet payloads...");
     final Stopwatch rowsDeleteTime = Stopwatch.createStarted();
     final int rowsDeleted =
         jdbi.withHandle(
             handle -> {
-              handle.execute(
-                  sql(
-                      """
-                      CREATE OR REPLACE FUNCTION delete_lineage_events_older_than_x_days()
-                        RETURNS INT AS $$
-                      DECLARE
-                        rows_per_batch INT := ${numberOfRowsPerBatch};
-                        rows_deleted INT;
-                        rows_deleted_total INT := 0;
-                      BEGIN
-                        LOOP
-                          WITH deleted_rows AS (
-                            DELETE FROM lineage_events
-                              WHERE run_uuid IN (
-                               SELECT run_uuid
-                                 FROM lineage_events
-                                WHERE event_time < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
-                                  FOR UPDATE SKIP LOCKED
-                                LIMIT rows_per_batch
-                              ) RETURNING run_uuid
-                          )
-                          SELECT COUNT(*) INTO rows_deleted FROM deleted_rows;
-                          rows_deleted_total := rows_deleted_total + rows_deleted;
-                          EXIT WHEN rows_deleted = 0;
-                          PERFORM pg_sleep(0.1);
-                        END LOOP;
-                        RETURN rows_deleted_total;
-                      END;
-                      $$ LANGUAGE plpgsql;""",
-                      numberOfRowsPerBatch,
-                      retentionDays));
-              return callWith(handle, "delete_lineage_events_older_than_x_days()");
+              // Payloads are scanned once, in order of hash, one batch at a time; referenced
+              // payloads are not scanned again by later batches.
+              int rowsDeletedTotal = 0;
+              byte[] lastHash = new byte[0];
+              while (true) {
+                final Optional<byte[]> batchLastHash =
+                    handle
+                        .createQuery(SELECT_LAST_HASH_OF_FACET_PAYLOADS_BATCH)
+                        .bind("lastHash", lastHash)
+                        .bind("rowsPerBatch", numberOfRowsPerBatch)
+                        .mapTo(byte[].class)
+                        .findOne();
+                if (batchLastHash.isEmpty()) {
+                  return rowsDeletedTotal;
+                }
+                final int rowsDeletedInBatch =
+                    handle
+                        .createUpdate(DELETE_FROM_UNREFERENCED_FACET_PAYLOADS)
+                        .bind("lastHash", lastHash)
+                        .bind("batchLastHash", batchLastHash.get())
+                        .execute();
+                rowsDeletedTotal += rowsDeletedInBatch;
+                if (rowsDeletedInBatch > 0) {
+                  pauseBetweenBatches();
+                }
+                lastHash = batchLastHash.get();
+              }
             });
     rowsDeleteTime.stop();
     log.info(
-        "Deleted '{}' lineage events in '{}' ms!",
+        "Deleted '{}' facet payloads in '{}' ms!",
         rowsDeleted,
         rowsDeleteTime.elapsed().toMillis());
   }
@@ -570,18 +506,26 @@ public final class DbRetention {
         });
   }
 
-  /** Call function with the specified {@code handle}. */
-  private static int callWith(@NonNull final Handle handle, @NonNull String functionName) {
-    final OutParameters result =
-        handle
-            .createCall(
-                """
-                {:rows_deleted_total = call ${functionName}}
-                """
-                    .replace("${functionName}", functionName))
-            .registerOutParameter("rows_deleted_total", Types.INTEGER)
-            .invoke();
-    return result.getInt("rows_deleted_total");
+  /**
+   * Executes {@code deleteBatch} with the specified {@code handle} until no rows are deleted;
+   * returns the number of rows deleted. The handle must be in auto-commit mode, so that each batch
+   * is committed on its own.
+   */
+  private static int deleteInBatches(@NonNull final Handle handle, @NonNull String deleteBatch) {
+    int rowsDeletedTotal = 0;
+    int rowsDeleted;
+    do {
+      rowsDeleted = handle.execute(deleteBatch);
+      rowsDeletedTotal += rowsDeleted;
+      if (rowsDeleted > 0) {
+        pauseBetweenBatches();
+      }
+    } while (rowsDeleted > 0);
+    return rowsDeletedTotal;
+  }
+
+  private static void pauseBetweenBatches() {
+    Uninterruptibles.sleepUninterruptibly(PAUSE_BETWEEN_BATCHES_MS, TimeUnit.MILLISECONDS);
   }
 
   /** Create {@code estimate_number_of_rows_older_than_x_days()}. */
@@ -598,6 +542,193 @@ public final class DbRetention {
       $$ LANGUAGE plpgsql;
       """;
 
+  private static final String DELETE_FROM_JOBS_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM jobs
+        WHERE uuid IN (
+          SELECT uuid
+            FROM jobs
+           WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        )
+      """;
+
+  /** Create {@code used_job_versions_as_current_in_x_days()}. */
+  private static final String CREATE_TEMP_TABLES_FOR_JOB_VERSIONS =
+      """
+      CREATE TEMPORARY TABLE used_job_versions_as_current_in_x_days AS (
+        SELECT current_version_uuid
+          FROM jobs
+         WHERE updated_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+      )
+      """;
+
+  private static final String DELETE_FROM_JOB_VERSIONS_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM job_versions AS jv
+        WHERE uuid IN (
+          SELECT uuid
+            FROM job_versions
+           WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        ) AND NOT EXISTS (
+          SELECT 1
+            FROM used_job_versions_as_current_in_x_days AS ujvc
+           WHERE jv.uuid = ujvc.current_version_uuid
+        )
+      """;
+
+  /** Drop {@code used_job_versions_as_current_in_x_days()}. */
+  private static final String DROP_TEMP_TABLES_FOR_JOB_VERSIONS =
+      "DROP TABLE IF EXISTS used_job_versions_as_current_in_x_days";
+
+  private static final String DELETE_FROM_RUNS_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM runs
+        WHERE uuid IN (
+          SELECT uuid
+            FROM runs
+           WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        )
+      """;
+
+  /** Create {@code used_datasets_as_io_in_x_days()}. */
+  private static final String CREATE_TEMP_TABLES_FOR_DATASETS =
+      """
+      CREATE TEMPORARY TABLE used_datasets_as_io_in_x_days AS (
+        SELECT dataset_uuid
+          FROM job_versions_io_mapping AS jvio INNER JOIN job_versions AS jv
+            ON jvio.job_version_uuid = jv.uuid
+         WHERE jv.created_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+      )
+      """;
+
+  private static final String DELETE_FROM_DATASETS_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM datasets AS d
+        WHERE d.uuid IN (
+          SELECT uuid
+            FROM datasets
+           WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        ) AND NOT EXISTS (
+          SELECT 1
+            FROM used_datasets_as_io_in_x_days AS udaio
+           WHERE d.uuid = udaio.dataset_uuid
+        )
+      """;
+
+  /** Drop {@code used_datasets_as_io_in_x_days()}. */
+  private static final String DROP_TEMP_TABLES_FOR_DATASETS =
+      "DROP TABLE IF EXISTS used_datasets_as_io_in_x_days";
+
+  /**
+   * Create {@code used_dataset_versions_as_input_in_x_days()} and {@code
+   * used_dataset_versions_as_current_in_x_days()}.
+   */
+  private static final String CREATE_TEMP_TABLES_FOR_DATASET_VERSIONS =
+      """
+      CREATE TEMPORARY TABLE used_dataset_versions_as_input_in_x_days AS (
+        SELECT dataset_version_uuid
+          FROM runs_input_mapping AS ri INNER JOIN runs AS r
+            ON ri.run_uuid = r.uuid
+         WHERE r.created_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+      );
+      CREATE TEMPORARY TABLE used_dataset_versions_as_current_in_x_days AS (
+        SELECT current_version_uuid
+          FROM datasets
+         WHERE updated_at >= CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+      );
+      """;
+
+  private static final String DELETE_FROM_DATASET_VERSIONS_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM dataset_versions AS dv
+        WHERE dv.uuid IN (
+          SELECT uuid
+            FROM dataset_versions
+           WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        ) AND NOT EXISTS (
+          SELECT 1
+            FROM used_dataset_versions_as_input_in_x_days AS udvi
+           WHERE dv.uuid = udvi.dataset_version_uuid
+        ) AND NOT EXISTS (
+          SELECT 1
+            FROM used_dataset_versions_as_current_in_x_days AS udvc
+           WHERE dv.uuid = udvc.current_version_uuid
+        )
+      """;
+
+  /**
+   * Drop {@code used_dataset_versions_as_input_in_x_days()} and {@code
+   * used_dataset_versions_as_current_in_x_days()}.
+   */
+  private static final String DROP_TEMP_TABLES_FOR_DATASET_VERSIONS =
+      """
+      DROP TABLE IF EXISTS used_dataset_versions_as_input_in_x_days;
+      DROP TABLE IF EXISTS used_dataset_versions_as_current_in_x_days;
+      """;
+
+  private static final String DELETE_FROM_LINEAGE_EVENTS_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM lineage_events
+        WHERE run_uuid IN (
+          SELECT run_uuid
+            FROM lineage_events
+           WHERE event_time < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        )
+      """;
+
+  private static final String DELETE_FROM_MODEL_CHANGES_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM model_changes
+        WHERE seq IN (
+          SELECT seq
+            FROM model_changes
+           WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+             FOR UPDATE SKIP LOCKED
+           LIMIT ${numberOfRowsPerBatch}
+        )
+      """;
+
+  /** Returns the last hash of the next batch of facet payloads, in order of hash. */
+  private static final String SELECT_LAST_HASH_OF_FACET_PAYLOADS_BATCH =
+      """
+      SELECT MAX(hash)
+        FROM (
+          SELECT hash
+            FROM facet_payloads
+           WHERE hash > :lastHash
+           ORDER BY hash
+           LIMIT :rowsPerBatch
+        ) AS batch
+      HAVING COUNT(*) > 0
+      """;
+
+  private static final String DELETE_FROM_UNREFERENCED_FACET_PAYLOADS =
+      """
+      DELETE FROM facet_payloads
+        WHERE hash IN (
+          SELECT p.hash
+            FROM facet_payloads AS p
+           WHERE p.hash > :lastHash AND p.hash <= :batchLastHash
+             AND p.referenced_at < CURRENT_TIMESTAMP - INTERVAL '2 days'
+             AND NOT EXISTS (SELECT 1 FROM dataset_facets AS f WHERE f.facet_hash = p.hash)
+             AND NOT EXISTS (SELECT 1 FROM run_facets AS f WHERE f.facet_hash = p.hash)
+             AND NOT EXISTS (SELECT 1 FROM job_facets AS f WHERE f.facet_hash = p.hash)
+             FOR UPDATE SKIP LOCKED
+        )
+      """;
+
   private static final String DRY_RUN_DELETE_FROM_JOBS_OLDER_THAN_X_DAYS =
       """
       DELETE FROM jobs
@@ -700,4 +831,19 @@ public final class DbRetention {
       DELETE FROM lineage_events
         WHERE event_time < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
       """;
+
+  private static final String DRY_RUN_DELETE_FROM_UNREFERENCED_FACET_PAYLOADS =
+      """
+      DELETE FROM facet_payloads AS p
+        WHERE p.referenced_at < CURRENT_TIMESTAMP - INTERVAL '2 days'
+          AND NOT EXISTS (SELECT 1 FROM dataset_facets AS f WHERE f.facet_hash = p.hash)
+          AND NOT EXISTS (SELECT 1 FROM run_facets AS f WHERE f.facet_hash = p.hash)
+          AND NOT EXISTS (SELECT 1 FROM job_facets AS f WHERE f.facet_hash = p.hash)
+      """;
+
+  private static final String DRY_RUN_DELETE_FROM_MODEL_CHANGES_OLDER_THAN_X_DAYS =
+      """
+      DELETE FROM model_changes
+        WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '${retentionDays} days'
+      """;
 }
@@ -5,12 +5,94 @@
 
 package marquez.db;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import jakarta.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 import lombok.NonNull;
 import marquez.common.Utils;
+import marquez.ingestion.IngestionConfig.CompressionConfig;
+import marquez.ingestion.IngestionConfig.CompressionConfig.Codec;
 import org.postgresql.util.PGobject;
 
 public class FacetUtils {
+  /**
+   * The single field of the object an oversized facet value is stored as, once compressed: {@code
+   * {"_compressed": {"codec": "gzip", "data": "<base64>"}}}.
+   */
+  public static final String COMPRESSED = "_compressed";
+
+  /**
+   * The maximum number of facet rows inserted by a single statement; a statement binds 9
+   * parameters per row at most, and at most 65535 parameters in total.
+   */
+  public static final int MAX_ROWS_PER_INSERT = 5000;
+
+  /**
+   * The common table expressions hashing the rows of {@code facets} into {@code hashed}, then
+   * storing each distinct payload once in {@code facet_payloads}; facet rows are then inserted from
+   * {@code hashed}, referencing their payload by {@code facet_hash}. The {@code referenced_at} of a
+   * payload already stored is refreshed at most once a day, see {@link DbRetention}.
+   */
+  public static final String HASH_AND_STORE_FACET_PAYLOADS =
+      """
+      hashed AS (
+          SELECT facets.*, sha256(convert_to(CAST(facet AS JSONB)::text, 'UTF8')) AS facet_hash
+          FROM facets
+      ),
+      payloads AS (
+          INSERT INTO facet_payloads (hash, facet)
+          SELECT DISTINCT ON (facet_hash) facet_hash, CAST(facet AS JSONB) FROM hashed
+          ON CONFLICT (hash) DO UPDATE SET referenced_at = EXCLUDED.referenced_at
+          WHERE facet_payloads.referenced_at < EXCLUDED.referenced_at - INTERVAL '1 day'
+      )
+      """;
+
+  /* The fields of a raw event holding facets, by facet name. */
+  private static final Set<String> FACETS_FIELDS = Set.of("facets", "inputFacets", "outputFacets");
+
+  @Nullable private static volatile CompressionConfig compression;
+  private static volatile boolean deduplication;
+
+  public static void use(@NonNull CompressionConfig config) {
+    compression = config.isEnabled() ? config : null;
+  }
+
+  public static boolean isCompressionEnabled() {
+    return compression != null;
+  }
+
+  /**
+   * When enabled, facet rows are inserted referencing their payload in {@code facet_payloads} by
+   * hash, rather than holding the payload themselves; see {@code V78__add_facet_payloads.sql}.
+   */
+  public static void useDeduplication(boolean enabled) {
+    deduplication = enabled;
+  }
+
+  public static boolean isDeduplicationEnabled() {
+    return deduplication;
+  }
 
   static ObjectNode asJson(@NonNull final String facetName, @NonNull Object facetValue) {
     final ObjectNode facetAsJson = Utils.getMapper().createObjectNode();
@@ -19,6 +101,143 @@ public class FacetUtils {
   }
 
   static PGobject toPgObject(String name, Object o) {
-    return Columns.toPgObject(asJson(name, o));
+    return Columns.toPgObject(asJson(name, compressIfOversized(o)));
+  }
+
+  /**
+   * Returns the provided facet value, compressed if its JSON exceeds the configured threshold; the
+   * value is returned as is when compression is disabled.
+   */
+  static Object compressIfOversized(@NonNull Object facetValue) {
+    final CompressionConfig config = compression;
+    if (config == null) {
+      return facetValue;
+    }
+    final byte[] json = toJsonBytes(facetValue);
+    if (json.length <= config.getThresholdBytes()) {
+      // Already serialized; avoid serializing the value again.
+      return new RawValue(new String(json, UTF_8));
+    }
+    return compressed(config.getCodec(), json);
+  }
+
+  /**
+   * Compresses, in place, the oversized facets of the provided raw event; facets are the values of
+   * the {@code facets}, {@code inputFacets} and {@code outputFacets} objects of the event.
+   */
+  public static void compressFacets(@NonNull JsonNode event) {
+    final CompressionConfig config = compression;
+    if (config == null) {
+      return;
+    }
+    forEachFacets(
+        event,
+        facets -> {
+          final List<String> uncompressed = new ArrayList<>();
+          facets
+              .fields()
+              .forEachRemaining(
+                  facet -> {
+                    if (!isCompressed(facet.getValue())) {
+                      uncompressed.add(facet.getKey());
+                    }
+                  });
+          for (final String name : uncompressed) {
+            final byte[] json = toJsonBytes(facets.get(name));
+            if (json.length > config.getThresholdBytes()) {
+              facets.set(name, compressed(config.getCodec(), json));
+            }
+          }
+        });
+  }
+
+  /** Decompresses, in place, the compressed facets of the provided raw event. */
+  public static void decompressFacets(@NonNull JsonNode event) {
+    forEachFacets(
+        event,
+        facets -> {
+          final List<Map.Entry<String, JsonNode>> compressed = new ArrayList<>();
+          facets
+              .fields()
+              .forEachRemaining(
+                  facet -> {
+                    if (isCompressed(facet.getValue())) {
+                      compressed.add(facet);
+                    }
+                  });
+          compressed.forEach(facet -> facets.set(facet.getKey(), decompress(facet.getValue())));
+        });
+  }
+
+  /** Returns the provided facet value, decompressed if it was stored compressed. */
+  public static JsonNode decompress(@Nullable JsonNode facetValue) {
+    if (!isCompressed(facetValue)) {
+      return facetValue;
+    }
+    final JsonNode compressed = facetValue.get(COMPRESSED);
+    final Codec codec = Codec.valueOf(compressed.get("codec").asText().toUpperCase(Locale.ROOT));
+    final byte[] data = Base64.getDecoder().decode(compressed.get("data").asText());
+    try (InputStream in = inflate(codec, data)) {
+      return Utils.getMapper().readTree(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static boolean isCompressed(@Nullable JsonNode facetValue) {
+    return facetValue != null
+        && facetValue.isObject()
+        && facetValue.size() == 1
+        && facetValue.has(COMPRESSED)
+        && facetValue.get(COMPRESSED).has("codec")
+        && facetValue.get(COMPRESSED).has("data");
+  }
+
+  private static void forEachFacets(JsonNode node, Consumer<ObjectNode> consumer) {
+    if (node.isArray()) {
+      node.forEach(element -> forEachFacets(element, consumer));
+    } else if (node.isObject()) {
+      node.fields()
+          .forEachRemaining(
+              field -> {
+                if (FACETS_FIELDS.contains(field.getKey()) && field.getValue().isObject()) {
+                  consumer.accept((ObjectNode) field.getValue());
+                } else {
+                  forEachFacets(field.getValue(), consumer);
+                }
+              });
+    }
+  }
+
+  private static ObjectNode compressed(Codec codec, byte[] json) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+    try (OutputStream out = deflate(codec, bytes)) {
+      out.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    final ObjectNode facetValue = Utils.getMapper().createObjectNode();
+    facetValue
+        .putObject(COMPRESSED)
+        .put("codec", codec.name().toLowerCase(Locale.ROOT))
+        .put("data", Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    return facetValue;
+  }
+
+  private static OutputStream deflate(Codec codec, OutputStream out) throws IOException {
+    return codec == Codec.GZIP ? new GZIPOutputStream(out) : new DeflaterOutputStream(out);
+  }
+
+  private static InputStream inflate(Codec codec, byte[] data) throws IOException {
+    final InputStream in = new ByteArrayInputStream(data);
+    return codec == Codec.GZIP ? new GZIPInputStream(in) : new InflaterInputStream(in);
+  }
+
+  private static byte[] toJsonBytes(Object value) {
+    try {
+      return Utils.getMapper().writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 }
@@ -75,7 +75,7 @@ public interface FullSearchDao extends SqlObject {
                          df.created_at,
                          rank() OVER (PARTITION BY df.dataset_version_uuid, "name"
                                       ORDER BY created_at DESC) AS r
-                  FROM dataset_facets AS df
+                  FROM dataset_facets_view AS df
                   WHERE (df.type ILIKE 'dataset' OR df.type ILIKE 'unknown' OR df.type ILIKE 'input')
                     AND (:includeFacets = true)
                     AND (CARDINALITY(COALESCE(:facetNames, ARRAY[]::text[])) = 0 OR df.name = ANY(COALESCE(:facetNames, ARRAY[]::text[])))
@@ -73,7 +73,7 @@ public interface JobDao extends BaseDao {
                 f.job_version_uuid
             ,   JSON_AGG(f.facet) as facets
             FROM
-                job_facets f
+                job_facets_view f
             LEFT JOIN
                 jobs_view j on j.current_version_uuid = f.job_version_uuid
             WHERE
@@ -6,11 +6,14 @@
 package marquez.db;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import jakarta.annotation.Nullable;
 import java.time.Instant;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import lombok.NonNull;
 import marquez.common.Utils;
@@ -18,6 +21,7 @@ import marquez.db.mappers.JobFacetsMapper;
 import marquez.service.models.JobFacets;
 import marquez.service.models.LineageEvent;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.BindMethodsList;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
@@ -105,17 +109,100 @@ public interface JobFacetsDao {
     final Instant now = Instant.now();
 
     JsonNode jsonNode = Utils.getMapper().valueToTree(jobFacet);
-    StreamSupport.stream(
-            Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT), false)
-        .forEach(
-            fieldName ->
-                insertJobFacet(
-                    now,
-                    jobUuid,
-                    jobVersionUuid,
-                    lineageEventTime,
-                    fieldName,
-                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))));
+    insertJobVersionFacets(
+        StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT),
+                false)
+            .map(
+                fieldName ->
+                    new JobVersionFacetRow(
+                        now,
+                        jobUuid,
+                        jobVersionUuid,
+                        lineageEventTime,
+                        fieldName,
+                        FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))))
+            .collect(Collectors.toList()));
+  }
+
+  @SqlUpdate(
+      """
+            INSERT INTO job_facets (
+               created_at,
+               job_uuid,
+               job_version_uuid,
+               lineage_event_time,
+               name,
+               facet
+            ) VALUES <values>
+            """)
+  void doInsertJobVersionFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "jobUuid",
+                "jobVersionUuid",
+                "lineageEventTime",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<JobVersionFacetRow> rows);
+
+  @SqlUpdate(
+      """
+            WITH facets (created_at, job_uuid, job_version_uuid, lineage_event_time, name, facet) AS (
+                VALUES <values>
+            ),
+            """
+          + FacetUtils.HASH_AND_STORE_FACET_PAYLOADS
+          + """
+            INSERT INTO job_facets (
+               created_at,
+               job_uuid,
+               job_version_uuid,
+               lineage_event_time,
+               name,
+               facet_hash
+            )
+            SELECT
+               CAST(created_at AS TIMESTAMPTZ),
+               CAST(job_uuid AS UUID),
+               CAST(job_version_uuid AS UUID),
+               CAST(lineage_event_time AS TIMESTAMPTZ),
+               CAST(name AS VARCHAR),
+               facet_hash
+            FROM hashed
+            """)
+  void doInsertDeduplicatedJobVersionFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "jobUuid",
+                "jobVersionUuid",
+                "lineageEventTime",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<JobVersionFacetRow> rows);
+
+  /**
+   * Inserts all of the provided job version facet {@code rows} in statements of at most {@link
+   * FacetUtils#MAX_ROWS_PER_INSERT} rows each, as the number of parameters of a statement is
+   * limited.
+   *
+   * @param rows
+   */
+  default void insertJobVersionFacets(@NonNull List<JobVersionFacetRow> rows) {
+    for (final List<JobVersionFacetRow> chunk :
+        Lists.partition(rows, FacetUtils.MAX_ROWS_PER_INSERT)) {
+      if (FacetUtils.isDeduplicationEnabled()) {
+        doInsertDeduplicatedJobVersionFacets(chunk);
+      } else {
+        doInsertJobVersionFacets(chunk);
+      }
+    }
   }
 
   @Transaction
@@ -128,18 +215,105 @@ public interface JobFacetsDao {
     final Instant now = Instant.now();
 
     JsonNode jsonNode = Utils.getMapper().valueToTree(jobFacet);
-    StreamSupport.stream(
-            Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT), false)
-        .forEach(
-            fieldName ->
-                insertJobFacet(
-                    now,
-                    jobUuid,
-                    runUuid,
-                    lineageEventTime,
-                    lineageEventType,
-                    fieldName,
-                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))));
+    insertJobFacets(
+        StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT),
+                false)
+            .map(
+                fieldName ->
+                    new JobFacetRow(
+                        now,
+                        jobUuid,
+                        runUuid,
+                        lineageEventTime,
+                        lineageEventType,
+                        fieldName,
+                        FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))))
+            .collect(Collectors.toList()));
+  }
+
+  @SqlUpdate(
+      """
+            INSERT INTO job_facets (
+               created_at,
+               job_uuid,
+               run_uuid,
+               lineage_event_time,
+               lineage_event_type,
+               name,
+               facet
+            ) VALUES <values>
+            """)
+  void doInsertJobFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "jobUuid",
+                "runUuid",
+                "lineageEventTime",
+                "lineageEventType",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<JobFacetRow> rows);
+
+  @SqlUpdate(
+      """
+            WITH facets (created_at, job_uuid, run_uuid, lineage_event_time, lineage_event_type, name, facet) AS (
+                VALUES <values>
+            ),
+            """
+          + FacetUtils.HASH_AND_STORE_FACET_PAYLOADS
+          + """
+            INSERT INTO job_facets (
+               created_at,
+               job_uuid,
+               run_uuid,
+               lineage_event_time,
+               lineage_event_type,
+               name,
+               facet_hash
+            )
+            SELECT
+               CAST(created_at AS TIMESTAMPTZ),
+               CAST(job_uuid AS UUID),
+               CAST(run_uuid AS UUID),
+               CAST(lineage_event_time AS TIMESTAMPTZ),
+               CAST(lineage_event_type AS VARCHAR),
+               CAST(name AS VARCHAR),
+               facet_hash
+            FROM hashed
+            """)
+  void doInsertDeduplicatedJobFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "jobUuid",
+                "runUuid",
+                "lineageEventTime",
+                "lineageEventType",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<JobFacetRow> rows);
+
+  /**
+   * Inserts all of the provided facet {@code rows} in statements of at most {@link
+   * FacetUtils#MAX_ROWS_PER_INSERT} rows each, as the number of parameters of a statement is
+   * limited.
+   *
+   * @param rows
+   */
+  default void insertJobFacets(@NonNull List<JobFacetRow> rows) {
+    for (final List<JobFacetRow> chunk : Lists.partition(rows, FacetUtils.MAX_ROWS_PER_INSERT)) {
+      if (FacetUtils.isDeduplicationEnabled()) {
+        doInsertDeduplicatedJobFacets(chunk);
+      } else {
+        doInsertJobFacets(chunk);
+      }
+    }
   }
 
   record JobFacetRow(
@@ -150,4 +324,12 @@ public interface JobFacetsDao {
       String lineageEventType,
       String name,
       PGobject facet) {}
+
+  record JobVersionFacetRow(
+      Instant createdAt,
+      UUID jobUuid,
+      UUID jobVersionUuid,
+      Instant lineageEventTime,
+      String name,
+      PGobject facet) {}
 }
@@ -10,10 +10,13 @@ import static marquez.db.Columns.stringOrThrow;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import jakarta.annotation.Nullable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -451,14 +454,17 @@ public interface JobVersionDao extends BaseDao {
     jobDao.updateVersionFor(jobRow.getUuid(), jobRow.getCreatedAt(), jobVersionRow.getUuid());
 
     // Update lineage stats for all affected datasets
-    DatasetFacetsDao datasetFacetsDao = getHandle().attach(DatasetFacetsDao.class);
-    // For old datasets, use the single-arg method (looks up current version)
-    oldInputDatasets.forEach(datasetFacetsDao::updateLineageStatistics);
-    // For new datasets, use the two-arg method (explicit version)
-    inputs.forEach(i -> datasetFacetsDao.updateLineageStatistics(i.getDatasetVersionRow().getDatasetUuid(), i.getDatasetVersionRow().getUuid()));
-
-    oldOutputDatasets.forEach(datasetFacetsDao::updateLineageStatistics);
-    outputs.forEach(o -> datasetFacetsDao.updateLineageStatistics(o.getDatasetVersionRow().getDatasetUuid(), o.getDatasetVersionRow().getUuid()));
+    jobVersionDao.updateLineageStatisticsFor(
+        oldInputDatasets,
+        oldOutputDatasets,
+        Stream.concat(inputs.stream(), outputs.stream())
+            .map(DatasetRecord::getDatasetVersionRow)
+            .collect(
+                Collectors.toMap(
+                    DatasetVersionRow::getDatasetUuid,
+                    DatasetVersionRow::getUuid,
+                    (first, last) -> last,
+                    LinkedHashMap::new)));
 
     return new BagOfJobVersionInfo(
         jobRow,
@@ -558,14 +564,18 @@ public interface JobVersionDao extends BaseDao {
     }
 
     // Update lineage stats for all affected datasets
-    DatasetFacetsDao datasetFacetsDao = getHandle().attach(DatasetFacetsDao.class);
-    // For old datasets, use the single-arg method (looks up current version)
-    oldInputDatasets.forEach(datasetFacetsDao::updateLineageStatistics);
-    // For new datasets, use the two-arg method (explicit version)
-    jobRowRunDetails.jobVersionInputs.forEach(i -> datasetFacetsDao.updateLineageStatistics(i.getDatasetUuid(), i.getUuid()));
-
-    oldOutputDatasets.forEach(datasetFacetsDao::updateLineageStatistics);
-    jobRowRunDetails.jobVersionOutputs.forEach(o -> datasetFacetsDao.updateLineageStatistics(o.getDatasetUuid(), o.getUuid()));
+    jobVersionDao.updateLineageStatisticsFor(
+        oldInputDatasets,
+        oldOutputDatasets,
+        Stream.concat(
+                jobRowRunDetails.jobVersionInputs.stream(),
+                jobRowRunDetails.jobVersionOutputs.stream())
+            .collect(
+                Collectors.toMap(
+                    DatasetVersionRow::getDatasetUuid,
+                    DatasetVersionRow::getUuid,
+                    (first, last) -> last,
+                    LinkedHashMap::new)));
 
     return new BagOfJobVersionInfo(
         jobRowRunDetails.jobRow,
@@ -574,6 +584,88 @@ public interface JobVersionDao extends BaseDao {
         jobRowRunDetails.jobVersionOutputs);
   }
 
+  /**
+   * Updates the lineage statistics of the datasets linked to, or unlinked from, the job by a change
+   * of its current version. The jobs reading or writing a dataset are counted from {@code
+   * lineage_edges}, which marks the statistics of a dataset as stale when a job is linked to or
+   * unlinked from it; the {@code lineageStatistics} facet is materialized for the provided dataset
+   * versions, and for the datasets linked to the job before the change. It is only written when the
+   * statistics are stale, or when the dataset version changed.
+   *
+   * @param oldInputDatasets The input datasets linked to the job before the change.
+   * @param oldOutputDatasets The output datasets linked to the job before the change.
+   * @param datasetVersionUuids The dataset versions of the event, by dataset.
+   */
+  default void updateLineageStatisticsFor(
+      @NonNull List<UUID> oldInputDatasets,
+      @NonNull List<UUID> oldOutputDatasets,
+      @NonNull Map<UUID, UUID> datasetVersionUuids) {
+    final Map<UUID, UUID> datasetsToMaterialize = new LinkedHashMap<>(datasetVersionUuids);
+    // Datasets possibly unlinked are materialized for their current version.
+    Stream.concat(oldInputDatasets.stream(), oldOutputDatasets.stream())
+        .forEach(datasetUuid -> datasetsToMaterialize.putIfAbsent(datasetUuid, null));
+    datasetsToMaterialize.forEach(this::materializeLineageStatistics);
+  }
+
+  /**
+   * Materializes the {@code lineageStatistics} facet of the dataset from {@code lineage_edges}, for
+   * the provided dataset version or, when {@code null}, the current version of the dataset; hidden
+   * and symlinked jobs are not counted. The facet is only inserted when the edges, or the jobs
+   * hidden or symlinked, changed since it was last materialized, or when it was last materialized
+   * for another version.
+   *
+   * @param datasetUuid
+   * @param datasetVersionUuid
+   */
+  @SqlUpdate(
+      """
+      WITH target AS (
+          SELECT d.uuid AS dataset_uuid,
+                 COALESCE(CAST(:datasetVersionUuid AS UUID), d.current_version_uuid) AS dataset_version_uuid
+          FROM datasets d
+          WHERE d.uuid = :datasetUuid
+      ),
+      materialized AS (
+          INSERT INTO dataset_lineage_statistics AS s (dataset_uuid, dataset_version_uuid, is_stale)
+          SELECT dataset_uuid, dataset_version_uuid, FALSE
+          FROM target
+          WHERE dataset_version_uuid IS NOT NULL
+          ON CONFLICT (dataset_uuid) DO UPDATE
+          SET dataset_version_uuid = EXCLUDED.dataset_version_uuid, is_stale = FALSE
+          WHERE s.is_stale OR s.dataset_version_uuid IS DISTINCT FROM EXCLUDED.dataset_version_uuid
+          RETURNING s.dataset_uuid, s.dataset_version_uuid
+      ),
+      stats AS (
+          SELECT
+              COUNT(DISTINCT e.job_uuid) FILTER (WHERE e.io_type = 'OUTPUT') AS inEdges,
+              COUNT(DISTINCT e.job_uuid) FILTER (WHERE e.io_type = 'INPUT') AS outEdges,
+              array_agg(DISTINCT j.namespace_name ORDER BY j.namespace_name) FILTER (WHERE e.io_type = 'INPUT') AS consumingNamespaces,
+              array_agg(DISTINCT j.namespace_name ORDER BY j.namespace_name) FILTER (WHERE e.io_type = 'OUTPUT') AS producingNamespaces
+          FROM lineage_edges e
+          INNER JOIN jobs_view j ON j.uuid = e.job_uuid
+          WHERE e.dataset_uuid = :datasetUuid
+      )
+      INSERT INTO dataset_facets (
+          created_at, dataset_uuid, dataset_version_uuid, run_uuid,
+          lineage_event_time, lineage_event_type, type, name, facet
+      )
+      SELECT
+          NOW(), m.dataset_uuid, m.dataset_version_uuid, NULL,
+          NOW(), 'LINEAGE_UPDATE', 'DATASET', 'lineageStatistics',
+          json_build_object(
+            'lineageStatistics', json_build_object(
+              'inEdges', s.inEdges,
+              'outEdges', s.outEdges,
+              'consumingNamespaces', COALESCE(s.consumingNamespaces, ARRAY[]::varchar[]),
+              'producingNamespaces', COALESCE(s.producingNamespaces, ARRAY[]::varchar[]),
+              '_producer', 'https://github.com/ilum-cloud/marquez',
+              '_schema', 'https://github.com/ilum-cloud/marquez/spec/facets/lineage-statistics.json'
+            )
+          )
+      FROM materialized m, stats s
+      """)
+  void materializeLineageStatistics(UUID datasetUuid, @Nullable UUID datasetVersionUuid);
+
   /** Returns the specified {@link ExtendedDatasetVersionRow}s as {@link DatasetId}s. */
   default ImmutableSortedSet<DatasetId> toDatasetIds(
       @NonNull final List<DatasetVersionRow> datasetVersionRows) {
@@ -11,11 +11,13 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import javax.annotation.Nullable;
 import lombok.NonNull;
 import marquez.common.models.DatasetName;
 import marquez.common.models.JobName;
 import marquez.common.models.NamespaceName;
 import marquez.common.models.RunId;
+import marquez.db.JobVersionDao.IoType;
 import marquez.db.mappers.DatasetDataMapper;
 import marquez.db.mappers.JobDataMapper;
 import marquez.db.mappers.JobRowMapper;
@@ -24,6 +26,7 @@ import marquez.db.mappers.UpstreamRunRowMapper;
 import marquez.service.models.DatasetData;
 import marquez.service.models.JobData;
 import marquez.service.models.Run;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
@@ -44,11 +47,16 @@ public interface LineageDao {
 
   public record UpstreamRunRow(JobSummary job, RunSummary run, DatasetSummary input) {}
 
+  /** A dataset read ({@code INPUT}) or written ({@code OUTPUT}) by the current version of a job. */
+  public record JobIoRow(
+      UUID jobUuid, @Nullable UUID jobSymlinkTargetUuid, UUID datasetUuid, String ioType) {}
+
   /**
    * Fetch all of the jobs that consume or produce the datasets that are consumed or produced by the
-   * input jobIds. This returns a single layer from the BFS using datasets as edges. Jobs that have
-   * no input or output datasets will have no results. Jobs that have no upstream producers or
-   * downstream consumers will have the original jobIds returned.
+   * input jobIds, up to depth layers of the BFS using datasets as edges; the BFS walks the indexed
+   * {@code lineage_edges} of the current job versions. Jobs that have no input or output datasets
+   * will have no results. Jobs that have no upstream producers or downstream consumers will have the
+   * original jobIds returned.
    *
    * @param jobIds
    * @return
@@ -56,54 +64,106 @@ public interface LineageDao {
   @SqlQuery(
       """
       WITH RECURSIVE
-                 job_io AS (
+                lineage(job_uuid, depth) AS (
+                    SELECT e.job_uuid, 0 AS depth
+                    FROM lineage_edges e
+                    WHERE e.job_uuid IN (<jobIds>) OR e.job_symlink_target_uuid IN (<jobIds>)
+                    UNION
+                    SELECT e2.job_uuid, l.depth + 1
+                    FROM lineage l
+                    INNER JOIN lineage_edges e1 ON e1.job_uuid = l.job_uuid
+                    INNER JOIN lineage_edges e2 ON e2.dataset_uuid = e1.dataset_uuid
+                    WHERE e2.job_uuid != l.job_uuid AND l.depth < :depth),
+                job_io AS (
                     SELECT
-                           io.job_uuid AS job_uuid,
-                           io.job_symlink_target_uuid AS job_symlink_target_uuid,
-                           ARRAY_AGG(DISTINCT io.dataset_uuid) FILTER (WHERE io.io_type='INPUT') AS inputs,
-                           ARRAY_AGG(DISTINCT io.dataset_uuid) FILTER (WHERE io.io_type='OUTPUT') AS outputs
-                    FROM job_versions_io_mapping io
-                    WHERE io.is_current_job_version = TRUE
-                    GROUP BY io.job_symlink_target_uuid, io.job_uuid
+                           e.job_uuid AS job_uuid,
+                           e.job_symlink_target_uuid AS job_symlink_target_uuid,
+                           COALESCE(ARRAY_AGG(DISTINCT e.dataset_uuid) FILTER (WHERE e.io_type='INPUT'), Array[]::uuid[]) AS inputs,
+                           COALESCE(ARRAY_AGG(DISTINCT e.dataset_uuid) FILTER (WHERE e.io_type='OUTPUT'), Array[]::uuid[]) AS outputs
+                    FROM lineage_edges e
+                    WHERE e.job_uuid IN (SELECT job_uuid FROM lineage)
+                    GROUP BY e.job_symlink_target_uuid, e.job_uuid
                 ),
-                lineage(job_uuid, job_symlink_target_uuid, inputs, outputs) AS (
-                    SELECT job_uuid,
-                           job_symlink_target_uuid,
-                           COALESCE(inputs, Array[]::uuid[]) AS inputs,
-                           COALESCE(outputs, Array[]::uuid[]) AS outputs,
-                           0 AS depth
-                    FROM job_io
-                    WHERE job_uuid IN (<jobIds>) OR job_symlink_target_uuid IN (<jobIds>)
-                    UNION
-                    SELECT io.job_uuid, io.job_symlink_target_uuid, io.inputs, io.outputs, l.depth + 1
-                    FROM job_io io, lineage l
-                    WHERE (io.job_uuid != l.job_uuid) AND
-                        array_cat(io.inputs, io.outputs) && array_cat(l.inputs, l.outputs)
-                      AND depth < :depth),
                 lineage_outside_job_io(job_uuid) AS (
                     SELECT
                       param_jobs.param_job_uuid as job_uuid,
                       j.symlink_target_uuid,
                       Array[]::uuid[] AS inputs,
-                      Array[]::uuid[] AS outputs,
-                      0 AS depth
+                      Array[]::uuid[] AS outputs
                     FROM (SELECT unnest(ARRAY[<jobIds>]::UUID[]) AS param_job_uuid) param_jobs
                     LEFT JOIN lineage l on param_jobs.param_job_uuid = l.job_uuid
                     INNER JOIN jobs j ON j.uuid = param_jobs.param_job_uuid
                     WHERE l.job_uuid IS NULL
                 )
             SELECT DISTINCT ON (j.uuid) j.*, inputs AS input_uuids, outputs AS output_uuids
-            FROM (SELECT * FROM lineage UNION SELECT * FROM lineage_outside_job_io) l2
+            FROM (SELECT * FROM job_io UNION SELECT * FROM lineage_outside_job_io) l2
             INNER JOIN jobs_view j ON (j.uuid=l2.job_uuid OR j.uuid=l2.job_symlink_target_uuid)
   """)
   Set<JobData> getLineage(@BindList Set<UUID> jobIds, int depth);
 
+  /**
+   * Fetch the datasets read or written by the current version of every job; see {@link
+   * marquez.service.LineageGraphIndex}.
+   */
+  @SqlQuery(
+      """
+      SELECT job_uuid, job_symlink_target_uuid, dataset_uuid, io_type
+      FROM lineage_edges
+      """)
+  @RegisterConstructorMapper(JobIoRow.class)
+  List<JobIoRow> getCurrentJobIo();
+
+  /**
+   * Fetch the datasets read or written by the current version of the job, and of the jobs
+   * symlinked to it.
+   */
+  @SqlQuery(
+      """
+      SELECT job_uuid, job_symlink_target_uuid, dataset_uuid, io_type
+      FROM lineage_edges
+      WHERE job_uuid = :jobUuid OR job_symlink_target_uuid = :jobUuid
+      """)
+  @RegisterConstructorMapper(JobIoRow.class)
+  List<JobIoRow> getCurrentJobIo(UUID jobUuid);
+
+  /** Fetch the datasets read or written by the current version of the jobs. */
+  @SqlQuery(
+      """
+      SELECT job_uuid, job_symlink_target_uuid, dataset_uuid, io_type
+      FROM lineage_edges
+      WHERE job_uuid IN (<jobIds>)
+      """)
+  @RegisterConstructorMapper(JobIoRow.class)
+  List<JobIoRow> getCurrentJobIo(@BindList Set<UUID> jobIds);
+
+  /**
+   * Fetch the jobs whose current version reads ({@code INPUT}) or writes ({@code OUTPUT}) the
+   * datasets or, when {@code ioType} is {@code null}, does either.
+   */
+  @SqlQuery(
+      """
+      SELECT job_uuid, job_symlink_target_uuid, dataset_uuid, io_type
+      FROM lineage_edges
+      WHERE dataset_uuid IN (<datasetIds>)
+        AND (CAST(:ioType AS VARCHAR) IS NULL OR io_type = :ioType)
+      """)
+  @RegisterConstructorMapper(JobIoRow.class)
+  List<JobIoRow> getCurrentDatasetIo(
+      @BindList Set<UUID> datasetIds, @Nullable IoType ioType);
+
+  @SqlQuery(
+      """
+      SELECT j.*, NULL as input_uuids, NULL AS output_uuids FROM jobs_view j
+      WHERE j.uuid IN (<jobIds>)""")
+  List<JobData> getJobData(@BindList Set<UUID> jobIds);
+
+  /** Fetch a job, if any, whose parent is each of the jobs. */
   @SqlQuery(
       """
-    SELECT j.*, NULL as input_uuids, NULL AS output_uuids FROM jobs_view j
-    WHERE j.parent_job_uuid= :jobId
-    LIMIT 1""")
-  Optional<JobData> getParentJobData(UUID jobId);
+    SELECT DISTINCT ON (j.parent_job_uuid) j.*, NULL as input_uuids, NULL AS output_uuids
+    FROM jobs_view j
+    WHERE j.parent_job_uuid IN (<jobIds>)""")
+  List<JobData> getParentJobData(@BindList Set<UUID> jobIds);
 
   @SqlQuery(
       """
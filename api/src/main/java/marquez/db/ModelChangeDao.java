@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import jakarta.annotation.Nullable;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.customizer.BindMethods;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+
+/** The feed of changes to the Marquez model; see {@link ModelChanges}. */
+public interface ModelChangeDao {
+  @SqlBatch(
+      """
+      INSERT INTO model_changes (type, namespace, name, version, run_uuid, run_state)
+      VALUES (:type, :namespace, :name, :version, :runUuid, :runState)""")
+  void insertChanges(@BindMethods List<ModelChange> changes);
+
+  /**
+   * Returns, at most, {@code limit} changes after the provided position, in the order of their
+   * positions. Only changes recorded by transactions older than any transaction still in progress
+   * are returned: a change yet to be committed can only be recorded after them. Hence, a long write
+   * transaction holds back the changes recorded after it started, until it ends.
+   */
+  @SqlQuery(
+      """
+      SELECT CAST(CAST(COALESCE(txid, '0') AS TEXT) AS BIGINT) AS txid,
+             seq, created_at, type, namespace, name, version, run_uuid, run_state
+      FROM model_changes
+      WHERE (COALESCE(txid, '0'), seq) > (CAST(CAST(:afterTxid AS TEXT) AS xid8), :afterSeq)
+        AND COALESCE(txid, '0') < pg_snapshot_xmin(pg_current_snapshot())
+      ORDER BY COALESCE(txid, '0'), seq
+      LIMIT :limit""")
+  @RegisterConstructorMapper(ModelChangeRow.class)
+  List<ModelChangeRow> findChangesAfter(long afterTxid, long afterSeq, int limit);
+
+  /**
+   * Returns the position of the last change returned by {@link #findChangesAfter}, or {@code 0.0}
+   * if none; along with the age, in seconds, of the oldest change committed but not returned yet,
+   * as recorded after a transaction still in progress.
+   */
+  @SqlQuery(
+      """
+      SELECT CAST(CAST(COALESCE(head.txid, '0') AS TEXT) AS BIGINT) AS txid,
+             COALESCE(head.seq, 0) AS seq,
+             COALESCE(
+               (SELECT EXTRACT(EPOCH FROM now() - MIN(created_at))
+                FROM model_changes
+                WHERE COALESCE(txid, '0') >= pg_snapshot_xmin(pg_current_snapshot())),
+               0) AS held_back_seconds
+      FROM (SELECT 1) AS one
+      LEFT JOIN LATERAL (
+        SELECT txid, seq
+        FROM model_changes
+        WHERE COALESCE(txid, '0') < pg_snapshot_xmin(pg_current_snapshot())
+        ORDER BY COALESCE(txid, '0') DESC, seq DESC
+        LIMIT 1) AS head ON TRUE""")
+  @RegisterConstructorMapper(HeadRow.class)
+  HeadRow findHead();
+
+  /** The types of objects of the Marquez model changes are recorded for. */
+  enum ChangeType {
+    JOB,
+    DATASET
+  }
+
+  /**
+   * A change to a job, or to a dataset; the change of a job made by a run event also holds the run,
+   * and the state of the run.
+   */
+  record ModelChange(
+      String type,
+      String namespace,
+      String name,
+      @Nullable UUID version,
+      @Nullable UUID runUuid,
+      @Nullable String runState) {}
+
+  /**
+   * A change recorded in the feed, at the position of the transaction {@code txid} that recorded
+   * it, then of its sequence number {@code seq}.
+   */
+  record ModelChangeRow(
+      long txid,
+      long seq,
+      Instant createdAt,
+      String type,
+      String namespace,
+      String name,
+      @Nullable UUID version,
+      @Nullable UUID runUuid,
+      @Nullable String runState) {}
+
+  /**
+   * The position of the last change served, and the age of the oldest change held back by a
+   * transaction in progress.
+   */
+  record HeadRow(long txid, long seq, double heldBackSeconds) {}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.NonNull;
+import marquez.db.ModelChangeDao.ChangeType;
+import marquez.db.ModelChangeDao.ModelChange;
+import marquez.db.models.UpdateLineageRow;
+import marquez.db.models.UpdateLineageRow.DatasetRecord;
+
+/**
+ * When enabled, the jobs and datasets changed by an event are recorded in {@code model_changes} by
+ * {@link OpenLineageDao}, within the same transaction as the changes (when ingestion is
+ * transactional); clients follow the feed of changes from the last change they read, rather than
+ * polling jobs and datasets.
+ */
+public final class ModelChanges {
+  private ModelChanges() {}
+
+  private static volatile boolean enabled;
+
+  public static void use(final boolean enabled) {
+    ModelChanges.enabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the changes of the Marquez model made by the provided update: the job, the outputs,
+   * and the inputs a version was written for. Inputs read at their current version are unchanged.
+   */
+  public static List<ModelChange> of(@NonNull final UpdateLineageRow update) {
+    final List<ModelChange> changes = new ArrayList<>();
+    if (update.getJob() != null) {
+      changes.add(
+          new ModelChange(
+              ChangeType.JOB.name(),
+              update.getJob().getNamespaceName(),
+              update.getJob().getName(),
+              update.getJobVersionBag() != null
+                  ? update.getJobVersionBag().getJobVersionRow().getUuid()
+                  : update.getJob().getCurrentVersionUuid(),
+              update.getRun() != null ? update.getRun().getUuid() : null,
+              update.getRunState() != null ? update.getRunState().getState() : null));
+    }
+    if (update.getInputs() != null) {
+      update
+          .getInputs()
+          .ifPresent(
+              inputs ->
+                  inputs.stream()
+                      .filter(DatasetRecord::isVersionCreated)
+                      .forEach(input -> add(changes, input)));
+    }
+    if (update.getOutputs() != null) {
+      update.getOutputs().ifPresent(outputs -> outputs.forEach(output -> add(changes, output)));
+    }
+    return changes;
+  }
+
+  private static void add(List<ModelChange> changes, DatasetRecord dataset) {
+    changes.add(
+        new ModelChange(
+            ChangeType.DATASET.name(),
+            dataset.getNamespaceRow().getName(),
+            dataset.getDatasetRow().getName(),
+            dataset.getDatasetVersionRow() != null
+                ? dataset.getDatasetVersionRow().getVersion()
+                : null,
+            null,
+            null));
+  }
+}
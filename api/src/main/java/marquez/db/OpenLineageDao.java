@@ -5,10 +5,12 @@
 
 package marquez.db;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -18,9 +20,11 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -31,12 +35,14 @@ import marquez.common.models.DatasetType;
 import marquez.common.models.NamespaceName;
 import marquez.common.models.RunState;
 import marquez.common.models.SourceType;
+import marquez.db.DatasetFacetsDao.DatasetFacetRow;
 import marquez.db.DatasetFieldDao.DatasetFieldMapping;
 import marquez.db.JobVersionDao.BagOfJobVersionInfo;
 import marquez.db.JobVersionDao.IoType;
 import marquez.db.JobVersionDao.JobRowRunDetails;
 import marquez.db.RunDao.RunUpsert;
 import marquez.db.mappers.LineageEventMapper;
+import marquez.db.mappers.LineageEventRowMapper;
 import marquez.db.models.ColumnLineageRow;
 import marquez.db.models.DatasetFieldRow;
 import marquez.db.models.DatasetRow;
@@ -69,6 +75,8 @@ import marquez.service.models.LineageEvent.RunFacet;
 import marquez.service.models.LineageEvent.SchemaDatasetFacet;
 import marquez.service.models.LineageEvent.SchemaField;
 import org.apache.commons.lang3.tuple.Pair;
+import org.jdbi.v3.core.statement.Query;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
@@ -156,6 +164,84 @@ public interface OpenLineageDao extends BaseDao {
   List<LineageEvent> getAllLineageEventsAsc(
       ZonedDateTime before, ZonedDateTime after, int limit, int offset);
 
+  /**
+   * Returns the page of run events after the cursor {@code (eventTime, seq)}, in descending order;
+   * {@code seq} numbers all raw events, so that the cursor is unique. Unlike with an offset, the
+   * cost of a page does not depend on its position.
+   */
+  @SqlQuery(
+      """
+  SELECT le.event_time, le.seq, le.event
+  FROM lineage_events le
+  WHERE (le.event_time < :before
+  AND le.event_time >= :after)
+  AND le.event_time <= :eventTime
+  AND (le.event_time, le.seq) < (:eventTime, :seq)
+  AND le._event_type='RUN_EVENT'
+  ORDER BY le.event_time DESC, le.seq DESC
+  LIMIT :limit""")
+  @RegisterRowMapper(LineageEventRowMapper.class)
+  List<LineageEventRow> getLineageEventsDesc(
+      ZonedDateTime before, ZonedDateTime after, Instant eventTime, long seq, int limit);
+
+  /**
+   * Returns the page of run events after the cursor {@code (eventTime, seq)}, in ascending order;
+   * see {@link #getLineageEventsDesc(ZonedDateTime, ZonedDateTime, Instant, long, int)}.
+   */
+  @SqlQuery(
+      """
+  SELECT le.event_time, le.seq, le.event
+  FROM lineage_events le
+  WHERE (le.event_time < :before
+  AND le.event_time >= :after)
+  AND le.event_time >= :eventTime
+  AND (le.event_time, le.seq) > (:eventTime, :seq)
+  AND le._event_type='RUN_EVENT'
+  ORDER BY le.event_time ASC, le.seq ASC
+  LIMIT :limit""")
+  @RegisterRowMapper(LineageEventRowMapper.class)
+  List<LineageEventRow> getLineageEventsAsc(
+      ZonedDateTime before, ZonedDateTime after, Instant eventTime, long seq, int limit);
+
+  /**
+   * Passes the raw events received between {@code after} (inclusive) and {@code before}
+   * (exclusive) to the consumer in order of event time, as rows are read; when a namespace is
+   * provided, only events of jobs within the namespace are passed. Postgres only streams rows
+   * through a cursor, so rows are read {@code fetchSize} at a time within a transaction; memory
+   * does not grow with the number of events.
+   */
+  default void streamLineageEvents(
+      ZonedDateTime before,
+      ZonedDateTime after,
+      @Nullable String namespace,
+      int fetchSize,
+      Consumer<String> consumer) {
+    useHandle(
+        handle ->
+            handle.useTransaction(
+                h -> {
+                  final Query query =
+                      h.createQuery(
+                              """
+                              SELECT le.event::text AS event
+                              FROM lineage_events le
+                              WHERE (le.event_time < :before
+                              AND le.event_time >= :after)
+                              <namespace>
+                              ORDER BY le.event_time ASC""")
+                          .define(
+                              "namespace",
+                              namespace == null ? "" : "AND le.job_namespace = :namespace")
+                          .bind("before", before)
+                          .bind("after", after)
+                          .setFetchSize(fetchSize);
+                  if (namespace != null) {
+                    query.bind("namespace", namespace);
+                  }
+                  query.mapTo(String.class).forEach(consumer);
+                }));
+  }
+
   @SqlQuery(
       """
       SELECT count(*)
@@ -164,8 +250,110 @@ public interface OpenLineageDao extends BaseDao {
       AND le.event_time >= :after)""")
   int getAllLineageTotalCount(ZonedDateTime before, ZonedDateTime after);
 
+  /**
+   * Creates the checkpoint of the projection {@code name}, if missing, at the last raw event
+   * inserted; events inserted before a projection is created are not projected.
+   */
+  @SqlUpdate(
+      """
+      INSERT INTO lineage_event_projections (name, last_txid, last_seq, updated_at)
+      SELECT :name,
+             COALESCE(
+               (SELECT COALESCE(txid, '0')
+                FROM lineage_events
+                WHERE seq IS NOT NULL AND projected IS NULL
+                ORDER BY COALESCE(txid, '0') DESC
+                LIMIT 1),
+               '0'),
+             (SELECT COALESCE(MAX(seq), 0) FROM lineage_events),
+             now()
+      ON CONFLICT (name) DO NOTHING""")
+  void createProjection(String name);
+
+  /**
+   * Locks, then returns the checkpoint of the projection {@code name}; returns nothing if the
+   * projection is already locked, by another instance.
+   */
+  @SqlQuery(
+      """
+      SELECT CAST(CAST(last_txid AS TEXT) AS BIGINT) AS last_txid, last_seq
+      FROM lineage_event_projections
+      WHERE name = :name
+      FOR UPDATE SKIP LOCKED""")
+  @RegisterConstructorMapper(ProjectionRow.class)
+  Optional<ProjectionRow> lockProjection(String name);
+
+  @SqlUpdate(
+      """
+      UPDATE lineage_event_projections
+      SET last_txid = CAST(CAST(:lastTxid AS TEXT) AS xid8), last_seq = :lastSeq, updated_at = now()
+      WHERE name = :name""")
+  void updateProjection(String name, long lastTxid, long lastSeq);
+
+  /**
+   * Returns, at most, {@code limit} raw events after the provided position, in the order of their
+   * positions. Only raw events inserted by transactions older than any transaction still in
+   * progress are returned: a raw event yet to be committed can only be inserted after them.
+   */
+  @SqlQuery(
+      """
+      SELECT CAST(CAST(COALESCE(txid, '0') AS TEXT) AS BIGINT) AS txid, seq, event::text AS event
+      FROM lineage_events
+      WHERE seq IS NOT NULL
+        AND projected IS NULL
+        AND (COALESCE(txid, '0'), seq) > (CAST(CAST(:afterTxid AS TEXT) AS xid8), :afterSeq)
+        AND COALESCE(txid, '0') < pg_snapshot_xmin(pg_current_snapshot())
+      ORDER BY COALESCE(txid, '0'), seq
+      LIMIT :limit""")
+  @RegisterConstructorMapper(PendingEventRow.class)
+  List<PendingEventRow> findEventsToProject(long afterTxid, long afterSeq, int limit);
+
+  /**
+   * Returns the age, in seconds, of the next raw event to be projected by the projection {@code
+   * name}; returns {@code 0} if all committed raw events were projected. The age keeps growing
+   * while a transaction older than the next raw event is in progress, as raw events are not
+   * projected past it.
+   */
+  @SqlQuery(
+      """
+      SELECT COALESCE(
+               (SELECT EXTRACT(EPOCH FROM now() - le.created_at)
+                FROM lineage_events le
+                WHERE le.seq IS NOT NULL
+                  AND le.projected IS NULL
+                  AND (COALESCE(le.txid, '0'), le.seq) > (p.last_txid, p.last_seq)
+                ORDER BY COALESCE(le.txid, '0'), le.seq
+                LIMIT 1),
+               0)
+      FROM lineage_event_projections p
+      WHERE p.name = :name""")
+  Optional<Double> getProjectionLagSeconds(String name);
+
+  /** Records a raw event that failed to be projected by the projection {@code name}. */
+  @SqlUpdate(
+      """
+      INSERT INTO lineage_event_projection_failures (name, seq, failed_at, error)
+      VALUES (:name, :seq, now(), :error)
+      ON CONFLICT (name, seq) DO UPDATE
+      SET failed_at = EXCLUDED.failed_at, error = EXCLUDED.error""")
+  void insertProjectionFailure(String name, long seq, String error);
+
+  /**
+   * The checkpoint of a projection: the position, as the inserting transaction and sequence
+   * number, of the last raw event projected.
+   */
+  record ProjectionRow(long lastTxid, long lastSeq) {}
+
+  /** A raw event yet to be projected to the Marquez model, with its position. */
+  record PendingEventRow(long txid, long seq, String event) {}
+
+  /** A run event, with the position of the event used as a pagination cursor. */
+  record LineageEventRow(Instant eventTime, long seq, LineageEvent event) {}
+
   default UpdateLineageRow updateMarquezModel(LineageEvent event, ObjectMapper mapper) {
-    UpdateLineageRow updateLineageRow = updateBaseMarquezModel(event, mapper);
+    ModelDaos daos = new ModelDaos();
+    daos.initBaseDao(this);
+    UpdateLineageRow updateLineageRow = updateBaseMarquezModel(daos, event, mapper);
     RunState runState = getRunState(event.getEventType());
 
     if (event.getJob() != null && event.getJob().isStreamingJob()) {
@@ -174,6 +362,8 @@ public interface OpenLineageDao extends BaseDao {
       updateMarquezOnComplete(event, updateLineageRow, runState);
     }
 
+    recordModelChanges(updateLineageRow);
+    daos.publishUpserted();
     return updateLineageRow;
   }
 
@@ -184,20 +374,18 @@ public interface OpenLineageDao extends BaseDao {
 
     UpdateLineageRow bag = new UpdateLineageRow();
     NamespaceRow namespace =
-        daos.getNamespaceDao()
-            .upsertNamespaceRow(
-                UUID.randomUUID(),
-                now,
-                formatNamespaceName(event.getDataset().getNamespace()),
-                DEFAULT_NAMESPACE_OWNER);
+        daos.upsertNamespaceRow(
+            now, formatNamespaceName(event.getDataset().getNamespace()), DEFAULT_NAMESPACE_OWNER);
     bag.setNamespace(namespace);
 
     Dataset dataset = event.getDataset();
     List<DatasetRecord> datasetOutputs = new ArrayList<>();
     DatasetRecord record = upsertLineageDataset(daos, dataset, now, null, false);
     datasetOutputs.add(record);
-    insertDatasetFacets(daos, dataset, record, null, null, now);
-    insertOutputDatasetFacets(daos, dataset, record, null, null, now);
+    List<DatasetFacetRow> facetRows = new ArrayList<>();
+    addDatasetFacetRows(facetRows, dataset, record, null, null, now);
+    addOutputDatasetFacetRows(facetRows, dataset, record, null, null, now);
+    daos.getDatasetFacetsDao().insertDatasetFacets(facetRows);
 
     daos.getDatasetDao()
         .updateVersion(
@@ -206,6 +394,8 @@ public interface OpenLineageDao extends BaseDao {
             record.getDatasetVersionRow().getUuid());
 
     bag.setOutputs(Optional.ofNullable(datasetOutputs));
+    recordModelChanges(bag);
+    daos.publishUpserted();
     return bag;
   }
 
@@ -216,12 +406,8 @@ public interface OpenLineageDao extends BaseDao {
 
     UpdateLineageRow bag = new UpdateLineageRow();
     NamespaceRow namespace =
-        daos.getNamespaceDao()
-            .upsertNamespaceRow(
-                UUID.randomUUID(),
-                now,
-                formatNamespaceName(event.getJob().getNamespace()),
-                DEFAULT_NAMESPACE_OWNER);
+        daos.upsertNamespaceRow(
+            now, formatNamespaceName(event.getJob().getNamespace()), DEFAULT_NAMESPACE_OWNER);
     bag.setNamespace(namespace);
 
     JobRow job =
@@ -241,13 +427,15 @@ public interface OpenLineageDao extends BaseDao {
 
     bag.setJob(job);
 
+    // facets of all datasets are inserted at once
+    List<DatasetFacetRow> facetRows = new ArrayList<>();
     List<DatasetRecord> datasetInputs = new ArrayList<>();
     if (event.getInputs() != null) {
       for (Dataset dataset : event.getInputs()) {
         DatasetRecord record = upsertLineageDataset(daos, dataset, now, null, true);
         datasetInputs.add(record);
-        insertDatasetFacets(daos, dataset, record, null, null, now);
-        insertInputDatasetFacets(daos, dataset, record, null, null, now);
+        addDatasetFacetRows(facetRows, dataset, record, null, null, now);
+        addInputDatasetFacetRows(facetRows, dataset, record, null, null, now);
       }
     }
     bag.setInputs(Optional.ofNullable(datasetInputs));
@@ -257,10 +445,11 @@ public interface OpenLineageDao extends BaseDao {
       for (Dataset dataset : event.getOutputs()) {
         DatasetRecord record = upsertLineageDataset(daos, dataset, now, null, false);
         datasetOutputs.add(record);
-        insertDatasetFacets(daos, dataset, record, null, null, now);
-        insertOutputDatasetFacets(daos, dataset, record, null, null, now);
+        addDatasetFacetRows(facetRows, dataset, record, null, null, now);
+        addOutputDatasetFacetRows(facetRows, dataset, record, null, null, now);
       }
     }
+    daos.getDatasetFacetsDao().insertDatasetFacets(facetRows);
 
     bag.setOutputs(Optional.ofNullable(datasetOutputs));
 
@@ -281,22 +470,26 @@ public interface OpenLineageDao extends BaseDao {
                         event.getJob().getFacets()));
 
     bag.setJobVersionBag(bagOfJobVersionInfo);
+    recordModelChanges(bag);
+    daos.publishUpserted();
     return bag;
   }
 
-  default UpdateLineageRow updateBaseMarquezModel(LineageEvent event, ObjectMapper mapper) {
-    ModelDaos daos = new ModelDaos();
-    daos.initBaseDao(this);
+  /** Records the jobs and datasets changed by an event to the change feed, when enabled. */
+  default void recordModelChanges(UpdateLineageRow update) {
+    if (ModelChanges.isEnabled()) {
+      createModelChangeDao().insertChanges(ModelChanges.of(update));
+    }
+  }
+
+  default UpdateLineageRow updateBaseMarquezModel(
+      ModelDaos daos, LineageEvent event, ObjectMapper mapper) {
     Instant now = event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant();
 
     UpdateLineageRow bag = new UpdateLineageRow();
     NamespaceRow namespace =
-        daos.getNamespaceDao()
-            .upsertNamespaceRow(
-                UUID.randomUUID(),
-                now,
-                formatNamespaceName(event.getJob().getNamespace()),
-                DEFAULT_NAMESPACE_OWNER);
+        daos.upsertNamespaceRow(
+            now, formatNamespaceName(event.getJob().getNamespace()), DEFAULT_NAMESPACE_OWNER);
     bag.setNamespace(namespace);
 
     Instant nominalStartTime = getNominalStartTime(event);
@@ -368,6 +561,9 @@ public interface OpenLineageDao extends BaseDao {
 
     insertJobFacets(daos, event.getJob(), event.getEventType(), job.getUuid(), runUuid, now);
 
+    // facets of all datasets are inserted at once
+    List<DatasetFacetRow> facetRows = new ArrayList<>();
+
     // RunInput list uses null as a sentinel value
     List<DatasetRecord> datasetInputs = null;
     if (event.getInputs() != null && !event.getInputs().isEmpty()) {
@@ -375,8 +571,8 @@ public interface OpenLineageDao extends BaseDao {
       for (Dataset dataset : event.getInputs()) {
         DatasetRecord record = upsertLineageDataset(daos, dataset, now, runUuid, true);
         datasetInputs.add(record);
-        insertDatasetFacets(daos, dataset, record, runUuid, event.getEventType(), now);
-        insertInputDatasetFacets(daos, dataset, record, runUuid, event.getEventType(), now);
+        addDatasetFacetRows(facetRows, dataset, record, runUuid, event.getEventType(), now);
+        addInputDatasetFacetRows(facetRows, dataset, record, runUuid, event.getEventType(), now);
       }
     } else if (!event.isTerminalEventForStreamingJobWithNoDatasets()) {
       // mark job_versions_io_mapping as obsolete
@@ -391,13 +587,14 @@ public interface OpenLineageDao extends BaseDao {
       for (Dataset dataset : event.getOutputs()) {
         DatasetRecord record = upsertLineageDataset(daos, dataset, now, runUuid, false);
         datasetOutputs.add(record);
-        insertDatasetFacets(daos, dataset, record, runUuid, event.getEventType(), now);
-        insertOutputDatasetFacets(daos, dataset, record, runUuid, event.getEventType(), now);
+        addDatasetFacetRows(facetRows, dataset, record, runUuid, event.getEventType(), now);
+        addOutputDatasetFacetRows(facetRows, dataset, record, runUuid, event.getEventType(), now);
       }
     } else if (!event.isTerminalEventForStreamingJobWithNoDatasets()) {
       // mark job_versions_io_mapping as obsolete
       daos.getJobVersionDao().markInputOrOutputDatasetAsPreviousFor(job.getUuid(), IoType.OUTPUT);
     }
+    daos.getDatasetFacetsDao().insertDatasetFacets(facetRows);
 
     bag.setOutputs(Optional.ofNullable(datasetOutputs));
     return bag;
@@ -439,8 +636,8 @@ public interface OpenLineageDao extends BaseDao {
                     .insertJobFacetsFor(jobUuid, runUuid, now, eventType, job.getFacets()));
   }
 
-  private void insertDatasetFacets(
-      ModelDaos daos,
+  private void addDatasetFacetRows(
+      List<DatasetFacetRow> facetRows,
       Dataset dataset,
       DatasetRecord record,
       UUID runUuid,
@@ -450,18 +647,18 @@ public interface OpenLineageDao extends BaseDao {
     Optional.ofNullable(dataset.getFacets())
         .ifPresent(
             facets ->
-                daos.getDatasetFacetsDao()
-                    .insertDatasetFacetsFor(
+                facetRows.addAll(
+                    DatasetFacetsDao.datasetFacetRowsFor(
                         record.getDatasetRow().getUuid(),
                         record.getDatasetVersionRow().getUuid(),
                         runUuid,
                         now,
                         eventType,
-                        facets));
+                        facets)));
   }
 
-  private void insertInputDatasetFacets(
-      ModelDaos daos,
+  private void addInputDatasetFacetRows(
+      List<DatasetFacetRow> facetRows,
       Dataset dataset,
       DatasetRecord record,
       UUID runUuid,
@@ -471,18 +668,18 @@ public interface OpenLineageDao extends BaseDao {
     Optional.ofNullable(dataset.getInputFacets())
         .ifPresent(
             facets ->
-                daos.getDatasetFacetsDao()
-                    .insertInputDatasetFacetsFor(
+                facetRows.addAll(
+                    DatasetFacetsDao.inputDatasetFacetRowsFor(
                         record.getDatasetRow().getUuid(),
                         record.getDatasetVersionRow().getUuid(),
                         runUuid,
                         now,
                         eventType,
-                        facets));
+                        facets)));
   }
 
-  private void insertOutputDatasetFacets(
-      ModelDaos daos,
+  private void addOutputDatasetFacetRows(
+      List<DatasetFacetRow> facetRows,
       Dataset dataset,
       DatasetRecord record,
       UUID runUuid,
@@ -492,14 +689,14 @@ public interface OpenLineageDao extends BaseDao {
     Optional.ofNullable(dataset.getOutputFacets())
         .ifPresent(
             facets ->
-                daos.getDatasetFacetsDao()
-                    .insertOutputDatasetFacetsFor(
+                facetRows.addAll(
+                    DatasetFacetsDao.outputDatasetFacetRowsFor(
                         record.getDatasetRow().getUuid(),
                         record.getDatasetVersionRow().getUuid(),
                         runUuid,
                         now,
                         eventType,
-                        facets));
+                        facets)));
   }
 
   private JobRow buildJobFromEvent(
@@ -838,23 +1035,18 @@ public interface OpenLineageDao extends BaseDao {
       ModelDaos daos, Dataset ds, Instant now, UUID runUuid, boolean isInput) {
     daos.initBaseDao(this);
     NamespaceRow dsNamespace =
-        daos.getNamespaceDao()
-            .upsertNamespaceRow(UUID.randomUUID(), now, ds.getNamespace(), DEFAULT_NAMESPACE_OWNER);
+        daos.upsertNamespaceRow(now, ds.getNamespace(), DEFAULT_NAMESPACE_OWNER);
 
     SourceRow source;
     if (ds.getFacets() != null && ds.getFacets().getDataSource() != null) {
       source =
-          daos.getSourceDao()
-              .upsert(
-                  UUID.randomUUID(),
-                  getSourceType(ds),
-                  now,
-                  ds.getFacets().getDataSource().getName(),
-                  getUrlOrNull(ds.getFacets().getDataSource().getUri()));
+          daos.upsertSource(
+              now,
+              getSourceType(ds),
+              ds.getFacets().getDataSource().getName(),
+              getUrlOrNull(ds.getFacets().getDataSource().getUri()));
     } else {
-      source =
-          daos.getSourceDao()
-              .upsertOrDefault(UUID.randomUUID(), getSourceType(ds), now, DEFAULT_SOURCE_NAME, "");
+      source = daos.upsertSourceOrDefault(now, getSourceType(ds), DEFAULT_SOURCE_NAME, "");
     }
 
     String dsDescription = null;
@@ -863,22 +1055,12 @@ public interface OpenLineageDao extends BaseDao {
     }
 
     NamespaceRow datasetNamespace =
-        daos.getNamespaceDao()
-            .upsertNamespaceRow(
-                UUID.randomUUID(),
-                now,
-                formatNamespaceName(ds.getNamespace()),
-                DEFAULT_NAMESPACE_OWNER);
+        daos.upsertNamespaceRow(
+            now, formatNamespaceName(ds.getNamespace()), DEFAULT_NAMESPACE_OWNER);
 
     DatasetSymlinkRow symlink =
-        daos.getDatasetSymlinkDao()
-            .upsertDatasetSymlinkRow(
-                UUID.randomUUID(),
-                formatDatasetName(ds.getName()),
-                dsNamespace.getUuid(),
-                true,
-                null,
-                now);
+        daos.upsertPrimaryDatasetSymlinkRow(
+            now, formatDatasetName(ds.getName()), dsNamespace.getUuid());
 
     Optional.ofNullable(ds.getFacets())
         .map(facets -> facets.getSymlinks())
@@ -887,20 +1069,14 @@ public interface OpenLineageDao extends BaseDao {
                 el.getIdentifiers().stream()
                     .forEach(
                         id ->
-                            daos.getDatasetSymlinkDao()
-                                .doUpsertDatasetSymlinkRow(
-                                    symlink.getUuid(),
-                                    id.getName(),
-                                    daos.getNamespaceDao()
-                                        .upsertNamespaceRow(
-                                            UUID.randomUUID(),
-                                            now,
-                                            id.getNamespace(),
-                                            DEFAULT_NAMESPACE_OWNER)
-                                        .getUuid(),
-                                    false,
-                                    id.getType(),
-                                    now)));
+                            daos.upsertSecondaryDatasetSymlinkRow(
+                                now,
+                                symlink.getUuid(),
+                                id.getName(),
+                                daos.upsertNamespaceRow(
+                                        now, id.getNamespace(), DEFAULT_NAMESPACE_OWNER)
+                                    .getUuid(),
+                                id.getType())));
     String dslifecycleState =
         Optional.ofNullable(ds.getFacets())
             .map(DatasetFacets::getLifecycleStateChange)
@@ -927,68 +1103,81 @@ public interface OpenLineageDao extends BaseDao {
             .map(DatasetFacets::getSchema)
             .map(SchemaDatasetFacet::getFields)
             .orElse(null);
-    List<DatasetFieldRow> datasetFields = new ArrayList<>();
-    if (fields != null) {
-      for (SchemaField field : fields) {
-        DatasetFieldRow datasetFieldRow =
-            daos.getDatasetFieldDao()
+    List<DatasetFieldRow> datasetFields =
+        fields == null
+            ? new ArrayList<>()
+            : daos.getDatasetFieldDao().upsertAll(datasetRow.getUuid(), fields, now);
+
+    final DatasetRow dsRow = datasetRow;
+    // only fetch the current version if this is a read
+    Optional<DatasetVersionRow> currentVersionRow =
+        datasetRow
+            .getCurrentVersionUuid()
+            .filter(v -> isInput)
+            .flatMap(daos.getDatasetVersionDao()::findRowByUuid);
+    Optional<DatasetVersionRow> unchangedVersionRow = Optional.empty();
+    DatasetVersionRow datasetVersionRow;
+    if (currentVersionRow.isPresent()) {
+      datasetVersionRow = currentVersionRow.get();
+    } else {
+      // if this is a write _or_ if the dataset has no current version, create a new version
+      // unless an identical version was already written, as when outputs are sent again by
+      // streaming jobs or RUNNING events
+      UUID versionUuid =
+          Utils.newDatasetVersionFor(
+                  dsNamespace.getName(),
+                  source.getName(),
+                  dsRow.getPhysicalName(),
+                  symlink.getName(),
+                  dslifecycleState,
+                  fields,
+                  runUuid)
+              .getValue();
+      UUID versionRunUuid = isInput ? null : runUuid;
+      unchangedVersionRow =
+          daos.getDatasetVersionDao()
+              .findRowByVersion(versionUuid)
+              .filter(row -> Objects.equals(row.getRunUuid().orElse(null), versionRunUuid))
+              .filter(
+                  row ->
+                      row.getSchemaVersionUuid()
+                          .equals(
+                              Optional.of(
+                                  daos.getDatasetSchemaVersionDao()
+                                      .schemaVersionFor(dsRow, datasetFields)
+                                      .getValue())));
+      if (unchangedVersionRow.isPresent()) {
+        datasetVersionRow = unchangedVersionRow.get();
+      } else {
+        UUID datasetSchemaVersionUuid =
+            daos.getDatasetSchemaVersionDao()
+                .upsertSchemaVersion(dsRow, datasetFields, now)
+                .getValue();
+        datasetVersionRow =
+            daos.getDatasetVersionDao()
                 .upsert(
                     UUID.randomUUID(),
                     now,
-                    field.getName(),
-                    field.getType(),
-                    field.getDescription(),
-                    datasetRow.getUuid());
-        datasetFields.add(datasetFieldRow);
+                    dsRow.getUuid(),
+                    versionUuid,
+                    datasetSchemaVersionUuid,
+                    versionRunUuid,
+                    daos.getDatasetVersionDao().toPgObjectSchemaFields(fields),
+                    dsNamespace.getName(),
+                    ds.getName(),
+                    dslifecycleState);
       }
     }
 
-    final DatasetRow dsRow = datasetRow;
-    DatasetVersionRow datasetVersionRow =
-        datasetRow
-            .getCurrentVersionUuid()
-            .filter(v -> isInput) // only fetch the current version if this is a read
-            .flatMap(daos.getDatasetVersionDao()::findRowByUuid)
-            // if this is a write _or_ if the dataset has no current version,
-            // create a new version
-            .orElseGet(
-                () -> {
-                  UUID versionUuid =
-                      Utils.newDatasetVersionFor(
-                              dsNamespace.getName(),
-                              source.getName(),
-                              dsRow.getPhysicalName(),
-                              symlink.getName(),
-                              dslifecycleState,
-                              fields,
-                              runUuid)
-                          .getValue();
-                  UUID datasetSchemaVersionUuid =
-                      daos.getDatasetSchemaVersionDao()
-                          .upsertSchemaVersion(dsRow, datasetFields, now)
-                          .getValue();
-                  DatasetVersionRow row =
-                      daos.getDatasetVersionDao()
-                          .upsert(
-                              UUID.randomUUID(),
-                              now,
-                              dsRow.getUuid(),
-                              versionUuid,
-                              datasetSchemaVersionUuid,
-                              isInput ? null : runUuid,
-                              daos.getDatasetVersionDao().toPgObjectSchemaFields(fields),
-                              dsNamespace.getName(),
-                              ds.getName(),
-                              dslifecycleState);
-                  return row;
-                });
-
-    List<DatasetFieldMapping> datasetFieldMappings = new ArrayList<>();
-    for (DatasetFieldRow datasetFieldRow : datasetFields) {
-      datasetFieldMappings.add(
-          new DatasetFieldMapping(datasetVersionRow.getUuid(), datasetFieldRow.getUuid()));
+    // the fields of an unchanged version were mapped when it was first written
+    if (unchangedVersionRow.isEmpty()) {
+      List<DatasetFieldMapping> datasetFieldMappings = new ArrayList<>();
+      for (DatasetFieldRow datasetFieldRow : datasetFields) {
+        datasetFieldMappings.add(
+            new DatasetFieldMapping(datasetVersionRow.getUuid(), datasetFieldRow.getUuid()));
+      }
+      daos.getDatasetFieldDao().updateFieldMapping(datasetFieldMappings);
     }
-    daos.getDatasetFieldDao().updateFieldMapping(datasetFieldMappings);
 
     if (isInput && runUuid != null) {
       daos.getRunDao().updateInputMapping(runUuid, datasetVersionRow.getUuid());
@@ -1008,7 +1197,12 @@ public interface OpenLineageDao extends BaseDao {
           upsertColumnLineage(runUuid, ds, now, datasetFields, datasetVersionRow, daos);
     }
 
-    return new DatasetRecord(datasetRow, datasetVersionRow, datasetNamespace, columnLineageRows);
+    return new DatasetRecord(
+        datasetRow,
+        datasetVersionRow,
+        datasetNamespace,
+        columnLineageRows,
+        currentVersionRow.isEmpty() && unchangedVersionRow.isEmpty());
   }
 
   private List<ColumnLineageRow> upsertColumnLineage(
@@ -1153,7 +1347,20 @@ public interface OpenLineageDao extends BaseDao {
     try {
       PGobject jsonObject = new PGobject();
       jsonObject.setType("json");
-      jsonObject.setValue(mapper.writeValueAsString(event));
+      if (FacetUtils.isCompressionEnabled()) {
+        JsonNode eventAsJson =
+            event.getRawEvent() != null
+                ? mapper.readTree(event.getRawEvent())
+                : mapper.valueToTree(event);
+        FacetUtils.compressFacets(eventAsJson);
+        jsonObject.setValue(mapper.writeValueAsString(eventAsJson));
+        return jsonObject;
+      }
+      // Store the payload the event was received as, if kept, rather than serializing it again.
+      jsonObject.setValue(
+          event.getRawEvent() != null
+              ? new String(event.getRawEvent(), StandardCharsets.UTF_8)
+              : mapper.writeValueAsString(event));
       return jsonObject;
     } catch (Exception e) {
       throw new RuntimeException("Could write lineage event to db", e);
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.common.Utils;
+import marquez.service.models.BaseEvent;
+import marquez.service.models.DatasetEvent;
+import marquez.service.models.JobEvent;
+import marquez.service.models.LineageEvent;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * Rebuilds the Marquez model from the raw events stored in {@code lineage_events}, by applying
+ * {@link OpenLineageDao#updateMarquezModel(LineageEvent, ObjectMapper)} to each event again into a
+ * target schema, alongside the current one; meant to recover from projection bugs, or to build the
+ * model of a new version of the schema.
+ *
+ * <p>Raw events are read in chunks ordered by event time; a chunk always ends with all of the
+ * events of its last event time. The events of a chunk are partitioned by run across workers, so
+ * that the events of a run are applied in order by the same worker. Once all workers are done with
+ * a chunk, its last event time is written to the checkpoint file (if any), so that an interrupted
+ * reprojection resumes after the last chunk applied.
+ *
+ * <p>The model is written to the tables of the target schema only, which must have been migrated
+ * beforehand; raw events are read from the source schema. The live schema is never the target, as
+ * events applied again over the current model would not rebuild it.
+ */
+@Slf4j
+public class Reprojector {
+  public static final int DEFAULT_WORKERS = 4;
+  public static final int DEFAULT_EVENTS_PER_CHUNK = 10000;
+  public static final String DEFAULT_SOURCE_SCHEMA = "public";
+
+  private static final Pattern SCHEMA_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+  private static final String CHECKPOINT_EVENT_TIME = "eventTime";
+  private static final int MAX_ATTEMPTS = 3;
+  /* The SQL states of deadlocks, and of serialization failures. */
+  private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40P01", "40001");
+
+  private static final String SELECT_CHUNK =
+      """
+      SELECT event_time, run_uuid, event::text AS event
+      FROM <source>.lineage_events
+      WHERE event_time > :after
+        AND event_time <= COALESCE(
+          (SELECT event_time
+           FROM <source>.lineage_events
+           WHERE event_time > :after
+           ORDER BY event_time
+           OFFSET :limit - 1 LIMIT 1),
+          'infinity')
+      ORDER BY event_time""";
+
+  private final Jdbi jdbi;
+  private final ObjectMapper mapper = Utils.getMapper();
+  private final int workers;
+  private final int eventsPerChunk;
+  private final String sourceSchema;
+  private final String targetSchema;
+  @Nullable private final Path checkpoint;
+
+  private final Instant startedAt = Instant.now();
+  private final AtomicLong eventsApplied = new AtomicLong();
+  private final AtomicLong eventsFailed = new AtomicLong();
+
+  /**
+   * @param jdbi the database to read raw events from, and to write the model to
+   * @param workers the number of threads applying events in parallel
+   * @param eventsPerChunk the number of events read at once, before being applied
+   * @param sourceSchema the schema of the {@code lineage_events} table to read raw events from
+   * @param targetSchema the schema to write the model to, other than the live schema
+   * @param checkpoint the file the progress of the reprojection is written to, and resumed from
+   */
+  public Reprojector(
+      @NonNull final Jdbi jdbi,
+      final int workers,
+      final int eventsPerChunk,
+      @NonNull final String sourceSchema,
+      @NonNull final String targetSchema,
+      @Nullable final Path checkpoint) {
+    this.jdbi = jdbi;
+    this.workers = workers;
+    this.eventsPerChunk = eventsPerChunk;
+    this.sourceSchema = checkSchemaName(sourceSchema);
+    this.targetSchema = checkSchemaName(targetSchema);
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * Applies all raw events after the checkpoint, if any, in order of event time.
+   *
+   * @throws IllegalArgumentException if the target schema is the live schema
+   */
+  public void reproject() throws IOException, InterruptedException, ExecutionException {
+    checkTargetSchema();
+    final ExecutorService pool =
+        Executors.newFixedThreadPool(
+            workers, new ThreadFactoryBuilder().setNameFormat("reprojector-%d").build());
+    try {
+      Instant after = readCheckpoint();
+      List<RawEventRow> chunk;
+      while (!(chunk = readChunk(after)).isEmpty()) {
+        applyChunk(pool, chunk);
+        after = chunk.get(chunk.size() - 1).eventTime();
+        writeCheckpoint(after);
+        log.info(
+            "Reprojected '{}' events up to '{}', '{}' failed ({} events/s).",
+            eventsApplied.get(),
+            after,
+            eventsFailed.get(),
+            eventsPerSecond());
+      }
+    } finally {
+      pool.shutdownNow();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    log.info(
+        "Reprojected '{}' events in {}, '{}' failed ({} events/s).",
+        eventsApplied.get(),
+        Duration.between(startedAt, Instant.now()),
+        eventsFailed.get(),
+        eventsPerSecond());
+  }
+
+  /** Refuses to reproject into the live schema, the schema connections use by default. */
+  private void checkTargetSchema() {
+    final String liveSchema =
+        jdbi.withHandle(
+            handle -> handle.createQuery("SELECT current_schema()").mapTo(String.class).one());
+    if (targetSchema.equals(liveSchema)) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Target schema '%s' is the live schema; reproject into a schema migrated beforehand",
+              targetSchema));
+    }
+  }
+
+  private List<RawEventRow> readChunk(Instant after) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(SELECT_CHUNK)
+                .define("source", sourceSchema)
+                .bind("after", after)
+                .bind("limit", eventsPerChunk)
+                .map(
+                    (rs, ctx) ->
+                        new RawEventRow(
+                            rs.getTimestamp("event_time").toInstant(),
+                            rs.getObject("run_uuid", UUID.class),
+                            rs.getString("event")))
+                .list());
+  }
+
+  /** Applies the provided events, partitioned by run across workers; waits for all workers. */
+  private void applyChunk(ExecutorService pool, List<RawEventRow> chunk)
+      throws InterruptedException, ExecutionException {
+    final List<List<RawEventRow>> partitions = new ArrayList<>(workers);
+    for (int i = 0; i < workers; i++) {
+      partitions.add(new ArrayList<>());
+    }
+    for (final RawEventRow row : chunk) {
+      // Dataset and job events have no run; they are applied in order by the same worker.
+      final int partition =
+          row.runUuid() == null ? 0 : Math.floorMod(row.runUuid().hashCode(), workers);
+      partitions.get(partition).add(row);
+    }
+    final List<Future<?>> applied = new ArrayList<>(workers);
+    for (final List<RawEventRow> partition : partitions) {
+      if (!partition.isEmpty()) {
+        applied.add(pool.submit(() -> applyPartition(partition)));
+      }
+    }
+    for (final Future<?> future : applied) {
+      future.get();
+    }
+  }
+
+  private void applyPartition(List<RawEventRow> partition) {
+    jdbi.useHandle(
+        handle -> {
+          // Only the tables of the target schema are written to, never those of the live schema.
+          handle.execute(String.format("SET search_path TO \"%s\"", targetSchema));
+          try {
+            final OpenLineageDao dao = handle.attach(OpenLineageDao.class);
+            for (final RawEventRow row : partition) {
+              applyEvent(handle, dao, row);
+            }
+          } finally {
+            // The connection is returned to the pool.
+            handle.execute("RESET search_path");
+          }
+        });
+  }
+
+  /**
+   * Applies the provided event within its own transaction, so that workers hold locks on shared
+   * rows (such as datasets) only briefly; the transaction is retried when aborted by a deadlock
+   * with another worker. An event that fails to be applied is logged, then skipped.
+   */
+  private void applyEvent(Handle handle, OpenLineageDao dao, RawEventRow row) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        final BaseEvent event = toEvent(row.event());
+        handle.useTransaction(h -> updateMarquezModel(dao, event));
+        eventsApplied.incrementAndGet();
+        return;
+      } catch (Exception e) {
+        if (attempt < MAX_ATTEMPTS && isRetryable(e)) {
+          continue;
+        }
+        eventsFailed.incrementAndGet();
+        log.error(
+            "Failed to reproject event of run '{}' at '{}', skipping",
+            row.runUuid(),
+            row.eventTime(),
+            e);
+        return;
+      }
+    }
+  }
+
+  private BaseEvent toEvent(String rawEvent) throws IOException {
+    final JsonNode json = mapper.readTree(rawEvent);
+    FacetUtils.decompressFacets(json);
+    return mapper.treeToValue(json, BaseEvent.class);
+  }
+
+  private void updateMarquezModel(OpenLineageDao dao, BaseEvent event) {
+    if (event instanceof LineageEvent) {
+      dao.updateMarquezModel((LineageEvent) event, mapper);
+    } else if (event instanceof DatasetEvent) {
+      dao.updateMarquezModel((DatasetEvent) event, mapper);
+    } else if (event instanceof JobEvent) {
+      dao.updateMarquezModel((JobEvent) event, mapper);
+    }
+  }
+
+  /** Returns {@code true} if the provided error is a deadlock, or a serialization failure. */
+  private static boolean isRetryable(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException
+          && RETRYABLE_SQL_STATES.contains(((SQLException) cause).getSQLState())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Instant readCheckpoint() throws IOException {
+    if (checkpoint == null || !Files.exists(checkpoint)) {
+      return Instant.EPOCH;
+    }
+    final Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(checkpoint, UTF_8)) {
+      properties.load(reader);
+    }
+    final Instant after = Instant.parse(properties.getProperty(CHECKPOINT_EVENT_TIME));
+    log.info("Resuming after events of '{}'.", after);
+    return after;
+  }
+
+  /** Writes the checkpoint to a temporary file first, so that a checkpoint is never partial. */
+  private void writeCheckpoint(Instant eventTime) {
+    if (checkpoint == null) {
+      return;
+    }
+    final Properties properties = new Properties();
+    properties.setProperty(CHECKPOINT_EVENT_TIME, eventTime.toString());
+    final Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    try {
+      try (Writer writer = Files.newBufferedWriter(tmp, UTF_8)) {
+        properties.store(writer, null);
+      }
+      Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private long eventsPerSecond() {
+    final long elapsedMs = Duration.between(startedAt, Instant.now()).toMillis();
+    return eventsApplied.get() * 1000 / Math.max(1, elapsedMs);
+  }
+
+  private static String checkSchemaName(String schema) {
+    if (!SCHEMA_NAME.matcher(schema).matches()) {
+      throw new IllegalArgumentException(String.format("Invalid schema name '%s'", schema));
+    }
+    return schema;
+  }
+
+  /** A raw event to reproject. */
+  record RawEventRow(Instant eventTime, @Nullable UUID runUuid, String event) {}
+}
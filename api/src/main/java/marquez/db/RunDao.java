@@ -9,6 +9,7 @@ import static marquez.db.OpenLineageDao.DEFAULT_NAMESPACE_OWNER;
 
 import com.google.common.collect.ImmutableSet;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -38,6 +39,7 @@ import marquez.service.models.LineageEvent.SchemaField;
 import marquez.service.models.Run;
 import marquez.service.models.RunMeta;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
@@ -130,6 +132,66 @@ public interface RunDao extends BaseDao {
   @SqlQuery("SELECT * FROM runs r WHERE r.uuid = :runUuid")
   Optional<RunRow> findRunByUuidAsRow(UUID runUuid);
 
+  /**
+   * Returns the runs, as {@link #findRunByUuid(UUID)} does, aggregating facets and dataset
+   * versions only for the runs requested.
+   */
+  @SqlQuery(
+      """
+      WITH run_facets_agg AS (
+          SELECT run_uuid, JSON_AGG(facet ORDER BY lineage_event_time ASC) AS facets
+          FROM run_facets_view
+          WHERE run_uuid IN (<runUuids>)
+          GROUP BY run_uuid
+      ),
+      input_versions_agg AS (
+          SELECT im.run_uuid, JSON_AGG(json_build_object('namespace', dv.namespace_name,
+              'name', dv.dataset_name,
+              'version', dv.version,
+              'dataset_version_uuid', dv.uuid)) AS input_versions
+          FROM runs_input_mapping im
+          INNER JOIN dataset_versions dv ON im.dataset_version_uuid = dv.uuid
+          WHERE im.run_uuid IN (<runUuids>)
+          GROUP BY im.run_uuid
+      ),
+      output_versions_agg AS (
+          SELECT run_uuid, JSON_AGG(json_build_object('namespace', namespace_name,
+                                                      'name', dataset_name,
+                                                      'version', version,
+                                                      'dataset_version_uuid', uuid
+                                                      )) AS output_versions
+          FROM dataset_versions
+          WHERE run_uuid IN (<runUuids>)
+          GROUP BY run_uuid
+      ),
+      dataset_facets_agg AS (
+          SELECT
+              run_uuid,
+              JSON_AGG(json_build_object(
+                  'dataset_version_uuid', dataset_version_uuid,
+                  'name', name,
+                  'type', type,
+                  'facet', facet
+              ) ORDER BY created_at ASC) as dataset_facets
+          FROM dataset_facets_view
+          WHERE run_uuid IN (<runUuids>)
+          AND (type ILIKE 'output' OR type ILIKE 'input')
+          GROUP BY run_uuid
+      )
+      SELECT r.*, ra.args, f.facets,
+      jv.version AS job_version,
+      ri.input_versions, ro.output_versions, df.dataset_facets
+      FROM runs_view AS r
+      LEFT JOIN run_facets_agg f ON r.uuid = f.run_uuid
+      LEFT JOIN run_args AS ra ON ra.uuid = r.run_args_uuid
+      LEFT JOIN job_versions jv ON jv.uuid = r.job_version_uuid
+      LEFT JOIN input_versions_agg ri ON r.uuid = ri.run_uuid
+      LEFT JOIN output_versions_agg ro ON r.uuid = ro.run_uuid
+      LEFT JOIN dataset_facets_agg df ON r.uuid = df.run_uuid
+      WHERE r.uuid IN (<runUuids>)
+      """)
+  List<Run> findRunsByUuids(@BindList Collection<UUID> runUuids);
+
   @SqlQuery(
       """
   SELECT j.* FROM jobs_view j
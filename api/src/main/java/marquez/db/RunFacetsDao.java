@@ -6,10 +6,13 @@
 package marquez.db;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import java.time.Instant;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import lombok.NonNull;
 import marquez.common.Utils;
@@ -17,6 +20,7 @@ import marquez.db.mappers.RunFacetsMapper;
 import marquez.service.models.LineageEvent;
 import marquez.service.models.RunFacets;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.BindMethodsList;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
@@ -100,32 +104,114 @@ public interface RunFacetsDao {
     final Instant now = Instant.now();
 
     JsonNode jsonNode = Utils.getMapper().valueToTree(runFacet);
-    StreamSupport.stream(
-            Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT), false)
-        .filter(fieldName -> !fieldName.equalsIgnoreCase(SPARK_UNKNOWN))
-        .filter(
-            fieldName -> {
-              if (fieldName.equalsIgnoreCase(SPARK_LOGICAL_PLAN)) {
-                if (runFacetExists(fieldName, runUuid)) {
-                  log.info(
-                      "Facet '{}' has already been linked to run '{}', skipping...",
-                      fieldName,
-                      runUuid);
-                  // row already exists
-                  return false;
-                }
-              }
-              return true;
-            })
-        .forEach(
-            fieldName ->
-                insertRunFacet(
-                    now,
-                    runUuid,
-                    lineageEventTime,
-                    lineageEventType,
-                    fieldName,
-                    FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))));
+    insertRunFacets(
+        StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(jsonNode.fieldNames(), Spliterator.DISTINCT),
+                false)
+            .filter(fieldName -> !fieldName.equalsIgnoreCase(SPARK_UNKNOWN))
+            .filter(
+                fieldName -> {
+                  if (fieldName.equalsIgnoreCase(SPARK_LOGICAL_PLAN)) {
+                    if (runFacetExists(fieldName, runUuid)) {
+                      log.info(
+                          "Facet '{}' has already been linked to run '{}', skipping...",
+                          fieldName,
+                          runUuid);
+                      // row already exists
+                      return false;
+                    }
+                  }
+                  return true;
+                })
+            .map(
+                fieldName ->
+                    new RunFacetRow(
+                        now,
+                        runUuid,
+                        lineageEventTime,
+                        lineageEventType,
+                        fieldName,
+                        FacetUtils.toPgObject(fieldName, jsonNode.get(fieldName))))
+            .collect(Collectors.toList()));
+  }
+
+  @SqlUpdate(
+      """
+      INSERT INTO run_facets (
+         created_at,
+         run_uuid,
+         lineage_event_time,
+         lineage_event_type,
+         name,
+         facet
+      ) VALUES <values>
+      """)
+  void doInsertRunFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "runUuid",
+                "lineageEventTime",
+                "lineageEventType",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<RunFacetRow> rows);
+
+  @SqlUpdate(
+      """
+      WITH facets (created_at, run_uuid, lineage_event_time, lineage_event_type, name, facet) AS (
+          VALUES <values>
+      ),
+      """
+          + FacetUtils.HASH_AND_STORE_FACET_PAYLOADS
+          + """
+      INSERT INTO run_facets (
+         created_at,
+         run_uuid,
+         lineage_event_time,
+         lineage_event_type,
+         name,
+         facet_hash
+      )
+      SELECT
+         CAST(created_at AS TIMESTAMPTZ),
+         CAST(run_uuid AS UUID),
+         CAST(lineage_event_time AS TIMESTAMPTZ),
+         CAST(lineage_event_type AS VARCHAR),
+         CAST(name AS VARCHAR),
+         facet_hash
+      FROM hashed
+      """)
+  void doInsertDeduplicatedRunFacets(
+      @BindMethodsList(
+              methodNames = {
+                "createdAt",
+                "runUuid",
+                "lineageEventTime",
+                "lineageEventType",
+                "name",
+                "facet"
+              },
+              value = "values")
+          List<RunFacetRow> rows);
+
+  /**
+   * Inserts all of the provided facet {@code rows} in statements of at most {@link
+   * FacetUtils#MAX_ROWS_PER_INSERT} rows each, as the number of parameters of a statement is
+   * limited.
+   *
+   * @param rows
+   */
+  default void insertRunFacets(@NonNull List<RunFacetRow> rows) {
+    for (final List<RunFacetRow> chunk : Lists.partition(rows, FacetUtils.MAX_ROWS_PER_INSERT)) {
+      if (FacetUtils.isDeduplicationEnabled()) {
+        doInsertDeduplicatedRunFacets(chunk);
+      } else {
+        doInsertRunFacets(chunk);
+      }
+    }
   }
 
   record RunFacetRow(
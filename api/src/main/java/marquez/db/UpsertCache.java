@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.Nullable;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import marquez.db.models.NamespaceRow;
+import marquez.db.models.SourceRow;
+import marquez.ingestion.IngestionConfig.CacheConfig;
+
+/**
+ * A bounded cache, with a time-to-live, of the namespace and source rows upserted when ingesting
+ * OpenLineage events. Namespaces and sources change rarely, so the upsert of a row matching the
+ * cached row is skipped. Rows must be invalidated when they are modified outside of ingestion.
+ *
+ * <p>An upserted row is only cached once the upsert is committed, through the action handed to the
+ * {@code onCommit} consumer, so that a row rolled back is never served from the cache. A row
+ * invalidated between its upsert and its commit is not cached.
+ */
+public final class UpsertCache {
+  private UpsertCache() {}
+
+  @Nullable private static volatile Cache<String, NamespaceRow> namespaces;
+  @Nullable private static volatile Cache<String, SourceRow> sources;
+
+  /* The number of invalidations so far; rows upserted before an invalidation are not cached. */
+  private static final AtomicLong invalidations = new AtomicLong();
+
+  public static void use(@NonNull CacheConfig config) {
+    if (config.isEnabled()) {
+      namespaces = newCache(config);
+      sources = newCache(config);
+    } else {
+      namespaces = null;
+      sources = null;
+    }
+  }
+
+  /**
+   * Returns the cached row of the namespace {@code name}, or upserts it; the upserted row is
+   * cached by the action handed to {@code onCommit}.
+   */
+  public static NamespaceRow namespace(
+      @NonNull String name,
+      @NonNull Supplier<NamespaceRow> upsert,
+      @NonNull Consumer<Runnable> onCommit) {
+    final Cache<String, NamespaceRow> cache = namespaces;
+    if (cache == null) {
+      return upsert.get();
+    }
+    final NamespaceRow cached = cache.getIfPresent(name);
+    if (cached != null && !cached.getIsHidden()) {
+      return cached;
+    }
+    final long invalidationsBefore = invalidations.get();
+    final NamespaceRow row = upsert.get();
+    onCommit.accept(() -> put(cache, name, row, invalidationsBefore));
+    return row;
+  }
+
+  /**
+   * Returns the cached row of the source {@code name} if its type and connection URL match the
+   * provided ones, or upserts it; the upserted row is cached by the action handed to {@code
+   * onCommit}.
+   */
+  public static SourceRow source(
+      @NonNull String name,
+      @Nullable String type,
+      @Nullable String connectionUrl,
+      @NonNull Supplier<SourceRow> upsert,
+      @NonNull Consumer<Runnable> onCommit) {
+    final Cache<String, SourceRow> cache = sources;
+    if (cache == null) {
+      return upsert.get();
+    }
+    final SourceRow cached = cache.getIfPresent(name);
+    if (cached != null
+        && Objects.equals(cached.getType(), type)
+        && Objects.equals(cached.getConnectionUrl(), connectionUrl)) {
+      return cached;
+    }
+    final long invalidationsBefore = invalidations.get();
+    final SourceRow row = upsert.get();
+    onCommit.accept(() -> put(cache, name, row, invalidationsBefore));
+    return row;
+  }
+
+  /**
+   * Returns the cached row of the source {@code name} whatever its type and connection URL, or
+   * upserts it; the upserted row is cached by the action handed to {@code onCommit}.
+   */
+  public static SourceRow sourceOrDefault(
+      @NonNull String name,
+      @NonNull Supplier<SourceRow> upsert,
+      @NonNull Consumer<Runnable> onCommit) {
+    final Cache<String, SourceRow> cache = sources;
+    if (cache == null) {
+      return upsert.get();
+    }
+    final SourceRow cached = cache.getIfPresent(name);
+    if (cached != null) {
+      return cached;
+    }
+    final long invalidationsBefore = invalidations.get();
+    final SourceRow row = upsert.get();
+    onCommit.accept(() -> put(cache, name, row, invalidationsBefore));
+    return row;
+  }
+
+  public static void invalidateNamespace(@NonNull String name) {
+    invalidations.incrementAndGet();
+    final Cache<String, NamespaceRow> cache = namespaces;
+    if (cache != null) {
+      cache.invalidate(name);
+    }
+  }
+
+  public static void invalidateSource(@NonNull String name) {
+    invalidations.incrementAndGet();
+    final Cache<String, SourceRow> cache = sources;
+    if (cache != null) {
+      cache.invalidate(name);
+    }
+  }
+
+  /** Caches the committed row, unless invalidated since it was upserted. */
+  private static <T> void put(
+      Cache<String, T> cache, String name, T row, long invalidationsBefore) {
+    if (invalidations.get() != invalidationsBefore) {
+      return;
+    }
+    cache.put(name, row);
+    // An invalidation between the check and the put may have missed the row.
+    if (invalidations.get() != invalidationsBefore) {
+      cache.invalidate(name);
+    }
+  }
+
+  private static <T> Cache<String, T> newCache(CacheConfig config) {
+    return CacheBuilder.newBuilder()
+        .maximumSize(config.getMaximumSize())
+        .expireAfterWrite(Duration.ofSeconds(config.getTtlSecs()))
+        .build();
+  }
+}
@@ -7,11 +7,13 @@ package marquez.db.mappers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import lombok.NonNull;
 import marquez.common.Utils;
+import marquez.db.FacetUtils;
 import marquez.service.models.LineageEvent;
 import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.statement.StatementContext;
@@ -28,6 +30,11 @@ public class LineageEventMapper implements RowMapper<LineageEvent> {
     }
 
     try {
+      if (eventJson.contains(FacetUtils.COMPRESSED)) {
+        JsonNode event = mapper.readTree(eventJson);
+        FacetUtils.decompressFacets(event);
+        return mapper.treeToValue(event, LineageEvent.class);
+      }
       return mapper.readValue(eventJson, new TypeReference<>() {});
     } catch (JsonProcessingException e) {
       throw new IllegalArgumentException();
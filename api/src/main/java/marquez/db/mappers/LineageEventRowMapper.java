@@ -0,0 +1,28 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db.mappers;
+
+import static marquez.db.Columns.timestampOrThrow;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import lombok.NonNull;
+import marquez.db.OpenLineageDao.LineageEventRow;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+public class LineageEventRowMapper implements RowMapper<LineageEventRow> {
+  private final LineageEventMapper eventMapper = new LineageEventMapper();
+
+  @Override
+  public LineageEventRow map(@NonNull ResultSet results, @NonNull StatementContext context)
+      throws SQLException {
+    return new LineageEventRow(
+        timestampOrThrow(results, "event_time"),
+        results.getLong("seq"),
+        eventMapper.map(results, context));
+  }
+}
@@ -23,6 +23,7 @@ import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import marquez.common.Utils;
 import marquez.db.Columns;
+import marquez.db.FacetUtils;
 
 @Slf4j
 @UtilityClass
@@ -77,7 +78,8 @@ public final class MapperUtils {
                     .fieldNames()
                     .forEachRemaining(
                         facet -> {
-                          final JsonNode facetValueAsJson = facetsAsJson.get(facet);
+                          final JsonNode facetValueAsJson =
+                              FacetUtils.decompress(facetsAsJson.get(facet));
                           mergedFacetsAsJson.putPOJO(facet, facetValueAsJson);
                         });
               }
@@ -43,6 +43,7 @@ import marquez.common.models.OutputDatasetVersion;
 import marquez.common.models.RunId;
 import marquez.common.models.RunState;
 import marquez.db.Columns;
+import marquez.db.FacetUtils;
 import marquez.service.models.Run;
 import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.statement.StatementContext;
@@ -172,7 +173,8 @@ public final class RunMapper implements RowMapper<Run> {
                     facet ->
                         Utils.getMapper()
                             .convertValue(
-                                Utils.getMapper().valueToTree(facet.facet).get(facet.name),
+                                FacetUtils.decompress(
+                                    Utils.getMapper().valueToTree(facet.facet).get(facet.name)),
                                 Object.class),
                     (a1, a2) -> a2 // in case of duplicates, choose more recent
                     )));
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db.migrations;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * Numbers the raw events stored before {@code lineage_events.seq} was added, so that {@code
+ * (event_time, seq)} orders all raw events uniquely; then indexes raw events by {@code (event_time,
+ * seq)}. Raw events are numbered in chunks, each committed on its own, so that locks are held only
+ * briefly. Events stored before {@code seq} was added were applied to the model as they were
+ * received; they are marked as projected, so that they are not projected again.
+ */
+@Slf4j
+public class V85__BackfillLineageEventsSeq implements JavaMigration {
+
+  public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+  private static final String CREATE_UNNUMBERED_INDEX =
+      """
+      CREATE INDEX IF NOT EXISTS lineage_events_unnumbered_idx
+      ON lineage_events (event_time) WHERE seq IS NULL
+      """;
+
+  private static final String BACKFILL_CHUNK =
+      """
+      WITH chunk AS (
+        SELECT ctid
+        FROM lineage_events
+        WHERE seq IS NULL
+        ORDER BY event_time
+        LIMIT :chunkSize
+        FOR UPDATE SKIP LOCKED
+      )
+      UPDATE lineage_events le
+      SET seq = nextval('lineage_events_seq'),
+          projected = TRUE
+      FROM chunk
+      WHERE le.ctid = chunk.ctid
+      """;
+
+  private static final String DROP_UNNUMBERED_INDEX =
+      "DROP INDEX IF EXISTS lineage_events_unnumbered_idx";
+
+  private static final String CREATE_EVENT_TIME_SEQ_INDEX =
+      """
+      CREATE INDEX CONCURRENTLY IF NOT EXISTS lineage_events_event_time_seq_idx
+      ON lineage_events (event_time, seq)
+      """;
+
+  @Setter private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+  @Override
+  public MigrationVersion getVersion() {
+    return MigrationVersion.fromVersion("85");
+  }
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    final Jdbi jdbi = Jdbi.create(context.getConnection());
+    jdbi.useHandle(h -> h.execute(CREATE_UNNUMBERED_INDEX));
+    long numbered = 0;
+    int chunk;
+    do {
+      chunk =
+          jdbi.withHandle(
+              h -> h.createUpdate(BACKFILL_CHUNK).bind("chunkSize", chunkSize).execute());
+      numbered += chunk;
+      if (chunk > 0) {
+        log.info("Numbered '{}' raw events stored without sequence number.", numbered);
+      }
+    } while (chunk > 0);
+    jdbi.useHandle(h -> h.execute(DROP_UNNUMBERED_INDEX));
+    jdbi.useHandle(h -> h.execute(CREATE_EVENT_TIME_SEQ_INDEX));
+  }
+
+  @Override
+  public String getDescription() {
+    return "Back fill seq in lineage_events table";
+  }
+
+  @Override
+  public Integer getChecksum() {
+    return null;
+  }
+
+  @Override
+  public boolean isUndo() {
+    return false;
+  }
+
+  @Override
+  public boolean canExecuteInTransaction() {
+    return false;
+  }
+
+  @Override
+  public boolean isBaselineMigration() {
+    return false;
+  }
+}
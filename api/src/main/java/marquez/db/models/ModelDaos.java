@@ -5,6 +5,14 @@
 
 package marquez.db.models;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import marquez.db.BaseDao;
 import marquez.db.ColumnLineageDao;
 import marquez.db.DatasetDao;
@@ -22,10 +30,15 @@ import marquez.db.RunDao;
 import marquez.db.RunFacetsDao;
 import marquez.db.RunStateDao;
 import marquez.db.SourceDao;
+import marquez.db.UpsertCache;
+import org.jdbi.v3.core.Handle;
 
 /**
  * Container for storing all the Dao classes which ensures parent interface methods are called
- * exactly once.
+ * exactly once. A container is used for a single event, and also resolves the namespaces, sources
+ * and symlinks referenced by the event; each of them is upserted once, however many datasets of
+ * the event reference it. Rows upserted for the event are only published to the {@link
+ * UpsertCache} by {@link #publishUpserted()}, once the event is fully applied.
  */
 public final class ModelDaos {
   private NamespaceDao namespaceDao = null;
@@ -46,6 +59,12 @@ public final class ModelDaos {
   private RunFacetsDao runFacetsDao = null;
   private BaseDao baseDao;
 
+  private final Map<String, NamespaceRow> namespaces = new HashMap<>();
+  private final Map<List<String>, SourceRow> sources = new HashMap<>();
+  private final Map<List<Object>, DatasetSymlinkRow> symlinks = new HashMap<>();
+  private final Set<List<Object>> secondarySymlinks = new HashSet<>();
+  private final List<Runnable> unpublished = new ArrayList<>();
+
   public void initBaseDao(BaseDao baseDao) {
     this.baseDao = baseDao;
   }
@@ -161,4 +180,98 @@ public final class ModelDaos {
     }
     return jobVersionDao;
   }
+
+  /**
+   * Upserts the namespace with the provided {@code name}, once per event; the upsert is skipped
+   * when the namespace is held in the {@link UpsertCache}.
+   */
+  public NamespaceRow upsertNamespaceRow(Instant now, String name, String currentOwnerName) {
+    return namespaces.computeIfAbsent(
+        name,
+        key ->
+            UpsertCache.namespace(
+                key,
+                () ->
+                    getNamespaceDao()
+                        .upsertNamespaceRow(UUID.randomUUID(), now, key, currentOwnerName),
+                unpublished::add));
+  }
+
+  /**
+   * Upserts the source with the provided {@code name}, {@code type} and URL, once per event; the
+   * upsert is skipped when a matching source is held in the {@link UpsertCache}.
+   */
+  public SourceRow upsertSource(Instant now, String type, String name, String connectionUrl) {
+    return sources.computeIfAbsent(
+        List.of("upsert", String.valueOf(type), name, String.valueOf(connectionUrl)),
+        key ->
+            UpsertCache.source(
+                name,
+                type,
+                connectionUrl,
+                () -> getSourceDao().upsert(UUID.randomUUID(), type, now, name, connectionUrl),
+                unpublished::add));
+  }
+
+  /**
+   * Upserts the default source with the provided {@code defaultName}, once per event; the upsert
+   * is skipped when a source of that name is held in the {@link UpsertCache}.
+   */
+  public SourceRow upsertSourceOrDefault(
+      Instant now, String defaultType, String defaultName, String defaultConnectionUrl) {
+    return sources.computeIfAbsent(
+        List.of("default", String.valueOf(defaultType), defaultName),
+        key ->
+            UpsertCache.sourceOrDefault(
+                defaultName,
+                () ->
+                    getSourceDao()
+                        .upsertOrDefault(
+                            UUID.randomUUID(),
+                            defaultType,
+                            now,
+                            defaultName,
+                            defaultConnectionUrl),
+                unpublished::add));
+  }
+
+  /** Upserts the primary symlink of a dataset, once per event. */
+  public DatasetSymlinkRow upsertPrimaryDatasetSymlinkRow(
+      Instant now, String name, UUID namespaceUuid) {
+    return symlinks.computeIfAbsent(
+        List.of(namespaceUuid, name),
+        key ->
+            getDatasetSymlinkDao()
+                .upsertDatasetSymlinkRow(UUID.randomUUID(), name, namespaceUuid, true, null, now));
+  }
+
+  /** Upserts a secondary symlink of the dataset {@code datasetUuid}, once per event. */
+  public void upsertSecondaryDatasetSymlinkRow(
+      Instant now, UUID datasetUuid, String name, UUID namespaceUuid, String type) {
+    final List<Object> key = List.of(datasetUuid, name, namespaceUuid, type == null ? "" : type);
+    if (secondarySymlinks.add(key)) {
+      getDatasetSymlinkDao()
+          .doUpsertDatasetSymlinkRow(datasetUuid, name, namespaceUuid, false, type, now);
+    }
+  }
+
+  /**
+   * Publishes the namespaces and sources upserted for the event to the {@link UpsertCache} once
+   * they are committed: when the current transaction commits, or immediately outside of a
+   * transaction. Rows of an event rolled back, including to a savepoint before this method is
+   * called, are never published.
+   */
+  public void publishUpserted() {
+    if (unpublished.isEmpty()) {
+      return;
+    }
+    final List<Runnable> puts = List.copyOf(unpublished);
+    unpublished.clear();
+    final Handle handle = baseDao.getHandle();
+    if (handle.isInTransaction()) {
+      handle.afterCommit(() -> puts.forEach(Runnable::run));
+    } else {
+      puts.forEach(Runnable::run);
+    }
+  }
 }
@@ -30,5 +30,8 @@ public class UpdateLineageRow {
     DatasetVersionRow datasetVersionRow;
     NamespaceRow namespaceRow;
     List<ColumnLineageRow> columnLineageRows;
+
+    /** Whether the dataset version was written by the event, rather than read or written before. */
+    boolean versionCreated;
   }
 }
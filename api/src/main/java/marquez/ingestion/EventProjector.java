@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.ingestion;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.ingestion.IngestionConfig.ProjectorConfig;
+import marquez.service.IngestionMetrics;
+import marquez.service.OpenLineageService;
+
+/**
+ * Tails the raw events stored in {@code lineage_events}, and updates the Marquez model from them in
+ * the order they were stored; progress is checkpointed in {@code lineage_event_projections} within
+ * the same transaction as the model updates. Only one instance projects raw events at a time, when
+ * several instances share the same database.
+ *
+ * <p>Raw events are projected in the order of the transactions that inserted them, up to the oldest
+ * transaction still in progress; raw events that fail to be projected are recorded in {@code
+ * lineage_event_projection_failures}, and skipped. Hence, a long write transaction (for example, a
+ * retention or partitioning job, or a bulk load) holds back the projection of raw events stored
+ * after it started, until it ends; jobs writing to the database commit in batches for that reason.
+ * The age of the next raw event to project is exported as {@code
+ * marquez_ingestion_projector_lag_seconds}.
+ *
+ * <p>To reproject the model from raw events (for example, after a schema change), reset the {@code
+ * last_txid} and {@code last_seq} of the {@code marquez} projection; raw events stored before
+ * {@code V79} are not part of the sequence and cannot be reprojected.
+ */
+@Slf4j
+public class EventProjector implements Managed {
+  private static final long STOP_TIMEOUT_SECONDS = 30;
+
+  private final OpenLineageService openLineageService;
+  private final ProjectorConfig config;
+  private final ScheduledExecutorService projector;
+
+  public EventProjector(
+      @NonNull final OpenLineageService openLineageService, @NonNull final ProjectorConfig config) {
+    this.openLineageService = openLineageService;
+    this.config = config;
+    this.projector =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("ingestion-projector").build());
+  }
+
+  @Override
+  public void start() {
+    openLineageService.createProjection();
+    projector.scheduleWithFixedDelay(
+        this::project, 0, config.getIntervalMs(), TimeUnit.MILLISECONDS);
+    log.info("Projecting raw events in batches of '{}'.", config.getBatchSize());
+  }
+
+  /** Projects raw events until none are left, or until the projector is stopped. */
+  private void project() {
+    try {
+      while (!projector.isShutdown()
+          && openLineageService.project(config.getBatchSize()) == config.getBatchSize()) {
+        // More raw events may be pending.
+      }
+      IngestionMetrics.projectorLag.set(openLineageService.getProjectionLagSeconds());
+    } catch (Exception e) {
+      log.error("Failed to project raw events, retrying in '{}' ms.", config.getIntervalMs(), e);
+    }
+  }
+
+  @Override
+  public void stop() throws Exception {
+    log.info("Stopping ingestion projector...");
+    projector.shutdown();
+    if (!projector.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      log.warn("Ingestion projector did not stop within '{}' secs.", STOP_TIMEOUT_SECONDS);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.ingestion;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+
+/** Configuration for the ingestion of OpenLineage events. */
+public class IngestionConfig {
+  public static final boolean TRANSACTIONAL = false;
+  public static final int STRIPES = 0;
+  public static final boolean RAW_EVENTS = false;
+  public static final boolean DEDUPLICATE_FACETS = false;
+  public static final int MAX_BATCH_SIZE = 1000;
+
+  /**
+   * When enabled, the raw event and every model update derived from it are written on a single
+   * database handle within one transaction; either all writes of an event are committed, or none.
+   */
+  @Getter @JsonProperty private boolean transactional = TRANSACTIONAL;
+
+  /**
+   * The number of stripes events are dispatched to by run; events of the same run are applied in
+   * order, while events of different runs are applied in parallel. When {@code 0}, events are
+   * applied as soon as they are received.
+   */
+  @Getter @JsonProperty private int stripes = STRIPES;
+
+  /**
+   * When enabled, the request payload of an event is stored verbatim as the raw event; otherwise,
+   * the raw event is serialized again from the event bound from the payload.
+   */
+  @Getter @JsonProperty private boolean rawEvents = RAW_EVENTS;
+
+  /**
+   * When enabled, the payload of a facet is stored once in {@code facet_payloads} by the SHA-256 of
+   * its JSON, and facet rows reference the payload by hash; facets repeated across events, such as
+   * schemas, are then only stored once.
+   */
+  @Getter @JsonProperty private boolean deduplicateFacets = DEDUPLICATE_FACETS;
+
+  /**
+   * The maximum number of events accepted by {@code POST /api/v1/lineage/batch}; larger batches are
+   * rejected with {@code 413}.
+   */
+  @Getter @JsonProperty private int maxBatchSize = MAX_BATCH_SIZE;
+
+  @Getter @JsonProperty private QueueConfig queue = new QueueConfig();
+
+  /**
+   * Configuration for the write-behind {@link IngestionQueue}. When enabled, events are accepted
+   * once enqueued and are written to the database by a dedicated pool of workers.
+   */
+  public static class QueueConfig {
+    public static final boolean ENABLED = false;
+    public static final int CAPACITY = 10000;
+    public static final int WORKERS = 4;
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /** The maximum number of events held in memory waiting to be written. */
+    @Getter @JsonProperty private int capacity = CAPACITY;
+
+    /** The number of worker threads writing events to the database. */
+    @Getter @JsonProperty private int workers = WORKERS;
+
+    /**
+     * An optional directory to spill events to when the queue is full, and to persist pending
+     * events to on shutdown. Spilled events are enqueued again as capacity frees up, or on the
+     * next startup. When not set, events are rejected once the queue is full.
+     */
+    @Getter @JsonProperty @Nullable private String spillDirectory;
+  }
+
+  @Getter @JsonProperty private ProjectorConfig projector = new ProjectorConfig();
+
+  /**
+   * Configuration for the {@link EventProjector}. When enabled, an event is acknowledged once its
+   * raw event has been stored, and the Marquez model is updated from raw events in the background,
+   * in the order they were stored; the model is therefore eventually consistent with raw events.
+   */
+  public static class ProjectorConfig {
+    public static final boolean ENABLED = false;
+    public static final int BATCH_SIZE = 500;
+    public static final long INTERVAL_MS = 500;
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /** The maximum number of raw events projected within a single transaction. */
+    @Getter @JsonProperty private int batchSize = BATCH_SIZE;
+
+    /** The number of milliseconds to wait for new raw events, once all have been projected. */
+    @Getter @JsonProperty private long intervalMs = INTERVAL_MS;
+  }
+
+  @Getter @JsonProperty private CompressionConfig compression = new CompressionConfig();
+
+  /**
+   * Configuration for the compression of oversized facets, in the facet tables and within raw
+   * events. A facet whose JSON exceeds the threshold is stored compressed, and is decompressed
+   * transparently when read; see {@link marquez.db.FacetUtils}.
+   */
+  public static class CompressionConfig {
+    public static final boolean ENABLED = false;
+    public static final int THRESHOLD_BYTES = 65536;
+    public static final Codec CODEC = Codec.GZIP;
+
+    /** The codecs facets can be compressed with. */
+    public enum Codec {
+      GZIP,
+      DEFLATE
+    }
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /** The size, in bytes, of the JSON of a facet above which the facet is compressed. */
+    @Getter @JsonProperty private int thresholdBytes = THRESHOLD_BYTES;
+
+    @Getter @JsonProperty private Codec codec = CODEC;
+  }
+
+  @Getter @JsonProperty private CacheConfig cache = new CacheConfig();
+
+  /**
+   * Configuration for the {@link marquez.db.UpsertCache} of namespace and source rows. When
+   * enabled, the upsert of a namespace or source matching a cached row is skipped; the {@code
+   * updated_at} of such rows is therefore only bumped once per time-to-live.
+   */
+  public static class CacheConfig {
+    public static final boolean ENABLED = false;
+    public static final long MAXIMUM_SIZE = 10000;
+    public static final long TTL_SECS = 300;
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /** The maximum number of namespace rows, and of source rows, held in the cache. */
+    @Getter @JsonProperty private long maximumSize = MAXIMUM_SIZE;
+
+    /** The number of seconds a row is held in the cache after being written. */
+    @Getter @JsonProperty private long ttlSecs = TTL_SECS;
+  }
+
+  @Getter @JsonProperty private ChangeFeedConfig changeFeed = new ChangeFeedConfig();
+
+  /**
+   * Configuration for the change feed of the Marquez model. When enabled, the jobs, runs and
+   * datasets changed by an event are recorded in {@code model_changes} along with the changes, and
+   * served by {@code GET /api/v1/changes} from the last change read by a client; when disabled,
+   * {@code GET /api/v1/changes} returns {@code 404}.
+   */
+  public static class ChangeFeedConfig {
+    public static final boolean ENABLED = false;
+    public static final long POLL_INTERVAL_MS = 500;
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /** The number of milliseconds between polls for new changes, while a client waits for one. */
+    @Getter @JsonProperty private long pollIntervalMs = POLL_INTERVAL_MS;
+  }
+}
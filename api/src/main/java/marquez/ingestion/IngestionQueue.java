@@ -0,0 +1,401 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.ingestion;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.common.Utils;
+import marquez.db.models.UpdateLineageRow;
+import marquez.ingestion.IngestionConfig.QueueConfig;
+import marquez.service.IngestionMetrics;
+import marquez.service.OpenLineageService;
+import marquez.service.models.BaseEvent;
+import marquez.service.models.LineageEvent;
+
+/**
+ * A bounded, write-behind queue of OpenLineage events. Events are accepted once enqueued, then
+ * written to the database by a dedicated pool of workers, so that a spike of events cannot starve
+ * the threads serving other requests. When the queue is full, events are either spilled to disk (if
+ * a spill directory has been configured), or rejected.
+ *
+ * <p>Each worker owns a stripe of the queue, and the events of a run are enqueued to the same
+ * stripe; the events of a run are therefore written one after the other, in the order they were
+ * enqueued. Each event is written in a single transaction, whatever the {@code transactional}
+ * setting, and listeners are notified once it has been committed. An event that fails to be
+ * written is retried: spilled again when a spill directory has been configured, or retried in
+ * place after a backoff otherwise. Spilled events are only deleted once written; events that
+ * cannot be read, or are still failing after {@code MAX_ATTEMPTS}, are moved to the {@code failed}
+ * subdirectory of the spill directory.
+ */
+@Slf4j
+public class IngestionQueue implements Managed {
+  private static final long DRAIN_INTERVAL_MS = 1000;
+  private static final long STOP_TIMEOUT_SECONDS = 30;
+  private static final String SPILL_FILE_SUFFIX = ".json";
+  private static final String FAILED_DIRECTORY = "failed";
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long RETRY_BACKOFF_MS = 1000;
+
+  /* Spill files are named <millis>-<sequence>[-<attempts>].json, and sort in the order spilled. */
+  private static final Pattern SPILL_FILE_NAME =
+      Pattern.compile("\\d+-\\d+(?:-(\\d+))?" + Pattern.quote(SPILL_FILE_SUFFIX));
+
+  private final OpenLineageService openLineageService;
+  private final ThreadPoolExecutor[] stripes;
+  @Nullable private final Path spillDirectory;
+  @Nullable private final ScheduledExecutorService drainer;
+  private final AtomicInteger spilled = new AtomicInteger();
+  private final AtomicLong spillSequence = new AtomicLong();
+
+  /* The spill files enqueued, and not yet written; they are not enqueued again by the drainer. */
+  private final Set<Path> enqueuedSpillFiles = ConcurrentHashMap.newKeySet();
+
+  public IngestionQueue(
+      @NonNull final OpenLineageService openLineageService, @NonNull final QueueConfig config) {
+    this.openLineageService = openLineageService;
+    this.stripes = new ThreadPoolExecutor[config.getWorkers()];
+    final int stripeCapacity =
+        Math.max(1, (config.getCapacity() + config.getWorkers() - 1) / config.getWorkers());
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(stripeCapacity),
+              new ThreadFactoryBuilder().setNameFormat("ingestion-worker-" + i).build());
+    }
+    if (config.getSpillDirectory() != null) {
+      this.spillDirectory = Paths.get(config.getSpillDirectory());
+      this.drainer =
+          Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setNameFormat("ingestion-drainer").build());
+    } else {
+      this.spillDirectory = null;
+      this.drainer = null;
+    }
+  }
+
+  @Override
+  public void start() throws Exception {
+    for (final ThreadPoolExecutor stripe : stripes) {
+      stripe.prestartAllCoreThreads();
+    }
+    if (spillDirectory != null) {
+      Files.createDirectories(spillDirectory);
+      spilled.set(listSpillFiles().size());
+      IngestionMetrics.spilled.set(spilled.get());
+      drainer.scheduleWithFixedDelay(this::drain, 0, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    log.info(
+        "Ingesting events with '{}' workers (capacity: '{}', spilled: '{}').",
+        stripes.length,
+        Stream.of(stripes).mapToInt(stripe -> stripe.getQueue().remainingCapacity()).sum(),
+        spilled.get());
+  }
+
+  /**
+   * Enqueues the provided {@code event}, and returns the number of events ahead of it; events
+   * spilled to disk count towards the position. An empty position is returned if the event has been
+   * rejected because the queue is full.
+   */
+  public OptionalInt enqueue(@NonNull BaseEvent event) {
+    // Once events have been spilled, new events are spilled as well to keep their order.
+    if (spillDirectory == null || spilled.get() == 0) {
+      final ThreadPoolExecutor stripe = stripeFor(event);
+      try {
+        stripe.execute(new IngestionTask(event, System.nanoTime(), null, 0));
+        IngestionMetrics.queueDepth.set(queueDepth());
+        return OptionalInt.of(stripe.getQueue().size());
+      } catch (RejectedExecutionException e) {
+        if (spillDirectory == null) {
+          IngestionMetrics.rejected.inc();
+          return OptionalInt.empty();
+        }
+      }
+    }
+    try {
+      spill(event, 0);
+      return OptionalInt.of(queueDepth() + spilled.get());
+    } catch (IOException e) {
+      log.error("Failed to spill event to '{}'", spillDirectory, e);
+      IngestionMetrics.rejected.inc();
+      return OptionalInt.empty();
+    }
+  }
+
+  @Override
+  public void stop() throws Exception {
+    log.info("Stopping ingestion workers...");
+    if (drainer != null) {
+      drainer.shutdownNow();
+      drainer.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    for (final ThreadPoolExecutor stripe : stripes) {
+      stripe.shutdown();
+    }
+    if (spillDirectory != null) {
+      // Events waiting in memory are persisted, then only the events being written are awaited.
+      for (final ThreadPoolExecutor stripe : stripes) {
+        final List<Runnable> pending = new ArrayList<>();
+        stripe.getQueue().drainTo(pending);
+        for (final Runnable task : pending) {
+          ((IngestionTask) task).persist();
+        }
+      }
+    }
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STOP_TIMEOUT_SECONDS);
+    for (final ThreadPoolExecutor stripe : stripes) {
+      if (!stripe.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        log.warn("Ingestion workers did not stop within '{}' secs.", STOP_TIMEOUT_SECONDS);
+        return;
+      }
+    }
+  }
+
+  /** Returns the stripe of the provided {@code event}; events of a run share the same stripe. */
+  private ThreadPoolExecutor stripeFor(BaseEvent event) {
+    final int hash =
+        event instanceof LineageEvent && ((LineageEvent) event).getRun() != null
+            ? Objects.hashCode(((LineageEvent) event).getRun().getRunId())
+            : System.identityHashCode(event);
+    return stripes[Math.floorMod(hash, stripes.length)];
+  }
+
+  private int queueDepth() {
+    return Stream.of(stripes).mapToInt(stripe -> stripe.getQueue().size()).sum();
+  }
+
+  private void spill(BaseEvent event, int attempts) throws IOException {
+    write(spillDirectory, event, attempts);
+    IngestionMetrics.spilled.set(spilled.incrementAndGet());
+  }
+
+  /** Writes the provided {@code event} to a new file of the provided {@code directory}. */
+  private void write(Path directory, BaseEvent event, int attempts) throws IOException {
+    // File names sort in the order events have been spilled.
+    final String fileName =
+        String.format(
+            "%020d-%010d-%d%s",
+            System.currentTimeMillis(),
+            spillSequence.incrementAndGet(),
+            attempts,
+            SPILL_FILE_SUFFIX);
+    final Path tmp = directory.resolve(fileName + ".tmp");
+    Files.write(tmp, Utils.toJson(event).getBytes(StandardCharsets.UTF_8));
+    Files.move(tmp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** Deletes the spill file of an event written, or spilled again. */
+  private void deleteSpillFile(Path file) throws IOException {
+    Files.deleteIfExists(file);
+    enqueuedSpillFiles.remove(file);
+    IngestionMetrics.spilled.set(spilled.decrementAndGet());
+  }
+
+  /** Moves the spill file of an event that cannot be written to the failed directory. */
+  private void moveToFailed(Path file) throws IOException {
+    Files.move(
+        file, failedDirectory().resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+    enqueuedSpillFiles.remove(file);
+    IngestionMetrics.spilled.set(spilled.decrementAndGet());
+  }
+
+  private Path failedDirectory() throws IOException {
+    return Files.createDirectories(spillDirectory.resolve(FAILED_DIRECTORY));
+  }
+
+  /** Enqueues spilled events, oldest first, for as long as their stripes have capacity. */
+  private void drain() {
+    try {
+      for (final Path file : listSpillFiles()) {
+        if (enqueuedSpillFiles.contains(file)) {
+          continue;
+        }
+        final BaseEvent event;
+        try {
+          event =
+              Utils.fromJson(
+                  new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+                  new TypeReference<BaseEvent>() {});
+        } catch (RuntimeException e) {
+          log.error("Failed to read spilled event '{}'. Moving it to failed...", file, e);
+          IngestionMetrics.failed.inc();
+          moveToFailed(file);
+          continue;
+        }
+        enqueuedSpillFiles.add(file);
+        try {
+          stripeFor(event)
+              .execute(new IngestionTask(event, System.nanoTime(), file, attemptsOf(file)));
+        } catch (RejectedExecutionException e) {
+          enqueuedSpillFiles.remove(file);
+          return;
+        }
+        IngestionMetrics.queueDepth.set(queueDepth());
+      }
+    } catch (Exception e) {
+      log.error("Failed to drain spilled events from '{}'. Retrying...", spillDirectory, e);
+    }
+  }
+
+  private List<Path> listSpillFiles() throws IOException {
+    try (Stream<Path> files = Files.list(spillDirectory)) {
+      return files
+          .filter(file -> SPILL_FILE_NAME.matcher(file.getFileName().toString()).matches())
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /** Returns the number of failed attempts to write the event of the spill file. */
+  private static int attemptsOf(Path file) {
+    final Matcher matcher = SPILL_FILE_NAME.matcher(file.getFileName().toString());
+    return matcher.matches() && matcher.group(1) != null ? Integer.parseInt(matcher.group(1)) : 0;
+  }
+
+  private class IngestionTask implements Runnable {
+    private final BaseEvent event;
+    private final long enqueuedAtNanos;
+    @Nullable private final Path spillFile;
+    private final int attempts;
+
+    IngestionTask(
+        @NonNull BaseEvent event, long enqueuedAtNanos, @Nullable Path spillFile, int attempts) {
+      this.event = event;
+      this.enqueuedAtNanos = enqueuedAtNanos;
+      this.spillFile = spillFile;
+      this.attempts = attempts;
+    }
+
+    @Override
+    public void run() {
+      IngestionMetrics.queueDepth.set(queueDepth());
+      for (int attempt = attempts + 1; ; attempt++) {
+        final UpdateLineageRow update;
+        try {
+          // Written in a single transaction, so that a failed attempt can be retried.
+          update = openLineageService.createInTransaction(event);
+        } catch (Exception e) {
+          if (retry(attempt, e)) {
+            continue;
+          }
+          return;
+        }
+        IngestionMetrics.enqueueToCommitLatency.observe(
+            (System.nanoTime() - enqueuedAtNanos) / 1e9);
+        try {
+          // The event is written; a failure to notify listeners must not write it again.
+          openLineageService.notifyListeners(event, update);
+        } catch (Exception e) {
+          log.error("Failed to notify listeners of enqueued event once written", e);
+        }
+        if (spillFile != null) {
+          try {
+            deleteSpillFile(spillFile);
+          } catch (IOException e) {
+            // Left enqueued, so that the event is not written again until the next startup.
+            log.error("Failed to delete spilled event '{}' once written", spillFile, e);
+          }
+        }
+        return;
+      }
+    }
+
+    /**
+     * Handles the failed {@code attempt} to write the event; returns whether to retry in place,
+     * once the backoff has elapsed.
+     */
+    private boolean retry(int attempt, Exception failure) {
+      try {
+        if (attempt >= MAX_ATTEMPTS) {
+          log.error("Failed to write enqueued event after '{}' attempts", attempt, failure);
+          IngestionMetrics.failed.inc();
+          if (spillDirectory != null) {
+            if (spillFile != null) {
+              moveToFailed(spillFile);
+            } else {
+              write(failedDirectory(), event, attempt);
+            }
+          }
+          return false;
+        }
+        if (spillDirectory != null) {
+          log.warn("Failed to write enqueued event, spilling it to retry...", failure);
+          spill(event, attempt);
+          if (spillFile != null) {
+            deleteSpillFile(spillFile);
+          }
+          return false;
+        }
+        log.warn(
+            "Failed to write enqueued event, retrying in '{}' ms...", backoff(attempt), failure);
+        Thread.sleep(backoff(attempt));
+        return true;
+      } catch (IOException e) {
+        // The spill file, if any, is left in place to be enqueued again.
+        log.error("Failed to spill event to '{}'", spillDirectory, e);
+        if (spillFile != null) {
+          enqueuedSpillFiles.remove(spillFile);
+        } else {
+          IngestionMetrics.failed.inc();
+        }
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        IngestionMetrics.failed.inc();
+        return false;
+      }
+    }
+
+    /** Persists the event of a task not yet run; a spilled event is already persisted. */
+    void persist() {
+      if (spillFile != null) {
+        enqueuedSpillFiles.remove(spillFile);
+        return;
+      }
+      try {
+        spill(event, attempts);
+      } catch (IOException e) {
+        log.error("Failed to spill event to '{}'", spillDirectory, e);
+        IngestionMetrics.failed.inc();
+      }
+    }
+  }
+
+  private static long backoff(int attempt) {
+    return RETRY_BACKOFF_MS << (attempt - 1);
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.ingestion;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.Executor;
+import lombok.NonNull;
+
+/**
+ * Dispatches tasks to a fixed number of stripes by key. Tasks submitted to the same stripe run one
+ * after the other, in submission order, while tasks of different stripes run in parallel on the
+ * delegate {@link Executor}. No threads are created; stripes only borrow threads of the delegate.
+ */
+public final class StripedExecutor {
+  private final Executor[] stripes;
+
+  public StripedExecutor(@NonNull final Executor delegate, final int stripes) {
+    checkArgument(stripes > 0, "stripes must be > 0");
+    this.stripes = new Executor[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = MoreExecutors.newSequentialExecutor(delegate);
+    }
+  }
+
+  /** Returns the stripe for the provided {@code key}. */
+  public Executor stripeFor(@NonNull final Object key) {
+    return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+  }
+}
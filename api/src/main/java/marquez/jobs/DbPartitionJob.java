@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.jobs;
+
+import static marquez.db.DbPartitions.DEFAULT_DAYS_AHEAD;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import io.dropwizard.lifecycle.Managed;
+import java.time.Duration;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.db.DbPartitions;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * A job that creates the daily partitions of partitioned tables ahead of time, on a fixed schedule
+ * in Marquez; does nothing until tables are partitioned with the {@code db-partition} command.
+ */
+@Slf4j
+public class DbPartitionJob extends AbstractScheduledService implements Managed {
+
+  private final int FREQUENCY = 60;
+  private final Scheduler fixedRateScheduler;
+  private final Jdbi jdbi;
+
+  public DbPartitionJob(@NonNull final Jdbi jdbi) {
+    // Connection to database partitions will be created in.
+    this.jdbi = jdbi;
+
+    // Define fixed schedule, starting right away.
+    this.fixedRateScheduler =
+        Scheduler.newFixedRateSchedule(Duration.ZERO, Duration.ofMinutes(FREQUENCY));
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return fixedRateScheduler;
+  }
+
+  @Override
+  public void start() throws Exception {
+    startAsync().awaitRunning();
+    log.info("Creating partitions ahead of time every '{}' mins.", FREQUENCY);
+  }
+
+  @Override
+  protected void runOneIteration() {
+    try {
+      DbPartitions.createPartitions(jdbi, DEFAULT_DAYS_AHEAD);
+    } catch (Exception error) {
+      log.error("Failed to create partitions. Retrying on next run...", error);
+    }
+  }
+
+  @Override
+  public void stop() throws Exception {
+    log.info("Stopping partitions job...");
+    stopAsync().awaitTerminated();
+  }
+}
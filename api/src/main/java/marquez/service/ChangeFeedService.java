@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.db.ModelChangeDao;
+import marquez.db.ModelChangeDao.HeadRow;
+import marquez.db.ModelChangeDao.ModelChangeRow;
+import marquez.ingestion.IngestionConfig.ChangeFeedConfig;
+
+/**
+ * Serves the feed of changes to the Marquez model, recorded in {@code model_changes}; clients read
+ * the changes after the position of the last change they read, and wait for new changes when none
+ * are available.
+ *
+ * <p>The position of a change is the transaction that recorded it, then its sequence number. Only
+ * changes recorded by transactions older than any transaction still in progress are served, so
+ * that a client resuming from the last change read never skips a change committed late; a long
+ * write transaction holds back the changes recorded after it started, until it ends. The age of the
+ * oldest change held back is exported as {@code marquez_change_feed_held_back_seconds}.
+ *
+ * <p>While clients wait for new changes, the position of the last change available is polled once
+ * per interval for all of them; only the clients behind it read their changes.
+ */
+@Slf4j
+public class ChangeFeedService implements Managed {
+  private static final long STOP_TIMEOUT_SECONDS = 30;
+
+  private final ModelChangeDao modelChangeDao;
+  private final ChangeFeedConfig config;
+  private final ScheduledExecutorService poller;
+
+  /* The clients waiting for new changes, served from a single poll of the head of the feed. */
+  private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean polling = new AtomicBoolean();
+
+  public ChangeFeedService(
+      @NonNull final ModelChangeDao modelChangeDao, @NonNull final ChangeFeedConfig config) {
+    this.modelChangeDao = modelChangeDao;
+    this.config = config;
+    this.poller =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("change-feed-poller").setDaemon(true).build());
+  }
+
+  /** The position of a change in the feed, formatted as {@code <txid>.<seq>}. */
+  public record Position(long txid, long seq) {
+    public static final Position START = new Position(0, 0);
+
+    /** Returns the position of the change. */
+    public static Position of(@NonNull ModelChangeRow change) {
+      return new Position(change.txid(), change.seq());
+    }
+
+    /**
+     * Parses a position formatted as {@code <txid>.<seq>}.
+     *
+     * @throws IllegalArgumentException if the position is malformed
+     */
+    public static Position parse(@NonNull String position) {
+      final int dot = position.indexOf('.');
+      if (dot < 0) {
+        throw new IllegalArgumentException(
+            String.format("Malformed position '%s', expected <txid>.<seq>", position));
+      }
+      final Position parsed =
+          new Position(
+              Long.parseLong(position.substring(0, dot)),
+              Long.parseLong(position.substring(dot + 1)));
+      if (parsed.txid() < 0 || parsed.seq() < 0) {
+        throw new IllegalArgumentException(
+            String.format("Malformed position '%s', expected <txid>.<seq>", position));
+      }
+      return parsed;
+    }
+
+    /** Returns {@code true} if this position is before the provided position. */
+    public boolean isBefore(@NonNull Position other) {
+      return txid < other.txid() || (txid == other.txid() && seq < other.seq());
+    }
+
+    @Override
+    public String toString() {
+      return txid + "." + seq;
+    }
+  }
+
+  @Override
+  public void start() {}
+
+  /** Stops polling; clients waiting for new changes are served the changes available. */
+  @Override
+  public void stop() throws Exception {
+    log.info("Stopping change feed poller...");
+    poller.shutdown();
+    if (!poller.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      log.warn("Change feed poller did not stop within '{}' secs.", STOP_TIMEOUT_SECONDS);
+    }
+    waiters.forEach(this::serve);
+  }
+
+  /**
+   * Returns, at most, {@code limit} changes after the position {@code after}; when none are
+   * available, waits up to {@code timeout} for new changes, without holding a thread while
+   * waiting.
+   */
+  public CompletableFuture<List<ModelChangeRow>> changesAfter(
+      @NonNull final Position after, final int limit, @NonNull final Duration timeout) {
+    final CompletableFuture<List<ModelChangeRow>> changes = new CompletableFuture<>();
+    try {
+      final List<ModelChangeRow> available =
+          modelChangeDao.findChangesAfter(after.txid(), after.seq(), limit);
+      if (!available.isEmpty() || timeout.isZero() || poller.isShutdown()) {
+        changes.complete(available);
+      } else {
+        waiters.add(new Waiter(changes, after, limit, Instant.now().plus(timeout)));
+        schedulePoll();
+      }
+    } catch (Exception e) {
+      changes.completeExceptionally(e);
+    }
+    return changes;
+  }
+
+  /** A client waiting for the changes after {@code after}, until {@code deadline}. */
+  private record Waiter(
+      CompletableFuture<List<ModelChangeRow>> changes,
+      Position after,
+      int limit,
+      Instant deadline) {}
+
+  /** Schedules a poll of the head of the feed, unless one is already scheduled. */
+  private void schedulePoll() {
+    if (!polling.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      poller.schedule(this::poll, config.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // Stopped; clients are served the changes available.
+      polling.set(false);
+      waiters.forEach(this::serve);
+    }
+  }
+
+  /**
+   * Polls the position of the last change served once for all waiting clients; only the clients
+   * behind it read their changes, and clients whose wait timed out are served no changes.
+   */
+  private void poll() {
+    try {
+      final HeadRow head = modelChangeDao.findHead();
+      IngestionMetrics.changeFeedHeldBack.set(head.heldBackSeconds());
+      final Position headPosition = new Position(head.txid(), head.seq());
+      final Instant now = Instant.now();
+      for (final Waiter waiter : waiters) {
+        if (waiter.after().isBefore(headPosition)) {
+          serve(waiter);
+        } else if (!now.isBefore(waiter.deadline()) && waiters.remove(waiter)) {
+          waiter.changes().complete(List.of());
+        }
+      }
+    } catch (Exception e) {
+      log.error("Failed to poll the head of the change feed", e);
+      for (final Waiter waiter : waiters) {
+        if (waiters.remove(waiter)) {
+          waiter.changes().completeExceptionally(e);
+        }
+      }
+    } finally {
+      polling.set(false);
+      // A client may have started waiting after the last poll was scheduled.
+      if (!waiters.isEmpty()) {
+        schedulePoll();
+      }
+    }
+  }
+
+  /** Serves a waiting client the changes available, unless already served. */
+  private void serve(Waiter waiter) {
+    if (!waiters.remove(waiter)) {
+      return;
+    }
+    try {
+      waiter
+          .changes()
+          .complete(
+              modelChangeDao.findChangesAfter(
+                  waiter.after().txid(), waiter.after().seq(), waiter.limit()));
+    } catch (Exception e) {
+      waiter.changes().completeExceptionally(e);
+    }
+  }
+}
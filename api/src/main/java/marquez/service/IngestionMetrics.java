@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+public class IngestionMetrics {
+  public static final Gauge queueDepth =
+      Gauge.build()
+          .namespace("marquez")
+          .name("ingestion_queue_depth")
+          .help("Total number of events waiting in the ingestion queue.")
+          .register();
+  public static final Gauge spilled =
+      Gauge.build()
+          .namespace("marquez")
+          .name("ingestion_queue_spilled")
+          .help("Total number of events spilled to disk by the ingestion queue.")
+          .register();
+  public static final Histogram enqueueToCommitLatency =
+      Histogram.build()
+          .namespace("marquez")
+          .name("ingestion_enqueue_to_commit_seconds")
+          .help("Latency between enqueuing an event and committing it to the database.")
+          .register();
+  public static final Counter rejected =
+      Counter.build()
+          .namespace("marquez")
+          .name("ingestion_rejected_total")
+          .help("Total number of events rejected because the ingestion queue is full.")
+          .register();
+  public static final Counter failed =
+      Counter.build()
+          .namespace("marquez")
+          .name("ingestion_failed_total")
+          .help("Total number of enqueued events that could not be written.")
+          .register();
+  public static final Gauge projectorLag =
+      Gauge.build()
+          .namespace("marquez")
+          .name("ingestion_projector_lag_seconds")
+          .help("Age of the oldest committed raw event not yet projected to the model.")
+          .register();
+  public static final Gauge changeFeedHeldBack =
+      Gauge.build()
+          .namespace("marquez")
+          .name("change_feed_held_back_seconds")
+          .help("Age of the oldest committed change held back by a transaction in progress.")
+          .register();
+}
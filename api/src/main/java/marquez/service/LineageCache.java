@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import jakarta.annotation.Nullable;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import marquez.common.models.DatasetId;
+import marquez.common.models.DatasetVersionId;
+import marquez.common.models.JobId;
+import marquez.common.models.JobName;
+import marquez.common.models.JobVersionId;
+import marquez.common.models.NamespaceName;
+import marquez.db.JobVersionDao.IoType;
+import marquez.service.LineageConfig.CacheConfig;
+import marquez.service.models.Lineage;
+import marquez.service.models.LineageDirection;
+import marquez.service.models.Node;
+import marquez.service.models.NodeId;
+
+/**
+ * A bounded cache, with a time-to-live, of the lineage graphs served by {@link LineageService}.
+ * Graphs are invalidated from the {@link JobInputUpdate} and {@link JobOutputUpdate} notifications
+ * of lineage events: when the version of a job, or the datasets it reads or writes, changed since
+ * the last notification for the job, a graph containing the job, or any of these datasets, is
+ * invalidated. Changes made outside of lineage events, such as jobs deleted through the API, and
+ * the runs of jobs, are picked up when graphs expire.
+ */
+public class LineageCache implements RunTransitionListener {
+  private final Cache<Key, Entry> cache;
+  @Nullable private final LineageGraphIndex graphIndex;
+
+  /* The keys of the cached graphs containing each job and dataset. */
+  private final Map<NodeId, Set<Key>> keysByNodeId = new ConcurrentHashMap<>();
+
+  /* The version and the datasets last notified for each job, per type of IO. */
+  private final Cache<JobIoKey, JobIo> notifiedJobIo;
+
+  /*
+   * The loads in progress. A graph loaded while a job or dataset it contains is invalidated is not
+   * cached, as it may have been read before the change invalidating it was committed.
+   */
+  private final Set<Load> loads = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a cache of the lineage graphs served from the database or, if provided, the lineage
+   * graph index. The index is updated asynchronously from lineage events; graphs containing jobs
+   * not yet updated in the index are not cached. The index must be notified before the cache.
+   */
+  public LineageCache(
+      @NonNull final CacheConfig config, @Nullable final LineageGraphIndex graphIndex) {
+    this.graphIndex = graphIndex;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfterWrite(Duration.ofSeconds(config.getTtlSecs()))
+            .removalListener(this::unindex)
+            .build();
+    this.notifiedJobIo = CacheBuilder.newBuilder().maximumSize(config.getMaximumSize()).build();
+  }
+
+  private record Key(
+      NodeId nodeId, int depth, LineageDirection direction, @Nullable Integer maxNodes) {}
+
+  /** A cached graph, with the ids of the jobs and datasets it contains. */
+  private record Entry(Lineage lineage, Set<NodeId> nodeIds) {}
+
+  private record JobIoKey(JobId jobId, IoType ioType) {}
+
+  /** The version of a job, and the datasets it reads or writes, as last notified. */
+  private record JobIo(@Nullable JobVersionId jobVersionId, Set<DatasetId> datasetIds) {}
+
+  /** A load in progress, with the ids of the jobs and datasets invalidated since it started. */
+  private static final class Load {
+    private final Set<NodeId> invalidated = ConcurrentHashMap.newKeySet();
+  }
+
+  /** Returns the cached lineage of the node, or loads it. */
+  public Lineage get(
+      @NonNull NodeId nodeId,
+      int depth,
+      @NonNull LineageDirection direction,
+      @Nullable Integer maxNodes,
+      @NonNull Supplier<Lineage> loader) {
+    final Key key = new Key(nodeId, depth, direction, maxNodes);
+    final Entry cached = cache.getIfPresent(key);
+    if (cached != null) {
+      LineageMetrics.cacheHits.inc();
+      return cached.lineage();
+    }
+    LineageMetrics.cacheMisses.inc();
+    final Load load = new Load();
+    loads.add(load);
+    try {
+      if (graphIndex != null) {
+        // The graph may be loaded from an index not yet reflecting the IO of these jobs.
+        graphIndex.unappliedUpdates().forEach(jobId -> load.invalidated.addAll(notified(jobId)));
+      }
+      final Lineage lineage = loader.get();
+      final Set<NodeId> nodeIds =
+          lineage.getGraph().stream().map(Node::getId).collect(Collectors.toUnmodifiableSet());
+      if (Collections.disjoint(load.invalidated, nodeIds)) {
+        final Entry entry = new Entry(lineage, nodeIds);
+        cache.put(key, entry);
+        nodeIds.forEach(id -> keysByNodeId.compute(id, (k, keys) -> withKey(keys, key)));
+        // An invalidation between the check and the indexing may have missed the graph.
+        if (!Collections.disjoint(load.invalidated, nodeIds)) {
+          cache.invalidate(key);
+        }
+      }
+      LineageMetrics.cacheSize.set(cache.size());
+      return lineage;
+    } finally {
+      loads.remove(load);
+    }
+  }
+
+  @Override
+  public void notify(@NonNull final JobInputUpdate jobInputUpdate) {
+    invalidate(
+        IoType.INPUT,
+        jobInputUpdate.getNamespaceName(),
+        jobInputUpdate.getJobName(),
+        jobInputUpdate.getJobVersionId(),
+        jobInputUpdate.getInputs().stream().map(RunInput::getDatasetVersionId));
+  }
+
+  @Override
+  public void notify(@NonNull final JobOutputUpdate jobOutputUpdate) {
+    invalidate(
+        IoType.OUTPUT,
+        jobOutputUpdate.getNamespaceName(),
+        jobOutputUpdate.getJobName(),
+        jobOutputUpdate.getJobVersionId(),
+        jobOutputUpdate.getOutputs().stream().map(RunOutput::getDatasetVersionId));
+  }
+
+  @Override
+  public void notify(@NonNull final RunTransition runTransition) {
+    // Run transitions do not change the datasets read or written by jobs.
+  }
+
+  /**
+   * Invalidates the graphs containing the job or any of the datasets, unless the version of the
+   * job and the datasets are those last notified for the job. The events of a run not yet complete
+   * are notified without the version of the job, which is then not compared.
+   */
+  private void invalidate(
+      IoType ioType,
+      NamespaceName namespaceName,
+      JobName jobName,
+      @Nullable JobVersionId jobVersionId,
+      Stream<DatasetVersionId> datasetVersionIds) {
+    final JobId jobId = new JobId(namespaceName, jobName);
+    final JobIo jobIo =
+        new JobIo(
+            jobVersionId,
+            datasetVersionIds
+                .map(versionId -> new DatasetId(versionId.getNamespace(), versionId.getName()))
+                .collect(Collectors.toUnmodifiableSet()));
+    final JobIo[] previous = new JobIo[1];
+    notifiedJobIo
+        .asMap()
+        .compute(
+            new JobIoKey(jobId, ioType),
+            (key, notified) -> {
+              previous[0] = notified;
+              // The version of the job is unknown until the run completes; the last one is kept.
+              return notified != null && jobVersionId == null
+                  ? new JobIo(notified.jobVersionId(), jobIo.datasetIds())
+                  : jobIo;
+            });
+    final JobIo notified = previous[0];
+    if (notified != null && isUnchanged(notified, jobIo)) {
+      return;
+    }
+    final Set<NodeId> nodeIds = new HashSet<>();
+    nodeIds.add(NodeId.of(jobId));
+    jobIo.datasetIds().stream().map(NodeId::of).forEach(nodeIds::add);
+    // The datasets the job no longer reads or writes are also invalidated.
+    if (notified != null) {
+      notified.datasetIds().stream().map(NodeId::of).forEach(nodeIds::add);
+    }
+    loads.forEach(load -> load.invalidated.addAll(nodeIds));
+    for (final NodeId nodeId : nodeIds) {
+      final Set<Key> keys = keysByNodeId.get(nodeId);
+      if (keys != null) {
+        keys.forEach(this::invalidate);
+      }
+    }
+    LineageMetrics.cacheSize.set(cache.size());
+  }
+
+  /**
+   * Returns whether the job reads or writes the same datasets as last notified, in the same
+   * version; an unknown version is the same as any other.
+   */
+  private static boolean isUnchanged(JobIo notified, JobIo jobIo) {
+    return notified.datasetIds().equals(jobIo.datasetIds())
+        && (notified.jobVersionId() == null
+            || jobIo.jobVersionId() == null
+            || notified.jobVersionId().equals(jobIo.jobVersionId()));
+  }
+
+  private void invalidate(Key key) {
+    if (cache.asMap().remove(key) != null) {
+      LineageMetrics.cacheInvalidations.inc();
+    }
+  }
+
+  /**
+   * Removes the key of a graph no longer cached from the keys of its jobs and datasets, unless the
+   * graph cached again under the key contains them.
+   */
+  private void unindex(RemovalNotification<Key, Entry> removal) {
+    final Key key = removal.getKey();
+    final Entry removed = removal.getValue();
+    if (key == null || removed == null) {
+      return;
+    }
+    for (final NodeId nodeId : removed.nodeIds()) {
+      keysByNodeId.computeIfPresent(
+          nodeId,
+          (id, keys) -> {
+            final Entry current = cache.asMap().get(key);
+            if (current == null || !current.nodeIds().contains(id)) {
+              keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+          });
+    }
+  }
+
+  /** Returns the ids of the job, and of the datasets last notified for the job. */
+  private Set<NodeId> notified(JobId jobId) {
+    final Set<NodeId> nodeIds = new HashSet<>();
+    nodeIds.add(NodeId.of(jobId));
+    for (final IoType ioType : IoType.values()) {
+      final JobIo notified = notifiedJobIo.getIfPresent(new JobIoKey(jobId, ioType));
+      if (notified != null) {
+        notified.datasetIds().stream().map(NodeId::of).forEach(nodeIds::add);
+      }
+    }
+    return nodeIds;
+  }
+
+  private static Set<Key> withKey(@Nullable Set<Key> keys, Key key) {
+    final Set<Key> withKey = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+    withKey.add(key);
+    return withKey;
+  }
+}
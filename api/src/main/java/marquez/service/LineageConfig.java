@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+/** Configuration for the lineage graph served by {@code GET /api/v1/lineage}. */
+public class LineageConfig {
+  @Getter @JsonProperty private IndexConfig index = new IndexConfig();
+  @Getter @JsonProperty private CacheConfig cache = new CacheConfig();
+
+  /**
+   * Configuration for the in-memory index of the lineage graph; see {@link LineageGraphIndex}.
+   * When enabled, lineage is traversed in memory, and only the nodes reached are read from the
+   * database.
+   */
+  public static class IndexConfig {
+    public static final boolean ENABLED = false;
+    public static final long RELOAD_INTERVAL_SECS = 600;
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /**
+     * The number of seconds between reloads of the index from the database, picking up changes to
+     * jobs made outside of lineage events, such as jobs deleted through the API.
+     */
+    @Getter @JsonProperty private long reloadIntervalSecs = RELOAD_INTERVAL_SECS;
+  }
+
+  /**
+   * Configuration for the {@link LineageCache} of lineage graphs. When enabled, a graph is served
+   * from the cache until a lineage event changes the inputs or outputs of a job in the graph, or
+   * until it expires; the latest runs of the jobs in a cached graph are only refreshed on expiry.
+   */
+  public static class CacheConfig {
+    public static final boolean ENABLED = false;
+    public static final long MAXIMUM_SIZE = 1000;
+    public static final long TTL_SECS = 60;
+
+    @Getter @JsonProperty private boolean enabled = ENABLED;
+
+    /** The maximum number of lineage graphs held in the cache. */
+    @Getter @JsonProperty private long maximumSize = MAXIMUM_SIZE;
+
+    /** The number of seconds a lineage graph is held in the cache after being written. */
+    @Getter @JsonProperty private long ttlSecs = TTL_SECS;
+  }
+}
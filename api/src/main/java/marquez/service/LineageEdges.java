@@ -0,0 +1,31 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import jakarta.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import marquez.db.JobVersionDao.IoType;
+import marquez.db.LineageDao.JobIoRow;
+
+/**
+ * The datasets read or written by the current version of each job, from which lineage is traversed
+ * one level at a time; read from {@code lineage_edges}, or from the {@link LineageGraphIndex}.
+ */
+interface LineageEdges {
+  /** Returns the datasets read or written by the job, and by the jobs symlinked to it. */
+  List<JobIoRow> symlinkedJobIo(UUID jobUuid);
+
+  /** Returns the datasets read or written by the jobs. */
+  List<JobIoRow> jobIo(Set<UUID> jobUuids);
+
+  /**
+   * Returns the jobs reading ({@code INPUT}) or writing ({@code OUTPUT}) the datasets or, when
+   * {@code ioType} is {@code null}, doing either.
+   */
+  List<JobIoRow> datasetIo(Set<UUID> datasetUuids, @Nullable IoType ioType);
+}
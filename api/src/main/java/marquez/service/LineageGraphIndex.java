@@ -0,0 +1,526 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import static java.util.stream.Collectors.groupingBy;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import marquez.common.models.JobId;
+import marquez.db.JobDao;
+import marquez.db.JobVersionDao.IoType;
+import marquez.db.LineageDao;
+import marquez.db.LineageDao.JobIoRow;
+import marquez.db.models.JobRow;
+import marquez.service.LineageConfig.IndexConfig;
+
+/**
+ * An in-memory index of the lineage graph formed by the current versions of jobs and the datasets
+ * they read and write, as recorded in {@code lineage_edges}. Jobs and datasets are numbered by
+ * ordinal, and adjacency is held in arrays of ordinals; lineage is traversed in memory, in place of
+ * the recursive query of {@link LineageDao#getLineage(Set, int)}.
+ *
+ * <p>The index is loaded on start, then updated from the {@link JobInputUpdate} and {@link
+ * JobOutputUpdate} notifications of lineage events. It is also reloaded periodically, picking up
+ * changes to jobs made outside of lineage events. Loads and updates are applied in order, on a
+ * single thread; until the index is first loaded, {@link #isLoaded()} returns {@code false}.
+ */
+@Slf4j
+public class LineageGraphIndex implements LineageEdges, RunTransitionListener, Managed {
+  private static final long STOP_TIMEOUT_SECONDS = 30;
+
+  private final LineageDao lineageDao;
+  private final JobDao jobDao;
+  private final IndexConfig config;
+  private final ScheduledExecutorService indexer;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Set<JobId> pendingUpdates = ConcurrentHashMap.newKeySet();
+
+  /* The number of updates scheduled and not yet applied, per job. */
+  private final Map<JobId, Integer> unappliedUpdates = new ConcurrentHashMap<>();
+
+  /* The indexed graph, guarded by the lock; null until first loaded. */
+  @Nullable private Graph graph;
+
+  public LineageGraphIndex(
+      @NonNull final LineageDao lineageDao,
+      @NonNull final JobDao jobDao,
+      @NonNull final IndexConfig config) {
+    this.lineageDao = lineageDao;
+    this.jobDao = jobDao;
+    this.config = config;
+    this.indexer =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("lineage-graph-indexer")
+                .setDaemon(true)
+                .build());
+  }
+
+  @Override
+  public void start() {
+    indexer.scheduleWithFixedDelay(
+        this::load, 0, config.getReloadIntervalSecs(), TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    log.info("Stopping lineage graph indexer...");
+    indexer.shutdown();
+    if (!indexer.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      log.warn("Lineage graph indexer did not stop within '{}' secs.", STOP_TIMEOUT_SECONDS);
+    }
+  }
+
+  /** Returns {@code true} if the index has been loaded, and may be traversed. */
+  public boolean isLoaded() {
+    lock.readLock().lock();
+    try {
+      return graph != null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the jobs with updates scheduled from notifications and not yet applied; the index may
+   * not yet reflect the lineage events notified for these jobs.
+   */
+  public Set<JobId> unappliedUpdates() {
+    return Set.copyOf(unappliedUpdates.keySet());
+  }
+
+  /**
+   * Returns the jobs within {@code depth} of the job, as {@link LineageDao#getLineage(Set, int)}
+   * does: starting from the job and the jobs symlinked to it, the jobs reading or writing a dataset
+   * read or written by a job already reached. Jobs reading or writing no datasets are not indexed;
+   * the lineage of such a job is empty.
+   */
+  public List<JobIo> lineage(@NonNull final UUID jobUuid, final int depth) {
+    return read(graph -> graph.lineage(jobUuid, depth));
+  }
+
+  @Override
+  public List<JobIoRow> symlinkedJobIo(@NonNull final UUID jobUuid) {
+    return read(graph -> graph.symlinkedJobIo(jobUuid));
+  }
+
+  @Override
+  public List<JobIoRow> jobIo(@NonNull final Set<UUID> jobUuids) {
+    return read(graph -> graph.jobIo(jobUuids));
+  }
+
+  @Override
+  public List<JobIoRow> datasetIo(
+      @NonNull final Set<UUID> datasetUuids, @Nullable final IoType ioType) {
+    return read(graph -> graph.datasetIo(datasetUuids, ioType));
+  }
+
+  private <T> T read(final Function<Graph, T> reader) {
+    lock.readLock().lock();
+    try {
+      if (graph == null) {
+        throw new IllegalStateException("Lineage graph index not loaded");
+      }
+      return reader.apply(graph);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Loads the index from the database, replacing the index loaded previously. */
+  @VisibleForTesting
+  void load() {
+    try {
+      final long started = System.currentTimeMillis();
+      final Graph loaded = Graph.of(lineageDao.getCurrentJobIo());
+      lock.writeLock().lock();
+      try {
+        graph = loaded;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      log.info(
+          "Loaded lineage graph index of '{}' jobs and datasets in '{}' ms.",
+          loaded.size(),
+          System.currentTimeMillis() - started);
+    } catch (Exception e) {
+      log.error(
+          "Failed to load lineage graph index, retrying in '{}' secs.",
+          config.getReloadIntervalSecs(),
+          e);
+    }
+  }
+
+  @Override
+  public void notify(@NonNull final JobInputUpdate jobInputUpdate) {
+    scheduleUpdate(new JobId(jobInputUpdate.getNamespaceName(), jobInputUpdate.getJobName()));
+  }
+
+  @Override
+  public void notify(@NonNull final JobOutputUpdate jobOutputUpdate) {
+    scheduleUpdate(new JobId(jobOutputUpdate.getNamespaceName(), jobOutputUpdate.getJobName()));
+  }
+
+  @Override
+  public void notify(@NonNull final RunTransition runTransition) {
+    // Run transitions do not change the datasets read or written by jobs.
+  }
+
+  /**
+   * Schedules an update of the job in the index; notifications for a job already pending an update
+   * are coalesced into that update.
+   */
+  private void scheduleUpdate(final JobId jobId) {
+    if (pendingUpdates.add(jobId) && !indexer.isShutdown()) {
+      unappliedUpdates.merge(jobId, 1, Integer::sum);
+      indexer.execute(
+          () -> {
+            try {
+              update(jobId);
+            } finally {
+              unappliedUpdates.computeIfPresent(jobId, (id, count) -> count > 1 ? count - 1 : null);
+            }
+          });
+    }
+  }
+
+  /** Updates the job in the index from the database. */
+  @VisibleForTesting
+  void update(@NonNull final JobId jobId) {
+    pendingUpdates.remove(jobId);
+    try {
+      jobDao
+          .findJobByNameAsRow(jobId.getNamespace().getValue(), jobId.getName().getValue())
+          .map(JobRow::getUuid)
+          .ifPresent(
+              jobUuid -> {
+                final List<JobIoRow> rows = lineageDao.getCurrentJobIo(jobUuid);
+                lock.writeLock().lock();
+                try {
+                  if (graph != null) {
+                    graph.update(jobUuid, rows);
+                  }
+                } finally {
+                  lock.writeLock().unlock();
+                }
+              });
+    } catch (Exception e) {
+      log.error("Failed to update job '{}' in lineage graph index.", jobId, e);
+    }
+  }
+
+  /**
+   * A job reached in the index, with the job it is symlinked to, if any, and the datasets read and
+   * written by its current version.
+   */
+  public record JobIo(
+      UUID jobUuid, @Nullable UUID symlinkTargetUuid, Set<UUID> inputs, Set<UUID> outputs) {}
+
+  /**
+   * The adjacency of jobs and datasets, numbered by ordinal in order of first appearance. Ordinals
+   * are not reused; jobs and datasets no longer current are dropped on the next load. Not thread
+   * safe.
+   */
+  static final class Graph {
+    private static final int[] NONE = new int[0];
+    private static final int NO_TARGET = -1;
+
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final List<UUID> uuids = new ArrayList<>();
+    /* The datasets read by each job. */
+    private final List<int[]> inputs = new ArrayList<>();
+    /* The datasets written by each job. */
+    private final List<int[]> outputs = new ArrayList<>();
+    /* The jobs reading or writing each dataset. */
+    private final List<int[]> jobs = new ArrayList<>();
+    /* The jobs symlinked to each job. */
+    private final List<int[]> symlinks = new ArrayList<>();
+    /* The job each job is symlinked to, or NO_TARGET. */
+    private int[] symlinkTargets = NONE;
+
+    /** Returns the graph of the provided rows. */
+    static Graph of(@NonNull final List<JobIoRow> rows) {
+      final Graph graph = new Graph();
+      final List<Integer> indexed = new ArrayList<>();
+      for (final List<JobIoRow> jobRows :
+          rows.stream().collect(groupingBy(JobIoRow::jobUuid)).values()) {
+        indexed.add(graph.setJobIo(jobRows));
+      }
+
+      // Datasets are shared by many jobs; size their adjacency once, rather than per job.
+      final int[] degrees = new int[graph.size()];
+      for (final int job : indexed) {
+        for (final int dataset : graph.datasets(job)) {
+          degrees[dataset]++;
+        }
+      }
+      for (int dataset = 0; dataset < degrees.length; dataset++) {
+        if (degrees[dataset] > 0) {
+          graph.jobs.set(dataset, new int[degrees[dataset]]);
+        }
+      }
+      Arrays.fill(degrees, 0);
+      for (final int job : indexed) {
+        for (final int dataset : graph.datasets(job)) {
+          graph.jobs.get(dataset)[degrees[dataset]++] = job;
+        }
+      }
+      return graph;
+    }
+
+    /** Returns the number of jobs and datasets indexed. */
+    int size() {
+      return uuids.size();
+    }
+
+    /** Replaces the datasets read or written by the job, and by the jobs symlinked to it. */
+    void update(@NonNull final UUID jobUuid, @NonNull final List<JobIoRow> rows) {
+      final int job = ordinal(jobUuid);
+      for (final int symlink : symlinks.get(job)) {
+        removeJobIo(symlink);
+      }
+      removeJobIo(job);
+      final Map<UUID, List<JobIoRow>> rowsByJob =
+          rows.stream().collect(groupingBy(JobIoRow::jobUuid));
+      for (final UUID updatedUuid : rowsByJob.keySet()) {
+        removeJobIo(ordinal(updatedUuid));
+      }
+      for (final List<JobIoRow> jobRows : rowsByJob.values()) {
+        final int updated = setJobIo(jobRows);
+        for (final int dataset : datasets(updated)) {
+          jobs.set(dataset, with(jobs.get(dataset), updated));
+        }
+      }
+    }
+
+    /** See {@link LineageGraphIndex#lineage(UUID, int)}. */
+    List<JobIo> lineage(@NonNull final UUID jobUuid, final int depth) {
+      final Integer start = ordinals.get(jobUuid);
+      if (start == null) {
+        return List.of();
+      }
+      final BitSet reached = new BitSet(size());
+      final List<Integer> lineage = new ArrayList<>();
+      int[] frontier =
+          IntStream.concat(IntStream.of(start), Arrays.stream(symlinks.get(start)))
+              .filter(job -> datasets(job).length > 0)
+              .toArray();
+      frontier = reach(frontier, reached, lineage);
+      for (int level = 0; level < depth && frontier.length > 0; level++) {
+        final IntStream.Builder next = IntStream.builder();
+        for (final int job : frontier) {
+          for (final int dataset : datasets(job)) {
+            for (final int other : jobs.get(dataset)) {
+              next.add(other);
+            }
+          }
+        }
+        frontier = reach(next.build().toArray(), reached, lineage);
+      }
+      return lineage.stream().map(this::toJobIo).toList();
+    }
+
+    /** See {@link LineageGraphIndex#symlinkedJobIo(UUID)}. */
+    List<JobIoRow> symlinkedJobIo(@NonNull final UUID jobUuid) {
+      final List<JobIoRow> rows = new ArrayList<>();
+      final Integer job = ordinals.get(jobUuid);
+      if (job != null) {
+        addJobIo(rows, job);
+        for (final int symlink : symlinks.get(job)) {
+          addJobIo(rows, symlink);
+        }
+      }
+      return rows;
+    }
+
+    /** See {@link LineageGraphIndex#jobIo(Set)}. */
+    List<JobIoRow> jobIo(@NonNull final Set<UUID> jobUuids) {
+      final List<JobIoRow> rows = new ArrayList<>();
+      for (final UUID jobUuid : jobUuids) {
+        final Integer job = ordinals.get(jobUuid);
+        if (job != null) {
+          addJobIo(rows, job);
+        }
+      }
+      return rows;
+    }
+
+    /** See {@link LineageGraphIndex#datasetIo(Set, IoType)}. */
+    List<JobIoRow> datasetIo(@NonNull final Set<UUID> datasetUuids, @Nullable final IoType ioType) {
+      final List<JobIoRow> rows = new ArrayList<>();
+      for (final UUID datasetUuid : datasetUuids) {
+        final Integer dataset = ordinals.get(datasetUuid);
+        if (dataset == null) {
+          continue;
+        }
+        for (final int job : jobs.get(dataset)) {
+          if (ioType != IoType.OUTPUT && contains(inputs.get(job), dataset)) {
+            rows.add(toJobIoRow(job, dataset, IoType.INPUT));
+          }
+          if (ioType != IoType.INPUT && contains(outputs.get(job), dataset)) {
+            rows.add(toJobIoRow(job, dataset, IoType.OUTPUT));
+          }
+        }
+      }
+      return rows;
+    }
+
+    private void addJobIo(final List<JobIoRow> rows, final int job) {
+      for (final int dataset : inputs.get(job)) {
+        rows.add(toJobIoRow(job, dataset, IoType.INPUT));
+      }
+      for (final int dataset : outputs.get(job)) {
+        rows.add(toJobIoRow(job, dataset, IoType.OUTPUT));
+      }
+    }
+
+    private JobIoRow toJobIoRow(final int job, final int dataset, final IoType ioType) {
+      final int target = symlinkTargets[job];
+      return new JobIoRow(
+          uuids.get(job),
+          (target == NO_TARGET) ? null : uuids.get(target),
+          uuids.get(dataset),
+          ioType.name());
+    }
+
+    /** Marks the jobs not already reached as reached, and returns them. */
+    private static int[] reach(int[] jobs, BitSet reached, List<Integer> lineage) {
+      final IntStream.Builder newlyReached = IntStream.builder();
+      for (final int job : jobs) {
+        if (!reached.get(job)) {
+          reached.set(job);
+          lineage.add(job);
+          newlyReached.add(job);
+        }
+      }
+      return newlyReached.build().toArray();
+    }
+
+    private JobIo toJobIo(final int job) {
+      final int target = symlinkTargets[job];
+      return new JobIo(
+          uuids.get(job),
+          (target == NO_TARGET) ? null : uuids.get(target),
+          toUuids(inputs.get(job)),
+          toUuids(outputs.get(job)));
+    }
+
+    private Set<UUID> toUuids(final int[] ordinals) {
+      final Set<UUID> toUuids = new LinkedHashSet<>(ordinals.length);
+      for (final int ordinal : ordinals) {
+        toUuids.add(uuids.get(ordinal));
+      }
+      return toUuids;
+    }
+
+    /** Sets the datasets read or written by the job of the rows, and returns its ordinal. */
+    private int setJobIo(final List<JobIoRow> rows) {
+      final JobIoRow first = rows.get(0);
+      final int job = ordinal(first.jobUuid());
+      inputs.set(job, datasets(rows, IoType.INPUT));
+      outputs.set(job, datasets(rows, IoType.OUTPUT));
+      if (first.jobSymlinkTargetUuid() != null) {
+        final int target = ordinal(first.jobSymlinkTargetUuid());
+        symlinkTargets[job] = target;
+        symlinks.set(target, with(symlinks.get(target), job));
+      }
+      return job;
+    }
+
+    /** Removes the datasets read or written by the job. */
+    private void removeJobIo(final int job) {
+      for (final int dataset : datasets(job)) {
+        jobs.set(dataset, without(jobs.get(dataset), job));
+      }
+      inputs.set(job, NONE);
+      outputs.set(job, NONE);
+      final int target = symlinkTargets[job];
+      if (target != NO_TARGET) {
+        symlinks.set(target, without(symlinks.get(target), job));
+        symlinkTargets[job] = NO_TARGET;
+      }
+    }
+
+    private int[] datasets(final List<JobIoRow> rows, final IoType ioType) {
+      return rows.stream()
+          .filter(row -> ioType.name().equals(row.ioType()))
+          .mapToInt(row -> ordinal(row.datasetUuid()))
+          .distinct()
+          .toArray();
+    }
+
+    /** Returns the datasets read or written by the job. */
+    private int[] datasets(final int job) {
+      return IntStream.concat(Arrays.stream(inputs.get(job)), Arrays.stream(outputs.get(job)))
+          .distinct()
+          .toArray();
+    }
+
+    private int ordinal(final UUID uuid) {
+      final Integer ordinal = ordinals.get(uuid);
+      if (ordinal != null) {
+        return ordinal;
+      }
+      final int added = uuids.size();
+      ordinals.put(uuid, added);
+      uuids.add(uuid);
+      inputs.add(NONE);
+      outputs.add(NONE);
+      jobs.add(NONE);
+      symlinks.add(NONE);
+      if (added == symlinkTargets.length) {
+        final int length = symlinkTargets.length;
+        symlinkTargets = Arrays.copyOf(symlinkTargets, Math.max(16, length * 2));
+        Arrays.fill(symlinkTargets, length, symlinkTargets.length, NO_TARGET);
+      }
+      return added;
+    }
+
+    private static boolean contains(final int[] ordinals, final int ordinal) {
+      for (final int existing : ordinals) {
+        if (existing == ordinal) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static int[] with(final int[] ordinals, final int ordinal) {
+      if (contains(ordinals, ordinal)) {
+        return ordinals;
+      }
+      final int[] with = Arrays.copyOf(ordinals, ordinals.length + 1);
+      with[ordinals.length] = ordinal;
+      return with;
+    }
+
+    private static int[] without(final int[] ordinals, final int ordinal) {
+      return Arrays.stream(ordinals).filter(existing -> existing != ordinal).toArray();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+
+public class LineageMetrics {
+  public static final Counter cacheHits =
+      Counter.build()
+          .namespace("marquez")
+          .name("lineage_cache_hits_total")
+          .help("Total number of lineage graphs served from the lineage cache.")
+          .register();
+  public static final Counter cacheMisses =
+      Counter.build()
+          .namespace("marquez")
+          .name("lineage_cache_misses_total")
+          .help("Total number of lineage graphs not found in the lineage cache.")
+          .register();
+  public static final Counter cacheInvalidations =
+      Counter.build()
+          .namespace("marquez")
+          .name("lineage_cache_invalidations_total")
+          .help("Total number of lineage graphs invalidated by lineage events.")
+          .register();
+  public static final Gauge cacheSize =
+      Gauge.build()
+          .namespace("marquez")
+          .name("lineage_cache_size")
+          .help("Total number of lineage graphs held in the lineage cache.")
+          .register();
+}
@@ -12,6 +12,7 @@ import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotNull;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,8 +33,10 @@ import marquez.common.models.DatasetId;
 import marquez.common.models.JobId;
 import marquez.common.models.RunId;
 import marquez.db.JobDao;
+import marquez.db.JobVersionDao.IoType;
 import marquez.db.LineageDao;
 import marquez.db.LineageDao.DatasetSummary;
+import marquez.db.LineageDao.JobIoRow;
 import marquez.db.LineageDao.JobSummary;
 import marquez.db.LineageDao.RunSummary;
 import marquez.db.RunDao;
@@ -46,6 +49,7 @@ import marquez.service.models.Edge;
 import marquez.service.models.Graph;
 import marquez.service.models.JobData;
 import marquez.service.models.Lineage;
+import marquez.service.models.LineageDirection;
 import marquez.service.models.Node;
 import marquez.service.models.NodeId;
 import marquez.service.models.NodeType;
@@ -62,14 +66,76 @@ public class LineageService extends DelegatingLineageDao {
 
   private final RunDao runDao;
 
+  @Nullable private final LineageGraphIndex graphIndex;
+
+  @Nullable private final LineageCache cache;
+
+  /* The edges of the current job versions, read from lineage_edges. */
+  private final LineageEdges lineageEdges;
+
   public LineageService(LineageDao delegate, JobDao jobDao, RunDao runDao) {
+    this(delegate, jobDao, runDao, null);
+  }
+
+  public LineageService(
+      LineageDao delegate,
+      JobDao jobDao,
+      RunDao runDao,
+      @Nullable LineageGraphIndex graphIndex) {
+    this(delegate, jobDao, runDao, graphIndex, null);
+  }
+
+  public LineageService(
+      LineageDao delegate,
+      JobDao jobDao,
+      RunDao runDao,
+      @Nullable LineageGraphIndex graphIndex,
+      @Nullable LineageCache cache) {
     super(delegate);
     this.jobDao = jobDao;
     this.runDao = runDao;
+    this.graphIndex = graphIndex;
+    this.cache = cache;
+    this.lineageEdges =
+        new LineageEdges() {
+          @Override
+          public List<JobIoRow> symlinkedJobIo(UUID jobUuid) {
+            return getCurrentJobIo(jobUuid);
+          }
+
+          @Override
+          public List<JobIoRow> jobIo(Set<UUID> jobUuids) {
+            return getCurrentJobIo(jobUuids);
+          }
+
+          @Override
+          public List<JobIoRow> datasetIo(Set<UUID> datasetUuids, @Nullable IoType ioType) {
+            return getCurrentDatasetIo(datasetUuids, ioType);
+          }
+        };
   }
 
-  // TODO make input parameters easily extendable if adding more options like 'withJobFacets'
   public Lineage lineage(NodeId nodeId, int depth) {
+    return lineage(nodeId, depth, LineageDirection.BOTH, null);
+  }
+
+  /**
+   * Returns the lineage of the node within {@code depth}, traversed in the provided direction.
+   * When {@code maxNodes} is provided, the traversal stops before the jobs and datasets reached
+   * exceed {@code maxNodes}, and the lineage returned is marked as truncated.
+   */
+  // TODO make input parameters easily extendable if adding more options like 'withJobFacets'
+  public Lineage lineage(
+      NodeId nodeId, int depth, @NonNull LineageDirection direction, @Nullable Integer maxNodes) {
+    if (cache == null) {
+      return loadLineage(nodeId, depth, direction, maxNodes);
+    }
+    return cache.get(
+        nodeId, depth, direction, maxNodes, () -> loadLineage(nodeId, depth, direction, maxNodes));
+  }
+
+  private Lineage loadLineage(
+      NodeId nodeId, int depth, @NonNull LineageDirection direction, @Nullable Integer maxNodes) {
     log.debug("Attempting to get lineage for node '{}' with depth '{}'", nodeId.getValue(), depth);
     Optional<UUID> optionalUUID = getJobUuid(nodeId);
     if (optionalUUID.isEmpty()) {
@@ -80,7 +146,19 @@ public class LineageService extends DelegatingLineageDao {
     }
     UUID job = optionalUUID.get();
     log.debug("Attempting to get lineage for job '{}'", job);
-    Set<JobData> jobData = getLineage(Collections.singleton(job), depth);
+    final Set<JobData> jobData;
+    final boolean truncated;
+    if (direction == LineageDirection.BOTH && maxNodes == null) {
+      jobData =
+          (graphIndex != null && graphIndex.isLoaded())
+              ? getIndexedLineage(job, depth)
+              : getLineage(Collections.singleton(job), depth);
+      truncated = false;
+    } else {
+      final BoundedLineage lineage = getBoundedLineage(nodeId, job, depth, direction, maxNodes);
+      jobData = lineage.jobData();
+      truncated = lineage.truncated();
+    }
 
     // Ensure job data is not empty, an empty set cannot be passed to LineageDao.getCurrentRuns() or
     // LineageDao.getCurrentRunsWithFacets().
@@ -94,9 +172,19 @@ public class LineageService extends DelegatingLineageDao {
       return toLineageWithOrphanDataset(nodeId.asDatasetId());
     }
 
-    for (JobData j : jobData) {
-      Optional<Run> run = runDao.findRunByUuid(j.getCurrentRunUuid());
-      run.ifPresent(j::setLatestRun);
+    // Load the latest run of every job at once, rather than one query per job.
+    final Set<UUID> runUuids =
+        jobData.stream()
+            .map(JobData::getCurrentRunUuid)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    if (!runUuids.isEmpty()) {
+      final Map<UUID, Run> runs =
+          runDao.findRunsByUuids(runUuids).stream()
+              .collect(Collectors.toMap(run -> run.getId().getValue(), Functions.identity()));
+      for (JobData j : jobData) {
+        Optional.ofNullable(j.getCurrentRunUuid()).map(runs::get).ifPresent(j::setLatestRun);
+      }
     }
 
     Set<UUID> datasetIds =
@@ -121,7 +209,142 @@ public class LineageService extends DelegatingLineageDao {
         return toLineageWithOrphanDataset(nodeId.asDatasetId());
       }
     }
-    return toLineage(jobData, datasets);
+    return toLineage(jobData, datasets, truncated);
+  }
+
+  /**
+   * Returns the jobs within {@code depth} of the job, as {@link LineageDao#getLineage(Set, int)}
+   * does, traversing the lineage graph index in memory; only the jobs reached are read from the
+   * database.
+   */
+  private Set<JobData> getIndexedLineage(@NonNull UUID job, int depth) {
+    // The job is returned even when its current version reads or writes no datasets.
+    final Map<UUID, Set<UUID>> inputs = new HashMap<>();
+    final Map<UUID, Set<UUID>> outputs = new HashMap<>();
+    inputs.put(job, new HashSet<>());
+    outputs.put(job, new HashSet<>());
+    for (LineageGraphIndex.JobIo jobIo : graphIndex.lineage(job, depth)) {
+      // A job symlinked to another is returned as the other job, which is the one in jobs_view.
+      Stream.of(jobIo.jobUuid(), jobIo.symlinkTargetUuid())
+          .filter(Objects::nonNull)
+          .forEach(
+              uuid -> {
+                inputs.computeIfAbsent(uuid, k -> new HashSet<>()).addAll(jobIo.inputs());
+                outputs.computeIfAbsent(uuid, k -> new HashSet<>()).addAll(jobIo.outputs());
+              });
+    }
+    return toJobData(inputs, outputs);
+  }
+
+  private record BoundedLineage(Set<JobData> jobData, boolean truncated) {}
+
+  /**
+   * Returns the jobs within {@code depth} of the node, traversed one level at a time in the
+   * provided direction: downstream, from the datasets written by a job to the jobs reading them;
+   * upstream, from the datasets read by a job to the jobs writing them. The traversal stops before
+   * the jobs and datasets reached exceed {@code maxNodes}; the first job is always returned.
+   */
+  private BoundedLineage getBoundedLineage(
+      @NonNull NodeId nodeId,
+      @NonNull UUID job,
+      int depth,
+      @NonNull LineageDirection direction,
+      @Nullable Integer maxNodes) {
+    final LineageEdges edges =
+        (graphIndex != null && graphIndex.isLoaded()) ? graphIndex : lineageEdges;
+    final IoType followed =
+        switch (direction) {
+          case UPSTREAM -> IoType.INPUT;
+          case DOWNSTREAM -> IoType.OUTPUT;
+          case BOTH -> null;
+        };
+    final IoType reached =
+        switch (direction) {
+          case UPSTREAM -> IoType.OUTPUT;
+          case DOWNSTREAM -> IoType.INPUT;
+          case BOTH -> null;
+        };
+    final int budget = (maxNodes == null) ? Integer.MAX_VALUE : maxNodes;
+
+    // The nodes reached: jobs, as returned from jobs_view, and datasets.
+    final Set<UUID> nodes = new HashSet<>();
+    final Set<UUID> jobs = new HashSet<>();
+    Set<UUID> frontier = new LinkedHashSet<>();
+    if (nodeId.isDatasetType() && direction != LineageDirection.BOTH) {
+      // Start from the jobs reading (downstream) or writing (upstream) the dataset.
+      final DatasetId datasetId = nodeId.asDatasetId();
+      final UUID dataset =
+          getDatasetData(datasetId.getNamespace().getValue(), datasetId.getName().getValue())
+              .getUuid();
+      nodes.add(dataset);
+      edges.datasetIo(Set.of(dataset), reached).forEach(row -> frontier.add(row.jobUuid()));
+    } else {
+      frontier.add(job);
+      edges.symlinkedJobIo(job).forEach(row -> frontier.add(row.jobUuid()));
+    }
+    jobs.addAll(frontier);
+
+    final Map<UUID, Set<UUID>> inputs = new HashMap<>();
+    final Map<UUID, Set<UUID>> outputs = new HashMap<>();
+    boolean truncated = false;
+    for (int level = 0; !frontier.isEmpty(); level++) {
+      final Map<UUID, List<JobIoRow>> io =
+          edges.jobIo(frontier).stream().collect(groupingBy(JobIoRow::jobUuid));
+      final Set<UUID> datasets = new HashSet<>();
+      for (UUID jobUuid : frontier) {
+        final List<JobIoRow> rows = io.getOrDefault(jobUuid, List.of());
+        // As in LineageDao.getLineage(), a job symlinked to another is returned as the other job.
+        final UUID node =
+            rows.stream()
+                .map(JobIoRow::jobSymlinkTargetUuid)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(jobUuid);
+        final Set<UUID> added = new HashSet<>();
+        added.add(node);
+        rows.forEach(row -> added.add(row.datasetUuid()));
+        added.removeAll(nodes);
+        if (!inputs.isEmpty() && nodes.size() + added.size() > budget) {
+          truncated = true;
+          break;
+        }
+        nodes.addAll(added);
+        inputs.computeIfAbsent(node, k -> new HashSet<>());
+        outputs.computeIfAbsent(node, k -> new HashSet<>());
+        for (JobIoRow row : rows) {
+          (IoType.INPUT.name().equals(row.ioType()) ? inputs : outputs)
+              .get(node)
+              .add(row.datasetUuid());
+          if (followed == null || followed.name().equals(row.ioType())) {
+            datasets.add(row.datasetUuid());
+          }
+        }
+      }
+      if (truncated || level >= depth || datasets.isEmpty()) {
+        break;
+      }
+      frontier = new LinkedHashSet<>();
+      for (JobIoRow row : edges.datasetIo(datasets, reached)) {
+        if (jobs.add(row.jobUuid())) {
+          frontier.add(row.jobUuid());
+        }
+      }
+    }
+    return new BoundedLineage(toJobData(inputs, outputs), truncated);
+  }
+
+  /** Returns the jobs, with the datasets they read and write, from jobs_view. */
+  private Set<JobData> toJobData(Map<UUID, Set<UUID>> inputs, Map<UUID, Set<UUID>> outputs) {
+    final Set<JobData> jobData = new HashSet<>();
+    if (inputs.isEmpty()) {
+      return jobData;
+    }
+    for (JobData j : getJobData(inputs.keySet())) {
+      j.setInputUuids(ImmutableSet.copyOf(inputs.get(j.getUuid())));
+      j.setOutputUuids(ImmutableSet.copyOf(outputs.get(j.getUuid())));
+      jobData.add(j);
+    }
+    return jobData;
   }
 
   private Lineage toLineageWithOrphanDataset(@NonNull DatasetId datasetId) {
@@ -132,7 +355,7 @@ public class LineageService extends DelegatingLineageDao {
             Node.dataset().data(datasetData).id(NodeId.of(datasetData.getId())).build()));
   }
 
-  private Lineage toLineage(Set<JobData> jobData, Set<DatasetData> datasets) {
+  private Lineage toLineage(Set<JobData> jobData, Set<DatasetData> datasets, boolean truncated) {
     Set<Node> nodes = new LinkedHashSet<>();
     // build mapping for later
     Map<UUID, DatasetData> datasetById =
@@ -142,21 +365,36 @@ public class LineageService extends DelegatingLineageDao {
     Map<DatasetData, Set<UUID>> dsOutputToJob = new HashMap<>();
     // build jobs
     Map<UUID, JobData> jobDataMap = Maps.uniqueIndex(jobData, JobData::getUuid);
+    // Parent jobs are only logged; they're loaded at once, and only when they would be logged.
+    final Map<UUID, JobData> parentJobData = new HashMap<>();
+    if (log.isDebugEnabled()) {
+      final Set<UUID> parentJobUuids =
+          jobData.stream()
+              .filter(Objects::nonNull)
+              .map(JobData::getParentJobUuid)
+              .filter(Objects::nonNull)
+              .collect(Collectors.toSet());
+      if (!parentJobUuids.isEmpty()) {
+        getParentJobData(parentJobUuids)
+            .forEach(parent -> parentJobData.putIfAbsent(parent.getParentJobUuid(), parent));
+      }
+    }
     for (JobData data : jobData) {
       if (data == null) {
         log.error("Could not find job node for {}", jobData);
         continue;
       }
 
-      Optional<JobData> parentJobData = getParentJobData(data.getParentJobUuid());
-      parentJobData.ifPresent(
-          parent -> {
-            log.debug(
-                "child: {}, parent: {} with UUID: {}",
-                parent.getId().getName(),
-                data.getParentJobName(),
-                data);
-          });
+      Optional.ofNullable(data.getParentJobUuid())
+          .map(parentJobData::get)
+          .ifPresent(
+              parent -> {
+                log.debug(
+                    "child: {}, parent: {} with UUID: {}",
+                    parent.getId().getName(),
+                    data.getParentJobName(),
+                    data);
+              });
 
       Set<DatasetData> inputs =
           data.getInputUuids().stream()
@@ -199,7 +437,8 @@ public class LineageService extends DelegatingLineageDao {
       nodes.add(node);
     }
 
-    return new Lineage(Lineage.withSortedNodes(Graph.directed().nodes(nodes).build()));
+    return new Lineage(
+        Lineage.withSortedNodes(Graph.directed().nodes(nodes).build()), truncated);
   }
 
   private ImmutableSet<DatasetId> buildDatasetId(Set<DatasetData> datasetData) {
@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import marquez.common.models.NamespaceName;
 import marquez.common.models.OwnerName;
 import marquez.db.BaseDao;
+import marquez.db.UpsertCache;
 import marquez.service.models.Namespace;
 import marquez.service.models.NamespaceMeta;
 
@@ -39,6 +40,8 @@ public class NamespaceService extends DelegatingDaos.DelegatingNamespaceDao {
 
   public Namespace createOrUpdate(@NonNull NamespaceName name, @NonNull NamespaceMeta meta) {
     namespaces.inc();
-    return upsertNamespaceMeta(name, meta);
+    final Namespace namespace = upsertNamespaceMeta(name, meta);
+    UpsertCache.invalidateNamespace(name.getValue());
+    return namespace;
   }
 }
@@ -8,11 +8,15 @@ package marquez.service;
 import static marquez.logging.MdcPropagating.withMdc;
 import static marquez.tracing.SentryPropagating.withSentry;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +26,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import marquez.common.Utils;
 import marquez.common.models.DatasetName;
@@ -34,52 +39,89 @@ import marquez.common.models.RunState;
 import marquez.db.BaseDao;
 import marquez.db.DatasetDao;
 import marquez.db.DatasetVersionDao;
+import marquez.db.FacetUtils;
+import marquez.db.OpenLineageDao;
+import marquez.db.OpenLineageDao.PendingEventRow;
+import marquez.db.OpenLineageDao.ProjectionRow;
 import marquez.db.models.ExtendedDatasetVersionRow;
 import marquez.db.models.JobRow;
 import marquez.db.models.RunArgsRow;
 import marquez.db.models.RunRow;
 import marquez.db.models.RunStateRow;
 import marquez.db.models.UpdateLineageRow;
+import marquez.ingestion.IngestionConfig;
+import marquez.ingestion.StripedExecutor;
 import marquez.service.RunTransitionListener.JobInputUpdate;
 import marquez.service.RunTransitionListener.JobOutputUpdate;
 import marquez.service.RunTransitionListener.RunInput;
 import marquez.service.RunTransitionListener.RunOutput;
 import marquez.service.RunTransitionListener.RunTransition;
+import marquez.service.models.BaseEvent;
 import marquez.service.models.DatasetEvent;
 import marquez.service.models.JobEvent;
 import marquez.service.models.LineageEvent;
 import marquez.service.models.RunMeta;
+import org.jdbi.v3.core.Handle;
 
 @Slf4j
 public class OpenLineageService extends DelegatingDaos.DelegatingOpenLineageDao {
   private final RunService runService;
   private final DatasetVersionDao datasetVersionDao;
+  /* The name of the projection of raw events to the Marquez model. */
+  private static final String PROJECTION = "marquez";
+
   private final ObjectMapper mapper = Utils.newObjectMapper();
 
   private final Executor executor;
+  private final IngestionConfig ingestionConfig;
+  @Nullable private final StripedExecutor stripedExecutor;
 
   public OpenLineageService(BaseDao baseDao, RunService runService) {
     this(baseDao, runService, ForkJoinPool.commonPool());
   }
 
+  public OpenLineageService(
+      BaseDao baseDao, RunService runService, IngestionConfig ingestionConfig) {
+    this(baseDao, runService, ForkJoinPool.commonPool(), ingestionConfig);
+  }
+
   public OpenLineageService(BaseDao baseDao, RunService runService, Executor executor) {
+    this(baseDao, runService, executor, new IngestionConfig());
+  }
+
+  public OpenLineageService(
+      BaseDao baseDao,
+      RunService runService,
+      Executor executor,
+      @NonNull IngestionConfig ingestionConfig) {
     super(baseDao.createOpenLineageDao());
     this.runService = runService;
     this.datasetVersionDao = baseDao.createDatasetVersionDao();
     this.executor = executor;
+    this.ingestionConfig = ingestionConfig;
+    this.stripedExecutor =
+        ingestionConfig.getStripes() > 0
+            ? new StripedExecutor(executor, ingestionConfig.getStripes())
+            : null;
   }
 
   public CompletableFuture<Void> createAsync(DatasetEvent event) {
+    if (isProjected()) {
+      return CompletableFuture.runAsync(withSentry(withMdc(() -> create(event))), executor);
+    }
+    if (ingestionConfig.isTransactional()) {
+      return CompletableFuture.runAsync(
+          withSentry(
+              withMdc(
+                  () -> {
+                    createInTransaction(event);
+                  })),
+          executor);
+    }
+
     CompletableFuture<Void> openLineage =
         CompletableFuture.runAsync(
-            withSentry(
-                withMdc(
-                    () ->
-                        createDatasetEvent(
-                            event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant(),
-                            createJsonArray(event, mapper),
-                            event.getProducer()))),
-            executor);
+            withSentry(withMdc(() -> insertDatasetEvent(this, event))), executor);
 
     CompletableFuture<Void> marquez =
         CompletableFuture.runAsync(
@@ -94,18 +136,22 @@ public class OpenLineageService extends DelegatingDaos.DelegatingOpenLineageDao
   }
 
   public CompletableFuture<Void> createAsync(JobEvent event) {
+    if (isProjected()) {
+      return CompletableFuture.runAsync(withSentry(withMdc(() -> create(event))), executor);
+    }
+    if (ingestionConfig.isTransactional()) {
+      return CompletableFuture.runAsync(
+          withSentry(
+              withMdc(
+                  () -> {
+                    createInTransaction(event);
+                  })),
+          executor);
+    }
+
     CompletableFuture<Void> openLineage =
         CompletableFuture.runAsync(
-            withSentry(
-                withMdc(
-                    () ->
-                        createJobEvent(
-                            event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant(),
-                            event.getJob().getName(),
-                            event.getJob().getNamespace(),
-                            createJsonArray(event, mapper),
-                            event.getProducer()))),
-            executor);
+            withSentry(withMdc(() -> insertJobEvent(this, event))), executor);
 
     CompletableFuture<Void> marquez =
         CompletableFuture.runAsync(
@@ -120,43 +166,263 @@ public class OpenLineageService extends DelegatingDaos.DelegatingOpenLineageDao
   }
 
   public CompletableFuture<Void> createAsync(LineageEvent event) {
+    if (isProjected()) {
+      // Only the raw event is inserted; the model is updated by the projector.
+      return CompletableFuture.runAsync(withSentry(withMdc(() -> create(event))), executor);
+    }
+    if (stripedExecutor != null) {
+      // Events of the same run are applied one after the other, in the order they are received.
+      return CompletableFuture.runAsync(
+          withSentry(
+              withMdc(
+                  () -> {
+                    create(event);
+                  })),
+          stripedExecutor.stripeFor(runUuidFromEvent(event.getRun())));
+    }
+    if (ingestionConfig.isTransactional()) {
+      return CompletableFuture.supplyAsync(
+              withSentry(withMdc(() -> createInTransaction(event))), executor)
+          .thenAccept((update) -> notifyRunTransitionListeners(event, update));
+    }
+
     UUID runUuid = runUuidFromEvent(event.getRun());
     CompletableFuture<Void> openLineage =
         CompletableFuture.runAsync(
-            withSentry(
-                withMdc(
-                    () ->
-                        createLineageEvent(
-                            event.getEventType() == null ? "" : event.getEventType(),
-                            event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant(),
-                            runUuid,
-                            event.getJob().getName(),
-                            event.getJob().getNamespace(),
-                            createJsonArray(event, mapper),
-                            event.getProducer()))),
-            executor);
+            withSentry(withMdc(() -> insertLineageEvent(this, event, runUuid))), executor);
 
     CompletableFuture<Void> marquez =
         CompletableFuture.supplyAsync(
                 withSentry(withMdc(() -> updateMarquezModel(event, mapper))), executor)
-            .thenAccept(
-                (update) -> {
-                  if (event.getEventType() != null) {
-                    boolean isStreaming =
-                        Optional.ofNullable(event.getJob())
-                            .map(j -> j.isStreamingJob())
-                            .orElse(false);
-                    if (event.getEventType().equalsIgnoreCase("COMPLETE") || isStreaming) {
-                      buildJobOutputUpdate(update).ifPresent(runService::notify);
-                    }
-                    buildJobInputUpdate(update).ifPresent(runService::notify);
-                    buildRunTransition(update).ifPresent(runService::notify);
-                  }
-                });
+            .thenAccept((update) -> notifyRunTransitionListeners(event, update));
 
     return CompletableFuture.allOf(marquez, openLineage);
   }
 
+  /**
+   * Creates each of the provided events in order, borrowing a single database handle for the whole
+   * batch. A failure to create an event does not prevent the remaining events from being created;
+   * instead, the outcome of each event is returned in the same order as the provided events.
+   *
+   * @param events the events to create
+   * @return the {@link BatchEventResult} for each event
+   */
+  public CompletableFuture<List<BatchEventResult>> createAllAsync(
+      @NonNull List<BaseEvent> events) {
+    return CompletableFuture.supplyAsync(
+        withSentry(withMdc(() -> withHandle(handle -> createAll(handle, events)))), executor);
+  }
+
+  private List<BatchEventResult> createAll(Handle handle, List<BaseEvent> events) {
+    final OpenLineageDao dao = handle.attach(OpenLineageDao.class);
+    final List<BatchEventResult> results = new ArrayList<>(events.size());
+    for (final BaseEvent event : events) {
+      try {
+        // Each event of the batch is committed on its own, so a failed event can only roll back
+        // its own writes.
+        final UpdateLineageRow update =
+            ingestionConfig.isTransactional()
+                ? handle.inTransaction(h -> create(dao, event))
+                : create(dao, event);
+        if (event instanceof LineageEvent && update != null) {
+          notifyRunTransitionListeners((LineageEvent) event, update);
+        }
+        results.add(BatchEventResult.SUCCESS);
+      } catch (Exception e) {
+        log.error("Failed to create event {} of batch", results.size(), e);
+        results.add(new BatchEventResult(e));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Creates the provided event on the calling thread, then notifies run transition listeners of
+   * the update.
+   *
+   * @param event the event to create
+   */
+  public void create(@NonNull BaseEvent event) {
+    final UpdateLineageRow update =
+        ingestionConfig.isTransactional() ? createInTransaction(event) : create(this, event);
+    if (event instanceof LineageEvent && update != null) {
+      notifyRunTransitionListeners((LineageEvent) event, update);
+    }
+  }
+
+  /**
+   * Inserts the raw event, then updates the Marquez model on a single handle within one
+   * transaction, whether or not ingestion is configured to be transactional; a failed attempt
+   * therefore leaves no writes behind and can be retried. Run transition listeners are not
+   * notified, and must be notified with {@link #notifyListeners(BaseEvent, UpdateLineageRow)} only
+   * once the transaction has been committed.
+   *
+   * @return the update, or {@code null} if the event type is not supported, or if the model is
+   *     updated by the projector
+   */
+  public UpdateLineageRow createInTransaction(@NonNull BaseEvent event) {
+    return withHandle(
+        handle -> handle.inTransaction(h -> create(h.attach(OpenLineageDao.class), event)));
+  }
+
+  /**
+   * Notifies run transition listeners of the {@code update} of the provided event, as returned by
+   * {@link #createInTransaction(BaseEvent)}; only lineage events are notified.
+   */
+  public void notifyListeners(@NonNull BaseEvent event, @Nullable UpdateLineageRow update) {
+    if (event instanceof LineageEvent && update != null) {
+      notifyRunTransitionListeners((LineageEvent) event, update);
+    }
+  }
+
+  /**
+   * Inserts the raw event and updates the Marquez model using the provided {@code dao}; returns
+   * {@code null} if the event type is not supported, or if the model is updated by the projector.
+   */
+  private UpdateLineageRow create(OpenLineageDao dao, BaseEvent event) {
+    if (event instanceof LineageEvent) {
+      final LineageEvent lineageEvent = (LineageEvent) event;
+      insertLineageEvent(dao, lineageEvent, runUuidFromEvent(lineageEvent.getRun()));
+    } else if (event instanceof DatasetEvent) {
+      insertDatasetEvent(dao, (DatasetEvent) event);
+    } else if (event instanceof JobEvent) {
+      insertJobEvent(dao, (JobEvent) event);
+    } else {
+      log.warn("Unsupported event type {}. Skipping without error", event.getClass().getName());
+      return null;
+    }
+    return isProjected() ? null : updateMarquezModel(dao, event);
+  }
+
+  /** Updates the Marquez model from the provided event using the provided {@code dao}. */
+  private UpdateLineageRow updateMarquezModel(OpenLineageDao dao, BaseEvent event) {
+    if (event instanceof LineageEvent) {
+      return dao.updateMarquezModel((LineageEvent) event, mapper);
+    } else if (event instanceof DatasetEvent) {
+      return dao.updateMarquezModel((DatasetEvent) event, mapper);
+    } else if (event instanceof JobEvent) {
+      return dao.updateMarquezModel((JobEvent) event, mapper);
+    }
+    return null;
+  }
+
+  private boolean isProjected() {
+    return ingestionConfig.getProjector().isEnabled();
+  }
+
+  /** Creates the checkpoint of the projection of raw events to the Marquez model, if missing. */
+  public void createProjection() {
+    createProjection(PROJECTION);
+  }
+
+  /**
+   * Updates the Marquez model from, at most, {@code limit} raw events not yet projected, in the
+   * order of their positions, then notifies run transition listeners of the updates. All events are
+   * projected within a single transaction, along with the checkpoint of the projection; an event
+   * that fails to be projected is recorded in {@code lineage_event_projection_failures}, then
+   * skipped.
+   *
+   * <p>The position of a raw event is the transaction that inserted it, then its sequence number.
+   * Only raw events inserted by transactions older than any transaction still in progress are
+   * projected, so that a raw event committed late is never skipped.
+   *
+   * @return the number of raw events projected, or skipped
+   */
+  public int project(int limit) {
+    final List<Map.Entry<LineageEvent, UpdateLineageRow>> updates = new ArrayList<>();
+    final int projected =
+        withHandle(
+            handle ->
+                handle.inTransaction(
+                    h -> {
+                      final OpenLineageDao dao = h.attach(OpenLineageDao.class);
+                      final Optional<ProjectionRow> checkpoint = dao.lockProjection(PROJECTION);
+                      if (checkpoint.isEmpty()) {
+                        // Projected by another instance.
+                        return 0;
+                      }
+                      final List<PendingEventRow> rows =
+                          dao.findEventsToProject(
+                              checkpoint.get().lastTxid(), checkpoint.get().lastSeq(), limit);
+                      for (final PendingEventRow row : rows) {
+                        h.savepoint(PROJECTION);
+                        try {
+                          final BaseEvent event = toEvent(row.event());
+                          final UpdateLineageRow update = updateMarquezModel(dao, event);
+                          if (event instanceof LineageEvent && update != null) {
+                            updates.add(Map.entry((LineageEvent) event, update));
+                          }
+                          h.release(PROJECTION);
+                        } catch (Exception e) {
+                          h.rollbackToSavepoint(PROJECTION);
+                          log.error("Failed to project raw event {}, skipping", row.seq(), e);
+                          dao.insertProjectionFailure(PROJECTION, row.seq(), e.toString());
+                        }
+                      }
+                      if (!rows.isEmpty()) {
+                        final PendingEventRow last = rows.get(rows.size() - 1);
+                        dao.updateProjection(PROJECTION, last.txid(), last.seq());
+                      }
+                      return rows.size();
+                    }));
+    updates.forEach(update -> notifyRunTransitionListeners(update.getKey(), update.getValue()));
+    return projected;
+  }
+
+  /**
+   * Returns the age, in seconds, of the next raw event to be projected to the Marquez model, or
+   * {@code 0} if none is pending.
+   */
+  public double getProjectionLagSeconds() {
+    return getProjectionLagSeconds(PROJECTION).orElse(0d);
+  }
+
+  /** Returns the event of the provided raw event, with its compressed facets decompressed. */
+  private BaseEvent toEvent(String rawEvent) throws JsonProcessingException {
+    final JsonNode json = mapper.readTree(rawEvent);
+    FacetUtils.decompressFacets(json);
+    return mapper.treeToValue(json, BaseEvent.class);
+  }
+
+  private void insertLineageEvent(OpenLineageDao dao, LineageEvent event, UUID runUuid) {
+    dao.createLineageEvent(
+        event.getEventType() == null ? "" : event.getEventType(),
+        event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant(),
+        runUuid,
+        event.getJob().getName(),
+        event.getJob().getNamespace(),
+        createJsonArray(event, mapper),
+        event.getProducer());
+  }
+
+  private void insertDatasetEvent(OpenLineageDao dao, DatasetEvent event) {
+    dao.createDatasetEvent(
+        event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant(),
+        createJsonArray(event, mapper),
+        event.getProducer());
+  }
+
+  private void insertJobEvent(OpenLineageDao dao, JobEvent event) {
+    dao.createJobEvent(
+        event.getEventTime().withZoneSameInstant(ZoneId.of("UTC")).toInstant(),
+        event.getJob().getName(),
+        event.getJob().getNamespace(),
+        createJsonArray(event, mapper),
+        event.getProducer());
+  }
+
+  private void notifyRunTransitionListeners(LineageEvent event, UpdateLineageRow update) {
+    if (event.getEventType() != null) {
+      boolean isStreaming =
+          Optional.ofNullable(event.getJob()).map(j -> j.isStreamingJob()).orElse(false);
+      if (event.getEventType().equalsIgnoreCase("COMPLETE") || isStreaming) {
+        buildJobOutputUpdate(update).ifPresent(runService::notify);
+      }
+      buildJobInputUpdate(update).ifPresent(runService::notify);
+      buildRunTransition(update).ifPresent(runService::notify);
+    }
+  }
+
   /**
    * Try to convert the run id to a UUID. If it isn't a properly formatted UUID, generate one from
    * the string bytes
@@ -293,4 +559,13 @@ public class OpenLineageService extends DelegatingDaos.DelegatingOpenLineageDao
     RunState oldState = newState.isStarting() ? null : RunState.RUNNING;
     return Optional.of(new RunTransition(runId, oldState, newState));
   }
+
+  /** The outcome of creating a single event of a batch; {@code error} is null on success. */
+  public record BatchEventResult(@Nullable Throwable error) {
+    static final BatchEventResult SUCCESS = new BatchEventResult(null);
+
+    public boolean isSuccess() {
+      return error == null;
+    }
+  }
 }
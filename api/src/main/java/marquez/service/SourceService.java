@@ -10,6 +10,7 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import marquez.common.models.SourceName;
 import marquez.db.BaseDao;
+import marquez.db.UpsertCache;
 import marquez.service.models.Source;
 import marquez.service.models.SourceMeta;
 
@@ -34,6 +35,8 @@ public class SourceService extends DelegatingDaos.DelegatingSourceDao {
   public Source createOrUpdate(@NonNull SourceName name, @NonNull SourceMeta meta) {
     log.info("Create/upsert source '{}' with meta: {}", name.getValue(), meta);
     sources.inc();
-    return upsert(name, meta);
+    final Source source = upsert(name, meta);
+    UpsertCache.invalidateSource(name.getValue());
+    return source;
   }
 }
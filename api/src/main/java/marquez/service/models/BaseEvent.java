@@ -5,10 +5,14 @@
 
 package marquez.service.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import lombok.Setter;
 
 @JsonTypeIdResolver(EventTypeResolver.class)
 @JsonTypeInfo(
@@ -17,4 +21,10 @@ import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
     property = "schemaURL",
     defaultImpl = LineageEvent.class,
     visible = true)
-public class BaseEvent extends BaseJsonModel {}
+public class BaseEvent extends BaseJsonModel {
+  /**
+   * The JSON payload the event was bound from, when received over HTTP; stored verbatim as the raw
+   * event instead of serializing the event again.
+   */
+  @JsonIgnore @Getter @Setter @Nullable private transient byte[] rawEvent;
+}
@@ -8,6 +8,7 @@ package marquez.service.models;
 import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSortedSet;
 import java.util.Comparator;
 import lombok.EqualsAndHashCode;
@@ -20,13 +21,26 @@ import lombok.ToString;
 public final class Lineage {
   @Getter private final ImmutableSortedSet<Node> graph;
 
+  /**
+   * {@code true} if the traversal stopped at the maximum number of nodes requested, before reaching
+   * the requested depth; the graph is then a subset of the lineage of the node.
+   */
+  @Getter private final boolean truncated;
+
   public static ImmutableSortedSet<Node> withSortedNodes(Graph graph) {
     return graph.nodes().stream()
         .collect(toImmutableSortedSet(Comparator.comparing(node -> node.getId().getValue())));
   }
 
-  @JsonCreator
   public Lineage(@NonNull final ImmutableSortedSet<Node> graph) {
+    this(graph, false);
+  }
+
+  @JsonCreator
+  public Lineage(
+      @JsonProperty("graph") @NonNull final ImmutableSortedSet<Node> graph,
+      @JsonProperty("truncated") final boolean truncated) {
     this.graph = graph;
+    this.truncated = truncated;
   }
 }
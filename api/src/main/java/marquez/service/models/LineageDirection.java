@@ -0,0 +1,16 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service.models;
+
+/** The direction in which lineage is traversed from a node. */
+public enum LineageDirection {
+  /** The jobs and datasets the node is derived from. */
+  UPSTREAM,
+  /** The jobs and datasets derived from the node. */
+  DOWNSTREAM,
+  /** The jobs sharing a dataset with a job reached, whichever way the dataset is shared. */
+  BOTH;
+}
@@ -0,0 +1,29 @@
+/* The number of jobs, by namespace, whose current version reads (INPUT) or writes (OUTPUT) a dataset. */
+CREATE TABLE dataset_lineage_edges (
+  dataset_uuid   UUID NOT NULL REFERENCES datasets(uuid) ON DELETE CASCADE,
+  io_type        VARCHAR(64) NOT NULL,
+  namespace_name VARCHAR NOT NULL,
+  edges          INTEGER NOT NULL,
+  PRIMARY KEY (dataset_uuid, io_type, namespace_name)
+);
+
+/* The dataset version the lineageStatistics facet was last materialized for, and whether the edges changed since. */
+CREATE TABLE dataset_lineage_statistics (
+  dataset_uuid         UUID PRIMARY KEY REFERENCES datasets(uuid) ON DELETE CASCADE,
+  dataset_version_uuid UUID,
+  is_stale             BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+INSERT INTO dataset_lineage_edges (dataset_uuid, io_type, namespace_name, edges)
+SELECT mapping.dataset_uuid, mapping.io_type, j.namespace_name, COUNT(DISTINCT mapping.job_uuid)
+FROM job_versions_io_mapping mapping
+INNER JOIN jobs j ON j.uuid = mapping.job_uuid
+WHERE mapping.is_current_job_version = TRUE
+GROUP BY mapping.dataset_uuid, mapping.io_type, j.namespace_name;
+
+/* Facets were backfilled or updated for the latest versions; re-materialize them from the edges on next change. */
+INSERT INTO dataset_lineage_statistics (dataset_uuid, dataset_version_uuid, is_stale)
+SELECT DISTINCT ON (df.dataset_uuid) df.dataset_uuid, df.dataset_version_uuid, TRUE
+FROM dataset_facets df
+WHERE df.name = 'lineageStatistics'
+ORDER BY df.dataset_uuid, df.created_at DESC;
@@ -0,0 +1,28 @@
+/* Facet payloads stored once by the SHA-256 of their JSON, and referenced by facet rows by hash. */
+CREATE TABLE facet_payloads (
+  hash  BYTEA PRIMARY KEY,
+  facet JSONB NOT NULL
+);
+
+ALTER TABLE dataset_facets ALTER COLUMN facet DROP NOT NULL, ADD COLUMN facet_hash BYTEA;
+ALTER TABLE run_facets ALTER COLUMN facet DROP NOT NULL, ADD COLUMN facet_hash BYTEA;
+ALTER TABLE job_facets ALTER COLUMN facet DROP NOT NULL, ADD COLUMN facet_hash BYTEA;
+
+/* A facet row holds either the facet itself, or the hash of its payload. */
+CREATE OR REPLACE VIEW dataset_facets_view AS
+SELECT f.created_at, f.dataset_uuid, f.dataset_version_uuid, f.run_uuid, f.lineage_event_time,
+       f.lineage_event_type, f.type, f.name, COALESCE(f.facet, p.facet) AS facet
+FROM dataset_facets f
+LEFT JOIN facet_payloads p ON p.hash = f.facet_hash;
+
+CREATE OR REPLACE VIEW run_facets_view AS
+SELECT f.created_at, f.run_uuid, f.lineage_event_time, f.lineage_event_type, f.name,
+       COALESCE(f.facet, p.facet) AS facet
+FROM run_facets f
+LEFT JOIN facet_payloads p ON p.hash = f.facet_hash;
+
+CREATE OR REPLACE VIEW job_facets_view AS
+SELECT f.created_at, f.job_uuid, f.run_uuid, f.lineage_event_time, f.lineage_event_type, f.name,
+       COALESCE(f.facet, p.facet) AS facet
+FROM job_facets f
+LEFT JOIN facet_payloads p ON p.hash = f.facet_hash;
@@ -0,0 +1,14 @@
+/* Orders raw events as they are inserted; tailed to project the Marquez model from raw events. The
+   column is added without a default first, so that existing rows are not rewritten. */
+CREATE SEQUENCE lineage_events_seq;
+ALTER TABLE lineage_events ADD COLUMN seq BIGINT;
+ALTER TABLE lineage_events ALTER COLUMN seq SET DEFAULT nextval('lineage_events_seq');
+ALTER SEQUENCE lineage_events_seq OWNED BY lineage_events.seq;
+CREATE INDEX lineage_events_seq_idx ON lineage_events (seq) WHERE seq IS NOT NULL;
+
+/* The last raw event projected to the Marquez model, by projection. */
+CREATE TABLE lineage_event_projections (
+  name       VARCHAR(255) PRIMARY KEY,
+  last_seq   BIGINT NOT NULL,
+  updated_at TIMESTAMPTZ NOT NULL
+);
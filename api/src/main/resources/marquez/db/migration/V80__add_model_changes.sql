@@ -0,0 +1,13 @@
+/* The changes of the Marquez model, as a feed resumable from the last change read; written within
+   the same transaction as the changes, when the change feed is enabled. */
+CREATE TABLE model_changes (
+  seq        BIGSERIAL PRIMARY KEY,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  type       VARCHAR(64) NOT NULL,
+  namespace  VARCHAR(1024) NOT NULL,
+  name       TEXT NOT NULL,
+  version    UUID,
+  run_uuid   UUID,
+  run_state  VARCHAR(64)
+);
+CREATE INDEX model_changes_created_at_index ON model_changes (created_at);
@@ -0,0 +1,60 @@
+/* The datasets read (INPUT) or written (OUTPUT) by the current version of each job, maintained from
+   job_versions_io_mapping by trigger; current_versions is the number of current mapping rows. */
+CREATE TABLE lineage_edges (
+  job_uuid                UUID NOT NULL,
+  job_symlink_target_uuid UUID,
+  dataset_uuid            UUID NOT NULL,
+  io_type                 VARCHAR(64) NOT NULL,
+  current_versions        INTEGER NOT NULL,
+  PRIMARY KEY (job_uuid, dataset_uuid, io_type)
+);
+CREATE INDEX lineage_edges_dataset_uuid_index ON lineage_edges (dataset_uuid, job_uuid);
+CREATE INDEX lineage_edges_job_symlink_target_uuid_index ON lineage_edges (job_symlink_target_uuid)
+  WHERE job_symlink_target_uuid IS NOT NULL;
+
+CREATE OR REPLACE FUNCTION write_lineage_edges()
+    RETURNS trigger
+    LANGUAGE plpgsql AS
+$func$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.is_current_job_version AND OLD.job_uuid IS NOT NULL THEN
+        DELETE FROM lineage_edges
+        WHERE job_uuid = OLD.job_uuid AND dataset_uuid = OLD.dataset_uuid AND io_type = OLD.io_type
+          AND current_versions <= 1;
+        IF NOT FOUND THEN
+            UPDATE lineage_edges SET current_versions = current_versions - 1
+            WHERE job_uuid = OLD.job_uuid AND dataset_uuid = OLD.dataset_uuid AND io_type = OLD.io_type;
+        END IF;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.is_current_job_version AND NEW.job_uuid IS NOT NULL THEN
+        INSERT INTO lineage_edges AS e (job_uuid, job_symlink_target_uuid, dataset_uuid, io_type, current_versions)
+        VALUES (NEW.job_uuid, NEW.job_symlink_target_uuid, NEW.dataset_uuid, NEW.io_type, 1)
+        ON CONFLICT (job_uuid, dataset_uuid, io_type)
+        DO UPDATE SET current_versions = e.current_versions + 1,
+                      job_symlink_target_uuid = EXCLUDED.job_symlink_target_uuid;
+    END IF;
+    RETURN NULL;
+END
+$func$;
+
+CREATE TRIGGER job_versions_io_mapping_insert_delete_lineage_edges
+    AFTER INSERT OR DELETE ON job_versions_io_mapping
+    FOR EACH ROW
+EXECUTE PROCEDURE write_lineage_edges();
+
+/* Most updates set is_current_job_version to its current value; only changes are applied. */
+CREATE TRIGGER job_versions_io_mapping_update_lineage_edges
+    AFTER UPDATE ON job_versions_io_mapping
+    FOR EACH ROW
+    WHEN (OLD.is_current_job_version IS DISTINCT FROM NEW.is_current_job_version
+          OR OLD.job_uuid IS DISTINCT FROM NEW.job_uuid
+          OR OLD.job_symlink_target_uuid IS DISTINCT FROM NEW.job_symlink_target_uuid
+          OR OLD.dataset_uuid IS DISTINCT FROM NEW.dataset_uuid
+          OR OLD.io_type IS DISTINCT FROM NEW.io_type)
+EXECUTE PROCEDURE write_lineage_edges();
+
+INSERT INTO lineage_edges (job_uuid, job_symlink_target_uuid, dataset_uuid, io_type, current_versions)
+SELECT job_uuid, (ARRAY_AGG(job_symlink_target_uuid))[1], dataset_uuid, io_type, COUNT(*)
+FROM job_versions_io_mapping
+WHERE is_current_job_version = TRUE AND job_uuid IS NOT NULL
+GROUP BY job_uuid, dataset_uuid, io_type;
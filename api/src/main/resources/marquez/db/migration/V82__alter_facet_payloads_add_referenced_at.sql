@@ -0,0 +1,14 @@
+/* Resolves job_version_uuid, added to job_facets after job_facets_view was first defined. */
+CREATE OR REPLACE VIEW job_facets_view AS
+SELECT f.created_at, f.job_uuid, f.run_uuid, f.lineage_event_time, f.lineage_event_type, f.name,
+       COALESCE(f.facet, p.facet) AS facet, f.job_version_uuid
+FROM job_facets f
+LEFT JOIN facet_payloads p ON p.hash = f.facet_hash;
+
+/* The time a payload was last inserted or referenced again, refreshed at most once a day; payloads
+   no longer referenced by a facet row are swept by retention once referenced_at is old enough. */
+ALTER TABLE facet_payloads ADD COLUMN referenced_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+CREATE INDEX dataset_facets_facet_hash_idx ON dataset_facets (facet_hash) WHERE facet_hash IS NOT NULL;
+CREATE INDEX run_facets_facet_hash_idx ON run_facets (facet_hash) WHERE facet_hash IS NOT NULL;
+CREATE INDEX job_facets_facet_hash_idx ON job_facets (facet_hash) WHERE facet_hash IS NOT NULL;
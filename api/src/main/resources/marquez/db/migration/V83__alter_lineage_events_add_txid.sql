@@ -0,0 +1,25 @@
+/* The transaction that inserted a raw event. Raw events are projected in the order of
+   (txid, seq), up to the oldest transaction still in progress (pg_snapshot_xmin): a raw event
+   committed late is therefore never skipped, whatever the gaps in seq. The column is added without
+   a default first, so that existing rows are not rewritten; they sort first, by seq. */
+ALTER TABLE lineage_events ADD COLUMN txid xid8;
+ALTER TABLE lineage_events ALTER COLUMN txid SET DEFAULT pg_current_xact_id();
+
+/* Set on raw events whose model was updated by their writer, such as the bulk loader; such raw
+   events are not projected. */
+ALTER TABLE lineage_events ADD COLUMN projected BOOLEAN;
+
+CREATE INDEX lineage_events_projection_idx
+  ON lineage_events ((COALESCE(txid, '0'::xid8)), seq)
+  WHERE seq IS NOT NULL AND projected IS NULL;
+
+ALTER TABLE lineage_event_projections ADD COLUMN last_txid xid8 NOT NULL DEFAULT '0';
+
+/* The raw events that failed to be projected, skipped by the projection. */
+CREATE TABLE lineage_event_projection_failures (
+  name      VARCHAR(255) NOT NULL,
+  seq       BIGINT NOT NULL,
+  failed_at TIMESTAMPTZ NOT NULL,
+  error     TEXT,
+  PRIMARY KEY (name, seq)
+);
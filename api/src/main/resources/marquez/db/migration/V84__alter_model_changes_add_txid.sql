@@ -0,0 +1,6 @@
+/* The transaction that recorded a change. Changes are served in the order of (txid, seq), up to
+   the oldest transaction still in progress (pg_snapshot_xmin), so that a change committed late is
+   never skipped by a client resuming from the last change read. Existing rows sort first, by seq. */
+ALTER TABLE model_changes ADD COLUMN txid xid8;
+ALTER TABLE model_changes ALTER COLUMN txid SET DEFAULT pg_current_xact_id();
+CREATE INDEX model_changes_position_idx ON model_changes ((COALESCE(txid, '0'::xid8)), seq);
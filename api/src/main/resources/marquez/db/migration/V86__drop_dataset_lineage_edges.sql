@@ -0,0 +1,28 @@
+/* The lineage statistics of datasets are counted from lineage_edges, maintained by trigger from
+   job_versions_io_mapping, in place of dataset_lineage_edges. */
+DROP TABLE dataset_lineage_edges;
+
+/* Marks the lineage statistics of a dataset as stale when a job is linked to or unlinked from it. A
+   dataset unlinked by its own deletion has no statistics left to mark. */
+CREATE OR REPLACE FUNCTION mark_lineage_statistics_stale()
+    RETURNS trigger
+    LANGUAGE plpgsql AS
+$func$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO dataset_lineage_statistics AS s (dataset_uuid, is_stale)
+        VALUES (NEW.dataset_uuid, TRUE)
+        ON CONFLICT (dataset_uuid) DO UPDATE SET is_stale = TRUE
+        WHERE NOT s.is_stale;
+    ELSE
+        UPDATE dataset_lineage_statistics SET is_stale = TRUE
+        WHERE dataset_uuid = OLD.dataset_uuid AND NOT is_stale;
+    END IF;
+    RETURN NULL;
+END
+$func$;
+
+CREATE TRIGGER lineage_edges_mark_lineage_statistics_stale
+    AFTER INSERT OR DELETE ON lineage_edges
+    FOR EACH ROW
+EXECUTE PROCEDURE mark_lineage_statistics_stale();
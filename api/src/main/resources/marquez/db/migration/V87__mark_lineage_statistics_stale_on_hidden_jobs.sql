@@ -0,0 +1,29 @@
+/* The lineage statistics of datasets only count the jobs of jobs_view: jobs neither hidden nor
+   symlinked to another job. Marks the lineage statistics of the datasets a job is linked to as stale
+   when the job is hidden, symlinked, or no longer so. */
+CREATE OR REPLACE FUNCTION mark_job_lineage_statistics_stale()
+    RETURNS trigger
+    LANGUAGE plpgsql AS
+$func$
+BEGIN
+    UPDATE dataset_lineage_statistics s SET is_stale = TRUE
+    FROM lineage_edges e
+    WHERE e.job_uuid = NEW.uuid AND s.dataset_uuid = e.dataset_uuid AND NOT s.is_stale;
+    RETURN NULL;
+END
+$func$;
+
+CREATE TRIGGER jobs_mark_lineage_statistics_stale
+    AFTER UPDATE OF is_hidden, symlink_target_uuid ON jobs
+    FOR EACH ROW
+    WHEN (OLD.is_hidden IS DISTINCT FROM NEW.is_hidden
+          OR OLD.symlink_target_uuid IS DISTINCT FROM NEW.symlink_target_uuid)
+EXECUTE PROCEDURE mark_job_lineage_statistics_stale();
+
+/* Statistics materialized while counting hidden or symlinked jobs. */
+UPDATE dataset_lineage_statistics s SET is_stale = TRUE
+FROM lineage_edges e
+INNER JOIN jobs j ON j.uuid = e.job_uuid
+WHERE s.dataset_uuid = e.dataset_uuid
+  AND (j.is_hidden IS TRUE OR j.symlink_target_uuid IS NOT NULL)
+  AND NOT s.is_stale;
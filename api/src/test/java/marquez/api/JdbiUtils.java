@@ -13,6 +13,8 @@ public class JdbiUtils {
     jdbi.inTransaction(
         handle -> {
           handle.execute("DELETE FROM lineage_events");
+          handle.execute("DELETE FROM lineage_event_projection_failures");
+          handle.execute("DELETE FROM model_changes");
           handle.execute("DELETE FROM runs_input_mapping");
           handle.execute("DELETE FROM dataset_versions_field_mapping");
           handle.execute("DELETE FROM dataset_schema_versions_field_mapping");
@@ -5,25 +5,51 @@
 
 package marquez.api;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableSortedSet;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
 import io.dropwizard.testing.junit5.ResourceExtension;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import marquez.api.models.EventsCursor;
 import marquez.common.Utils;
 import marquez.db.OpenLineageDao;
+import marquez.db.OpenLineageDao.LineageEventRow;
+import marquez.ingestion.IngestionQueue;
 import marquez.service.JobService;
 import marquez.service.LineageService;
 import marquez.service.ServiceFactory;
+import marquez.service.models.BaseEvent;
 import marquez.service.models.Lineage;
+import marquez.service.models.LineageDirection;
+import marquez.service.models.LineageEvent;
 import marquez.service.models.Node;
 import marquez.service.models.NodeId;
 import org.junit.jupiter.api.Test;
@@ -33,10 +59,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 class OpenLineageResourceTest {
   private static ResourceExtension UNDER_TEST;
   private static Lineage LINEAGE;
+  private static OpenLineageDao OPEN_LINEAGE_DAO;
+  private static ResourceExtension QUEUED_UNDER_TEST;
+  private static IngestionQueue INGESTION_QUEUE;
 
   static {
     LineageService lineageService = mock(LineageService.class);
     OpenLineageDao openLineageDao = mock(OpenLineageDao.class);
+    OPEN_LINEAGE_DAO = openLineageDao;
     JobService jobService = mock(JobService.class);
     when(jobService.exists(anyString(), anyString())).thenReturn(true);
 
@@ -45,7 +75,11 @@ class OpenLineageResourceTest {
             OpenLineageResourceTest.class.getResourceAsStream("/lineage/node.json"),
             new TypeReference<>() {});
     LINEAGE = new Lineage(ImmutableSortedSet.of(testNode));
-    when(lineageService.lineage(any(NodeId.class), anyInt())).thenReturn(LINEAGE);
+    when(lineageService.lineage(any(NodeId.class), anyInt(), eq(LineageDirection.BOTH), isNull()))
+        .thenReturn(LINEAGE);
+    when(lineageService.lineage(
+            any(NodeId.class), anyInt(), eq(LineageDirection.DOWNSTREAM), eq(10)))
+        .thenReturn(new Lineage(LINEAGE.getGraph(), true));
 
     ServiceFactory serviceFactory =
         ApiTestUtils.mockServiceFactory(
@@ -55,6 +89,13 @@ class OpenLineageResourceTest {
         ResourceExtension.builder()
             .addResource(new OpenLineageResource(serviceFactory, openLineageDao))
             .build();
+
+    INGESTION_QUEUE = mock(IngestionQueue.class);
+    QUEUED_UNDER_TEST =
+        ResourceExtension.builder()
+            .addResource(
+                new OpenLineageResource(serviceFactory, openLineageDao, INGESTION_QUEUE, 3))
+            .build();
   }
 
   @Test
@@ -70,6 +111,22 @@ class OpenLineageResourceTest {
     assertEquals(lineage, LINEAGE);
   }
 
+  @Test
+  public void testGetLineageDownstreamWithMaxNodes() {
+    final Lineage lineage =
+        UNDER_TEST
+            .target("/api/v1/lineage")
+            .queryParam("nodeId", "job:test-namespace:test-job")
+            .queryParam("direction", "DOWNSTREAM")
+            .queryParam("maxNodes", 10)
+            .request()
+            .get()
+            .readEntity(Lineage.class);
+
+    assertEquals(lineage.getGraph(), LINEAGE.getGraph());
+    assertThat(lineage.isTruncated()).isTrue();
+  }
+
   @Test
   public void testGetLineageEventsBadSort() {
     final Response response =
@@ -81,4 +138,119 @@ class OpenLineageResourceTest {
 
     assertEquals(response.getStatus(), 400);
   }
+
+  @Test
+  public void testGetLineageEventsWithCursor() {
+    final Instant eventTime = Instant.parse("2024-01-01T00:00:00Z");
+    final LineageEvent event = LineageEvent.builder().eventType("COMPLETE").build();
+    when(OPEN_LINEAGE_DAO.getLineageEventsDesc(any(), any(), any(), anyLong(), eq(1)))
+        .thenReturn(List.of(new LineageEventRow(eventTime, 42, event)));
+
+    final Map<String, Object> page =
+        UNDER_TEST
+            .target("/api/v1/events/lineage")
+            .queryParam("limit", 1)
+            .queryParam("includeTotalCount", false)
+            .request()
+            .get()
+            .readEntity(new GenericType<>() {});
+
+    assertThat(page).doesNotContainKey("totalCount").containsKey("nextCursor");
+    final String nextCursor = (String) page.get("nextCursor");
+    assertThat(EventsCursor.decode(nextCursor)).isEqualTo(new EventsCursor(eventTime, 42));
+
+    UNDER_TEST
+        .target("/api/v1/events/lineage")
+        .queryParam("limit", 1)
+        .queryParam("cursor", nextCursor)
+        .request()
+        .get();
+    verify(OPEN_LINEAGE_DAO).getLineageEventsDesc(any(), any(), eq(eventTime), eq(42L), eq(1));
+  }
+
+  @Test
+  public void testGetLineageEventsBadCursor() {
+    final Response response =
+        UNDER_TEST
+            .target("/api/v1/events/lineage")
+            .queryParam("cursor", "not-a-cursor")
+            .request()
+            .get();
+
+    assertEquals(response.getStatus(), 400);
+  }
+
+  @Test
+  public void testExportLineageEvents() throws IOException {
+    doAnswer(
+            invocation -> {
+              final Consumer<String> consumer = invocation.getArgument(4);
+              consumer.accept("{\"eventType\":\"START\"}");
+              consumer.accept("{\"eventType\":\"COMPLETE\"}");
+              return null;
+            })
+        .when(OPEN_LINEAGE_DAO)
+        .streamLineageEvents(any(), any(), eq("export-namespace"), anyInt(), any());
+
+    final Response response =
+        UNDER_TEST
+            .target("/api/v1/events/lineage/export")
+            .queryParam("namespace", "export-namespace")
+            .queryParam("gzip", true)
+            .request()
+            .get();
+
+    assertThat(response.getHeaderString(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    try (InputStream in = new GZIPInputStream(response.readEntity(InputStream.class))) {
+      assertThat(new String(in.readAllBytes(), UTF_8))
+          .isEqualTo("{\"eventType\":\"START\"}\n{\"eventType\":\"COMPLETE\"}\n");
+    }
+  }
+
+  @Test
+  public void testCreateBatchRejectsEventsFollowingRejectedEvent() throws IOException {
+    when(INGESTION_QUEUE.enqueue(any(BaseEvent.class)))
+        .thenReturn(OptionalInt.of(0), OptionalInt.empty(), OptionalInt.of(0));
+    final String event;
+    try (InputStream in =
+        OpenLineageResourceTest.class.getResourceAsStream(
+            "/open_lineage/event_required_only.json")) {
+      event = new String(in.readAllBytes(), UTF_8);
+    }
+
+    final Response response =
+        QUEUED_UNDER_TEST
+            .target("/api/v1/lineage/batch")
+            .request()
+            .post(Entity.json(String.format("[%s, %s, %s]", event, event, event)));
+
+    assertThat(response.getStatus()).isEqualTo(429);
+    final Map<String, List<Map<String, Object>>> results =
+        response.readEntity(new GenericType<>() {});
+    assertThat(results.get("results"))
+        .extracting(result -> result.get("status"))
+        .containsExactly(202, 429, 429);
+    // Events following a rejected event are not enqueued, to keep the events of a run in order.
+    verify(INGESTION_QUEUE, times(2)).enqueue(any(BaseEvent.class));
+  }
+
+  @Test
+  public void testCreateBatchRejectsBatchOverMaxBatchSize() throws IOException {
+    reset(INGESTION_QUEUE);
+    final String event;
+    try (InputStream in =
+        OpenLineageResourceTest.class.getResourceAsStream(
+            "/open_lineage/event_required_only.json")) {
+      event = new String(in.readAllBytes(), UTF_8);
+    }
+
+    final Response response =
+        QUEUED_UNDER_TEST
+            .target("/api/v1/lineage/batch")
+            .request()
+            .post(Entity.json(String.format("[%s, %s, %s, %s]", event, event, event, event)));
+
+    assertThat(response.getStatus()).isEqualTo(413);
+    verify(INGESTION_QUEUE, never()).enqueue(any(BaseEvent.class));
+  }
 }
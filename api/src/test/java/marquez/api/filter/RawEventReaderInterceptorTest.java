@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.api.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import marquez.common.Utils;
+import marquez.service.models.LineageEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@org.junit.jupiter.api.Tag("UnitTests")
+@ExtendWith(MockitoExtension.class)
+public class RawEventReaderInterceptorTest {
+  private static final String EVENT =
+      "{\"eventType\":\"START\",\"producer\":\"https://test\",\"custom\":{\"a\":1}}";
+
+  @Mock private ReaderInterceptorContext context;
+
+  @Test
+  public void testRawEventKept() throws Exception {
+    final AtomicReference<InputStream> in =
+        new AtomicReference<>(new ByteArrayInputStream(EVENT.getBytes(StandardCharsets.UTF_8)));
+    doReturnType(LineageEvent.class);
+    when(context.getInputStream()).thenAnswer(invocation -> in.get());
+    doAnswer(
+            invocation -> {
+              in.set(invocation.getArgument(0));
+              return null;
+            })
+        .when(context)
+        .setInputStream(any());
+    when(context.proceed())
+        .thenAnswer(invocation -> Utils.getMapper().readValue(in.get(), LineageEvent.class));
+
+    final Object entity = new RawEventReaderInterceptor().aroundReadFrom(context);
+
+    assertThat(entity).isInstanceOf(LineageEvent.class);
+    final LineageEvent event = (LineageEvent) entity;
+    assertThat(event.getEventType()).isEqualTo("START");
+    assertThat(new String(event.getRawEvent(), StandardCharsets.UTF_8)).isEqualTo(EVENT);
+  }
+
+  @Test
+  public void testOtherEntitiesStreamed() throws Exception {
+    doReturnType(String.class);
+    when(context.proceed()).thenReturn("entity");
+
+    assertThat(new RawEventReaderInterceptor().aroundReadFrom(context)).isEqualTo("entity");
+    verify(context, never()).getInputStream();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void doReturnType(Class<?> type) {
+    when(context.getType()).thenReturn((Class) type);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import marquez.api.JdbiUtils;
+import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+@ExtendWith(MarquezJdbiExternalPostgresExtension.class)
+public class BulkLoaderTest {
+  private static final String EVENT =
+      "{\"eventType\":\"%s\",\"eventTime\":\"%s\",\"run\":{\"runId\":\"%s\"},"
+          + "\"job\":{\"namespace\":\"bulk-namespace\",\"name\":\"bulk-job\"},"
+          + "\"outputs\":[{\"namespace\":\"bulk-namespace\",\"name\":\"bulk-output\"}],"
+          + "\"producer\":\"https://test\","
+          + "\"schemaURL\":\"https://openlineage.io/spec/1-0-5/OpenLineage.json"
+          + "#/definitions/RunEvent\"}";
+
+  private static Jdbi jdbi;
+
+  @TempDir Path dir;
+
+  @BeforeAll
+  public static void setUpOnce(Jdbi jdbi) {
+    BulkLoaderTest.jdbi = jdbi;
+  }
+
+  @AfterEach
+  public void tearDown(Jdbi jdbi) {
+    JdbiUtils.cleanDatabase(jdbi);
+  }
+
+  @Test
+  public void testLoadAndResume() throws Exception {
+    final String firstRun = UUID.randomUUID().toString();
+    final String secondRun = UUID.randomUUID().toString();
+    final Path events = Files.createDirectory(dir.resolve("events")).resolve("events.ndjson");
+    Files.write(
+        events,
+        List.of(
+            String.format(EVENT, "START", "2024-01-01T00:00:00Z", firstRun),
+            String.format(EVENT, "START", "2024-01-01T00:01:00Z", secondRun),
+            "",
+            String.format(EVENT, "COMPLETE", "2024-01-01T00:02:00Z", firstRun)),
+        UTF_8);
+    final Path checkpoint = dir.resolve("load.checkpoint");
+
+    new BulkLoader(jdbi, 2, true, checkpoint).load(List.of(events.getParent()));
+
+    assertThat(count("SELECT count(*) FROM lineage_events")).isEqualTo(3);
+    // The model is updated by the loader; its raw events are not projected again.
+    assertThat(count("SELECT count(*) FROM lineage_events WHERE projected IS NULL")).isZero();
+    assertThat(count("SELECT count(*) FROM runs")).isEqualTo(2);
+    assertThat(
+            count(
+                "SELECT count(*) FROM runs WHERE uuid = '"
+                    + firstRun
+                    + "' AND current_run_state = 'COMPLETED'"))
+        .isEqualTo(1);
+    assertThat(Files.readString(checkpoint)).contains("line=4");
+
+    // Events up to the checkpoint are not loaded again.
+    Files.writeString(
+        events,
+        String.format(EVENT, "COMPLETE", "2024-01-01T00:03:00Z", secondRun) + "\n",
+        UTF_8,
+        StandardOpenOption.APPEND);
+    new BulkLoader(jdbi, 2, true, checkpoint).load(List.of(events));
+
+    assertThat(count("SELECT count(*) FROM lineage_events")).isEqualTo(4);
+    assertThat(Files.readString(checkpoint)).contains("line=5");
+  }
+
+  private static int count(String sql) {
+    return jdbi.withHandle(h -> h.createQuery(sql).mapTo(Integer.class).one());
+  }
+}
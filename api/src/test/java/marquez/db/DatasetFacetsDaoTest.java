@@ -369,6 +369,54 @@ public class DatasetFacetsDaoTest {
         .isEqualTo("{\"inputFacet2\": \"{some-facet2}\"}");
   }
 
+  @Test
+  public void testInsertDatasetFacetsOfInputAndOutputDatasets() {
+    JobFacet jobFacet = JobFacet.builder().build();
+
+    UpdateLineageRow lineageRow =
+        LineageTestUtils.createLineageRow(
+            openLineageDao,
+            "job_" + UUID.randomUUID(),
+            "COMPLETE",
+            jobFacet,
+            Arrays.asList(
+                new Dataset(
+                    "namespace",
+                    "dataset_input",
+                    LineageEvent.DatasetFacets.builder()
+                        .documentation(
+                            new LineageEvent.DocumentationDatasetFacet(
+                                PRODUCER_URL, SCHEMA_URL, "input-doc"))
+                        .build(),
+                    LineageEvent.InputDatasetFacets.builder()
+                        .additional(ImmutableMap.of("inputFacet1", "{some-facet1}"))
+                        .build(),
+                    null)),
+            Arrays.asList(
+                new Dataset(
+                    "namespace",
+                    "dataset_output",
+                    null,
+                    null,
+                    LineageEvent.OutputDatasetFacets.builder()
+                        .additional(ImmutableMap.of("outputFacet1", "{some-facet1}"))
+                        .build())),
+            null);
+
+    assertThat(getDatasetFacet(lineageRow, "documentation"))
+        .hasFieldOrPropertyWithValue(
+            "datasetUuid", lineageRow.getInputs().get().get(0).getDatasetRow().getUuid())
+        .hasFieldOrPropertyWithValue("type", DatasetFacetsDao.Type.DATASET);
+    assertThat(getDatasetFacet(lineageRow, "inputFacet1"))
+        .hasFieldOrPropertyWithValue(
+            "datasetUuid", lineageRow.getInputs().get().get(0).getDatasetRow().getUuid())
+        .hasFieldOrPropertyWithValue("type", DatasetFacetsDao.Type.INPUT);
+    assertThat(getDatasetFacet(lineageRow, "outputFacet1"))
+        .hasFieldOrPropertyWithValue(
+            "datasetUuid", lineageRow.getOutputs().get().get(0).getDatasetRow().getUuid())
+        .hasFieldOrPropertyWithValue("type", DatasetFacetsDao.Type.OUTPUT);
+  }
+
   private UpdateLineageRow createLineageRowWithInputDataset(
       LineageEvent.DatasetFacets.DatasetFacetsBuilder inputDatasetFacetsbuilder) {
     JobFacet jobFacet = JobFacet.builder().build();
@@ -3,6 +3,7 @@ package marquez.db;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import marquez.api.JdbiUtils;
 import marquez.common.models.DatasetType;
@@ -11,6 +12,7 @@ import marquez.db.models.DatasetRow;
 import marquez.db.models.NamespaceRow;
 import marquez.db.models.SourceRow;
 import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import marquez.service.models.LineageEvent.SchemaField;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -100,4 +102,60 @@ class DatasetFieldDaoTest {
     assertThat(row1.getUuid()).isEqualTo(row2.getUuid());
     assertThat(row1.getType()).isEqualTo("UNKNOWN");
   }
-}
\ No newline at end of file
+
+  @Test
+  void testUpsertAllFields() {
+    NamespaceRow namespace =
+        namespaceDao.upsertNamespaceRow(UUID.randomUUID(), Instant.now(), NAMESPACE, OWNER);
+
+    SourceRow source =
+        sourceDao.upsert(
+            UUID.randomUUID(), "POSTGRES", Instant.now(), SOURCE, SOURCE_CONNECTION_URL);
+
+    DatasetRow dataset =
+        datasetDao.upsert(
+            UUID.randomUUID(),
+            DatasetType.DB_TABLE,
+            Instant.now(),
+            namespace.getUuid(),
+            namespace.getName(),
+            source.getUuid(),
+            source.getName(),
+            DATASET,
+            PHYSICAL_NAME,
+            DESCRIPTION,
+            false);
+
+    UUID datasetUuid = dataset.getUuid();
+    DatasetFieldRow existing =
+        datasetFieldDao.upsert(
+            UUID.randomUUID(), Instant.now(), FIELD_NAME, "STRING", DESCRIPTION, datasetUuid);
+
+    List<DatasetFieldRow> rows =
+        datasetFieldDao.upsertAll(
+            datasetUuid,
+            List.of(
+                new SchemaField(FIELD_NAME, "STRING", "updated description"),
+                new SchemaField("other_field", null, DESCRIPTION),
+                new SchemaField("other_field", null, "duplicate description")),
+            Instant.now());
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows)
+        .filteredOn(row -> row.getName().equals(FIELD_NAME))
+        .singleElement()
+        .satisfies(
+            row -> {
+              assertThat(row.getUuid()).isEqualTo(existing.getUuid());
+              assertThat(row.getDescription()).contains("updated description");
+            });
+    assertThat(rows)
+        .filteredOn(row -> row.getName().equals("other_field"))
+        .singleElement()
+        .satisfies(
+            row -> {
+              assertThat(row.getType()).isEqualTo("UNKNOWN");
+              assertThat(row.getDescription()).contains("duplicate description");
+            });
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import marquez.service.models.LineageEvent.Dataset;
+import marquez.service.models.LineageEvent.JobFacet;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.jackson2.Jackson2Plugin;
+import org.jdbi.v3.postgres.PostgresPlugin;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.jdbi.v3.testing.junit5.JdbiExtension;
+import org.jdbi.v3.testing.junit5.tc.JdbiTestcontainersExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.postgresql.util.PGobject;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/** The test suite for {@link DbPartitions}, run against a seeded database once partitioned. */
+@Tag("DataAccessTests, IntegrationTests")
+@Testcontainers
+public class DbPartitionsTest {
+  private static final int RETENTION_DAYS = 30;
+  private static final Instant OLDER_THAN_X_DAYS = Instant.now().minus(RETENTION_DAYS + 10, DAYS);
+  private static final DateTimeFormatter PARTITION_SUFFIX =
+      DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+  static final DockerImageName POSTGRES_16 = DockerImageName.parse("postgres:16");
+
+  @Container
+  @Order(1)
+  static final PostgreSQLContainer<?> DB_CONTAINER = new PostgreSQLContainer<>(POSTGRES_16);
+
+  // Partitioning cannot be undone; the database is not shared with other test suites.
+  @RegisterExtension
+  @Order(2)
+  static final JdbiExtension jdbiExtension =
+      JdbiTestcontainersExtension.instance(DB_CONTAINER)
+          .withPlugin(new SqlObjectPlugin())
+          .withPlugin(new PostgresPlugin())
+          .withPlugin(new Jackson2Plugin())
+          .withInitializer(
+              (source, handle) -> {
+                // Apply migrations.
+                DbMigration.migrateDbOrError(source);
+              });
+
+  static Jdbi jdbi;
+  static OpenLineageDao openLineageDao;
+  static List<String> foreignKeysBefore;
+
+  @BeforeAll
+  public static void setUpOnce() throws Exception {
+    jdbi = jdbiExtension.getJdbi();
+    openLineageDao = jdbi.onDemand(OpenLineageDao.class);
+
+    // (1) Seed lineage events older than X days, then objects depending on partitioned tables.
+    for (int i = 0; i < 3; i++) {
+      insertRawEvent(OLDER_THAN_X_DAYS);
+    }
+    jdbi.useHandle(
+        handle -> {
+          handle.execute(
+              "CREATE VIEW lineage_event_types AS SELECT DISTINCT event_type FROM lineage_events");
+          handle.execute("CREATE ROLE marquez_reader");
+          handle.execute("GRANT SELECT ON lineage_events_by_type_daily_view TO marquez_reader");
+          handle.execute(
+              "COMMENT ON MATERIALIZED VIEW lineage_events_by_type_daily_view IS 'Daily events'");
+        });
+    foreignKeysBefore = foreignKeysOf("dataset_facets");
+
+    // (2) Partition tables.
+    DbPartitions.partition(jdbi, DbPartitions.DEFAULT_DAYS_AHEAD);
+  }
+
+  @Test
+  public void testPartitionKeepsDependentObjects() {
+    try (final Handle handle = jdbi.open()) {
+      for (final String table :
+          List.of("lineage_events", "dataset_facets", "run_facets", "job_facets")) {
+        assertThat(DbPartitions.isPartitioned(handle, table)).isTrue();
+      }
+      // Views and materialized views are defined on the partitioned table.
+      assertThat(
+              handle
+                  .createQuery(
+                      """
+                      SELECT DISTINCT v.relname
+                      FROM pg_depend d
+                      JOIN pg_rewrite r ON r.oid = d.objid
+                      JOIN pg_class v ON v.oid = r.ev_class
+                      WHERE d.classid = 'pg_rewrite'::regclass
+                        AND d.refobjid = 'lineage_events'::regclass
+                        AND v.oid <> d.refobjid""")
+                  .mapTo(String.class)
+                  .list())
+          .contains(
+              "lineage_event_types",
+              "lineage_events_by_type_hourly_view",
+              "lineage_events_by_type_daily_view");
+      assertThat(
+              handle
+                  .createQuery(
+                      "SELECT count(*) FROM pg_indexes "
+                          + "WHERE indexname = "
+                          + "'lineage_events_by_type_daily_view_for_start_interval_idx'")
+                  .mapTo(Integer.class)
+                  .one())
+          .isEqualTo(1);
+      assertThat(
+              handle
+                  .createQuery(
+                      "SELECT has_table_privilege('marquez_reader', "
+                          + "'lineage_events_by_type_daily_view', 'SELECT')")
+                  .mapTo(Boolean.class)
+                  .one())
+          .isTrue();
+      assertThat(
+              handle
+                  .createQuery(
+                      "SELECT obj_description("
+                          + "'lineage_events_by_type_daily_view'::regclass, 'pg_class')")
+                  .mapTo(String.class)
+                  .one())
+          .isEqualTo("Daily events");
+      // Foreign keys and owned sequences are bound to the partitioned table.
+      assertThat(foreignKeysOf("dataset_facets")).isEqualTo(foreignKeysBefore);
+      assertThat(
+              handle
+                  .createQuery(
+                      """
+                      SELECT count(*)
+                      FROM pg_depend d
+                      JOIN pg_class s ON s.oid = d.objid AND s.relname = 'lineage_events_seq'
+                      WHERE d.refobjid = 'lineage_events'::regclass AND d.deptype = 'a'""")
+                  .mapTo(Integer.class)
+                  .one())
+          .isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void testIngestionWritesRowsOncePartitioned() {
+    final String namespace = "partitions_test_" + UUID.randomUUID();
+    final String jobName = "partitioned_job_" + UUID.randomUUID();
+    final Dataset dataset =
+        new Dataset(namespace, "the_dataset", LineageTestUtils.newDatasetFacet());
+
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        jobName,
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.singletonList(dataset));
+
+    try (final Handle handle = jdbi.open()) {
+      // Rows of today are held by the partition of today.
+      final String today = "_p" + PARTITION_SUFFIX.format(Instant.now());
+      assertThat(
+              handle
+                  .createQuery(
+                      "SELECT DISTINCT tableoid::regclass::text FROM lineage_events "
+                          + "WHERE job_name = :jobName")
+                  .bind("jobName", jobName)
+                  .mapTo(String.class)
+                  .list())
+          .containsExactly("lineage_events" + today);
+      assertThat(
+              handle
+                  .createQuery(
+                      """
+                      SELECT DISTINCT f.tableoid::regclass::text
+                      FROM dataset_facets f
+                      JOIN datasets d ON d.uuid = f.dataset_uuid
+                      WHERE d.namespace_name = :namespace""")
+                  .bind("namespace", namespace)
+                  .mapTo(String.class)
+                  .list())
+          .containsExactly("dataset_facets" + today);
+    }
+  }
+
+  @Test
+  public void testCreatePartitionsMovesRowsOfDefaultPartition() throws Exception {
+    final int daysAhead = DbPartitions.DEFAULT_DAYS_AHEAD + 10;
+    final Instant eventTime = Instant.now().plus(daysAhead - 1, DAYS);
+    final UUID runUuid = insertRawEvent(eventTime);
+    assertThat(partitionOf(runUuid)).isEqualTo("lineage_events_default");
+
+    DbPartitions.createPartitions(jdbi, daysAhead);
+
+    assertThat(partitionOf(runUuid))
+        .isEqualTo("lineage_events_p" + PARTITION_SUFFIX.format(eventTime));
+  }
+
+  @Test
+  public void testRetentionDropsPartitionsOlderThanXDays() {
+    assertThat(countLineageEventsBefore(Instant.now().minus(RETENTION_DAYS, DAYS))).isEqualTo(3);
+
+    DbRetention.retentionOnDbOrError(
+        jdbi, DbRetention.DEFAULT_NUMBER_OF_ROWS_PER_BATCH, RETENTION_DAYS, false);
+
+    assertThat(countLineageEventsBefore(Instant.now().minus(RETENTION_DAYS, DAYS))).isZero();
+    // The legacy partition only held lineage events older than X days; it is dropped as a whole.
+    try (final Handle handle = jdbi.open()) {
+      assertThat(
+              handle
+                  .createQuery("SELECT to_regclass('lineage_events_legacy') IS NULL")
+                  .mapTo(Boolean.class)
+                  .one())
+          .isTrue();
+    }
+  }
+
+  private static UUID insertRawEvent(Instant eventTime) throws Exception {
+    final UUID runUuid = UUID.randomUUID();
+    final PGobject event = new PGobject();
+    event.setType("json");
+    event.setValue("{}");
+    openLineageDao.createLineageEvent(
+        "COMPLETE", eventTime, runUuid, "job", "namespace", event, "producer");
+    return runUuid;
+  }
+
+  private static String partitionOf(UUID runUuid) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    "SELECT tableoid::regclass::text FROM lineage_events WHERE run_uuid = :runUuid")
+                .bind("runUuid", runUuid)
+                .mapTo(String.class)
+                .one());
+  }
+
+  private static int countLineageEventsBefore(Instant before) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery("SELECT count(*) FROM lineage_events WHERE event_time < :before")
+                .bind("before", before)
+                .mapTo(Integer.class)
+                .one());
+  }
+
+  private static List<String> foreignKeysOf(String table) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                    SELECT pg_get_constraintdef(oid)
+                    FROM pg_constraint
+                    WHERE conrelid = to_regclass(:table) AND contype = 'f'
+                    ORDER BY 1""")
+                .bind("table", table)
+                .mapTo(String.class)
+                .list());
+  }
+}
@@ -726,4 +726,49 @@ public class DbRetentionTest {
       fail("failed to apply retention policy", e);
     }
   }
+
+  @Test
+  public void testRetentionOnDbOrErrorWithUnreferencedFacetPayloads() {
+    // (1) Add facet payloads: unreferenced for more than two days; unreferenced, but referenced
+    // recently; and referenced by a facet row.
+    try (final Handle handle = DB.open()) {
+      handle.execute(
+          """
+          INSERT INTO facet_payloads (hash, facet, referenced_at) VALUES
+            ('\\x01', '{"unreferenced": true}', NOW() - INTERVAL '3 days'),
+            ('\\x02', '{"recent": true}', NOW()),
+            ('\\x03', '{"referenced": true}', NOW() - INTERVAL '3 days')""");
+      handle.execute(
+          """
+          INSERT INTO run_facets
+            (created_at, lineage_event_time, lineage_event_type, name, facet_hash)
+          VALUES (NOW(), NOW(), 'COMPLETE', 'referenced', '\\x03')""");
+    }
+
+    // (2) Apply retention policy as dry run, then for real.
+    try {
+      DbRetention.retentionOnDbOrError(
+          jdbiExtension.getJdbi(), NUMBER_OF_ROWS_PER_BATCH, RETENTION_DAYS, DRY_RUN);
+      try (final Handle handle = DB.open()) {
+        assertThat(facetPayloadsCount(handle)).isEqualTo(3);
+      }
+      DbRetention.retentionOnDbOrError(
+          jdbiExtension.getJdbi(), NUMBER_OF_ROWS_PER_BATCH, RETENTION_DAYS);
+      // (3) Only the payload unreferenced for more than two days has been deleted.
+      try (final Handle handle = DB.open()) {
+        assertThat(
+                handle
+                    .createQuery("SELECT facet::text FROM facet_payloads ORDER BY hash")
+                    .mapTo(String.class)
+                    .list())
+            .containsExactly("{\"recent\": true}", "{\"referenced\": true}");
+      }
+    } catch (DbRetentionException e) {
+      fail("failed to apply retention policy", e);
+    }
+  }
+
+  private static int facetPayloadsCount(Handle handle) {
+    return handle.createQuery("SELECT COUNT(*) FROM facet_payloads").mapTo(Integer.class).one();
+  }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import marquez.common.Utils;
+import marquez.ingestion.IngestionConfig.CompressionConfig;
+import marquez.ingestion.IngestionConfig.CompressionConfig.Codec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+@org.junit.jupiter.api.Tag("UnitTests")
+public class FacetUtilsTest {
+  @AfterEach
+  public void tearDown() {
+    FacetUtils.use(new CompressionConfig());
+  }
+
+  @Test
+  public void testCompressIfOversized() throws JsonProcessingException {
+    use(Codec.GZIP);
+    final JsonNode small = facet(16);
+    final JsonNode large = facet(4096);
+
+    assertThat(Utils.toJson(FacetUtils.compressIfOversized(small)))
+        .isEqualTo(Utils.toJson(small));
+    final JsonNode compressed =
+        Utils.getMapper().valueToTree(FacetUtils.compressIfOversized(large));
+    assertThat(compressed.has(FacetUtils.COMPRESSED)).isTrue();
+    assertThat(Utils.toJson(compressed).length()).isLessThan(Utils.toJson(large).length());
+    assertThat(FacetUtils.decompress(compressed)).isEqualTo(large);
+  }
+
+  @Test
+  public void testCompressAndDecompressFacetsOfEvent() throws JsonProcessingException {
+    use(Codec.DEFLATE);
+    final ObjectNode event = Utils.getMapper().createObjectNode();
+    event.put("eventType", "COMPLETE");
+    event.putObject("run").putObject("facets").set("spark_logicalPlan", facet(4096));
+    event.putArray("outputs").addObject().putObject("facets").set("schema", facet(16));
+    final JsonNode original = event.deepCopy();
+
+    FacetUtils.compressFacets(event);
+    assertThat(event.at("/run/facets/spark_logicalPlan").has(FacetUtils.COMPRESSED)).isTrue();
+    assertThat(event.at("/outputs/0/facets/schema"))
+        .isEqualTo(original.at("/outputs/0/facets/schema"));
+
+    FacetUtils.decompressFacets(event);
+    assertThat(event).isEqualTo(original);
+  }
+
+  @Test
+  public void testDisabled() {
+    final JsonNode large = facet(4096);
+    assertThat(FacetUtils.compressIfOversized(large)).isSameAs(large);
+  }
+
+  private static void use(Codec codec) throws JsonProcessingException {
+    FacetUtils.use(
+        Utils.getMapper()
+            .readValue(
+                String.format(
+                    "{\"enabled\": true, \"thresholdBytes\": 1024, \"codec\": \"%s\"}", codec),
+                CompressionConfig.class));
+  }
+
+  private static JsonNode facet(int size) {
+    final ObjectNode facet = Utils.getMapper().createObjectNode();
+    facet.put("_producer", "https://github.com/MarquezProject/marquez");
+    facet.put("plan", "a".repeat(size));
+    return facet;
+  }
+}
@@ -122,6 +122,41 @@ public class JobFacetsDaoTest {
         .isEqualTo("some sql query");
   }
 
+  @Test
+  public void testFindJobWithDeduplicatedFacets() {
+    final String jobName = "job_" + UUID.randomUUID();
+    FacetUtils.useDeduplication(true);
+    try {
+      LineageTestUtils.createLineageRow(
+          openLineageDao,
+          jobName,
+          "COMPLETE",
+          JobFacet.builder()
+              .sql(new LineageEvent.SQLJobFacet(PRODUCER_URL, SCHEMA_URL, "some sql query"))
+              .build(),
+          Collections.emptyList(),
+          Collections.emptyList());
+    } finally {
+      FacetUtils.useDeduplication(false);
+    }
+
+    assertThat(
+            jdbi.withHandle(
+                h ->
+                    h.createQuery(
+                            "SELECT COUNT(*) FROM job_facets "
+                                + "WHERE name = 'sql' AND facet IS NULL AND facet_hash IS NOT NULL")
+                        .mapTo(Integer.class)
+                        .one()))
+        .isEqualTo(1);
+    assertThat(jdbi.onDemand(JobDao.class).findJobByName(LineageTestUtils.NAMESPACE, jobName))
+        .isPresent()
+        .get()
+        .extracting(job -> job.getFacets().get("sql"))
+        .extracting("query")
+        .isEqualTo("some sql query");
+  }
+
   private List<JobFacetsDao.JobFacetRow> getJobFacetRow() {
     return jdbi.withHandle(
         h ->
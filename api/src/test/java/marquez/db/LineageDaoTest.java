@@ -12,6 +12,7 @@ import static marquez.db.LineageTestUtils.SCHEMA_URL;
 import static marquez.db.LineageTestUtils.newDatasetFacet;
 import static marquez.db.LineageTestUtils.writeDownstreamLineage;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.google.common.base.Functions;
 import java.sql.SQLException;
@@ -84,6 +85,47 @@ public class LineageDaoTest {
     JdbiUtils.cleanDatabase(jdbi);
   }
 
+  @Test
+  public void testLineageEdgesFollowCurrentJobVersion() {
+    final Dataset otherDataset =
+        new Dataset(
+            NAMESPACE,
+            "otherDataset",
+            newDatasetFacet(new SchemaField("firstname", "string", "the first name")));
+    UpdateLineageRow firstVersion =
+        LineageTestUtils.createLineageRow(
+            openLineageDao,
+            "writeJob",
+            "COMPLETE",
+            jobFacet,
+            Arrays.asList(),
+            Arrays.asList(dataset));
+    final UUID jobUuid = firstVersion.getJob().getUuid();
+    assertThat(lineageDao.getCurrentJobIo(jobUuid))
+        .extracting(LineageDao.JobIoRow::datasetUuid, LineageDao.JobIoRow::ioType)
+        .containsExactly(
+            tuple(firstVersion.getOutputs().get().get(0).getDatasetRow().getUuid(), "OUTPUT"));
+
+    // A new version of the job writes another dataset; the edge to the first dataset is removed.
+    UpdateLineageRow secondVersion =
+        LineageTestUtils.createLineageRow(
+            openLineageDao,
+            "writeJob",
+            "COMPLETE",
+            jobFacet,
+            Arrays.asList(dataset),
+            Arrays.asList(otherDataset));
+    assertThat(lineageDao.getCurrentJobIo(jobUuid))
+        .extracting(LineageDao.JobIoRow::datasetUuid, LineageDao.JobIoRow::ioType)
+        .containsExactlyInAnyOrder(
+            tuple(secondVersion.getInputs().get().get(0).getDatasetRow().getUuid(), "INPUT"),
+            tuple(secondVersion.getOutputs().get().get(0).getDatasetRow().getUuid(), "OUTPUT"));
+
+    // Edges are removed with their job versions.
+    jdbi.useHandle(handle -> handle.execute("DELETE FROM job_versions_io_mapping"));
+    assertThat(lineageDao.getCurrentJobIo()).isEmpty();
+  }
+
   @Test
   public void testGetLineage() {
 
@@ -22,6 +22,7 @@ public class LineageStatisticsTest {
   private static DatasetFacetsDao datasetFacetsDao;
   private static OpenLineageDao openLineageDao;
   private static DatasetDao datasetDao;
+  private static JobDao jobDao;
   private Jdbi jdbi;
 
   @BeforeAll
@@ -29,6 +30,7 @@ public class LineageStatisticsTest {
     datasetFacetsDao = jdbi.onDemand(DatasetFacetsDao.class);
     openLineageDao = jdbi.onDemand(OpenLineageDao.class);
     datasetDao = jdbi.onDemand(DatasetDao.class);
+    jobDao = jdbi.onDemand(JobDao.class);
   }
 
   @BeforeEach
@@ -70,6 +72,142 @@ public class LineageStatisticsTest {
     assertLineageStatistics(namespace, datasetName, 1, 1, "[\"" + namespace + "\"]", "[\"" + namespace + "\"]");
   }
 
+  @Test
+  public void testLineageStatisticsNotRewrittenWhenUnchanged() {
+    String namespace = "lineage_stats_test_" + UUID.randomUUID();
+    String datasetName = "the_dataset";
+    Dataset dataset = new Dataset(namespace, datasetName, LineageTestUtils.newDatasetFacet());
+
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "producer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.singletonList(dataset));
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "consumer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.singletonList(dataset),
+        Collections.emptyList());
+
+    UUID datasetUuid = datasetDao.getUuid(namespace, datasetName).get().getUuid();
+    int facets = countDatasetFacets(datasetUuid, "lineageStatistics");
+
+    // Another run of the same consumer reads the same version; the statistics are unchanged.
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "consumer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.singletonList(dataset),
+        Collections.emptyList());
+
+    assertThat(countDatasetFacets(datasetUuid, "lineageStatistics")).isEqualTo(facets);
+    assertLineageStatistics(
+        namespace, datasetName, 1, 1, "[\"" + namespace + "\"]", "[\"" + namespace + "\"]");
+  }
+
+  @Test
+  public void testLineageStatisticsWhenJobNoLongerReadsDataset() {
+    String namespace = "lineage_stats_test_" + UUID.randomUUID();
+    String datasetName = "the_dataset";
+    Dataset dataset = new Dataset(namespace, datasetName, LineageTestUtils.newDatasetFacet());
+    Dataset otherDataset =
+        new Dataset(namespace, "other_dataset", LineageTestUtils.newDatasetFacet());
+
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "producer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.singletonList(dataset));
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "consumer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.singletonList(dataset),
+        Collections.emptyList());
+    assertLineageStatistics(
+        namespace, datasetName, 1, 1, "[\"" + namespace + "\"]", "[\"" + namespace + "\"]");
+
+    // A new version of the consumer reads another dataset.
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "consumer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.singletonList(otherDataset),
+        Collections.emptyList());
+
+    assertLineageStatistics(namespace, datasetName, 1, 0, "[]", "[\"" + namespace + "\"]");
+  }
+
+  @Test
+  public void testLineageStatisticsWhenJobHidden() {
+    String namespace = "lineage_stats_test_" + UUID.randomUUID();
+    String datasetName = "the_dataset";
+    Dataset dataset = new Dataset(namespace, datasetName, LineageTestUtils.newDatasetFacet());
+
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "producer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.singletonList(dataset));
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "consumer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.singletonList(dataset),
+        Collections.emptyList());
+    assertLineageStatistics(
+        namespace, datasetName, 1, 1, "[\"" + namespace + "\"]", "[\"" + namespace + "\"]");
+
+    jobDao.delete(namespace, "consumer_job");
+
+    UUID datasetUuid = datasetDao.getUuid(namespace, datasetName).get().getUuid();
+    assertThat(
+            jdbi.withHandle(
+                h ->
+                    h.createQuery(
+                            "SELECT is_stale FROM dataset_lineage_statistics "
+                                + "WHERE dataset_uuid = :datasetUuid")
+                        .bind("datasetUuid", datasetUuid)
+                        .mapTo(Boolean.class)
+                        .one()))
+        .isTrue();
+
+    // The statistics are materialized again on the next run writing the dataset.
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "producer_job",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.singletonList(dataset));
+
+    assertLineageStatistics(namespace, datasetName, 1, 0, "[]", "[\"" + namespace + "\"]");
+  }
+
+  private int countDatasetFacets(UUID datasetUuid, String facetName) {
+    return jdbi.withHandle(
+        h ->
+            h.createQuery(
+                    "SELECT count(*) FROM dataset_facets "
+                        + "WHERE name = :facetName AND dataset_uuid = :datasetUuid")
+                .bind("facetName", facetName)
+                .bind("datasetUuid", datasetUuid)
+                .mapTo(Integer.class)
+                .one());
+  }
+
   private void assertLineageStatistics(
       String namespace, String datasetName, int expectedInEdges, int expectedOutEdges, String expectedConsumingNamespaces, String expectedProducingNamespaces) {
 
@@ -11,15 +11,23 @@ import static marquez.db.LineageTestUtils.SCHEMA_URL;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import marquez.api.models.EventsCursor;
+import marquez.common.Utils;
 import marquez.common.models.DatasetName;
 import marquez.common.models.DatasetVersionId;
 import marquez.common.models.NamespaceName;
+import marquez.db.OpenLineageDao.LineageEventRow;
 import marquez.db.models.UpdateLineageRow;
 import marquez.db.models.UpdateLineageRow.DatasetRecord;
 import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
@@ -29,6 +37,7 @@ import marquez.service.models.LineageEvent.DatasetFacets;
 import marquez.service.models.LineageEvent.DocumentationJobFacet;
 import marquez.service.models.LineageEvent.Job;
 import marquez.service.models.LineageEvent.JobFacet;
+import marquez.service.models.LineageEvent.RunFacet;
 import marquez.service.models.LineageEvent.SchemaDatasetFacet;
 import marquez.service.models.LineageEvent.SchemaField;
 import marquez.service.models.Run;
@@ -38,6 +47,7 @@ import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.postgresql.util.PGobject;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableMap;
 
 @ExtendWith(MarquezJdbiExternalPostgresExtension.class)
@@ -59,6 +69,7 @@ class OpenLineageDaoTest {
   private static NamespaceDao namespaceDao;
   private static DatasetFieldDao datasetFieldDao;
   private static RunDao runDao;
+  private static DatasetVersionDao datasetVersionDao;
   private final DatasetFacets datasetFacets =
       LineageTestUtils.newDatasetFacet(
           new SchemaField("name", "STRING", "my name"), new SchemaField("age", "INT", "my age"));
@@ -70,6 +81,7 @@ class OpenLineageDaoTest {
     namespaceDao = jdbi.onDemand(NamespaceDao.class);
     datasetFieldDao = jdbi.onDemand(DatasetFieldDao.class);
     runDao = jdbi.onDemand(RunDao.class);
+    datasetVersionDao = jdbi.onDemand(DatasetVersionDao.class);
   }
 
   /** When reading a dataset, the version is assumed to be the version last written */
@@ -114,6 +126,43 @@ class OpenLineageDaoTest {
         .containsExactlyInAnyOrder("name", "age");
   }
 
+  /** Outputs sent again within the same run, as by RUNNING events, reuse the written version. */
+  @Test
+  void testUpdateMarquezModelWithRepeatedOutputs() {
+    JobFacet jobFacet = JobFacet.builder().build();
+    UUID runId = UUID.randomUUID();
+    List<Dataset> outputs = Arrays.asList(new Dataset(NAMESPACE, DATASET_NAME, datasetFacets));
+    int versionsBefore = datasetVersionDao.countDatasetVersions(NAMESPACE, DATASET_NAME);
+
+    UpdateLineageRow running =
+        LineageTestUtils.createLineageRow(
+            dao,
+            WRITE_JOB_NAME,
+            runId,
+            "RUNNING",
+            jobFacet,
+            Arrays.asList(),
+            outputs,
+            null,
+            ImmutableMap.of());
+    UpdateLineageRow complete =
+        LineageTestUtils.createLineageRow(
+            dao,
+            WRITE_JOB_NAME,
+            runId,
+            "COMPLETE",
+            jobFacet,
+            Arrays.asList(),
+            outputs,
+            null,
+            ImmutableMap.of());
+
+    assertThat(complete.getOutputs().get().get(0).getDatasetVersionRow())
+        .isEqualTo(running.getOutputs().get().get(0).getDatasetVersionRow());
+    assertThat(datasetVersionDao.countDatasetVersions(NAMESPACE, DATASET_NAME))
+        .isEqualTo(versionsBefore + 1);
+  }
+
   @Test
   void testUpdateMarquezModelWithDatasetEvent() {
     UpdateLineageRow datasetEventRow =
@@ -434,6 +483,47 @@ class OpenLineageDaoTest {
         .isEqualTo("some-type");
   }
 
+  /** Namespaces and symlinks referenced by several datasets of one event are resolved once. */
+  @Test
+  void testUpdateMarquezModelWithDatasetsSharingNamespaceAndSymlinks() {
+    DatasetFacets facets =
+        DatasetFacets.builder()
+            .symlinks(
+                new LineageEvent.DatasetSymlinkFacet(
+                    PRODUCER_URL,
+                    SCHEMA_URL,
+                    Collections.singletonList(
+                        new LineageEvent.SymlinkIdentifier(
+                            "sharedSymlinkNamespace", "sharedSymlinkName", "some-type"))))
+            .build();
+
+    JobFacet jobFacet = JobFacet.builder().build();
+    UpdateLineageRow lineageRow =
+        LineageTestUtils.createLineageRow(
+            dao,
+            WRITE_JOB_NAME,
+            "COMPLETE",
+            jobFacet,
+            Arrays.asList(
+                new Dataset(NAMESPACE, DATASET_NAME, facets),
+                new Dataset(NAMESPACE, INPUT_DATASET, DatasetFacets.builder().build())),
+            Arrays.asList(new Dataset(NAMESPACE, DATASET_NAME, facets)));
+
+    List<DatasetRecord> inputs = lineageRow.getInputs().get();
+    List<DatasetRecord> outputs = lineageRow.getOutputs().get();
+    assertThat(inputs).hasSize(2);
+    assertThat(inputs.get(0).getDatasetRow().getUuid())
+        .isEqualTo(outputs.get(0).getDatasetRow().getUuid());
+    assertThat(inputs.get(0).getDatasetRow().getNamespaceUuid())
+        .isEqualTo(inputs.get(1).getDatasetRow().getNamespaceUuid())
+        .isEqualTo(namespaceDao.findNamespaceByName(NAMESPACE).get().getUuid());
+    assertThat(
+            symlinkDao.findDatasetSymlinkByNamespaceUuidAndName(
+                namespaceDao.findNamespaceByName("sharedSymlinkNamespace").get().getUuid(),
+                "sharedSymlinkName"))
+        .isPresent();
+  }
+
   /**
    * When reading a new dataset, a version is created and the dataset's current version is updated
    * immediately.
@@ -678,6 +768,58 @@ class OpenLineageDaoTest {
                 "outputFacet2", "{some-facet2}"));
   }
 
+  /** Events sharing the same event time are each returned once, when paging by cursor. */
+  @Test
+  void testPagingLineageEventsWithSameEventTime() throws Exception {
+    final Instant eventTime = Instant.parse("2001-02-03T04:05:06Z");
+    for (int i = 0; i < 5; i++) {
+      final UUID runUuid = UUID.randomUUID();
+      final PGobject event = new PGobject();
+      event.setType("json");
+      event.setValue(
+          Utils.toJson(
+              LineageEvent.builder()
+                  .eventType("COMPLETE")
+                  .eventTime(eventTime.atZone(ZoneOffset.UTC))
+                  .run(new LineageEvent.Run(runUuid.toString(), RunFacet.builder().build()))
+                  .job(Job.builder().namespace(NAMESPACE).name(WRITE_JOB_NAME).build())
+                  .producer(PRODUCER_URL.toString())
+                  .build()));
+      dao.createLineageEvent(
+          "COMPLETE", eventTime, runUuid, WRITE_JOB_NAME, NAMESPACE, event, "producer");
+    }
+    final ZonedDateTime before = eventTime.plusSeconds(1).atZone(ZoneOffset.UTC);
+    final ZonedDateTime after = eventTime.atZone(ZoneOffset.UTC);
+
+    final List<Long> desc = new ArrayList<>();
+    EventsCursor cursor = new EventsCursor(before.toInstant(), 0);
+    List<LineageEventRow> page;
+    do {
+      page = dao.getLineageEventsDesc(before, after, cursor.getEventTime(), cursor.getSeq(), 2);
+      page.forEach(row -> desc.add(row.seq()));
+      if (!page.isEmpty()) {
+        cursor = EventsCursor.after(page.get(page.size() - 1));
+      }
+    } while (!page.isEmpty());
+
+    final List<Long> asc = new ArrayList<>();
+    cursor = new EventsCursor(after.toInstant(), -1);
+    do {
+      page = dao.getLineageEventsAsc(before, after, cursor.getEventTime(), cursor.getSeq(), 2);
+      page.forEach(row -> asc.add(row.seq()));
+      if (!page.isEmpty()) {
+        cursor = EventsCursor.after(page.get(page.size() - 1));
+      }
+    } while (!page.isEmpty());
+
+    assertThat(desc)
+        .hasSize(5)
+        .doesNotHaveDuplicates()
+        .isSortedAccordingTo(Comparator.reverseOrder());
+    assertThat(asc).hasSize(5).doesNotHaveDuplicates().isSorted();
+    assertThat(asc).containsExactlyInAnyOrderElementsOf(desc);
+  }
+
   private Dataset getInputDataset() {
     return new Dataset(
         INPUT_NAMESPACE,
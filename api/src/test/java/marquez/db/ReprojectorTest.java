@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import javax.sql.DataSource;
+import marquez.api.JdbiUtils;
+import marquez.common.Utils;
+import marquez.common.models.RunState;
+import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import marquez.service.models.LineageEvent;
+import marquez.service.models.LineageEvent.RunFacet;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+@ExtendWith(MarquezJdbiExternalPostgresExtension.class)
+public class ReprojectorTest {
+  private static final String NAMESPACE = "reproject-namespace";
+  private static final String TARGET_SCHEMA = "reproject_target";
+
+  private static Jdbi jdbi;
+  private static OpenLineageDao openLineageDao;
+  private static RunDao runDao;
+
+  @TempDir Path dir;
+
+  @BeforeAll
+  public static void setUpOnce(Jdbi jdbi, DataSource dataSource) {
+    ReprojectorTest.jdbi = jdbi;
+    openLineageDao = jdbi.onDemand(OpenLineageDao.class);
+    runDao = jdbi.onDemand(RunDao.class);
+
+    // The model is reprojected into a schema migrated beforehand.
+    final FlywayFactory flywayFactory = new FlywayFactory();
+    flywayFactory.setSchema(TARGET_SCHEMA);
+    flywayFactory.build(dataSource).migrate();
+  }
+
+  @AfterEach
+  public void tearDown(Jdbi jdbi) {
+    JdbiUtils.cleanDatabase(jdbi);
+  }
+
+  @AfterAll
+  public static void tearDownOnce(Jdbi jdbi) {
+    jdbi.useHandle(handle -> handle.execute("DROP SCHEMA " + TARGET_SCHEMA + " CASCADE"));
+  }
+
+  @Test
+  public void testReprojectRawEvents() throws Exception {
+    final ZonedDateTime startedAt = Instant.parse("2024-01-01T00:00:00Z").atZone(ZoneId.of("UTC"));
+    final UUID firstRun = UUID.randomUUID();
+    final UUID secondRun = UUID.randomUUID();
+    insertRawEvent(firstRun, "START", startedAt);
+    insertRawEvent(secondRun, "START", startedAt.plusMinutes(1));
+    insertRawEvent(firstRun, "COMPLETE", startedAt.plusMinutes(2));
+    insertRawEvent(secondRun, "FAIL", startedAt.plusMinutes(2));
+
+    // Only raw events have been stored.
+    assertThat(runDao.findRunByUuid(firstRun)).isEmpty();
+
+    final Path checkpoint = dir.resolve("reproject.checkpoint");
+    new Reprojector(jdbi, 2, 1, Reprojector.DEFAULT_SOURCE_SCHEMA, TARGET_SCHEMA, checkpoint)
+        .reproject();
+
+    assertThat(targetRunState(firstRun)).contains(RunState.COMPLETED.name());
+    assertThat(targetRunState(secondRun)).contains(RunState.FAILED.name());
+    assertThat(Files.readString(checkpoint)).contains("2024-01-01T00\\:02\\:00Z");
+
+    // The live model is left untouched.
+    assertThat(runDao.findRunByUuid(firstRun)).isEmpty();
+  }
+
+  @Test
+  public void testRefuseToReprojectIntoLiveSchema() {
+    assertThatThrownBy(
+            () ->
+                new Reprojector(
+                        jdbi,
+                        1,
+                        1,
+                        Reprojector.DEFAULT_SOURCE_SCHEMA,
+                        Reprojector.DEFAULT_SOURCE_SCHEMA,
+                        null)
+                    .reproject())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("live schema");
+  }
+
+  private Optional<String> targetRunState(UUID runUuid) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    "SELECT current_run_state FROM " + TARGET_SCHEMA + ".runs WHERE uuid = :uuid")
+                .bind("uuid", runUuid)
+                .mapTo(String.class)
+                .findOne());
+  }
+
+  private void insertRawEvent(UUID runUuid, String eventType, ZonedDateTime eventTime) {
+    final LineageEvent event =
+        LineageEvent.builder()
+            .eventType(eventType)
+            .eventTime(eventTime)
+            .run(new LineageEvent.Run(runUuid.toString(), RunFacet.builder().build()))
+            .job(LineageEvent.Job.builder().namespace(NAMESPACE).name("reproject-job").build())
+            .inputs(Collections.emptyList())
+            .outputs(Collections.emptyList())
+            .producer(LineageTestUtils.PRODUCER_URL.toString())
+            .build();
+    openLineageDao.createLineageEvent(
+        eventType,
+        eventTime.toInstant(),
+        runUuid,
+        event.getJob().getName(),
+        event.getJob().getNamespace(),
+        openLineageDao.createJsonArray(event, Utils.getMapper()),
+        event.getProducer());
+  }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -112,6 +113,28 @@ class RunDaoTest {
             jobMeta.getOutputs().stream().map(DatasetId::getName).collect(Collectors.toSet()));
   }
 
+  @Test
+  public void getRunsByUuids() {
+    final JobMeta jobMeta = newJobMetaWith(NamespaceName.of(namespaceRow.getName()));
+    final JobRow jobRow =
+        newJobWith(jdbi, namespaceRow.getName(), newJobName().getValue(), jobMeta);
+
+    final List<RunRow> runRows =
+        IntStream.range(0, 3).mapToObj(i -> DbTestUtils.newRun(jdbi, jobRow)).toList();
+    runRows.forEach(
+        runRow ->
+            DbTestUtils.transitionRunWithOutputs(
+                jdbi, runRow.getUuid(), RunState.COMPLETED, jobMeta.getOutputs()));
+
+    final List<Run> runs =
+        runDao.findRunsByUuids(
+            List.of(runRows.get(0).getUuid(), runRows.get(2).getUuid(), UUID.randomUUID()));
+    assertThat(runs)
+        .containsExactlyInAnyOrder(
+            runDao.findRunByUuid(runRows.get(0).getUuid()).get(),
+            runDao.findRunByUuid(runRows.get(2).getUuid()).get());
+  }
+
   @Test
   public void getFindAll() {
 
@@ -12,6 +12,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -195,6 +196,69 @@ public class RunFacetsDaoTest {
         .isEqualTo("some-run-facet");
   }
 
+  @Test
+  public void testInsertRunFacetsOverParameterLimit() throws Exception {
+    // At 6 parameters per row, more than the 65535 parameters a single statement can bind.
+    final int count = 11000;
+    final Instant now = Instant.now();
+    final List<RunFacetsDao.RunFacetRow> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final PGobject facet = new PGobject();
+      facet.setType("json");
+      facet.setValue(String.format("{\"chunked-facet\": %d}", i));
+      rows.add(
+          new RunFacetsDao.RunFacetRow(
+              now, lineageRow.getRun().getUuid(), now, "COMPLETE", "chunked-facet", facet));
+    }
+
+    runFacetsDao.insertRunFacets(rows);
+
+    assertThat(getRunFacetRow("chunked-facet")).hasSize(count);
+  }
+
+  @Test
+  public void testInsertDeduplicatedRunFacets() {
+    FacetUtils.useDeduplication(true);
+    try {
+      for (int i = 0; i < 2; i++) {
+        runFacetsDao.insertRunFacetsFor(
+            lineageRow.getRun().getUuid(),
+            Instant.now(),
+            "COMPLETE",
+            new LineageEvent.RunFacet(
+                null,
+                null,
+                ImmutableMap.of().of("deduplicated-facet", "{some-repeated-facet:true}")));
+      }
+    } finally {
+      FacetUtils.useDeduplication(false);
+    }
+
+    int payloads =
+        jdbi.withHandle(
+            h ->
+                h.createQuery(
+                        "SELECT count(*) AS cnt FROM facet_payloads "
+                            + "WHERE facet -> 'deduplicated-facet' IS NOT NULL")
+                    .map(rv -> rv.getColumn("cnt", Integer.class))
+                    .one());
+    int rowsByHash =
+        jdbi.withHandle(
+            h ->
+                h.createQuery(
+                        "SELECT count(*) AS cnt FROM run_facets "
+                            + "WHERE name = 'deduplicated-facet' "
+                            + "AND facet IS NULL AND facet_hash IS NOT NULL")
+                    .map(rv -> rv.getColumn("cnt", Integer.class))
+                    .one());
+
+    assertThat(payloads).isEqualTo(1);
+    assertThat(rowsByHash).isEqualTo(2);
+    assertThat(runFacetsDao.findRunFacetsByRunUuid(lineageRow.getRun().getUuid()).getFacets())
+        .extracting("deduplicated-facet")
+        .isEqualTo("{some-repeated-facet:true}");
+  }
+
   private List<RunFacetsDao.RunFacetRow> getRunFacetRow(String name) {
     return jdbi.withHandle(
         h ->
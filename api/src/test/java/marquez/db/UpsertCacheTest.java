@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db;
+
+import static marquez.db.models.DbModelGenerator.newNamespaceRow;
+import static marquez.db.models.DbModelGenerator.newSourceRow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import marquez.db.models.NamespaceRow;
+import marquez.db.models.SourceRow;
+import marquez.ingestion.IngestionConfig.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@org.junit.jupiter.api.Tag("UnitTests")
+@ExtendWith(MockitoExtension.class)
+public class UpsertCacheTest {
+  @Mock private CacheConfig config;
+
+  @BeforeEach
+  public void setUp() {
+    when(config.isEnabled()).thenReturn(true);
+    when(config.getMaximumSize()).thenReturn(CacheConfig.MAXIMUM_SIZE);
+    when(config.getTtlSecs()).thenReturn(CacheConfig.TTL_SECS);
+    UpsertCache.use(config);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    UpsertCache.use(new CacheConfig());
+  }
+
+  @Test
+  public void testNamespace_upsertedOnceUntilInvalidated() {
+    final NamespaceRow row = newNamespaceRow();
+    final AtomicInteger upserts = new AtomicInteger();
+
+    assertThat(UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), Runnable::run))
+        .isEqualTo(row);
+    assertThat(UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), Runnable::run))
+        .isEqualTo(row);
+    assertThat(upserts).hasValue(1);
+
+    UpsertCache.invalidateNamespace(row.getName());
+    UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), Runnable::run);
+    assertThat(upserts).hasValue(2);
+  }
+
+  @Test
+  public void testSource_upsertedAgainWhenConnectionUrlChanges() {
+    final SourceRow row = newSourceRow();
+    final AtomicInteger upserts = new AtomicInteger();
+
+    UpsertCache.source(
+        row.getName(),
+        row.getType(),
+        row.getConnectionUrl(),
+        () -> upsert(upserts, row),
+        Runnable::run);
+    UpsertCache.source(
+        row.getName(),
+        row.getType(),
+        row.getConnectionUrl(),
+        () -> upsert(upserts, row),
+        Runnable::run);
+    UpsertCache.sourceOrDefault(row.getName(), () -> upsert(upserts, row), Runnable::run);
+    assertThat(upserts).hasValue(1);
+
+    UpsertCache.source(
+        row.getName(), row.getType(), "jdbc:other", () -> upsert(upserts, row), Runnable::run);
+    assertThat(upserts).hasValue(2);
+  }
+
+  @Test
+  public void testDisabled_alwaysUpserts() {
+    UpsertCache.use(new CacheConfig());
+    final NamespaceRow row = newNamespaceRow();
+    final AtomicInteger upserts = new AtomicInteger();
+
+    UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), Runnable::run);
+    UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), Runnable::run);
+    assertThat(upserts).hasValue(2);
+  }
+
+  @Test
+  public void testNamespace_notCachedUntilCommitted() {
+    final NamespaceRow row = newNamespaceRow();
+    final AtomicInteger upserts = new AtomicInteger();
+    final List<Runnable> onCommit = new ArrayList<>();
+
+    // Rolled back: the row is never published.
+    UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), onCommit::add);
+    onCommit.clear();
+    UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), onCommit::add);
+    assertThat(upserts).hasValue(2);
+
+    // Committed: the row is published.
+    onCommit.forEach(Runnable::run);
+    onCommit.clear();
+    UpsertCache.namespace(row.getName(), () -> upsert(upserts, row), onCommit::add);
+    assertThat(upserts).hasValue(2);
+    assertThat(onCommit).isEmpty();
+  }
+
+  @Test
+  public void testSource_notCachedWhenInvalidatedBeforeCommit() {
+    final SourceRow row = newSourceRow();
+    final AtomicInteger upserts = new AtomicInteger();
+    final List<Runnable> onCommit = new ArrayList<>();
+
+    UpsertCache.sourceOrDefault(row.getName(), () -> upsert(upserts, row), onCommit::add);
+    UpsertCache.invalidateSource(row.getName());
+    onCommit.forEach(Runnable::run);
+    UpsertCache.sourceOrDefault(row.getName(), () -> upsert(upserts, row), Runnable::run);
+    assertThat(upserts).hasValue(2);
+  }
+
+  private static <T> T upsert(AtomicInteger upserts, T row) {
+    upserts.incrementAndGet();
+    return row;
+  }
+}
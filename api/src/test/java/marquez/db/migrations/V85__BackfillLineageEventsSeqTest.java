@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.db.migrations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.UUID;
+import marquez.db.OpenLineageDao;
+import marquez.jdbi.JdbiExternalPostgresExtension.FlywaySkipRepeatable;
+import marquez.jdbi.JdbiExternalPostgresExtension.FlywayTarget;
+import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.postgresql.util.PGobject;
+
+@ExtendWith(MarquezJdbiExternalPostgresExtension.class)
+@FlywayTarget("84")
+@FlywaySkipRepeatable()
+public class V85__BackfillLineageEventsSeqTest {
+  static Jdbi jdbi;
+  private static OpenLineageDao openLineageDao;
+
+  @BeforeAll
+  public static void setUpOnce(Jdbi jdbi) {
+    V85__BackfillLineageEventsSeqTest.jdbi = jdbi;
+    openLineageDao = jdbi.onDemand(OpenLineageDao.class);
+  }
+
+  @Test
+  public void testBackFill() throws Exception {
+    final UUID legacyRun = UUID.randomUUID();
+    final UUID run = UUID.randomUUID();
+    insertRawEvent(legacyRun);
+    insertRawEvent(legacyRun);
+    insertRawEvent(run);
+    // Events stored before seq was added.
+    jdbi.useHandle(
+        h ->
+            h.createUpdate("UPDATE lineage_events SET seq = NULL WHERE run_uuid = :runUuid")
+                .bind("runUuid", legacyRun)
+                .execute());
+
+    final V85__BackfillLineageEventsSeq migration = new V85__BackfillLineageEventsSeq();
+    migration.setChunkSize(1);
+    runMigration(migration);
+
+    assertThat(
+            jdbi.withHandle(
+                h ->
+                    h.createQuery(
+                            """
+                            SELECT COUNT(DISTINCT seq) FROM lineage_events
+                            WHERE run_uuid = :runUuid AND projected
+                            """)
+                        .bind("runUuid", legacyRun)
+                        .mapTo(Integer.class)
+                        .one()))
+        .isEqualTo(2);
+    // Events stored since seq was added are left to be projected.
+    assertThat(
+            jdbi.withHandle(
+                h ->
+                    h.createQuery(
+                            """
+                            SELECT COUNT(*) FROM lineage_events
+                            WHERE run_uuid = :runUuid AND seq IS NOT NULL AND projected IS NULL
+                            """)
+                        .bind("runUuid", run)
+                        .mapTo(Integer.class)
+                        .one()))
+        .isEqualTo(1);
+  }
+
+  private static void insertRawEvent(UUID runUuid) throws Exception {
+    final PGobject event = new PGobject();
+    event.setType("json");
+    event.setValue("{}");
+    openLineageDao.createLineageEvent(
+        "COMPLETE", Instant.now(), runUuid, "job", "namespace", event, "producer");
+  }
+
+  private static void runMigration(V85__BackfillLineageEventsSeq migration) {
+    jdbi.useHandle(
+        handle -> {
+          try {
+            Context context =
+                new Context() {
+                  @Override
+                  public Configuration getConfiguration() {
+                    return null;
+                  }
+
+                  @Override
+                  public Connection getConnection() {
+                    return handle.getConnection();
+                  }
+                };
+            migration.migrate(context);
+          } catch (Exception e) {
+            throw new AssertionError("Unable to execute migration", e);
+          }
+        });
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.ingestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import marquez.common.Utils;
+import marquez.ingestion.IngestionConfig.QueueConfig;
+import marquez.service.OpenLineageService;
+import marquez.service.models.BaseEvent;
+import marquez.service.models.LineageEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IngestionQueueTest {
+  private OpenLineageService openLineageService;
+  private CountDownLatch release;
+  private IngestionQueue queue;
+
+  @BeforeEach
+  void setUp() {
+    openLineageService = mock(OpenLineageService.class);
+    release = new CountDownLatch(1);
+    // Blocks the workers until released, so that events remain in the queue.
+    doAnswer(
+            invocation -> {
+              release.await();
+              return null;
+            })
+        .when(openLineageService)
+        .createInTransaction(any(BaseEvent.class));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    release.countDown();
+    if (queue != null) {
+      queue.stop();
+    }
+  }
+
+  @Test
+  void testEnqueue() throws Exception {
+    queue = newQueue("{\"enabled\": true, \"capacity\": 1, \"workers\": 1}");
+    queue.start();
+
+    assertThat(queue.enqueue(newEvent())).isPresent();
+    release.countDown();
+
+    verify(openLineageService, timeout(5000)).createInTransaction(any(BaseEvent.class));
+  }
+
+  @Test
+  void testEnqueueRejectsWhenFull() throws Exception {
+    queue = newQueue("{\"enabled\": true, \"capacity\": 1, \"workers\": 1}");
+    queue.start();
+
+    // The first event is taken by the worker, the second one fills the queue.
+    assertThat(queue.enqueue(newEvent())).isPresent();
+    verify(openLineageService, timeout(5000)).createInTransaction(any(BaseEvent.class));
+    assertThat(queue.enqueue(newEvent())).hasValue(1);
+
+    assertThat(queue.enqueue(newEvent())).isEqualTo(OptionalInt.empty());
+  }
+
+  @Test
+  void testEnqueueSpillsWhenFull(@TempDir Path spillDirectory) throws Exception {
+    queue =
+        newQueue(
+            String.format(
+                "{\"enabled\": true, \"capacity\": 1, \"workers\": 1, \"spillDirectory\": \"%s\"}",
+                spillDirectory));
+    queue.start();
+
+    assertThat(queue.enqueue(newEvent())).isPresent();
+    verify(openLineageService, timeout(5000)).createInTransaction(any(BaseEvent.class));
+    assertThat(queue.enqueue(newEvent())).hasValue(1);
+    assertThat(queue.enqueue(newEvent())).hasValue(2);
+    assertThat(countFiles(spillDirectory)).isEqualTo(1);
+
+    // Once released, the spilled event is enqueued again and written.
+    release.countDown();
+    verify(openLineageService, timeout(5000).times(3)).createInTransaction(any(BaseEvent.class));
+  }
+
+  @Test
+  void testStopSpillsPendingEvents(@TempDir Path spillDirectory) throws Exception {
+    queue =
+        newQueue(
+            String.format(
+                "{\"enabled\": true, \"capacity\": 1, \"workers\": 1, \"spillDirectory\": \"%s\"}",
+                spillDirectory));
+    queue.start();
+
+    assertThat(queue.enqueue(newEvent())).isPresent();
+    verify(openLineageService, timeout(5000)).createInTransaction(any(BaseEvent.class));
+    assertThat(queue.enqueue(newEvent())).hasValue(1);
+
+    // The pending event is spilled, then the event being written is awaited.
+    final IngestionQueue stopped = queue;
+    queue = null;
+    final CompletableFuture<Void> stop =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                stopped.stop();
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            });
+    while (countFiles(spillDirectory) == 0) {
+      Thread.sleep(10);
+    }
+    assertThat(stop).isNotDone();
+    release.countDown();
+    stop.get(5, TimeUnit.SECONDS);
+
+    verify(openLineageService, times(1)).createInTransaction(any(BaseEvent.class));
+    assertThat(countFiles(spillDirectory)).isEqualTo(1);
+  }
+
+  @Test
+  void testFailedEventSpilledAgain(@TempDir Path spillDirectory) throws Exception {
+    release.countDown();
+    doThrow(new IllegalStateException("failed"))
+        .doReturn(null)
+        .when(openLineageService)
+        .createInTransaction(any(BaseEvent.class));
+    queue =
+        newQueue(
+            String.format(
+                "{\"enabled\": true, \"capacity\": 1, \"workers\": 1, \"spillDirectory\": \"%s\"}",
+                spillDirectory));
+    queue.start();
+
+    assertThat(queue.enqueue(newEvent())).isPresent();
+
+    // The spill file of the event is only deleted once the event has been written.
+    verify(openLineageService, timeout(5000).times(2)).createInTransaction(any(BaseEvent.class));
+    for (int i = 0; i < 500 && countFiles(spillDirectory) > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(countFiles(spillDirectory)).isZero();
+  }
+
+  @Test
+  void testFailedNotificationNotRetried() throws Exception {
+    release.countDown();
+    doThrow(new IllegalStateException("failed"))
+        .when(openLineageService)
+        .notifyListeners(any(BaseEvent.class), any());
+    queue = newQueue("{\"enabled\": true, \"capacity\": 1, \"workers\": 1}");
+    queue.start();
+
+    assertThat(queue.enqueue(newEvent())).isPresent();
+
+    // The event is written once; only the notification failed.
+    verify(openLineageService, timeout(5000)).notifyListeners(any(BaseEvent.class), any());
+    verify(openLineageService, times(1)).createInTransaction(any(BaseEvent.class));
+  }
+
+  @Test
+  void testUnreadableSpilledEventMovedToFailed(@TempDir Path spillDirectory) throws Exception {
+    Files.writeString(spillDirectory.resolve("00000000000000000001-0000000001-0.json"), "{");
+    queue =
+        newQueue(
+            String.format(
+                "{\"enabled\": true, \"capacity\": 1, \"workers\": 1, \"spillDirectory\": \"%s\"}",
+                spillDirectory));
+    queue.start();
+
+    final Path failed = spillDirectory.resolve("failed");
+    for (int i = 0; i < 500 && !Files.isDirectory(failed); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(countFiles(failed)).isEqualTo(1);
+    assertThat(countFiles(spillDirectory)).isEqualTo(1);
+  }
+
+  private IngestionQueue newQueue(String config) throws Exception {
+    return new IngestionQueue(
+        openLineageService, Utils.getMapper().readValue(config, QueueConfig.class));
+  }
+
+  private static BaseEvent newEvent() {
+    return LineageEvent.builder()
+        .eventType("START")
+        .eventTime(ZonedDateTime.now())
+        .run(new LineageEvent.Run(UUID.randomUUID().toString(), null))
+        .job(LineageEvent.Job.builder().namespace("namespace").name("job").build())
+        .build();
+  }
+
+  private static long countFiles(Path directory) throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
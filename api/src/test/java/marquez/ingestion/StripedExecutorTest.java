@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.ingestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StripedExecutorTest {
+  private ExecutorService delegate;
+
+  @BeforeEach
+  void setUp() {
+    delegate = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    delegate.shutdownNow();
+  }
+
+  @Test
+  void testTasksOfSameKeyRunInOrder() throws Exception {
+    final StripedExecutor executor = new StripedExecutor(delegate, 8);
+    final UUID runUuid = UUID.randomUUID();
+    final List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+
+    final List<CompletableFuture<Void>> futures =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i -> CompletableFuture.runAsync(() -> applied.add(i), executor.stripeFor(runUuid)))
+            .collect(Collectors.toList());
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    assertThat(applied).isSorted().hasSize(100);
+  }
+
+  @Test
+  void testTasksOfDifferentStripesRunInParallel() throws Exception {
+    final StripedExecutor executor = new StripedExecutor(delegate, 2);
+    final CountDownLatch started = new CountDownLatch(2);
+
+    // Both tasks wait for each other, which only completes if they run in parallel.
+    final Runnable task =
+        () -> {
+          started.countDown();
+          try {
+            started.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        };
+    CompletableFuture.allOf(
+            CompletableFuture.runAsync(task, executor.stripeFor(0)),
+            CompletableFuture.runAsync(task, executor.stripeFor(1)))
+        .get(5, TimeUnit.SECONDS);
+
+    assertThat(started.getCount()).isZero();
+  }
+
+  @Test
+  void testNewStripedExecutorWithoutStripes() {
+    assertThatThrownBy(() -> new StripedExecutor(delegate, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -141,13 +141,17 @@ public abstract class JdbiExternalPostgresExtension
   public boolean supportsParameter(
       ParameterContext parameterContext, ExtensionContext extensionContext)
       throws ParameterResolutionException {
-    return parameterContext.getParameter().getType() == Jdbi.class;
+    final Class<?> type = parameterContext.getParameter().getType();
+    return type == Jdbi.class || type == DataSource.class;
   }
 
   @Override
   public Object resolveParameter(
       ParameterContext parameterContext, ExtensionContext extensionContext)
       throws ParameterResolutionException {
+    if (parameterContext.getParameter().getType() == DataSource.class) {
+      return getDataSource();
+    }
     return jdbi;
   }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import static marquez.db.LineageTestUtils.NAMESPACE;
+import static marquez.db.LineageTestUtils.newDatasetFacet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import marquez.api.JdbiUtils;
+import marquez.db.LineageTestUtils;
+import marquez.db.ModelChangeDao;
+import marquez.db.ModelChangeDao.ModelChangeRow;
+import marquez.db.ModelChanges;
+import marquez.db.OpenLineageDao;
+import marquez.db.models.UpdateLineageRow;
+import marquez.ingestion.IngestionConfig.ChangeFeedConfig;
+import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import marquez.service.ChangeFeedService.Position;
+import marquez.service.models.LineageEvent.Dataset;
+import marquez.service.models.LineageEvent.JobFacet;
+import marquez.service.models.LineageEvent.SchemaField;
+import org.assertj.core.groups.Tuple;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(MarquezJdbiExternalPostgresExtension.class)
+public class ChangeFeedServiceTest {
+  private static OpenLineageDao openLineageDao;
+  private static ChangeFeedService changeFeedService;
+
+  @BeforeAll
+  public static void setUpOnce(Jdbi jdbi) {
+    openLineageDao = jdbi.onDemand(OpenLineageDao.class);
+    changeFeedService =
+        new ChangeFeedService(jdbi.onDemand(ModelChangeDao.class), new ChangeFeedConfig());
+  }
+
+  @AfterEach
+  public void tearDown(Jdbi jdbi) {
+    ModelChanges.use(false);
+    JdbiUtils.cleanDatabase(jdbi);
+  }
+
+  @Test
+  public void testChangesAfter() {
+    ModelChanges.use(true);
+    final Dataset output =
+        new Dataset(
+            NAMESPACE,
+            "changedDataset",
+            newDatasetFacet(new SchemaField("name", "STRING", "the name")));
+    final UpdateLineageRow update =
+        LineageTestUtils.createLineageRow(
+            openLineageDao,
+            "changedJob",
+            "COMPLETE",
+            JobFacet.builder().build(),
+            Collections.emptyList(),
+            List.of(output));
+
+    final List<ModelChangeRow> changes =
+        changeFeedService.changesAfter(Position.START, 100, Duration.ZERO).join();
+    assertThat(changes)
+        .extracting(ModelChangeRow::type, ModelChangeRow::namespace, ModelChangeRow::name)
+        .contains(
+            Tuple.tuple("JOB", NAMESPACE, "changedJob"),
+            Tuple.tuple("DATASET", NAMESPACE, "changedDataset"));
+    assertThat(changes)
+        .filteredOn(change -> change.type().equals("JOB"))
+        .extracting(ModelChangeRow::runUuid)
+        .contains(update.getRun().getUuid());
+
+    // Resuming from the last change read returns no changes, once the wait times out.
+    final Position last = Position.of(changes.get(changes.size() - 1));
+    assertThat(changeFeedService.changesAfter(last, 100, Duration.ofMillis(600)).join()).isEmpty();
+    assertThat(Position.parse(last.toString())).isEqualTo(last);
+
+    // Reading a dataset at its current version does not change it.
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "readingJob",
+        "START",
+        JobFacet.builder().build(),
+        List.of(output),
+        Collections.emptyList());
+    assertThat(changeFeedService.changesAfter(last, 100, Duration.ZERO).join())
+        .extracting(ModelChangeRow::type, ModelChangeRow::name)
+        .containsExactly(Tuple.tuple("JOB", "readingJob"));
+  }
+
+  @Test
+  public void testWaitingClientsServedNewChanges() {
+    ModelChanges.use(true);
+    final CompletableFuture<List<ModelChangeRow>> first =
+        changeFeedService.changesAfter(Position.START, 100, Duration.ofSeconds(30));
+    final CompletableFuture<List<ModelChangeRow>> second =
+        changeFeedService.changesAfter(Position.START, 1, Duration.ofSeconds(30));
+    assertThat(first).isNotDone();
+    assertThat(second).isNotDone();
+
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "awaitedJob",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.emptyList());
+
+    assertThat(first.orTimeout(10, TimeUnit.SECONDS).join())
+        .extracting(ModelChangeRow::name)
+        .contains("awaitedJob");
+    assertThat(second.orTimeout(10, TimeUnit.SECONDS).join()).hasSize(1);
+  }
+
+  @Test
+  public void testNoChangesWhenDisabled() {
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "unchangedJob",
+        "COMPLETE",
+        JobFacet.builder().build(),
+        Collections.emptyList(),
+        Collections.emptyList());
+
+    assertThat(changeFeedService.changesAfter(Position.START, 100, Duration.ZERO).join()).isEmpty();
+  }
+}
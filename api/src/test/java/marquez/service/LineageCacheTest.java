@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+import jakarta.annotation.Nullable;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import marquez.common.models.DatasetId;
+import marquez.common.models.DatasetName;
+import marquez.common.models.DatasetVersionId;
+import marquez.common.models.JobId;
+import marquez.common.models.JobName;
+import marquez.common.models.JobVersionId;
+import marquez.common.models.NamespaceName;
+import marquez.common.models.RunId;
+import marquez.service.LineageConfig.CacheConfig;
+import marquez.service.RunTransitionListener.JobInputUpdate;
+import marquez.service.RunTransitionListener.JobOutputUpdate;
+import marquez.service.RunTransitionListener.RunInput;
+import marquez.service.RunTransitionListener.RunOutput;
+import marquez.service.models.Lineage;
+import marquez.service.models.LineageDirection;
+import marquez.service.models.Node;
+import marquez.service.models.NodeId;
+import marquez.service.models.RunMeta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LineageCacheTest {
+  private static final NamespaceName NAMESPACE = NamespaceName.of("namespace");
+  private static final NodeId JOB = NodeId.of(new JobId(NAMESPACE, JobName.of("job")));
+  private static final NodeId DATASET =
+      NodeId.of(new DatasetId(NAMESPACE, DatasetName.of("dataset")));
+
+  private LineageCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  public void setUp() {
+    cache = new LineageCache(new CacheConfig(), null);
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  public void testCachedUntilJobOrDatasetUpdated() {
+    assertThat(get(JOB, 2)).isEqualTo(get(JOB, 2));
+    assertThat(loads).hasValue(1);
+
+    // Graphs are cached per depth.
+    get(JOB, 3);
+    assertThat(loads).hasValue(2);
+
+    // Outputs of a job outside the graph, to a dataset outside the graph.
+    cache.notify(outputUpdate("otherJob", "otherDataset"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(2);
+
+    // Outputs of a job outside the graph, to a dataset in the graph.
+    cache.notify(outputUpdate("otherJob", "dataset"));
+    get(JOB, 2);
+    get(JOB, 3);
+    assertThat(loads).hasValue(4);
+
+    // Outputs of a job in the graph.
+    cache.notify(outputUpdate("job"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(5);
+
+    // Outputs of a job in the graph, unchanged since last notified.
+    cache.notify(outputUpdate("job"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(5);
+
+    // Outputs of a job outside the graph, no longer to a dataset in the graph.
+    cache.notify(outputUpdate("otherJob"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(6);
+  }
+
+  @Test
+  public void testNotInvalidatedByRunsOfUnchangedJob() {
+    final JobVersionId version = JobVersionId.of(NAMESPACE, JobName.of("job"), UUID.randomUUID());
+    cache.notify(inputUpdate(null, "dataset"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(1);
+
+    // The version of the job is only notified once the run completes.
+    cache.notify(inputUpdate(version, "dataset"));
+    cache.notify(inputUpdate(null, "dataset"));
+    cache.notify(inputUpdate(version, "dataset"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(1);
+
+    // A new version of the job.
+    cache.notify(
+        inputUpdate(JobVersionId.of(NAMESPACE, JobName.of("job"), UUID.randomUUID()), "dataset"));
+    get(JOB, 2);
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  public void testNotCachedWhenInvalidatedWhileLoading() {
+    cache.get(
+        JOB,
+        2,
+        LineageDirection.BOTH,
+        null,
+        () -> {
+          cache.notify(outputUpdate("job"));
+          return load();
+        });
+    get(JOB, 2);
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  public void testCachedWhenOtherGraphInvalidatedWhileLoading() {
+    cache.get(
+        JOB,
+        2,
+        LineageDirection.BOTH,
+        null,
+        () -> {
+          cache.notify(outputUpdate("otherJob", "otherDataset"));
+          return load();
+        });
+    get(JOB, 2);
+    assertThat(loads).hasValue(1);
+  }
+
+  private Lineage get(NodeId nodeId, int depth) {
+    return cache.get(nodeId, depth, LineageDirection.BOTH, null, this::load);
+  }
+
+  private Lineage load() {
+    loads.incrementAndGet();
+    return new Lineage(
+        ImmutableSortedSet.of(Node.job().id(JOB).build(), Node.dataset().id(DATASET).build()));
+  }
+
+  private static JobOutputUpdate outputUpdate(String jobName, String... datasetNames) {
+    return new JobOutputUpdate(
+        RunId.of(UUID.randomUUID()),
+        null,
+        JobName.of(jobName),
+        NAMESPACE,
+        List.of(datasetNames).stream()
+            .map(
+                name ->
+                    new RunOutput(
+                        new DatasetVersionId(NAMESPACE, DatasetName.of(name), UUID.randomUUID())))
+            .toList());
+  }
+
+  private static JobInputUpdate inputUpdate(
+      @Nullable JobVersionId jobVersionId, String... datasetNames) {
+    final RunId runId = RunId.of(UUID.randomUUID());
+    return new JobInputUpdate(
+        runId,
+        new RunMeta(runId, null, null, null),
+        jobVersionId,
+        JobName.of("job"),
+        NAMESPACE,
+        List.of(datasetNames).stream()
+            .map(
+                name ->
+                    new RunInput(
+                        new DatasetVersionId(NAMESPACE, DatasetName.of(name), UUID.randomUUID())))
+            .toList());
+  }
+}
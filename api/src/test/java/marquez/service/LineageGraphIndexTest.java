@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018-2024 contributors to the Marquez project
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package marquez.service;
+
+import static marquez.db.LineageTestUtils.NAMESPACE;
+import static marquez.db.LineageTestUtils.newDatasetFacet;
+import static marquez.db.LineageTestUtils.writeDownstreamLineage;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import marquez.api.JdbiUtils;
+import marquez.common.models.JobId;
+import marquez.common.models.JobName;
+import marquez.common.models.NamespaceName;
+import marquez.db.JobDao;
+import marquez.db.LineageDao;
+import marquez.db.LineageDao.JobIoRow;
+import marquez.db.LineageTestUtils;
+import marquez.db.LineageTestUtils.DatasetConsumerJob;
+import marquez.db.OpenLineageDao;
+import marquez.db.RunDao;
+import marquez.db.models.UpdateLineageRow;
+import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import marquez.service.LineageConfig.IndexConfig;
+import marquez.service.LineageGraphIndex.Graph;
+import marquez.service.LineageGraphIndex.JobIo;
+import marquez.service.models.Edge;
+import marquez.service.models.Lineage;
+import marquez.service.models.LineageEvent.Dataset;
+import marquez.service.models.LineageEvent.JobFacet;
+import marquez.service.models.LineageEvent.SchemaField;
+import marquez.service.models.Node;
+import marquez.service.models.NodeId;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(MarquezJdbiExternalPostgresExtension.class)
+public class LineageGraphIndexTest {
+  private static OpenLineageDao openLineageDao;
+  private static LineageService lineageService;
+  private static LineageGraphIndex graphIndex;
+  private static LineageService indexedLineageService;
+
+  private final Dataset dataset =
+      new Dataset(
+          NAMESPACE,
+          "commonDataset",
+          newDatasetFacet(new SchemaField("firstname", "string", "the first name")));
+  private final JobFacet jobFacet = JobFacet.builder().build();
+
+  @BeforeAll
+  public static void setUpOnce(Jdbi jdbi) {
+    final LineageDao lineageDao = jdbi.onDemand(LineageDao.class);
+    final JobDao jobDao = jdbi.onDemand(JobDao.class);
+    final RunDao runDao = jdbi.onDemand(RunDao.class);
+    openLineageDao = jdbi.onDemand(OpenLineageDao.class);
+    lineageService = new LineageService(lineageDao, jobDao, runDao);
+    graphIndex = new LineageGraphIndex(lineageDao, jobDao, new IndexConfig());
+    indexedLineageService = new LineageService(lineageDao, jobDao, runDao, graphIndex);
+  }
+
+  @AfterEach
+  public void tearDown(Jdbi jdbi) {
+    JdbiUtils.cleanDatabase(jdbi);
+  }
+
+  @Test
+  public void testIndexedLineageMatchesQuery() {
+    final UpdateLineageRow writeJob = writeLineage();
+    graphIndex.load();
+
+    final NodeId nodeId =
+        NodeId.of(new NamespaceName(NAMESPACE), new JobName(writeJob.getJob().getName()));
+    for (int depth = 0; depth <= 3; depth++) {
+      final Lineage expected = lineageService.lineage(nodeId, depth);
+      final Lineage actual = indexedLineageService.lineage(nodeId, depth);
+      assertThat(edges(actual)).isEqualTo(edges(expected));
+    }
+  }
+
+  @Test
+  public void testIndexUpdatedFromJob() {
+    final UpdateLineageRow writeJob = writeLineage();
+    graphIndex.load();
+
+    final UpdateLineageRow readJob =
+        LineageTestUtils.createLineageRow(
+            openLineageDao, "lateReadJob", "COMPLETE", jobFacet, List.of(dataset), List.of());
+    graphIndex.update(new JobId(NamespaceName.of(NAMESPACE), JobName.of("lateReadJob")));
+
+    final Lineage lineage =
+        indexedLineageService.lineage(
+            NodeId.of(new NamespaceName(NAMESPACE), new JobName(writeJob.getJob().getName())), 1);
+    assertThat(lineage.getGraph())
+        .extracting(Node::getId)
+        .contains(NodeId.of(new NamespaceName(NAMESPACE), new JobName("lateReadJob")));
+    assertThat(graphIndex.lineage(readJob.getJob().getUuid(), 0))
+        .singleElement()
+        .extracting(JobIo::inputs)
+        .isEqualTo(Set.of(readJob.getInputs().get().get(0).getDatasetRow().getUuid()));
+  }
+
+  @Test
+  public void testGraphLineage() {
+    final UUID job1 = UUID.randomUUID();
+    final UUID job2 = UUID.randomUUID();
+    final UUID job3 = UUID.randomUUID();
+    final UUID symlinked = UUID.randomUUID();
+    final UUID dataset1 = UUID.randomUUID();
+    final UUID dataset2 = UUID.randomUUID();
+    final Graph graph =
+        Graph.of(
+            List.of(
+                new JobIoRow(job1, null, dataset1, "OUTPUT"),
+                new JobIoRow(job2, null, dataset1, "INPUT"),
+                new JobIoRow(job2, null, dataset2, "OUTPUT"),
+                new JobIoRow(job3, null, dataset2, "INPUT"),
+                new JobIoRow(symlinked, job1, dataset1, "OUTPUT")));
+
+    assertThat(jobs(graph.lineage(job1, 0))).containsOnly(job1, symlinked);
+    assertThat(jobs(graph.lineage(job1, 1))).containsOnly(job1, symlinked, job2);
+    assertThat(jobs(graph.lineage(job1, 2))).containsOnly(job1, symlinked, job2, job3);
+    assertThat(graph.lineage(UUID.randomUUID(), 2)).isEmpty();
+
+    // job2 no longer writes dataset2, which disconnects job3.
+    graph.update(job2, List.of(new JobIoRow(job2, null, dataset1, "INPUT")));
+    assertThat(jobs(graph.lineage(job1, 2))).containsOnly(job1, symlinked, job2);
+    assertThat(jobs(graph.lineage(job3, 2))).containsOnly(job3);
+
+    // symlinked is no longer symlinked to job1.
+    graph.update(job1, List.of(new JobIoRow(job1, null, dataset1, "OUTPUT")));
+    assertThat(jobs(graph.lineage(job1, 0))).containsOnly(job1);
+  }
+
+  private UpdateLineageRow writeLineage() {
+    final UpdateLineageRow writeJob =
+        LineageTestUtils.createLineageRow(
+            openLineageDao, "writeJob", "COMPLETE", jobFacet, List.of(), List.of(dataset));
+    writeDownstreamLineage(
+        openLineageDao,
+        new LinkedList<>(
+            Arrays.asList(
+                new DatasetConsumerJob("readJob", 5, Optional.of("outputData")),
+                new DatasetConsumerJob("downstreamJob", 1, Optional.of("outputData2")),
+                new DatasetConsumerJob("finalConsumer", 1, Optional.empty()))),
+        jobFacet,
+        dataset);
+    return writeJob;
+  }
+
+  private static Map<NodeId, Set<Edge>> edges(Lineage lineage) {
+    return lineage.getGraph().stream()
+        .collect(
+            Collectors.toMap(
+                Node::getId,
+                node -> {
+                  final Set<Edge> edges = new HashSet<>(node.getInEdges());
+                  edges.addAll(node.getOutEdges());
+                  return edges;
+                }));
+  }
+
+  private static List<UUID> jobs(List<JobIo> lineage) {
+    return lineage.stream().map(JobIo::jobUuid).toList();
+  }
+}
@@ -44,6 +44,7 @@ import marquez.service.models.Edge;
 import marquez.service.models.Job;
 import marquez.service.models.JobData;
 import marquez.service.models.Lineage;
+import marquez.service.models.LineageDirection;
 import marquez.service.models.LineageEvent.Dataset;
 import marquez.service.models.LineageEvent.JobFacet;
 import marquez.service.models.LineageEvent.JobTypeJobFacet;
@@ -607,6 +608,61 @@ public class LineageServiceTest {
         .containsExactlyInAnyOrder(datasetNodeId);
   }
 
+  @Test
+  public void testDirectedAndBoundedLineage() {
+    LineageTestUtils.createLineageRow(
+        openLineageDao,
+        "writeJob",
+        "COMPLETE",
+        jobFacet,
+        Arrays.asList(),
+        Arrays.asList(dataset));
+    List<JobLineage> jobRows =
+        writeDownstreamLineage(
+            openLineageDao,
+            new LinkedList<>(
+                Arrays.asList(
+                    new DatasetConsumerJob("readJob", 3, Optional.of("outputData")),
+                    new DatasetConsumerJob("downstreamJob", 1, Optional.empty()))),
+            jobFacet,
+            dataset);
+    NodeId readJob =
+        NodeId.of(new NamespaceName(NAMESPACE), new JobName(jobRows.get(0).getName()));
+    String downstreamJob = jobRows.get(0).getDownstreamJobs().get(0).getName();
+
+    // downstream of readJob0: readJob0 -> outputData -> downstreamJob0
+    Lineage downstream = lineageService.lineage(readJob, 5, LineageDirection.DOWNSTREAM, null);
+    assertThat(downstream.isTruncated()).isFalse();
+    assertThat(downstream.getGraph())
+        .filteredOn(n -> n.getType().equals(NodeType.JOB))
+        .extracting(n -> n.getId().asJobId().getName().getValue())
+        .containsExactlyInAnyOrder(jobRows.get(0).getName(), downstreamJob);
+
+    // upstream of readJob0: writeJob -> commonDataset -> readJob0
+    Lineage upstream = lineageService.lineage(readJob, 5, LineageDirection.UPSTREAM, null);
+    assertThat(upstream.getGraph())
+        .filteredOn(n -> n.getType().equals(NodeType.JOB))
+        .extracting(n -> n.getId().asJobId().getName().getValue())
+        .containsExactlyInAnyOrder("writeJob", jobRows.get(0).getName());
+
+    // downstream of commonDataset: the readJobs and their downstream jobs
+    Lineage datasetDownstream =
+        lineageService.lineage(
+            NodeId.of(new NamespaceName(NAMESPACE), new DatasetName("commonDataset")),
+            5,
+            LineageDirection.DOWNSTREAM,
+            null);
+    assertThat(datasetDownstream.getGraph())
+        .filteredOn(n -> n.getType().equals(NodeType.JOB))
+        .hasSize(6)
+        .noneMatch(n -> jobNameEquals(n, "writeJob"));
+
+    // the traversal stops before exceeding the maximum number of nodes
+    Lineage bounded = lineageService.lineage(readJob, 5, LineageDirection.BOTH, 4);
+    assertThat(bounded.isTruncated()).isTrue();
+    assertThat(bounded.getGraph()).hasSizeLessThanOrEqualTo(4);
+  }
+
   private boolean jobNameEquals(Node node, String writeJob) {
     return node.getId().asJobId().getName().getValue().equals(writeJob);
   }
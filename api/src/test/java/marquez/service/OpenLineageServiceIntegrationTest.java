@@ -8,6 +8,7 @@ package marquez.service;
 import static marquez.db.LineageTestUtils.PRODUCER_URL;
 import static marquez.db.LineageTestUtils.SCHEMA_URL;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 
@@ -46,7 +47,11 @@ import marquez.db.models.ExtendedDatasetVersionRow;
 import marquez.db.models.JobRow;
 import marquez.db.models.NamespaceRow;
 import marquez.db.models.RunArgsRow;
+import marquez.ingestion.IngestionConfig;
+import marquez.ingestion.IngestionConfig.QueueConfig;
+import marquez.ingestion.IngestionQueue;
 import marquez.jdbi.MarquezJdbiExternalPostgresExtension;
+import marquez.service.OpenLineageService.BatchEventResult;
 import marquez.service.RunTransitionListener.JobInputUpdate;
 import marquez.service.RunTransitionListener.JobOutputUpdate;
 import marquez.service.RunTransitionListener.RunTransition;
@@ -65,6 +70,7 @@ import marquez.service.models.LineageEvent.SQLJobFacet;
 import marquez.service.models.LineageEvent.SchemaDatasetFacet;
 import marquez.service.models.LineageEvent.SchemaField;
 import marquez.service.models.Run;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -453,6 +459,219 @@ public class OpenLineageServiceIntegrationTest {
     assertThat(jobService.findJobByName(NAMESPACE, name)).isNotEmpty();
   }
 
+  @Test
+  void testCreateAllAsync() throws ExecutionException, InterruptedException {
+    String name = "aBatchJob";
+    UUID runId = UUID.randomUUID();
+    LineageEventBuilder builder =
+        LineageEvent.builder()
+            .run(new LineageEvent.Run(runId.toString(), RunFacet.builder().build()))
+            .job(LineageEvent.Job.builder().name(name).namespace(NAMESPACE).build())
+            .inputs(Collections.emptyList())
+            .outputs(Collections.emptyList());
+
+    List<BatchEventResult> results =
+        lineageService
+            .createAllAsync(
+                List.of(
+                    builder.eventType("START").eventTime(Instant.now().atZone(TIMEZONE)).build(),
+                    // an event without a job fails on its own, without failing the batch
+                    LineageEvent.builder()
+                        .eventType("RUNNING")
+                        .run(new LineageEvent.Run(runId.toString(), RunFacet.builder().build()))
+                        .eventTime(Instant.now().atZone(TIMEZONE))
+                        .build(),
+                    builder
+                        .eventType("COMPLETE")
+                        .eventTime(Instant.now().atZone(TIMEZONE))
+                        .build()))
+            .get();
+
+    assertThat(results)
+        .extracting(BatchEventResult::isSuccess)
+        .containsExactly(true, false, true);
+    assertThat(jobService.findJobByName(NAMESPACE, name)).isNotEmpty();
+    assertThat(jdbi.onDemand(RunDao.class).findRunByUuid(runId))
+        .isPresent()
+        .get()
+        .extracting(Run::getState)
+        .isEqualTo(RunState.COMPLETED);
+  }
+
+  @Test
+  void testEnqueuedEventRetriedOnce() throws Exception {
+    final IngestionQueue queue =
+        new IngestionQueue(
+            lineageService,
+            Utils.getMapper()
+                .readValue("{\"enabled\": true, \"workers\": 1}", QueueConfig.class));
+    queue.start();
+    // The first attempt fails once the raw event has been inserted, and the run upserted.
+    failOnceOn("run_states");
+    try {
+      UUID runId = UUID.randomUUID();
+      LineageEvent event =
+          LineageEvent.builder()
+              .eventType("START")
+              .eventTime(Instant.now().atZone(TIMEZONE))
+              .run(new LineageEvent.Run(runId.toString(), RunFacet.builder().build()))
+              .job(LineageEvent.Job.builder().name("aQueuedJob").namespace(NAMESPACE).build())
+              .inputs(Collections.emptyList())
+              .outputs(Collections.emptyList())
+              .build();
+      assertThat(queue.enqueue(event)).isPresent();
+      final RunDao runDao = jdbi.onDemand(RunDao.class);
+      for (int i = 0; i < 500 && runDao.findRunByUuid(runId).isEmpty(); i++) {
+        Thread.sleep(10);
+      }
+
+      assertThat(runDao.findRunByUuid(runId)).isPresent();
+      assertThat(
+              jdbi.withHandle(
+                  h ->
+                      h.createQuery(
+                              "SELECT count(*) FROM lineage_events WHERE run_uuid = :runUuid")
+                          .bind("runUuid", runId)
+                          .mapTo(Integer.class)
+                          .one()))
+          .isEqualTo(1);
+    } finally {
+      queue.stop();
+      dropFailOnce("run_states");
+    }
+  }
+
+  @Test
+  void testTransactionalEventLeavesNoWritesWhenModelUpdateFails() throws Exception {
+    OpenLineageService transactionalService =
+        new OpenLineageService(
+            openLineageDao,
+            runService,
+            Utils.getMapper().readValue("{\"transactional\": true}", IngestionConfig.class));
+    String name = "aRolledBackJob";
+    UUID runId = UUID.randomUUID();
+    LineageEvent event =
+        LineageEvent.builder()
+            .eventType("START")
+            .eventTime(Instant.now().atZone(TIMEZONE))
+            .run(new LineageEvent.Run(runId.toString(), RunFacet.builder().build()))
+            .job(LineageEvent.Job.builder().name(name).namespace(NAMESPACE).build())
+            .inputs(Collections.emptyList())
+            .outputs(Collections.emptyList())
+            .build();
+    // The update fails once the raw event has been inserted, and the job and run upserted.
+    failOnceOn("run_states");
+    try {
+      assertThatThrownBy(() -> transactionalService.createAsync(event).get())
+          .isInstanceOf(ExecutionException.class);
+    } finally {
+      dropFailOnce("run_states");
+    }
+
+    assertThat(
+            jdbi.withHandle(
+                h ->
+                    h.createQuery("SELECT count(*) FROM lineage_events WHERE run_uuid = :runUuid")
+                        .bind("runUuid", runId)
+                        .mapTo(Integer.class)
+                        .one()))
+        .isZero();
+    assertThat(jdbi.onDemand(RunDao.class).findRunByUuid(runId)).isEmpty();
+    assertThat(jobService.findJobByName(NAMESPACE, name)).isEmpty();
+  }
+
+  @Test
+  void testProjectedEvents() throws Exception {
+    OpenLineageService projectedService =
+        new OpenLineageService(
+            openLineageDao,
+            runService,
+            Utils.getMapper()
+                .readValue("{\"projector\":{\"enabled\":true}}", IngestionConfig.class));
+    jdbi.useHandle(h -> h.execute("DELETE FROM lineage_event_projections"));
+    projectedService.createProjection();
+
+    String name = "aProjectedJob";
+    UUID runId = UUID.randomUUID();
+    LineageEventBuilder builder =
+        LineageEvent.builder()
+            .run(new LineageEvent.Run(runId.toString(), RunFacet.builder().build()))
+            .job(LineageEvent.Job.builder().name(name).namespace(NAMESPACE).build())
+            .inputs(Collections.emptyList())
+            .outputs(Collections.emptyList());
+    projectedService
+        .createAsync(builder.eventType("START").eventTime(Instant.now().atZone(TIMEZONE)).build())
+        .get();
+    projectedService
+        .createAsync(
+            builder.eventType("COMPLETE").eventTime(Instant.now().atZone(TIMEZONE)).build())
+        .get();
+
+    // Only the raw events have been stored.
+    assertThat(jdbi.onDemand(RunDao.class).findRunByUuid(runId)).isEmpty();
+    assertThat(projectedService.getProjectionLagSeconds()).isPositive();
+
+    assertThat(projectedService.project(100)).isEqualTo(2);
+    assertThat(projectedService.project(100)).isZero();
+    assertThat(projectedService.getProjectionLagSeconds()).isZero();
+    assertThat(jobService.findJobByName(NAMESPACE, name)).isNotEmpty();
+    assertThat(jdbi.onDemand(RunDao.class).findRunByUuid(runId))
+        .isPresent()
+        .get()
+        .extracting(Run::getState)
+        .isEqualTo(RunState.COMPLETED);
+
+    // A raw event failing to be projected is recorded, then skipped.
+    jdbi.useHandle(
+        h ->
+            h.execute(
+                "INSERT INTO lineage_events (event_time, event, producer) "
+                    + "VALUES (now(), '{}', 'https://test')"));
+    assertThat(projectedService.project(100)).isEqualTo(1);
+    assertThat(projectedService.project(100)).isZero();
+    assertThat(
+            jdbi.withHandle(
+                h ->
+                    h.createQuery("SELECT count(*) FROM lineage_event_projection_failures")
+                        .mapTo(Integer.class)
+                        .one()))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testProjectionHeldBackByTransactionInProgress() throws Exception {
+    OpenLineageService projectedService =
+        new OpenLineageService(
+            openLineageDao,
+            runService,
+            Utils.getMapper()
+                .readValue("{\"projector\":{\"enabled\":true}}", IngestionConfig.class));
+    jdbi.useHandle(h -> h.execute("DELETE FROM lineage_event_projections"));
+    projectedService.createProjection();
+
+    LineageEvent event =
+        LineageEvent.builder()
+            .eventType("COMPLETE")
+            .eventTime(Instant.now().atZone(TIMEZONE))
+            .run(new LineageEvent.Run(UUID.randomUUID().toString(), RunFacet.builder().build()))
+            .job(LineageEvent.Job.builder().name("aHeldBackJob").namespace(NAMESPACE).build())
+            .inputs(Collections.emptyList())
+            .outputs(Collections.emptyList())
+            .build();
+    try (Handle transaction = jdbi.open()) {
+      // A write transaction started before the raw event is stored, and still in progress.
+      transaction.begin();
+      transaction.execute("SELECT pg_current_xact_id()");
+      projectedService.createAsync(event).get();
+
+      assertThat(projectedService.project(100)).isZero();
+      assertThat(projectedService.getProjectionLagSeconds()).isPositive();
+      transaction.commit();
+    }
+    assertThat(projectedService.project(100)).isEqualTo(1);
+    assertThat(projectedService.getProjectionLagSeconds()).isZero();
+  }
+
   @Test
   void testDatasetEvent() throws ExecutionException, InterruptedException {
     LineageEvent.Dataset dataset =
@@ -737,4 +956,37 @@ public class OpenLineageServiceIntegrationTest {
       throw new RuntimeException(e);
     }
   }
+
+  /** Fails the first row inserted into the provided {@code table}, until dropped. */
+  private void failOnceOn(String table) {
+    jdbi.useHandle(
+        h -> {
+          h.execute("CREATE SEQUENCE IF NOT EXISTS fail_once_seq");
+          h.execute(
+              """
+              CREATE OR REPLACE FUNCTION fail_once() RETURNS TRIGGER AS $$
+              BEGIN
+                IF nextval('fail_once_seq') = 1 THEN
+                  RAISE EXCEPTION 'failed once';
+                END IF;
+                RETURN NEW;
+              END;
+              $$ LANGUAGE plpgsql
+              """);
+          h.execute(
+              String.format(
+                  "CREATE TRIGGER fail_once BEFORE INSERT ON %s "
+                      + "FOR EACH ROW EXECUTE FUNCTION fail_once()",
+                  table));
+        });
+  }
+
+  private void dropFailOnce(String table) {
+    jdbi.useHandle(
+        h -> {
+          h.execute(String.format("DROP TRIGGER IF EXISTS fail_once ON %s", table));
+          h.execute("DROP FUNCTION IF EXISTS fail_once()");
+          h.execute("DROP SEQUENCE IF EXISTS fail_once_seq");
+        });
+  }
 }